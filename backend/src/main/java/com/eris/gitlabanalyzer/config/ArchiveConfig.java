@@ -0,0 +1,45 @@
+package com.eris.gitlabanalyzer.config;
+
+import com.eris.gitlabanalyzer.service.ArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+@Configuration
+@EnableScheduling
+public class ArchiveConfig {
+    private static final Logger log = LoggerFactory.getLogger(ArchiveConfig.class);
+
+    private final ArchiveService archiveService;
+
+    @Value("${archive.COMPACT_AFTER_DAYS:0}")
+    private int compactAfterDays;
+
+    public ArchiveConfig(ArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    // compacting keeps the rollups the scores are read from, so inactive projects can be compacted without asking
+    @Scheduled(cron = "${archive.COMPACT_CRON:-}")
+    public void compactInactiveProjects() {
+        if (compactAfterDays <= 0) {
+            return;
+        }
+        OffsetDateTime createdBefore = OffsetDateTime.now(ZoneOffset.UTC).minusDays(compactAfterDays);
+        for (Long projectId : archiveService.findInactiveProjectIds(createdBefore)) {
+            try {
+                archiveService.archiveProject(projectId, ArchiveService.Mode.COMPACT);
+            } catch (ResponseStatusException e) {
+                // analysed or archived since it was found, or the import bulkhead is full, it is tried again on the next run
+                log.warn("Project {} was not compacted: {}", projectId, e.getReason());
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.eris.gitlabanalyzer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The Hikari pools behind DataSourceConfig's routing data source. They are held here rather than being data source beans
+// themselves, every data source bean would be initialised by Flyway and the session schema and resolve back to the routing one.
+public class ConnectionPools implements AutoCloseable {
+    private final HikariDataSource interactive;
+    private final HikariDataSource imports;
+    private final HikariDataSource replica;
+
+    public ConnectionPools(HikariDataSource interactive, HikariDataSource imports, HikariDataSource replica) {
+        this.interactive = interactive;
+        this.imports = imports;
+        this.replica = replica;
+    }
+
+    public HikariDataSource getInteractive() {
+        return interactive;
+    }
+
+    public HikariDataSource getImports() {
+        return imports;
+    }
+
+    // null without replica.DATASOURCE_URL
+    public HikariDataSource getReplica() {
+        return replica;
+    }
+
+    public List<HikariDataSource> getAll() {
+        List<HikariDataSource> pools = new ArrayList<>(List.of(interactive, imports));
+        if (replica != null) {
+            pools.add(replica);
+        }
+        return pools;
+    }
+
+    @Override
+    public void close() {
+        getAll().forEach(HikariDataSource::close);
+    }
+}
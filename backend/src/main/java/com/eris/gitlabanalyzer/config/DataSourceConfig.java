@@ -0,0 +1,82 @@
+package com.eris.gitlabanalyzer.config;
+
+import com.eris.gitlabanalyzer.service.ImportBulkhead;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Imports and interactive requests get a pool each on spring.datasource, so a running import cannot take the connections
+// of the dashboards. The interactive pool fails fast when it is exhausted, the import pool is larger and waits.
+// Interactive reads go through ReadReplicaConfig's routing when a replica is configured.
+// Sessions are written through the interactive pool, they are never read in a replica reader's transaction.
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    ConnectionPools connectionPools(DataSourceProperties properties, ImportBulkhead importBulkhead,
+                                    @Value("${interactive.POOL_SIZE:10}") int interactivePoolSize,
+                                    @Value("${interactive.CONNECTION_TIMEOUT_MILLIS:2000}") long interactiveConnectionTimeoutMillis,
+                                    @Value("${import.CONNECTION_TIMEOUT_MILLIS:60000}") long importConnectionTimeoutMillis,
+                                    @Value("${replica.DATASOURCE_URL:}") String replicaUrl,
+                                    @Value("${replica.DATASOURCE_USERNAME:${spring.datasource.username:}}") String replicaUsername,
+                                    @Value("${replica.DATASOURCE_PASSWORD:${spring.datasource.password:}}") String replicaPassword,
+                                    @Value("${replica.POOL_SIZE:10}") int replicaPoolSize) {
+        HikariDataSource interactive = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        interactive.setPoolName("interactive");
+        interactive.setMaximumPoolSize(interactivePoolSize);
+        interactive.setConnectionTimeout(interactiveConnectionTimeoutMillis);
+
+        HikariDataSource imports = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        imports.setPoolName("import");
+        imports.setMaximumPoolSize(importBulkhead.getPoolSize());
+        // idle between imports, no connections are kept for them
+        imports.setMinimumIdle(0);
+        imports.setConnectionTimeout(importConnectionTimeoutMillis);
+        if (imports.getJdbcUrl().startsWith("jdbc:postgresql:")) {
+            // the driver sends a batch of inserts as multi row inserts
+            imports.addDataSourceProperty("reWriteBatchedInserts", "true");
+        }
+
+        HikariDataSource replica = null;
+        if (!replicaUrl.isEmpty()) {
+            replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(replicaUrl).username(replicaUsername).password(replicaPassword).build();
+            replica.setPoolName("replica");
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setConnectionTimeout(interactiveConnectionTimeoutMillis);
+            replica.setReadOnly(true);
+        }
+        return new ConnectionPools(interactive, imports, replica);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ConnectionPools connectionPools, ImportBulkhead importBulkhead,
+                          ObjectProvider<ReplicaStalenessGuard> replicaStalenessGuard) {
+        ReplicaStalenessGuard stalenessGuard = replicaStalenessGuard.getIfAvailable();
+        DataSource interactive = stalenessGuard == null || connectionPools.getReplica() == null
+                ? connectionPools.getInteractive()
+                : new ReadReplicaRoutingDataSource(connectionPools.getInteractive(), connectionPools.getReplica(),
+                        ReadReplicaConfig.REPLICA_READERS, stalenessGuard);
+        return new LazyConnectionDataSourceProxy(new WorkloadRoutingDataSource(
+                interactive, connectionPools.getImports(), importBulkhead));
+    }
+
+    // the open in view session would otherwise hold the connection of the permission checks for the whole request,
+    // a connection of the interactive pool even when the request goes on to import
+    @Bean
+    HibernatePropertiesCustomizer connectionHandlingHibernateProperties() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,84 @@
+package com.eris.gitlabanalyzer.config;
+
+import com.eris.gitlabanalyzer.model.*;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+// Second level cache of the entities read on nearly every request, each in its own region named after the entity.
+// Writes go through the entities and are READ_WRITE, bulk updates only touch commits and commit authors which are not cached.
+// The TTLs bound how stale another instance sharing the database can leave a region.
+@Configuration
+public class EntityCacheConfig {
+
+    public static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    public static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    private final long maxEntries;
+    private final Map<String, Duration> regionTtls = new LinkedHashMap<>();
+
+    public EntityCacheConfig(@Value("${entitycache.MAX_ENTRIES:10000}") long maxEntries,
+                             @Value("${entitycache.SERVER_TTL_MINUTES:60}") long serverTtl,
+                             @Value("${entitycache.PROJECT_TTL_MINUTES:30}") long projectTtl,
+                             @Value("${entitycache.SCORE_PROFILE_TTL_MINUTES:30}") long scoreProfileTtl,
+                             @Value("${entitycache.GIT_MANAGEMENT_USER_TTL_MINUTES:10}") long gitManagementUserTtl,
+                             @Value("${entitycache.USER_SERVER_TTL_MINUTES:10}") long userServerTtl,
+                             @Value("${entitycache.QUERY_TTL_MINUTES:5}") long queryTtl) {
+        this.maxEntries = maxEntries;
+        regionTtls.put(Server.class.getName(), Duration.ofMinutes(serverTtl));
+        regionTtls.put(Project.class.getName(), Duration.ofMinutes(projectTtl));
+        regionTtls.put(ScoreProfile.class.getName(), Duration.ofMinutes(scoreProfileTtl));
+        regionTtls.put(ScoreProfile.class.getName() + ".extensionWeights", Duration.ofMinutes(scoreProfileTtl));
+        regionTtls.put(ScoreProfile.class.getName() + ".blackList", Duration.ofMinutes(scoreProfileTtl));
+        regionTtls.put(GitManagementUser.class.getName(), Duration.ofMinutes(gitManagementUserTtl));
+        regionTtls.put(UserServer.class.getName(), Duration.ofMinutes(userServerTtl));
+        regionTtls.put(QUERY_RESULTS_REGION, Duration.ofMinutes(queryTtl));
+    }
+
+    // shared by every context of the JVM, a region another context already created is used as it is
+    @Bean
+    CacheManager entityCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        regionTtls.forEach((regionName, ttl) -> createRegion(cacheManager, regionName, OptionalLong.of(maxEntries), OptionalLong.of(ttl.toNanos())));
+        // a cached query is only trusted while the timestamps of its tables are known, so they neither expire nor get evicted
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, OptionalLong.empty(), OptionalLong.empty());
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer entityCacheHibernateProperties(CacheManager entityCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            // a region missing here is a misnamed @Cache, better found at startup than as an unbounded cache
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // the region hits and misses of /api/v1/entity_cache/stats
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    private static void createRegion(CacheManager cacheManager, String regionName, OptionalLong maximumSize, OptionalLong expireAfterWriteNanos) {
+        if (cacheManager.getCache(regionName) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maximumSize);
+        configuration.setExpireAfterWrite(expireAfterWriteNanos);
+        cacheManager.createCache(regionName, configuration);
+    }
+}
@@ -0,0 +1,39 @@
+package com.eris.gitlabanalyzer.config;
+
+import com.eris.gitlabanalyzer.service.PartitionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+@Configuration
+public class PartitionConfig {
+
+    // semesters are configured rather than called, starting and detaching are no-ops once applied
+    @Bean
+    CommandLineRunner semesterPartitions(PartitionService partitionService,
+                                         @Value("${partition.CURRENT_SEMESTER:}") String currentSemester,
+                                         @Value("${partition.DETACHED_SEMESTERS:}") String detachedSemesters,
+                                         @Value("${partition.DROP_DETACHED:false}") boolean dropDetached) {
+        return args -> {
+            String[] detached = Arrays.stream(detachedSemesters.split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .toArray(String[]::new);
+            if (currentSemester.isBlank() && detached.length == 0) {
+                return;
+            }
+            if (!partitionService.isPartitioned()) {
+                throw new IllegalStateException("partition.CURRENT_SEMESTER and partition.DETACHED_SEMESTERS need the partitioned PostgreSQL schema");
+            }
+            if (!currentSemester.isBlank()) {
+                partitionService.startSemester(currentSemester.trim());
+            }
+            for (String name : detached) {
+                partitionService.detachSemester(name, dropDetached);
+            }
+        };
+    }
+}
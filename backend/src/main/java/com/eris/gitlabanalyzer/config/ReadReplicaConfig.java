@@ -0,0 +1,32 @@
+package com.eris.gitlabanalyzer.config;
+
+import com.eris.gitlabanalyzer.service.CommitService;
+import com.eris.gitlabanalyzer.service.MergeRequestService;
+import com.eris.gitlabanalyzer.service.NoteService;
+import com.eris.gitlabanalyzer.service.ScoreService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Set;
+
+// The read only transactions of the dashboard services read from replica.DATASOURCE_URL, imports and everything else
+// use spring.datasource. Without a replica URL the interactive pool of DataSourceConfig is read directly.
+@Configuration
+@ConditionalOnExpression("!'${replica.DATASOURCE_URL:}'.isEmpty()")
+public class ReadReplicaConfig {
+
+    public static final Set<String> REPLICA_READERS = Set.of(ScoreService.class.getName(), NoteService.class.getName(),
+            CommitService.class.getName(), MergeRequestService.class.getName());
+
+    // DataSourceConfig routes the interactive connections with it, behind the workload routing and a lazy connection proxy
+    @Bean
+    ReplicaStalenessGuard replicaStalenessGuard(ConnectionPools connectionPools,
+                                                @Value("${replica.PRIMARY_READ_SECONDS:60}") long primaryReadSeconds,
+                                                @Value("${replica.LAG_CHECK_MILLIS:1000}") long lagCheckMillis) {
+        return new ReplicaStalenessGuard(connectionPools.getInteractive(), connectionPools.getReplica(),
+                Duration.ofSeconds(primaryReadSeconds), lagCheckMillis);
+    }
+}
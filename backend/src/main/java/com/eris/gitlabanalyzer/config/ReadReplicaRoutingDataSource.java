@@ -0,0 +1,51 @@
+package com.eris.gitlabanalyzer.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sends the connections of read only transactions begun by a replica reader to the replica and everything else to the primary.
+ * Spring Data runs every repository read in a read only transaction, so the class of the method that began the
+ * transaction decides: an import looking up what it just wrote has to read the primary.
+ * The transaction is only known once it has begun, so this sits behind a LazyConnectionDataSourceProxy
+ * that fetches the connection on the first statement.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final Set<String> replicaReaders;
+    private final ReplicaStalenessGuard stalenessGuard;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, Set<String> replicaReaders, ReplicaStalenessGuard stalenessGuard) {
+        this.replicaReaders = replicaReaders;
+        this.stalenessGuard = stalenessGuard;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && isReplicaReader(TransactionSynchronizationManager.getCurrentTransactionName())
+                && !stalenessGuard.isReplicaStale()) {
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+
+    // declarative transactions are named after the qualified method that began them
+    private boolean isReplicaReader(String transactionName) {
+        if (transactionName == null || transactionName.lastIndexOf('.') < 0) {
+            return false;
+        }
+        return replicaReaders.contains(transactionName.substring(0, transactionName.lastIndexOf('.')));
+    }
+}
@@ -0,0 +1,91 @@
+package com.eris.gitlabanalyzer.config;
+
+import com.eris.gitlabanalyzer.event.ProjectScoresChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Keeps read only transactions on the primary while the replica has not replayed the last import.
+ * A ProjectScoresChangedEvent is published after the rows of an import, ignore toggle or author mapping are committed,
+ * so the primary's WAL position at that point covers them. Reads go back to the replica once its replayed position
+ * reaches it, checked at most every lag check interval. Without WAL positions, a replica that is not a PostgreSQL standby,
+ * the primary is read for a fixed window after each change instead.
+ */
+public class ReplicaStalenessGuard {
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration primaryReadWindow;
+    private final long lagCheckMillis;
+
+    private String pendingLsn;
+    private Instant pendingSince;
+    private long nextCheckMillis;
+
+    public ReplicaStalenessGuard(DataSource primary, DataSource replica, Duration primaryReadWindow, long lagCheckMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.primaryReadWindow = primaryReadWindow;
+        this.lagCheckMillis = lagCheckMillis;
+    }
+
+    // before ScoreCache and ScoreCubeStore move on, so nothing they compute for the new generation reads the replica too early
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProjectScoresChanged(ProjectScoresChangedEvent event) {
+        markWritten();
+    }
+
+    public synchronized void markWritten() {
+        pendingLsn = currentLsn();
+        pendingSince = Instant.now();
+        nextCheckMillis = 0;
+    }
+
+    public synchronized boolean isReplicaStale() {
+        if (pendingSince == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextCheckMillis) {
+            return true;
+        }
+        if (hasCaughtUp()) {
+            pendingLsn = null;
+            pendingSince = null;
+            return false;
+        }
+        nextCheckMillis = now + lagCheckMillis;
+        return true;
+    }
+
+    private boolean hasCaughtUp() {
+        if (pendingLsn != null) {
+            try {
+                // null when the replica is not in recovery
+                Boolean replayed = replica.queryForObject("select pg_last_wal_replay_lsn() >= cast(? as pg_lsn)", Boolean.class, pendingLsn);
+                if (replayed != null) {
+                    return replayed;
+                }
+            } catch (DataAccessException e) {
+                // an unreachable replica is only read again once the window has passed
+            }
+        }
+        return !Instant.now().isBefore(pendingSince.plus(primaryReadWindow));
+    }
+
+    private String currentLsn() {
+        try {
+            return primary.queryForObject("select cast(pg_current_wal_lsn() as text)", String.class);
+        } catch (DataAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.eris.gitlabanalyzer.config;
+
+import com.eris.gitlabanalyzer.service.ImportBulkhead;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Sends the connections of import threads to the import pool and everything else to the interactive one.
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Workload {
+        INTERACTIVE, IMPORT
+    }
+
+    private final ImportBulkhead importBulkhead;
+
+    public WorkloadRoutingDataSource(DataSource interactive, DataSource imports, ImportBulkhead importBulkhead) {
+        this.importBulkhead = importBulkhead;
+        setTargetDataSources(Map.of(Workload.INTERACTIVE, interactive, Workload.IMPORT, imports));
+        setDefaultTargetDataSource(interactive);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return importBulkhead.isImportThread() ? Workload.IMPORT : Workload.INTERACTIVE;
+    }
+}
@@ -0,0 +1,64 @@
+package com.eris.gitlabanalyzer.controller;
+
+import com.eris.gitlabanalyzer.service.ArchiveService;
+import com.eris.gitlabanalyzer.service.AuthService;
+import com.eris.gitlabanalyzer.service.ProjectService;
+import com.eris.gitlabanalyzer.viewmodel.ProjectArchiveView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.List;
+
+@RestController
+public class ArchiveController {
+    private final ArchiveService archiveService;
+    private final AuthService authService;
+    private final ProjectService projectService;
+
+    @Autowired
+    public ArchiveController(ArchiveService archiveService, AuthService authService, ProjectService projectService) {
+        this.archiveService = archiveService;
+        this.authService = authService;
+        this.projectService = projectService;
+    }
+
+    // compacting keeps the scores, deleting takes the project's whole analysis history and is left to administrators
+    @PostMapping(path = "/api/v1/projects/{projectId}/archive")
+    public ProjectArchiveView archiveProject(Principal principal,
+                                             @PathVariable("projectId") Long projectId,
+                                             @RequestParam(value = "mode", defaultValue = "COMPACT") ArchiveService.Mode mode) {
+        validatePermission(principal, projectId);
+        if (mode == ArchiveService.Mode.DELETE && !authService.isAdmin(authService.getLoggedInUser(principal))) {
+            throw new AccessDeniedException("Only administrators can delete a project's analysis data.");
+        }
+        return archiveService.archiveProject(projectId, mode);
+    }
+
+    @PostMapping(path = "/api/v1/projects/{projectId}/rehydrate")
+    public ProjectArchiveView rehydrateProject(Principal principal, @PathVariable("projectId") Long projectId) {
+        validatePermission(principal, projectId);
+        return archiveService.rehydrateProject(projectId);
+    }
+
+    @GetMapping(path = "/api/v1/projects/archives")
+    public List<ProjectArchiveView> getArchives(Principal principal) {
+        if (!authService.isAdmin(authService.getLoggedInUser(principal))) {
+            throw new AccessDeniedException("Only administrators can list the archived projects.");
+        }
+        return archiveService.getArchives();
+    }
+
+    private void validatePermission(Principal principal, Long projectId) {
+        var user = authService.getLoggedInUser(principal);
+        var project = projectService.getProjectById(projectId);
+        if (!authService.hasProjectPermission(user.getId(), project.getServer().getId(), projectId)) {
+            throw new AccessDeniedException("User has no permission to see this project.");
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.eris.gitlabanalyzer.controller;
 
-import com.eris.gitlabanalyzer.model.Commit;
 import com.eris.gitlabanalyzer.service.CommitService;
+import com.eris.gitlabanalyzer.utils.JsonArrayWriter;
 import com.eris.gitlabanalyzer.viewmodel.CommitAuthorRequestBody;
 import com.eris.gitlabanalyzer.viewmodel.CommitAuthorView;
 import com.eris.gitlabanalyzer.viewmodel.CommitView;
+import com.eris.gitlabanalyzer.viewmodel.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -17,10 +20,12 @@ import java.util.stream.Stream;
 @RequestMapping(path = "/api/v1/")
 public class CommitController {
     private final CommitService commitService;
+    private final JsonArrayWriter jsonArrayWriter;
 
     @Autowired
-    public CommitController(CommitService commitService) {
+    public CommitController(CommitService commitService, JsonArrayWriter jsonArrayWriter) {
         this.commitService = commitService;
+        this.jsonArrayWriter = jsonArrayWriter;
     }
 
     @GetMapping("{projectId}/commits/authors")
@@ -36,7 +41,23 @@ public class CommitController {
     @GetMapping("{projectId}/commits")
     public Stream<CommitView> getCommits(
             @PathVariable("projectId") Long projectId) {
-        return commitService.getCommits(projectId).stream().map(CommitView::fromCommit);
+        return commitService.getCommits(projectId).stream();
+    }
+
+    // ordered by createdAt, the next page is requested with the nextCursor of the previous one
+    @GetMapping("{projectId}/commits/page")
+    public KeysetPage<CommitView> getCommitPage(
+            @PathVariable("projectId") Long projectId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        return commitService.getCommitPage(projectId, cursor, size);
+    }
+
+    // every commit of the project written as it is read, for projects too large to list in memory
+    @GetMapping(path = "{projectId}/commits/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamCommits(
+            @PathVariable("projectId") Long projectId) {
+        return outputStream -> jsonArrayWriter.<CommitView>write(outputStream, sink -> commitService.streamCommits(projectId, sink));
     }
 
     @GetMapping("{projectId}/commits/{gitManagementUserId}/orphan")
@@ -47,13 +68,13 @@ public class CommitController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDateTime,
             @RequestParam("endDateTime")
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime) {
-        List<Commit> commits;
+        List<CommitView> commits;
         if (gitManagementUserId != 0L) {
             commits = commitService.getOrphanCommitsOfGitManagementUserInDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
         } else {
             commits = commitService.getOrphanCommitsInDateRange(projectId, startDateTime, endDateTime);
         }
-        return commits.stream().map(CommitView::fromCommit);
+        return commits.stream();
     }
 
     @GetMapping("{projectId}/commits/{gitManagementUserId}")
@@ -62,7 +83,7 @@ public class CommitController {
             @PathVariable("gitManagementUserId") Long gitManagementUserId) {
         return commitService
                 .getCommitsOfGitManagementUser(projectId, gitManagementUserId)
-                .stream().map(CommitView::fromCommit);
+                .stream();
     }
 
     @GetMapping("data/projects/{projectId}/commits/user/{gitManagementUserId}/count")
@@ -73,10 +94,10 @@ public class CommitController {
                                   @RequestParam("endDateTime")
                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime) {
         if(gitManagementUserId != 0L){
-            return commitService.getCommitsOfGitManagementUserInDateRange(projectId, gitManagementUserId, startDateTime, endDateTime).size();
+            return Math.toIntExact(commitService.countCommitsOfGitManagementUserInDateRange(projectId, gitManagementUserId, startDateTime, endDateTime));
 
         } else {
-            return commitService.getCommitsInDateRange(projectId, startDateTime, endDateTime).size();
+            return Math.toIntExact(commitService.countCommitsInDateRange(projectId, startDateTime, endDateTime));
         }
     }
 
@@ -88,13 +109,13 @@ public class CommitController {
                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDateTime,
                                      @RequestParam("endDateTime")
                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime){
-        List<Commit> commits;
+        List<CommitView> commits;
         if(gitManagementUserId != 0L){
             commits = commitService.getCommitsOfGitManagementUserInDateRangeByMergeRequestId(mergeRequestId, gitManagementUserId, startDateTime, endDateTime);
         } else {
             commits = commitService.getCommitsInDateRangeByMergeRequestId(mergeRequestId,startDateTime,endDateTime);
         }
-        return commits.stream().map(CommitView::fromCommit);
+        return commits.stream();
     }
 
     @PostMapping("{projectId}/commits/mapping")
@@ -102,7 +123,5 @@ public class CommitController {
             @PathVariable("projectId") Long projectId,
             @RequestBody List<CommitAuthorRequestBody> commitAuthors) {
         commitService.mapNewCommitAuthors(projectId, commitAuthors);
-        // update MR shared status to match mapping
-        commitService.setAllSharedMergeRequests(projectId);
     }
 }
@@ -0,0 +1,22 @@
+package com.eris.gitlabanalyzer.controller;
+
+import com.eris.gitlabanalyzer.service.ConnectionPoolService;
+import com.eris.gitlabanalyzer.viewmodel.WorkloadStatsView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ConnectionPoolController {
+    private final ConnectionPoolService connectionPoolService;
+
+    @Autowired
+    public ConnectionPoolController(ConnectionPoolService connectionPoolService) {
+        this.connectionPoolService = connectionPoolService;
+    }
+
+    @GetMapping(path = "/api/v1/connection_pools/stats")
+    public WorkloadStatsView getConnectionPoolStats() {
+        return connectionPoolService.getStats();
+    }
+}
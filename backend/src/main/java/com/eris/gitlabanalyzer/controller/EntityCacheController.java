@@ -0,0 +1,24 @@
+package com.eris.gitlabanalyzer.controller;
+
+import com.eris.gitlabanalyzer.service.EntityCacheService;
+import com.eris.gitlabanalyzer.viewmodel.EntityCacheStatsView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class EntityCacheController {
+    private final EntityCacheService entityCacheService;
+
+    @Autowired
+    public EntityCacheController(EntityCacheService entityCacheService) {
+        this.entityCacheService = entityCacheService;
+    }
+
+    @GetMapping(path = "/api/v1/entity_cache/stats")
+    public List<EntityCacheStatsView> getEntityCacheStats() {
+        return entityCacheService.getStats();
+    }
+}
@@ -0,0 +1,43 @@
+package com.eris.gitlabanalyzer.controller;
+
+import com.eris.gitlabanalyzer.service.AuthService;
+import com.eris.gitlabanalyzer.service.LeaderboardService;
+import com.eris.gitlabanalyzer.viewmodel.LeaderboardRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@RestController
+public class LeaderboardController {
+    private final AuthService authService;
+    private final LeaderboardService leaderboardService;
+
+    @Autowired
+    public LeaderboardController(AuthService authService, LeaderboardService leaderboardService) {
+        this.authService = authService;
+        this.leaderboardService = leaderboardService;
+    }
+
+    // members of every project of the server the user has permission for, ranked over all of them
+    @GetMapping(path = "/api/v1/{serverId}/leaderboard/{scoreProfileId}")
+    public List<LeaderboardRow> getLeaderboard(
+            Principal principal,
+            @PathVariable("serverId") Long serverId,
+            @PathVariable("scoreProfileId") Long scoreProfileId,
+            @RequestParam("startDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDateTime,
+            @RequestParam("endDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime,
+            @RequestParam(value = "rankBy", defaultValue = "MERGE_REQUEST_SCORE") LeaderboardService.Ranking rankBy,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        var user = authService.getLoggedInUser(principal);
+        return leaderboardService.getLeaderboard(user, serverId, scoreProfileId, startDateTime, endDateTime, rankBy, limit);
+    }
+}
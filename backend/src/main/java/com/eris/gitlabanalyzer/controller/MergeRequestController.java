@@ -28,10 +28,10 @@ public class MergeRequestController {
                                   @RequestParam("endDateTime")
                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime){
         if(gitManagementUserId != 0L){
-            return mergeRequestService.getMergeRequestsByProjectIdAndGitManagementUserId(projectId, gitManagementUserId,startDateTime, endDateTime).size();
+            return Math.toIntExact(mergeRequestService.countMergeRequestsByProjectIdAndGitManagementUserId(projectId, gitManagementUserId,startDateTime, endDateTime));
 
         } else {
-            return mergeRequestService.getMergeRequestsByProjectId(projectId, startDateTime, endDateTime).size();
+            return Math.toIntExact(mergeRequestService.countMergeRequestsByProjectId(projectId, startDateTime, endDateTime));
         }
     }
 
@@ -44,11 +44,11 @@ public class MergeRequestController {
                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime){
         if(gitManagementUserId != 0L){
             return mergeRequestService.getMergeRequestsWhereGitManagementUserHasCommitsIn(projectId, gitManagementUserId, startDateTime, endDateTime)
-                    .stream().map(MergeRequestView::fromMergeRequest);
+                    .stream();
 
         } else {
             return mergeRequestService.getMergeRequestsByProjectId(projectId, startDateTime, endDateTime)
-                    .stream().map(MergeRequestView::fromMergeRequest);
+                    .stream();
         }
     }
 }
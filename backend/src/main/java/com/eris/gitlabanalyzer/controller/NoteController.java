@@ -3,14 +3,18 @@ package com.eris.gitlabanalyzer.controller;
 import com.eris.gitlabanalyzer.service.AuthService;
 import com.eris.gitlabanalyzer.service.NoteService;
 import com.eris.gitlabanalyzer.service.ProjectService;
+import com.eris.gitlabanalyzer.utils.JsonArrayWriter;
+import com.eris.gitlabanalyzer.viewmodel.KeysetPage;
 import com.eris.gitlabanalyzer.viewmodel.NoteView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
 import java.time.OffsetDateTime;
@@ -22,12 +26,14 @@ public class NoteController {
     private final ProjectService projectService;
 
     private final NoteService noteService;
+    private final JsonArrayWriter jsonArrayWriter;
 
     @Autowired
-    public NoteController(AuthService authService, ProjectService projectService, NoteService noteService) {
+    public NoteController(AuthService authService, ProjectService projectService, NoteService noteService, JsonArrayWriter jsonArrayWriter) {
         this.authService = authService;
         this.projectService = projectService;
         this.noteService = noteService;
+        this.jsonArrayWriter = jsonArrayWriter;
     }
 
     @GetMapping(path = "/api/v1/{projectId}/merge_request_notes/{gitManagementUserId}")
@@ -65,6 +71,68 @@ public class NoteController {
         }
     }
 
+    // ordered by createdAt, the next page is requested with the nextCursor of the previous one
+    @GetMapping(path = "/api/v1/{projectId}/merge_request_notes/{gitManagementUserId}/page")
+    public KeysetPage<NoteView> getMergeRequestNotePage(
+            Principal principal,
+            @PathVariable("projectId") Long projectId,
+            @PathVariable("gitManagementUserId") Long gitManagementUserId,
+            @RequestParam("startDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDateTime,
+            @RequestParam("endDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        validatePermission(principal, projectId);
+        return noteService.getMergeRequestNotePage(projectId, gitManagementUserId, startDateTime, endDateTime, cursor, size);
+    }
+
+    // permission is checked before the response starts, the notes are written as they are read
+    @GetMapping(path = "/api/v1/{projectId}/merge_request_notes/{gitManagementUserId}/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamMergeRequestNotes(
+            Principal principal,
+            @PathVariable("projectId") Long projectId,
+            @PathVariable("gitManagementUserId") Long gitManagementUserId,
+            @RequestParam("startDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDateTime,
+            @RequestParam("endDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime) {
+        validatePermission(principal, projectId);
+        return outputStream -> jsonArrayWriter.<NoteView>write(outputStream,
+                sink -> noteService.streamMergeRequestNotes(projectId, gitManagementUserId, startDateTime, endDateTime, sink));
+    }
+
+    // ordered by createdAt, the next page is requested with the nextCursor of the previous one
+    @GetMapping(path = "/api/v1/{projectId}/issue_notes/{gitManagementUserId}/page")
+    public KeysetPage<NoteView> getIssueNotePage(
+            Principal principal,
+            @PathVariable("projectId") Long projectId,
+            @PathVariable("gitManagementUserId") Long gitManagementUserId,
+            @RequestParam("startDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDateTime,
+            @RequestParam("endDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        validatePermission(principal, projectId);
+        return noteService.getIssueNotePage(projectId, gitManagementUserId, startDateTime, endDateTime, cursor, size);
+    }
+
+    // permission is checked before the response starts, the notes are written as they are read
+    @GetMapping(path = "/api/v1/{projectId}/issue_notes/{gitManagementUserId}/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamIssueNotes(
+            Principal principal,
+            @PathVariable("projectId") Long projectId,
+            @PathVariable("gitManagementUserId") Long gitManagementUserId,
+            @RequestParam("startDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDateTime,
+            @RequestParam("endDateTime")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime) {
+        validatePermission(principal, projectId);
+        return outputStream -> jsonArrayWriter.<NoteView>write(outputStream,
+                sink -> noteService.streamIssueNotes(projectId, gitManagementUserId, startDateTime, endDateTime, sink));
+    }
+
     private void validatePermission(Principal principal, Long projectId) {
         if (!hasProjectPermission(principal, projectId)) {
             throw new AccessDeniedException("User has no permission to see this project.");
@@ -6,10 +6,16 @@ import com.eris.gitlabanalyzer.service.AnalyticsService;
 import com.eris.gitlabanalyzer.service.AuthService;
 import com.eris.gitlabanalyzer.service.MessageService;
 import com.eris.gitlabanalyzer.service.ProjectService;
+import com.eris.gitlabanalyzer.utils.JsonArrayWriter;
 import com.eris.gitlabanalyzer.viewmodel.AnalysisRunView;
+import com.eris.gitlabanalyzer.viewmodel.KeysetPage;
+import com.eris.gitlabanalyzer.viewmodel.ProjectView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
 import java.time.OffsetDateTime;
@@ -23,12 +29,14 @@ public class ProjectController {
     private final ProjectService projectService;
     private final AnalyticsService analyticsService;
     private final AuthService authService;
+    private final JsonArrayWriter jsonArrayWriter;
 
     @Autowired
-    public ProjectController(ProjectService projectService, AnalyticsService analyticsService, AuthService authService){
+    public ProjectController(ProjectService projectService, AnalyticsService analyticsService, AuthService authService, JsonArrayWriter jsonArrayWriter){
         this.projectService = projectService;
         this.analyticsService = analyticsService;
         this.authService = authService;
+        this.jsonArrayWriter = jsonArrayWriter;
     }
 
     @GetMapping(path = "/projects/{projectId}/rawdata")
@@ -46,6 +54,29 @@ public class ProjectController {
         return projectService.getProjects();
     }
 
+    // ordered by id, the next page is requested with the nextCursor of the previous one
+    @GetMapping(path = "/projects/page")
+    public KeysetPage<ProjectView> getProjectPage(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        return projectService.getProjectPage(cursor, size);
+    }
+
+    @GetMapping(path = "/projects/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamProjects() {
+        return outputStream -> jsonArrayWriter.<ProjectView>write(outputStream, projectService::streamProjects);
+    }
+
+    // path is relative to the configured local repository root, without it the project is imported through the API
+    @PutMapping(path = "/projects/{projectId}/local_repository")
+    public Project setLocalRepositoryPath(
+            Principal principal,
+            @PathVariable("projectId") Long projectId,
+            @RequestParam(value = "path", required = false) String path){
+        validatePermission(principal, projectId);
+        return projectService.setLocalRepositoryPath(projectId, path);
+    }
+
     @PostMapping(path = "/{serverId}/projects/analytics/save_all")
     public List<Long> saveProjectDataForAnalysisRuns(
             @PathVariable("serverId") Long serverId,
@@ -68,4 +99,12 @@ public class ProjectController {
         var user = authService.getLoggedInUser(principal);
         return analyticsService.saveProjectsAndAnalysisRuns(user, serverId, gitLabProjectIdList, startDateTime, endDateTime, scoreProfileId, scoreProfileName);
     }
+
+    private void validatePermission(Principal principal, Long projectId) {
+        var user = authService.getLoggedInUser(principal);
+        var project = projectService.getProjectById(projectId);
+        if (!authService.hasProjectPermission(user.getId(), project.getServer().getId(), projectId)) {
+            throw new AccessDeniedException("User has no permission to see this project.");
+        }
+    }
 }
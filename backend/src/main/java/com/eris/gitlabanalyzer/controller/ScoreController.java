@@ -2,14 +2,19 @@ package com.eris.gitlabanalyzer.controller;
 
 import com.eris.gitlabanalyzer.service.ScoreService;
 import com.eris.gitlabanalyzer.viewmodel.CommitView;
+import com.eris.gitlabanalyzer.viewmodel.FileScoreView;
 import com.eris.gitlabanalyzer.viewmodel.MergeRequestView;
+import com.eris.gitlabanalyzer.viewmodel.ScoreCacheStatsView;
 import com.eris.gitlabanalyzer.viewmodel.ScoreDigest;
+import com.eris.gitlabanalyzer.viewmodel.ScoreProfileComparisonRow;
+import com.eris.gitlabanalyzer.viewmodel.ScoreboardRow;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 class MergeReturnObject {
     public double mergeScore;
@@ -70,6 +75,11 @@ public class ScoreController {
         }
     }
 
+    @GetMapping(path = "/merge_request/{merge_request_id}/diff/files")
+    public Stream<FileScoreView> getMergeFileScores(@PathVariable("merge_request_id") Long mergeId) {
+        return scoreService.getMergeFileScores(mergeId).stream();
+    }
+
     @PostMapping(path = "/merge_request/{merge_request_id}/ignore")
     public MergeRequestView toggleIgnoreMergeFromScore(@PathVariable("merge_request_id") Long mergeId) {
         return MergeRequestView.fromMergeRequest(scoreService.toggleIgnoreMergeFromScore(mergeId));
@@ -98,6 +108,11 @@ public class ScoreController {
         }
     }
 
+    @GetMapping(path = "/commit/{commitId}/diff/files")
+    public Stream<FileScoreView> getCommitFileScores(@PathVariable("commitId") Long commitId) {
+        return scoreService.getCommitFileScores(commitId).stream();
+    }
+
     @PostMapping(path = "/commit/{commitId}/ignore")
     public CommitView toggleIgnoreCommitFromScore(@PathVariable("commitId") Long commitId) {
         return CommitView.fromCommit(scoreService.toggleIgnoreCommitFromScore(commitId));
@@ -113,4 +128,31 @@ public class ScoreController {
                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime) {
         return scoreService.getDailyScoreDigest(projectId, gitManagementUserId, scoreProfileId, startDateTime, endDateTime);
     }
-}
\ No newline at end of file
+
+    // scores and counts of every member of the project, instead of the per member endpoints above
+    @GetMapping(path = "/{projectId}/scoreboard/{scoreProfileId}")
+    public List<ScoreboardRow> getScoreboard(@PathVariable("projectId") Long projectId,
+                                             @PathVariable("scoreProfileId") Long scoreProfileId,
+                                             @RequestParam("startDateTime")
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDateTime,
+                                             @RequestParam("endDateTime")
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime) {
+        return scoreService.getScoreboard(projectId, scoreProfileId, startDateTime, endDateTime);
+    }
+
+    // scores of every member under each of the score profiles, in the order of scoreProfileIds
+    @GetMapping(path = "/{projectId}/scoreboard/compare")
+    public List<ScoreProfileComparisonRow> compareScoreProfiles(@PathVariable("projectId") Long projectId,
+                                                                @RequestParam("scoreProfileIds") List<Long> scoreProfileIds,
+                                                                @RequestParam("startDateTime")
+                                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDateTime,
+                                                                @RequestParam("endDateTime")
+                                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDateTime) {
+        return scoreService.compareScoreProfiles(projectId, scoreProfileIds, startDateTime, endDateTime);
+    }
+
+    @GetMapping(path = "/score_cache/stats")
+    public ScoreCacheStatsView getScoreCacheStats() {
+        return scoreService.getScoreCacheStats();
+    }
+}
@@ -1,28 +1,47 @@
 package com.eris.gitlabanalyzer.dataprocessing;
 
+import com.eris.gitlabanalyzer.dataprocessing.StreamingDiffParser.StreamedFileChange;
 import com.eris.gitlabanalyzer.model.Commit;
 import com.eris.gitlabanalyzer.model.FileScore;
+import com.eris.gitlabanalyzer.model.FileScoreHunkIndex;
 import com.eris.gitlabanalyzer.model.MergeRequest;
 import com.eris.gitlabanalyzer.model.Project;
-import com.eris.gitlabanalyzer.model.gitlabresponse.GitLabFileChange;
+import com.eris.gitlabanalyzer.repository.FileScoreHunkIndexRepository;
 import com.eris.gitlabanalyzer.repository.FileScoreRepository;
 import com.eris.gitlabanalyzer.repository.ProjectRepository;
 import com.eris.gitlabanalyzer.service.GitLabService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Component
 public class CalculateDiffMetrics {
 
+    private static final CommentCharacter DEFAULT_COMMENT_CHARACTER = new CommentCharacter(" ", " ", " ");
+    private static final Duration GITATTRIBUTES_TIMEOUT = Duration.ofSeconds(10);
+
     private final Map<String, CommentCharacter> commentCharacters = new HashMap<>();
 
     private final FileScoreRepository fileScoreRepository;
+    private final FileScoreHunkIndexRepository fileScoreHunkIndexRepository;
     private final ProjectRepository projectRepository;
     private final GitLabService requestScopeGitLabService;
+    private final GeneratedFileFilter generatedFileFilter;
+    private final LocalRepositoryReader localRepositoryReader;
+    private final ScoreRollupWriter scoreRollupWriter;
+
+    @Value("${diff.HUNK_INDEX_ENABLED:true}")
+    private boolean hunkIndexEnabled;
 
     public enum lineTypes {
         code,
@@ -40,12 +59,17 @@ public class CalculateDiffMetrics {
         unchanged,
     }
 
-    public CalculateDiffMetrics(FileScoreRepository fileScoreRepository, ProjectRepository projectRepository,
-                                 GitLabService requestScopeGitLabService){
+    public CalculateDiffMetrics(FileScoreRepository fileScoreRepository, FileScoreHunkIndexRepository fileScoreHunkIndexRepository,
+                                 ProjectRepository projectRepository, GitLabService requestScopeGitLabService, GeneratedFileFilter generatedFileFilter,
+                                 LocalRepositoryReader localRepositoryReader, ScoreRollupWriter scoreRollupWriter){
         initializeCommentCharacters();
         this.fileScoreRepository = fileScoreRepository;
+        this.fileScoreHunkIndexRepository = fileScoreHunkIndexRepository;
         this.projectRepository = projectRepository;
         this.requestScopeGitLabService = requestScopeGitLabService;
+        this.generatedFileFilter = generatedFileFilter;
+        this.localRepositoryReader = localRepositoryReader;
+        this.scoreRollupWriter = scoreRollupWriter;
     }
 
     private void initializeCommentCharacters(){
@@ -58,46 +82,102 @@ public class CalculateDiffMetrics {
         commentCharacters.put("py", new CommentCharacter("#", "\"\"\"", "\"\"\""));
     }
 
+    public void loadGeneratedFileRules(Project project){
+        // without the file, or when it cannot be read in time, only the global rules apply instead of failing the import
+        String gitAttributes = requestScopeGitLabService.getRawFile(project.getGitLabProjectId(), ".gitattributes")
+                .timeout(GITATTRIBUTES_TIMEOUT)
+                .onErrorResume(e -> Mono.empty())
+                .block();
+        generatedFileFilter.loadGitAttributes(project.getId(), gitAttributes);
+    }
+
     public void storeMetricsCommit(Commit commit){
-        if(fileScoreRepository.findByCommitId(commit.getId()).isEmpty()){
+        if(fileScoreRepository.findByProjectIdAndCommitId(commit.getProject().getId(), commit.getId()).isEmpty()){
             Project project = projectRepository.findById(commit.getProject().getId()).orElse(null);
             if(project != null ){
-                Iterable<GitLabFileChange> commitDiff = requestScopeGitLabService.getCommitDiff(project.getGitLabProjectId(), commit.getSha()).toIterable();
+                Flux<DataBuffer> commitDiff = requestScopeGitLabService.getCommitDiffBody(project.getGitLabProjectId(), commit.getSha());
 
-                // todo find a way to simpilfy this
-                for(GitLabFileChange file : commitDiff){
-                    String fileType = findFileType(file);
-                    Map<lineTypes, Integer> fileCount = countLineTypes(file.getDiff(), fileType);
-                    FileScore fileScore = new FileScore(commit, fileType.toLowerCase(), file.getNewPath(),
-                            fileCount.getOrDefault(lineTypes.code, 0), fileCount.getOrDefault(lineTypes.syntax,0),
-                            fileCount.getOrDefault(lineTypes.comment,0), fileCount.getOrDefault(lineTypes.removedCode,0),
-                            fileCount.getOrDefault(lineTypes.removedSyntax, 0), fileCount.getOrDefault(lineTypes.removedComment, 0));
-                    fileScoreRepository.save(fileScore);
-                }
+                List<FileScore> fileScores = new ArrayList<>();
+                createStreamingDiffParser(project).parse(commitDiff, file -> fileScores.add(saveCommitFileScore(commit, file)));
+                scoreRollupWriter.writeCommitRollup(commit, fileScores);
+            }
+        }
+    }
+
+    // with a local repository every commit of the batch is diffed in parallel, otherwise one API call per commit
+    public void storeMetricsCommits(Project project, List<Commit> commits){
+        List<Commit> newCommits = commits.stream()
+                .filter(commit -> fileScoreRepository.findByProjectIdAndCommitId(commit.getProject().getId(), commit.getId()).isEmpty())
+                .collect(Collectors.toList());
+        if(project.getLocalRepositoryPath() == null){
+            newCommits.forEach(this::storeMetricsCommit);
+            return;
+        }
+
+        List<String> shas = newCommits.stream().map(Commit::getSha).collect(Collectors.toList());
+        Map<String, List<StreamedFileChange>> commitDiffs = localRepositoryReader.getCommitDiffs(project.getLocalRepositoryPath(), shas, createStreamingDiffParser(project));
+        for(Commit commit : newCommits){
+            List<StreamedFileChange> files = commitDiffs.get(commit.getSha());
+            if(files == null){
+                // not fetched into the local repository yet
+                storeMetricsCommit(commit);
+            } else {
+                List<FileScore> fileScores = files.stream().map(file -> saveCommitFileScore(commit, file)).collect(Collectors.toList());
+                scoreRollupWriter.writeCommitRollup(commit, fileScores);
             }
         }
     }
 
     public void storeMetricsMerge(MergeRequest mergeRequest){
-        if(fileScoreRepository.findByMergeId(mergeRequest.getId()).isEmpty()){
+        if(fileScoreRepository.findByProjectIdAndMergeId(mergeRequest.getProject().getId(), mergeRequest.getId()).isEmpty()){
             Project project = mergeRequest.getProject();
 
             if(project != null){
-                Iterable<GitLabFileChange> merge = requestScopeGitLabService.getMergeRequestDiff(project.getGitLabProjectId(), mergeRequest.getIid()).toIterable();
+                StreamingDiffParser parser = createStreamingDiffParser(project);
+                if(project.getLocalRepositoryPath() != null){
+                    Optional<List<StreamedFileChange>> localDiff = localRepositoryReader.getMergeRequestDiff(project.getLocalRepositoryPath(),
+                            mergeRequest.getMergeCommitSha(), mergeRequest.getHeadSha(), parser);
+                    if(localDiff.isPresent()){
+                        List<FileScore> fileScores = localDiff.get().stream().map(file -> saveMergeFileScore(mergeRequest, file)).collect(Collectors.toList());
+                        scoreRollupWriter.writeMergeRollup(mergeRequest, fileScores);
+                        return;
+                    }
+                }
+                Flux<DataBuffer> merge = requestScopeGitLabService.getMergeRequestDiffBody(project.getGitLabProjectId(), mergeRequest.getIid());
 
-                for(GitLabFileChange file : merge){
-                    String fileType = findFileType(file);
-                    Map<lineTypes, Integer> fileCount = countLineTypes(file.getDiff(), fileType);
+                List<FileScore> fileScores = new ArrayList<>();
+                parser.parse(merge, file -> fileScores.add(saveMergeFileScore(mergeRequest, file)));
+                scoreRollupWriter.writeMergeRollup(mergeRequest, fileScores);
+            }
+        }
+    }
 
-                    FileScore fileScore = new FileScore(mergeRequest, fileType.toLowerCase(), file.getNewPath(),
-                            fileCount.getOrDefault(lineTypes.code, 0), fileCount.getOrDefault(lineTypes.syntax,0),
-                            fileCount.getOrDefault(lineTypes.comment,0), fileCount.getOrDefault(lineTypes.removedCode,0),
-                            fileCount.getOrDefault(lineTypes.removedSyntax, 0), fileCount.getOrDefault(lineTypes.removedComment, 0));
+    private FileScore saveCommitFileScore(Commit commit, StreamedFileChange file){
+        FileScore fileScore = new FileScore(commit, findFileType(file.getPath()).toLowerCase(), file.getNewPath(),
+                file.getCount(lineTypes.code), file.getCount(lineTypes.syntax),
+                file.getCount(lineTypes.comment), file.getCount(lineTypes.removedCode),
+                file.getCount(lineTypes.removedSyntax), file.getCount(lineTypes.removedComment));
+        return saveFileScore(fileScore, file);
+    }
 
-                    fileScoreRepository.save(fileScore);
-                }
-            }
+    private FileScore saveMergeFileScore(MergeRequest mergeRequest, StreamedFileChange file){
+        FileScore fileScore = new FileScore(mergeRequest, findFileType(file.getPath()).toLowerCase(), file.getNewPath(),
+                file.getCount(lineTypes.code), file.getCount(lineTypes.syntax),
+                file.getCount(lineTypes.comment), file.getCount(lineTypes.removedCode),
+                file.getCount(lineTypes.removedSyntax), file.getCount(lineTypes.removedComment));
+        return saveFileScore(fileScore, file);
+    }
+
+    private FileScore saveFileScore(FileScore fileScore, StreamedFileChange file){
+        fileScore.setGenerated(file.isGenerated());
+        fileScore.setDiffSize(file.getDiffSize());
+        fileScore.setMovedLines(file.getMovedLines());
+        fileScore.setReformattedLines(file.getReformattedLines());
+        FileScore saved = fileScoreRepository.save(fileScore);
+        if (file.getHunkIndex() != null) {
+            fileScoreHunkIndexRepository.save(new FileScoreHunkIndex(saved, file.getHunkIndex()));
         }
+        return saved;
     }
 
     /**
@@ -112,160 +192,33 @@ public class CalculateDiffMetrics {
                 fileCount.getOrDefault(lineTypes.removedSyntax, 0), fileCount.getOrDefault(lineTypes.removedComment, 0));
 
         fileScoreRepository.save(fileScore);
+        scoreRollupWriter.writeMergeRollup(testMr, fileScoreRepository.findByMergeId(testMr.getId()));
     }
 
-    private String findFileType(GitLabFileChange file){
-        String[] fileNameParsed;
-        if(file.getNewPath() != null){
-            fileNameParsed = file.getNewPath().split("\\.");
-        } else {
-            fileNameParsed = file.getOldPath().split("\\.");
-        }
-        return fileNameParsed[fileNameParsed.length -1];
-    }
-
-    private Map<lineTypes, Integer> countLineTypes(String diff, String fileType){
-        Map<lineTypes, Integer> lineTotals = new HashMap<>();
-        String[] lines = diff.split("\n");
-
-        // if no commentCharacter info exists defaults to space which is trimmed at start of line parsing
-        CommentCharacter commentOperators = commentCharacters.getOrDefault(fileType, new CommentCharacter(" "," "," "));
-
-        for(int lineNumber = 0; lineNumber < lines.length; lineNumber++){
-
-            String line = lines[lineNumber];
-            lineAction action = getAction(line);
-            line = trimForEval(line, action);
-
-            if(line.length() > 0 && !line.equals("\\Nonewlineatendoffile")) {
-
-                switch (typeOfLine(line, commentOperators)) {
-                    case code:
-                        updateTotal(action, lineTypes.code, lineTotals);
-                        break;
-                    case comment:
-                        updateTotal(action, lineTypes.comment, lineTotals);
-                        break;
-                    case blockComment:
-                        // handle case where line contains only comment operator
-                        if(commentOperators.getBlockCommentStart().equals(line)) {
-                            updateTotal(action, lineTypes.syntax, lineTotals);
-                        } else{
-                            updateTotal(action, lineTypes.comment, lineTotals);
-                        }
-                        // handle case where enters a comment but doesn't exit before end
-                        while (!line.contains(commentOperators.getBlockCommentEnd()) && lineNumber < lines.length - 1) {
-                            lineNumber++;
-                            line = lines[lineNumber];
-                            action = getAction(line);
-                            line = trimForEval(line, action);
-                            updateTotal(action, lineTypes.comment, lineTotals);
-                        }
-                        // handles case where comment operator is by itself on line
-                        if(line.startsWith(commentOperators.getBlockCommentEnd())&& action == lineAction.added) {
-                            updateTotal(action, lineTypes.syntax, lineTotals);
-                            lineTotals.put(lineTypes.comment, lineTotals.get(lineTypes.comment) - 1);
-                        }
-                        lineTypes secondType = isHybrid(line, commentOperators.getBlockCommentEnd());
-                        if(secondType != lineTypes.comment){
-                            updateTotal(action, secondType, lineTotals);
-                        }
-                        break;
-                    case syntax:
-                        updateTotal(action, lineTypes.syntax, lineTotals);
-                        break;
-                }
-            }
-        }
-        return lineTotals;
-    }
-
-    private lineAction getAction(String line){
-        if(line.length() >= 2){
-            String startChar = line.substring(0,1);
-            if(startChar.equals("+")){
-                return lineAction.added;
-            } else if(startChar.equals("-")){
-                return  lineAction.removed;
-            } else{
-                return lineAction.unchanged;
-            }
-        }
-        return  lineAction.unchanged;
+    private StreamingDiffParser createStreamingDiffParser(Project project){
+        return new StreamingDiffParser(path -> findCommentCharacter(findFileType(path)),
+                path -> generatedFileFilter.isGenerated(project.getId(), path), hunkIndexEnabled);
     }
 
-    private String trimForEval(String line, lineAction action){
-        line = line.replaceAll("\\s+","");
-        if(action != lineAction.unchanged){
-            line = line.substring(1);
+    private String findFileType(String filePath){
+        if(filePath == null){
+            return "";
         }
-        return line;
-    }
-
-    private void updateTotal(lineAction action, lineTypes type,  Map<lineTypes, Integer> lineTotals){
-        if(action == lineAction.added){
-            lineTotals.put(type, lineTotals.getOrDefault(type, 0) + 1);
-        } else if(action == lineAction.removed){
-            switch (type){
-                case code:
-                    lineTotals.put(lineTypes.removedCode, lineTotals.getOrDefault(lineTypes.removedCode, 0) + 1);
-                    break;
-                case syntax:
-                    lineTotals.put(lineTypes.removedSyntax, lineTotals.getOrDefault(lineTypes.removedSyntax, 0) + 1);
-                    break;
-                case comment:
-                    lineTotals.put(lineTypes.removedComment, lineTotals.getOrDefault(lineTypes.removedComment, 0) + 1);
-                    break;
-            }
-
-        }
-    }
-
-    private lineTypes typeOfLine(String line, CommentCharacter commentOperator){
-        if(isCommentofOperator(line, commentOperator.getSingleLineComment())){
-            return lineTypes.comment;
-        }
-        if(isCommentofOperator(line, commentOperator.getBlockCommentStart())){
-            return lineTypes.blockComment;
-        }
-        if(isSyntax(line)){
-            return lineTypes.syntax;
-        }
-        return lineTypes.code;
-    }
-
-    private boolean isCommentofOperator(String line, String operator){
-        // handle edge case to avoid index out of bound exception
-        if(line.length() >= operator.length()){
-            String lineStartChar = line.substring(0, operator.length());
-            if(lineStartChar.equals(operator)){
-                return true;
-            }
-        }
-        return false;
+        String[] fileNameParsed = filePath.split("\\.");
+        return fileNameParsed[fileNameParsed.length -1];
     }
 
-    //Makes assumption that every syntax doesn't contains alphanumeric chars
-    private boolean isSyntax(String line){
-        Pattern pattern = Pattern.compile("[a-zA-Z0-9]");
-        Matcher matcher = pattern.matcher(line);
-        if(matcher.find()){
-            return false;
-        }
-        return true;
+    // if no commentCharacter info exists defaults to space which is trimmed at start of line parsing
+    private CommentCharacter findCommentCharacter(String fileType){
+        return commentCharacters.getOrDefault(fileType, DEFAULT_COMMENT_CHARACTER);
     }
 
-    private lineTypes isHybrid(String line, String operator){
-        if(line.contains(operator) && !line.endsWith(operator)){
-           int commentEndIndex = line.indexOf(operator);
-           // add operator lengths so substring is exclusive of operator
-           String secondSection = line.substring(commentEndIndex + operator.length());
-           if(isSyntax(secondSection)){
-               return lineTypes.syntax;
-           }
-           return lineTypes.code;
+    private Map<lineTypes, Integer> countLineTypes(String diff, String fileType){
+        DiffLineClassifier classifier = new DiffLineClassifier(findCommentCharacter(fileType));
+        for(String line : diff.split("\n")){
+            classifier.acceptLine(line);
         }
-        return lineTypes.comment;
+        return classifier.getLineTotals();
     }
 
 }
@@ -0,0 +1,76 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import com.eris.gitlabanalyzer.model.ScoreProfile;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Immutable evaluator of a ScoreProfile. The weights of every file type the profile names are resolved once into
+ * an array indexed by FileTypeRegistry id and the blacklist is a bitset, so scoring a row is an array read instead of
+ * a list scan and a lookup in the Hibernate managed extension map.
+ */
+public class CompiledScoreProfile {
+
+    private final FileTypeWeights defaultWeights;
+    // null for file types the profile has no weight for
+    private final FileTypeWeights[] weightsByFileType;
+    private final BitSet blackList = new BitSet();
+
+    private CompiledScoreProfile(ScoreProfile scoreProfile) {
+        this.defaultWeights = FileTypeWeights.weighted(1.0, scoreProfile);
+        FileTypeWeights[] weights = new FileTypeWeights[0];
+        for (var extension : scoreProfile.getExtensionWeights().entrySet()) {
+            int fileType = FileTypeRegistry.intern(extension.getKey());
+            weights = ensureSize(weights, fileType);
+            weights[fileType] = FileTypeWeights.weighted(extension.getValue(), scoreProfile);
+        }
+        // the blacklist wins over an extension weight
+        for (String blackListed : scoreProfile.getBlackList()) {
+            int fileType = FileTypeRegistry.intern(blackListed);
+            weights = ensureSize(weights, fileType);
+            weights[fileType] = FileTypeWeights.blackListed();
+            blackList.set(fileType);
+        }
+        this.weightsByFileType = weights;
+    }
+
+    public static CompiledScoreProfile compile(ScoreProfile scoreProfile) {
+        return new CompiledScoreProfile(scoreProfile);
+    }
+
+    public FileTypeWeights weights(int fileType) {
+        if (fileType < 0 || fileType >= weightsByFileType.length || weightsByFileType[fileType] == null) {
+            return defaultWeights;
+        }
+        return weightsByFileType[fileType];
+    }
+
+    public FileTypeWeights weights(String fileType) {
+        return weights(FileTypeRegistry.find(fileType));
+    }
+
+    public double score(FileTypeLineTotals total) {
+        return weights(total.getFileType()).score(
+                total.getUnpairedCodeLineAdded(), total.getSyntaxLineAdded(), total.getCommentLineAdded(),
+                total.getUnpairedCodeLineRemoved(), total.getSyntaxLineRemoved(), total.getCommentLineRemoved(),
+                total.getMovedLines(), total.getReformattedLines());
+    }
+
+    public boolean isBlackListed(int fileType) {
+        return fileType >= 0 && blackList.get(fileType);
+    }
+
+    FileTypeWeights defaultWeights() {
+        return defaultWeights;
+    }
+
+    // ids at and above this have the default weights
+    int fileTypeCount() {
+        return weightsByFileType.length;
+    }
+
+    private static FileTypeWeights[] ensureSize(FileTypeWeights[] weights, int fileType) {
+        return fileType < weights.length ? weights : Arrays.copyOf(weights, fileType + 1);
+    }
+}
@@ -0,0 +1,19 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// number and summed score of the commits or merge requests of one day of the daily digest
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyScore {
+    private int count;
+    private double score;
+
+    public void add(double score) {
+        this.count++;
+        this.score += score;
+    }
+}
@@ -0,0 +1,8 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import java.time.OffsetDateTime;
+
+// ItemFileTypeLineTotals with the day the item is counted on, the totals are null for an item without rollup rows
+public interface DatedItemFileTypeLineTotals extends ItemFileTypeLineTotals {
+    OffsetDateTime getItemDate();
+}
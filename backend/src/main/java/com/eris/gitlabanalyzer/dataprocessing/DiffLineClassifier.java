@@ -0,0 +1,235 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import com.eris.gitlabanalyzer.dataprocessing.CalculateDiffMetrics.lineAction;
+import com.eris.gitlabanalyzer.dataprocessing.CalculateDiffMetrics.lineTypes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Line by line state machine that counts the line types of a single file diff.
+ * Lines are fed one at a time, the only state kept between lines is whether a block comment is open,
+ * so the diff never has to be held in memory as a whole.
+ */
+public class DiffLineClassifier {
+
+    private static final Pattern ALPHANUMERIC = Pattern.compile("[a-zA-Z0-9]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@");
+
+    private final CommentCharacter commentOperators;
+    private final Map<lineTypes, Integer> lineTotals = new HashMap<>();
+    private boolean inBlockComment = false;
+    private final MovedCodeDetector movedCodeDetector = new MovedCodeDetector();
+
+    // hunk index is only built when requested, totals at the start of the open hunk are kept to count it by difference
+    private final HunkIndex.Writer hunkIndexWriter;
+    private Matcher openHunk;
+    private Map<lineTypes, Integer> openHunkStartTotals;
+
+    public DiffLineClassifier(CommentCharacter commentOperators) {
+        this(commentOperators, false);
+    }
+
+    public DiffLineClassifier(CommentCharacter commentOperators, boolean indexHunks) {
+        this.commentOperators = commentOperators;
+        this.hunkIndexWriter = indexHunks ? new HunkIndex.Writer() : null;
+    }
+
+    public Map<lineTypes, Integer> getLineTotals() {
+        return lineTotals;
+    }
+
+    // added/removed code line pairs that are the same code moved elsewhere in the file
+    public int getMovedLines() {
+        return movedCodeDetector.getMovedLines();
+    }
+
+    // added/removed code line pairs that only differ in whitespace
+    public int getReformattedLines() {
+        return movedCodeDetector.getReformattedLines();
+    }
+
+    /**
+     * Closes the last hunk, returns null when hunks are not indexed.
+     */
+    public byte[] finishHunkIndex() {
+        if (hunkIndexWriter == null) {
+            return null;
+        }
+        closeHunk();
+        return hunkIndexWriter.toByteArray();
+    }
+
+    public void acceptLine(String rawLine) {
+        if (hunkIndexWriter != null && rawLine.startsWith("@@ ")) {
+            Matcher hunkHeader = HUNK_HEADER.matcher(rawLine);
+            if (hunkHeader.find()) {
+                closeHunk();
+                openHunk = hunkHeader;
+                openHunkStartTotals = new HashMap<>(lineTotals);
+            }
+        }
+
+        lineAction action = getAction(rawLine);
+        String line = trimForEval(rawLine, action);
+
+        // every line until the one closing the block counts as comment
+        if (inBlockComment) {
+            updateTotal(action, lineTypes.comment);
+            if (line.contains(commentOperators.getBlockCommentEnd())) {
+                inBlockComment = false;
+                closeBlockComment(line, action);
+            }
+            return;
+        }
+
+        if (line.length() > 0 && !line.equals("\\Nonewlineatendoffile")) {
+
+            switch (typeOfLine(line)) {
+                case code:
+                    updateTotal(action, lineTypes.code);
+                    if (action != lineAction.unchanged) {
+                        movedCodeDetector.acceptCodeLine(action, line, rawLine.substring(1));
+                    }
+                    break;
+                case comment:
+                    updateTotal(action, lineTypes.comment);
+                    break;
+                case blockComment:
+                    // handle case where line contains only comment operator
+                    if (commentOperators.getBlockCommentStart().equals(line)) {
+                        updateTotal(action, lineTypes.syntax);
+                    } else {
+                        updateTotal(action, lineTypes.comment);
+                    }
+                    // handle case where enters a comment but doesn't exit before end of line
+                    if (line.contains(commentOperators.getBlockCommentEnd())) {
+                        closeBlockComment(line, action);
+                    } else {
+                        inBlockComment = true;
+                    }
+                    break;
+                case syntax:
+                    updateTotal(action, lineTypes.syntax);
+                    break;
+            }
+        }
+    }
+
+    private void closeHunk() {
+        if (openHunk == null) {
+            return;
+        }
+        hunkIndexWriter.write(new HunkIndex.Hunk(
+                Integer.parseInt(openHunk.group(1)), hunkLength(openHunk.group(2)),
+                Integer.parseInt(openHunk.group(3)), hunkLength(openHunk.group(4)),
+                countSinceHunkStart(lineTypes.code), countSinceHunkStart(lineTypes.syntax),
+                countSinceHunkStart(lineTypes.comment), countSinceHunkStart(lineTypes.removedCode),
+                countSinceHunkStart(lineTypes.removedSyntax), countSinceHunkStart(lineTypes.removedComment)));
+        openHunk = null;
+    }
+
+    // a range without a length ("@@ -3 +3 @@") covers a single line
+    private int hunkLength(String length) {
+        return length == null ? 1 : Integer.parseInt(length);
+    }
+
+    private int countSinceHunkStart(lineTypes type) {
+        return lineTotals.getOrDefault(type, 0) - openHunkStartTotals.getOrDefault(type, 0);
+    }
+
+    private void closeBlockComment(String line, lineAction action) {
+        // handles case where comment operator is by itself on line
+        if (line.startsWith(commentOperators.getBlockCommentEnd()) && action == lineAction.added) {
+            updateTotal(action, lineTypes.syntax);
+            lineTotals.put(lineTypes.comment, lineTotals.getOrDefault(lineTypes.comment, 0) - 1);
+        }
+        lineTypes secondType = isHybrid(line, commentOperators.getBlockCommentEnd());
+        if (secondType != lineTypes.comment) {
+            updateTotal(action, secondType);
+        }
+    }
+
+    private lineAction getAction(String line) {
+        if (line.length() >= 2) {
+            String startChar = line.substring(0, 1);
+            if (startChar.equals("+")) {
+                return lineAction.added;
+            } else if (startChar.equals("-")) {
+                return lineAction.removed;
+            } else {
+                return lineAction.unchanged;
+            }
+        }
+        return lineAction.unchanged;
+    }
+
+    private String trimForEval(String line, lineAction action) {
+        line = WHITESPACE.matcher(line).replaceAll("");
+        if (action != lineAction.unchanged) {
+            line = line.substring(1);
+        }
+        return line;
+    }
+
+    private void updateTotal(lineAction action, lineTypes type) {
+        if (action == lineAction.added) {
+            lineTotals.put(type, lineTotals.getOrDefault(type, 0) + 1);
+        } else if (action == lineAction.removed) {
+            switch (type) {
+                case code:
+                    lineTotals.put(lineTypes.removedCode, lineTotals.getOrDefault(lineTypes.removedCode, 0) + 1);
+                    break;
+                case syntax:
+                    lineTotals.put(lineTypes.removedSyntax, lineTotals.getOrDefault(lineTypes.removedSyntax, 0) + 1);
+                    break;
+                case comment:
+                    lineTotals.put(lineTypes.removedComment, lineTotals.getOrDefault(lineTypes.removedComment, 0) + 1);
+                    break;
+            }
+        }
+    }
+
+    private lineTypes typeOfLine(String line) {
+        if (isCommentofOperator(line, commentOperators.getSingleLineComment())) {
+            return lineTypes.comment;
+        }
+        if (isCommentofOperator(line, commentOperators.getBlockCommentStart())) {
+            return lineTypes.blockComment;
+        }
+        if (isSyntax(line)) {
+            return lineTypes.syntax;
+        }
+        return lineTypes.code;
+    }
+
+    private boolean isCommentofOperator(String line, String operator) {
+        // handle edge case to avoid index out of bound exception
+        if (line.length() >= operator.length()) {
+            String lineStartChar = line.substring(0, operator.length());
+            return lineStartChar.equals(operator);
+        }
+        return false;
+    }
+
+    //Makes assumption that every syntax doesn't contains alphanumeric chars
+    private boolean isSyntax(String line) {
+        return !ALPHANUMERIC.matcher(line).find();
+    }
+
+    private lineTypes isHybrid(String line, String operator) {
+        if (line.contains(operator) && !line.endsWith(operator)) {
+            int commentEndIndex = line.indexOf(operator);
+            // add operator lengths so substring is exclusive of operator
+            String secondSection = line.substring(commentEndIndex + operator.length());
+            if (isSyntax(secondSection)) {
+                return lineTypes.syntax;
+            }
+            return lineTypes.code;
+        }
+        return lineTypes.comment;
+    }
+}
@@ -1,19 +1,29 @@
 package com.eris.gitlabanalyzer.dataprocessing;
 
+import com.eris.gitlabanalyzer.event.ChangeGenerations;
+import com.eris.gitlabanalyzer.event.ScoreProfileChangedEvent;
 import com.eris.gitlabanalyzer.model.FileScore;
 import com.eris.gitlabanalyzer.model.ScoreProfile;
 import com.eris.gitlabanalyzer.repository.FileScoreRepository;
 import com.eris.gitlabanalyzer.repository.ScoreProfileRepository;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class DiffScoreCalculator {
 
     private final ScoreProfile defaultScoreProfile;
+    private final CompiledScoreProfile compiledDefaultScoreProfile;
+
+    // compiled profiles by id, an entry is outdated once the generation of its profile moved on
+    private final ChangeGenerations scoreProfileGenerations = new ChangeGenerations();
+    private final Map<Long, CompiledEntry> compiledScoreProfiles = new ConcurrentHashMap<>();
 
     private final FileScoreRepository fileScoreRepository;
     private final ScoreProfileRepository scoreProfileRepository;
@@ -24,40 +34,103 @@ public class DiffScoreCalculator {
         defaultScoreProfile = new ScoreProfile("defaultScoreProfile", 2, 0.5, 1, 1 );
         Map<String, Double> extensions = new HashMap<>();
         defaultScoreProfile.addExtension(extensions);
+        compiledDefaultScoreProfile = CompiledScoreProfile.compile(defaultScoreProfile);
+    }
+
+    // ids without a profile are scored with the default profile, which is not cached under the id
+    public CompiledScoreProfile getCompiledScoreProfile(Long scoreProfileId){
+        long generation = scoreProfileGenerations.current(scoreProfileId);
+        CompiledEntry entry = compiledScoreProfiles.get(scoreProfileId);
+        if (entry != null && entry.generation == generation) {
+            return entry.scoreProfile;
+        }
+        Optional<ScoreProfile> scoreProfile = scoreProfileRepository.findScoreProfileById(scoreProfileId);
+        if (scoreProfile.isEmpty()) {
+            compiledScoreProfiles.remove(scoreProfileId);
+            return compiledDefaultScoreProfile;
+        }
+        CompiledScoreProfile compiled = CompiledScoreProfile.compile(scoreProfile.get());
+        compiledScoreProfiles.put(scoreProfileId, new CompiledEntry(generation, compiled));
+        return compiled;
+    }
+
+    // an update carries the profile compiled after the change, so it is not loaded and compiled again
+    @EventListener
+    public void onScoreProfileChanged(ScoreProfileChangedEvent event){
+        long generation = scoreProfileGenerations.bump(event.getScoreProfileId());
+        if (event.getDelta() != null) {
+            compiledScoreProfiles.put(event.getScoreProfileId(), new CompiledEntry(generation, event.getDelta().getScoreProfile()));
+        }
     }
 
     public double calculateScoreMerge(Long mergeId, Long scoreProfileId){
-        ScoreProfile scoreProfile = scoreProfileRepository.findScoreProfileById(scoreProfileId).orElse(defaultScoreProfile);
+        CompiledScoreProfile scoreProfile = getCompiledScoreProfile(scoreProfileId);
         List<FileScore> fileScores = fileScoreRepository.findByMergeId(mergeId);
         return calculateFileScore(fileScores, scoreProfile);
     }
 
     public double calculateScoreCommit(Long commitId, Long scoreProfileId){
-        ScoreProfile scoreProfile = scoreProfileRepository.findScoreProfileById(scoreProfileId).orElse(defaultScoreProfile);
+        CompiledScoreProfile scoreProfile = getCompiledScoreProfile(scoreProfileId);
         List<FileScore> fileScores = fileScoreRepository.findByCommitId(commitId);
         return calculateFileScore(fileScores, scoreProfile);
     }
 
-    private double calculateFileScore(List<FileScore> fileScores, ScoreProfile scoreProfile){
+    // score of line totals summed per file type by the database, one row per file type
+    public double calculateScore(List<? extends FileTypeLineTotals> totals, CompiledScoreProfile scoreProfile){
         double totalScore = 0;
-        for(FileScore fileScore : fileScores){
-            if(!scoreProfile.blackListContains(fileScore.getFileType())) {
-                double fileWeightModifier = scoreProfile.getExtensionWeights().getOrDefault(fileScore.getFileType(), 1.0);
-                double codeWeight = fileWeightModifier * scoreProfile.getLineWeight();
-                totalScore += fileScore.getCodeLineAdded() * codeWeight;
-                totalScore += fileScore.getSyntaxLineAdded() * scoreProfile.getSyntaxWeight();
-                totalScore += fileScore.getCommentLineAdded() *  scoreProfile.getCommentsWeight();
-
-                totalScore += fileScore.getCodeLineRemoved() * Math.min(codeWeight, scoreProfile.getDeleteWeight());
-                totalScore += fileScore.getSyntaxLineRemoved() * Math.min(scoreProfile.getSyntaxWeight(), scoreProfile.getDeleteWeight());
-                totalScore += fileScore.getCommentLineRemoved() * Math.min(scoreProfile.getCommentsWeight(), scoreProfile.getDeleteWeight());
-            }
+        for(FileTypeLineTotals total : totals){
+            totalScore += calculateLineTotalsScore(total, scoreProfile);
+        }
+        return totalScore;
+    }
 
+    // same total as calculateScore, with the score of every row kept so a profile change only rescores the changed file types
+    public ScoreBreakdown calculateScoreBreakdown(List<? extends FileTypeLineTotals> totals, CompiledScoreProfile scoreProfile){
+        return ScoreBreakdown.of(totals, scoreProfile);
+    }
+
+    // score of each commit or merge request in the totals, by id, an item without rollup rows scores 0
+    public Map<Long, Double> calculateScoreByItem(List<? extends ItemFileTypeLineTotals> totals, CompiledScoreProfile scoreProfile){
+        Map<Long, Double> scores = new HashMap<>();
+        for(ItemFileTypeLineTotals total : totals){
+            double score = total.getUnpairedCodeLineAdded() == null ? 0 : calculateLineTotalsScore(total, scoreProfile);
+            scores.merge(total.getItemId(), score, Double::sum);
+        }
+        return scores;
+    }
+
+    private double calculateFileScore(List<FileScore> fileScores, CompiledScoreProfile scoreProfile){
+        double totalScore = 0;
+        for(FileScore fileScore : fileScores){
+            // moved and reformatted pairs are taken out of the added and removed code and weighted on their own
+            int pairedLines = fileScore.getMovedLines() + fileScore.getReformattedLines();
+            totalScore += calculateScore(fileScore.getFileType(),
+                    Math.max(fileScore.getCodeLineAdded() - pairedLines, 0), fileScore.getSyntaxLineAdded(), fileScore.getCommentLineAdded(),
+                    Math.max(fileScore.getCodeLineRemoved() - pairedLines, 0), fileScore.getSyntaxLineRemoved(), fileScore.getCommentLineRemoved(),
+                    fileScore.getMovedLines(), fileScore.getReformattedLines(), scoreProfile);
         }
 
         return  totalScore;
     }
 
+    private double calculateLineTotalsScore(FileTypeLineTotals total, CompiledScoreProfile scoreProfile){
+        return scoreProfile.score(total);
+    }
+
+    private double calculateScore(String fileType, long codeLineAdded, long syntaxLineAdded, long commentLineAdded,
+                                  long codeLineRemoved, long syntaxLineRemoved, long commentLineRemoved,
+                                  long movedLines, long reformattedLines, CompiledScoreProfile scoreProfile){
+        return scoreProfile.weights(fileType).score(codeLineAdded, syntaxLineAdded, commentLineAdded,
+                codeLineRemoved, syntaxLineRemoved, commentLineRemoved, movedLines, reformattedLines);
+    }
 
+    private static class CompiledEntry {
+        private final long generation;
+        private final CompiledScoreProfile scoreProfile;
 
+        CompiledEntry(long generation, CompiledScoreProfile scoreProfile) {
+            this.generation = generation;
+            this.scoreProfile = scoreProfile;
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+/**
+ * Line counts summed per file type by the database, from the ScoreRollup rows written at import.
+ * Code lines are already reduced by the moved and reformatted pairs of each file (clamped at 0 per file),
+ * so applying the profile weights to a group gives the same score as weighting its files one by one.
+ */
+public interface FileTypeLineTotals {
+    String getFileType();
+    Long getUnpairedCodeLineAdded();
+    Long getSyntaxLineAdded();
+    Long getCommentLineAdded();
+    Long getUnpairedCodeLineRemoved();
+    Long getSyntaxLineRemoved();
+    Long getCommentLineRemoved();
+    Long getMovedLines();
+    Long getReformattedLines();
+}
@@ -0,0 +1,36 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small int ids for file types, the same for the whole application, so tables per file type can be arrays.
+ * There are only as many file types as file extensions seen, ids are never released.
+ */
+public final class FileTypeRegistry {
+
+    // files without a type
+    public static final int NO_FILE_TYPE = 0;
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static final AtomicInteger lastId = new AtomicInteger(NO_FILE_TYPE);
+
+    private FileTypeRegistry() {
+    }
+
+    public static int intern(String fileType) {
+        if (fileType == null) {
+            return NO_FILE_TYPE;
+        }
+        return ids.computeIfAbsent(fileType, type -> lastId.incrementAndGet());
+    }
+
+    // -1 for a file type that was never interned
+    public static int find(String fileType) {
+        if (fileType == null) {
+            return NO_FILE_TYPE;
+        }
+        return ids.getOrDefault(fileType, -1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import com.eris.gitlabanalyzer.model.ScoreProfile;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Line weights of a ScoreProfile for one file type, with the removed line weights capped once instead of per row.
+ * Built by CompiledScoreProfile, equal weights score every row the same.
+ */
+@EqualsAndHashCode
+public class FileTypeWeights {
+
+    private static final FileTypeWeights BLACKLISTED = new FileTypeWeights(true, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final boolean blackListed;
+    private final double codeWeight;
+    private final double syntaxWeight;
+    private final double commentWeight;
+    private final double movedWeight;
+    private final double reformattedWeight;
+    private final double codeRemovedWeight;
+    private final double syntaxRemovedWeight;
+    private final double commentRemovedWeight;
+
+    private FileTypeWeights(boolean blackListed, double codeWeight, double syntaxWeight, double commentWeight,
+                            double movedWeight, double reformattedWeight,
+                            double codeRemovedWeight, double syntaxRemovedWeight, double commentRemovedWeight) {
+        this.blackListed = blackListed;
+        this.codeWeight = codeWeight;
+        this.syntaxWeight = syntaxWeight;
+        this.commentWeight = commentWeight;
+        this.movedWeight = movedWeight;
+        this.reformattedWeight = reformattedWeight;
+        this.codeRemovedWeight = codeRemovedWeight;
+        this.syntaxRemovedWeight = syntaxRemovedWeight;
+        this.commentRemovedWeight = commentRemovedWeight;
+    }
+
+    static FileTypeWeights blackListed() {
+        return BLACKLISTED;
+    }
+
+    static FileTypeWeights weighted(double fileWeightModifier, ScoreProfile scoreProfile) {
+        double codeWeight = fileWeightModifier * scoreProfile.getLineWeight();
+        return new FileTypeWeights(false, codeWeight, scoreProfile.getSyntaxWeight(), scoreProfile.getCommentsWeight(),
+                scoreProfile.getMovedWeightOrDefault(), scoreProfile.getReformattedWeightOrDefault(),
+                Math.min(codeWeight, scoreProfile.getDeleteWeight()),
+                Math.min(scoreProfile.getSyntaxWeight(), scoreProfile.getDeleteWeight()),
+                Math.min(scoreProfile.getCommentsWeight(), scoreProfile.getDeleteWeight()));
+    }
+
+    // the weights in the order score adds them up
+    double[] weightsInScoreOrder() {
+        return new double[]{codeWeight, syntaxWeight, commentWeight, movedWeight, reformattedWeight,
+                codeRemovedWeight, syntaxRemovedWeight, commentRemovedWeight};
+    }
+
+    // code lines are the ones left after taking out the moved and reformatted pairs
+    public double score(long codeLineAdded, long syntaxLineAdded, long commentLineAdded,
+                        long codeLineRemoved, long syntaxLineRemoved, long commentLineRemoved,
+                        long movedLines, long reformattedLines) {
+        if (blackListed) {
+            return 0;
+        }
+        double score = 0;
+        score += codeLineAdded * codeWeight;
+        score += syntaxLineAdded * syntaxWeight;
+        score += commentLineAdded * commentWeight;
+        score += movedLines * movedWeight;
+        score += reformattedLines * reformattedWeight;
+
+        score += codeLineRemoved * codeRemovedWeight;
+        score += syntaxLineRemoved * syntaxRemovedWeight;
+        score += commentLineRemoved * commentRemovedWeight;
+        return score;
+    }
+}
@@ -0,0 +1,182 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Decides at import time whether a changed file is generated or vendored, so that its diff
+ * is not classified and only a placeholder FileScore is stored for it.
+ * Project rules come from the repository's .gitattributes (linguist-generated / linguist-vendored)
+ * and take precedence over the global pattern list.
+ */
+@Component
+public class GeneratedFileFilter {
+
+    private static final List<String> GLOBAL_GENERATED_PATTERNS = List.of(
+            "package-lock.json",
+            "yarn.lock",
+            "pnpm-lock.yaml",
+            "npm-shrinkwrap.json",
+            "composer.lock",
+            "Gemfile.lock",
+            "Pipfile.lock",
+            "poetry.lock",
+            "Cargo.lock",
+            "go.sum",
+            "*.min.js",
+            "*.min.css",
+            "*.map",
+            "*.bundle.js",
+            "*.chunk.js",
+            "*.pb.go",
+            "*_pb2.py",
+            "*.designer.cs",
+            "**/node_modules/**",
+            "**/vendor/**",
+            "**/bower_components/**",
+            "**/dist/**",
+            "**/.next/**",
+            "**/generated/**"
+    );
+
+    private static final List<String> GENERATED_ATTRIBUTES = List.of("linguist-generated", "linguist-vendored");
+
+    private final List<Pattern> globalPatterns = new ArrayList<>();
+    private final Map<Long, List<AttributeRule>> projectRules = new ConcurrentHashMap<>();
+
+    public GeneratedFileFilter() {
+        GLOBAL_GENERATED_PATTERNS.forEach(glob -> globalPatterns.add(globToPattern(glob)));
+    }
+
+    /**
+     * Replaces the .gitattributes rules of a project, should be called once per import before any diff is stored.
+     */
+    public void loadGitAttributes(Long projectId, String gitAttributes) {
+        if (gitAttributes == null || gitAttributes.isBlank()) {
+            projectRules.remove(projectId);
+            return;
+        }
+        projectRules.put(projectId, parseGitAttributes(gitAttributes));
+    }
+
+    public boolean isGenerated(Long projectId, String filePath) {
+        if (filePath == null) {
+            return false;
+        }
+        // like git, the last matching .gitattributes line wins and an explicit unset overrides the global list,
+        // a line leaving the attribute unspecified ("!attr") hands the file back to the global list
+        List<AttributeRule> rules = projectRules.getOrDefault(projectId, Collections.emptyList());
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            AttributeRule rule = rules.get(i);
+            if (rule.getPattern().matcher(filePath).matches()) {
+                if (rule.getState() == AttributeState.UNSPECIFIED) {
+                    break;
+                }
+                return rule.getState() == AttributeState.SET;
+            }
+        }
+        for (Pattern pattern : globalPatterns) {
+            if (pattern.matcher(filePath).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<AttributeRule> parseGitAttributes(String gitAttributes) {
+        List<AttributeRule> rules = new ArrayList<>();
+        for (String line : gitAttributes.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] tokens = line.split("\\s+");
+            for (int i = 1; i < tokens.length; i++) {
+                AttributeState state = parseGeneratedAttribute(tokens[i]);
+                if (state != null) {
+                    rules.add(new AttributeRule(globToPattern(tokens[0]), state));
+                }
+            }
+        }
+        return rules;
+    }
+
+    // returns null when the attribute is not one of the linguist generated/vendored attributes
+    private AttributeState parseGeneratedAttribute(String attribute) {
+        boolean unset = attribute.startsWith("-");
+        boolean unspecified = attribute.startsWith("!");
+        String name = unset || unspecified ? attribute.substring(1) : attribute;
+        String value = "true";
+        int equalsIndex = name.indexOf('=');
+        if (equalsIndex >= 0) {
+            value = name.substring(equalsIndex + 1);
+            name = name.substring(0, equalsIndex);
+        }
+        if (!GENERATED_ATTRIBUTES.contains(name)) {
+            return null;
+        }
+        if (unspecified) {
+            return AttributeState.UNSPECIFIED;
+        }
+        return unset || value.equalsIgnoreCase("false") ? AttributeState.UNSET : AttributeState.SET;
+    }
+
+    // Follows gitattributes matching: a pattern without a slash matches the file name at any depth,
+    // otherwise it is anchored to the repository root. "**" crosses directories, "*" and "?" do not.
+    static Pattern globToPattern(String glob) {
+        String pattern = glob.startsWith("/") ? glob.substring(1) : glob;
+        StringBuilder regex = new StringBuilder();
+        if (!glob.contains("/")) {
+            regex.append("(?:.*/)?");
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' && i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+                if (i + 2 < pattern.length() && pattern.charAt(i + 2) == '/') {
+                    regex.append("(?:.*/)?");
+                    i += 2;
+                } else {
+                    regex.append(".*");
+                    i += 1;
+                }
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if ("\\.[]{}()+-^$|".indexOf(c) >= 0) {
+                regex.append('\\').append(c);
+            } else {
+                regex.append(c);
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private enum AttributeState {
+        SET, UNSET, UNSPECIFIED
+    }
+
+    private static class AttributeRule {
+        private final Pattern pattern;
+        private final AttributeState state;
+
+        AttributeRule(Pattern pattern, AttributeState state) {
+            this.pattern = pattern;
+            this.state = state;
+        }
+
+        Pattern getPattern() {
+            return pattern;
+        }
+
+        AttributeState getState() {
+            return state;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Per hunk line ranges and line type counts of a file diff, stored as a varint encoded blob in FileScoreHunkIndex.
+ * Each hunk is written as its old/new start (delta from the previous hunk) and line counts as unsigned varints,
+ * followed by the six line type counts as zigzag varints (a block comment closed in a later hunk can make one negative).
+ * The blob is only decoded while iterating, nothing is materialized up front.
+ */
+public class HunkIndex implements Iterable<HunkIndex.Hunk> {
+
+    private final byte[] encoded;
+
+    public HunkIndex(byte[] encoded) {
+        this.encoded = encoded == null ? new byte[0] : encoded;
+    }
+
+    public List<Hunk> toList() {
+        if (encoded.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Hunk> hunks = new ArrayList<>();
+        forEach(hunks::add);
+        return hunks;
+    }
+
+    @Override
+    public Iterator<Hunk> iterator() {
+        return new Iterator<>() {
+            private int position = 0;
+            private int previousOldStart = 0;
+            private int previousNewStart = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < encoded.length;
+            }
+
+            @Override
+            public Hunk next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int oldStart = previousOldStart + readUnsigned();
+                int oldLines = readUnsigned();
+                int newStart = previousNewStart + readUnsigned();
+                int newLines = readUnsigned();
+                previousOldStart = oldStart;
+                previousNewStart = newStart;
+                return new Hunk(oldStart, oldLines, newStart, newLines,
+                        readSigned(), readSigned(), readSigned(), readSigned(), readSigned(), readSigned());
+            }
+
+            private int readUnsigned() {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = encoded[position++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                return value;
+            }
+
+            private int readSigned() {
+                int value = readUnsigned();
+                return (value >>> 1) ^ -(value & 1);
+            }
+        };
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Hunk {
+        private final int oldStart;
+        private final int oldLines;
+        private final int newStart;
+        private final int newLines;
+        private final int codeLineAdded;
+        private final int syntaxLineAdded;
+        private final int commentLineAdded;
+        private final int codeLineRemoved;
+        private final int syntaxLineRemoved;
+        private final int commentLineRemoved;
+    }
+
+    public static class Writer {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private int previousOldStart = 0;
+        private int previousNewStart = 0;
+
+        public void write(Hunk hunk) {
+            // GitLab hunks are in ascending order so the deltas stay small, a negative one would not survive the encoding
+            if (hunk.getOldStart() < previousOldStart || hunk.getNewStart() < previousNewStart) {
+                throw new IllegalArgumentException("Hunk at -" + hunk.getOldStart() + " +" + hunk.getNewStart() +
+                        " is before the previous hunk at -" + previousOldStart + " +" + previousNewStart);
+            }
+            writeUnsigned(hunk.getOldStart() - previousOldStart);
+            writeUnsigned(hunk.getOldLines());
+            writeUnsigned(hunk.getNewStart() - previousNewStart);
+            writeUnsigned(hunk.getNewLines());
+            previousOldStart = hunk.getOldStart();
+            previousNewStart = hunk.getNewStart();
+            writeSigned(hunk.getCodeLineAdded());
+            writeSigned(hunk.getSyntaxLineAdded());
+            writeSigned(hunk.getCommentLineAdded());
+            writeSigned(hunk.getCodeLineRemoved());
+            writeSigned(hunk.getSyntaxLineRemoved());
+            writeSigned(hunk.getCommentLineRemoved());
+        }
+
+        public byte[] toByteArray() {
+            return output.toByteArray();
+        }
+
+        private void writeUnsigned(int value) {
+            while ((value & ~0x7F) != 0) {
+                output.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            output.write(value);
+        }
+
+        private void writeSigned(int value) {
+            writeUnsigned((value << 1) ^ (value >> 31));
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+// FileTypeLineTotals of a single commit or merge request
+public interface ItemFileTypeLineTotals extends FileTypeLineTotals {
+    Long getItemId();
+}
@@ -0,0 +1,280 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import com.eris.gitlabanalyzer.dataprocessing.StreamingDiffParser.FileDiffClassification;
+import com.eris.gitlabanalyzer.dataprocessing.StreamingDiffParser.StreamedFileChange;
+import com.eris.gitlabanalyzer.model.gitlabresponse.GitLabCommit;
+import com.eris.gitlabanalyzer.service.ImportBulkhead;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Reads commits and diffs from a local clone or mirror of a project with JGit, so large projects are not
+ * limited by one REST call per commit. Commits are returned as GitLabCommit and diffs are classified with
+ * the same DiffLineClassifier as API diffs, so the rest of the import does not know where they came from.
+ */
+@Component
+public class LocalRepositoryReader {
+
+    // same as the GitLab API diffs
+    private static final int DIFF_CONTEXT_LINES = 3;
+
+    private final ImportBulkhead importBulkhead;
+
+    public LocalRepositoryReader(ImportBulkhead importBulkhead) {
+        this.importBulkhead = importBulkhead;
+    }
+
+    public boolean isRepository(String path) {
+        try (Repository repository = open(path)) {
+            return repository.resolve(Constants.HEAD) != null;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Commits reachable from HEAD (the default branch of a mirror) committed in the date range, newest first.
+     */
+    public List<GitLabCommit> getCommits(String path, String projectWebUrl, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        try (Repository repository = open(path); RevWalk revWalk = new RevWalk(repository)) {
+            revWalk.markStart(revWalk.parseCommit(repository.resolve(Constants.HEAD)));
+            revWalk.sort(RevSort.COMMIT_TIME_DESC);
+            revWalk.setRevFilter(CommitTimeRevFilter.between(
+                    Date.from(startDateTime.toInstant()), Date.from(endDateTime.toInstant())));
+
+            List<GitLabCommit> commits = new ArrayList<>();
+            for (RevCommit commit : revWalk) {
+                commits.add(toGitLabCommit(commit, projectWebUrl));
+            }
+            return commits;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read commits from " + path, e);
+        }
+    }
+
+    public Optional<GitLabCommit> getCommit(String path, String projectWebUrl, String sha) {
+        try (Repository repository = open(path); RevWalk revWalk = new RevWalk(repository)) {
+            ObjectId commitId = repository.resolve(sha);
+            if (commitId == null) {
+                return Optional.empty();
+            }
+            return Optional.of(toGitLabCommit(revWalk.parseCommit(commitId), projectWebUrl));
+        } catch (MissingObjectException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read commit " + sha + " from " + path, e);
+        }
+    }
+
+    /**
+     * Diffs every commit against its first parent, commits are diffed in parallel on the import workers.
+     * Commits missing from the repository are left out of the result.
+     */
+    public Map<String, List<StreamedFileChange>> getCommitDiffs(String path, List<String> shas, StreamingDiffParser classifier) {
+        try (Repository repository = open(path)) {
+            Map<String, List<StreamedFileChange>> diffs = new ConcurrentHashMap<>();
+            importBulkhead.forEachInParallel(shas, sha -> {
+                try (RevWalk revWalk = new RevWalk(repository)) {
+                    ObjectId commitId = repository.resolve(sha);
+                    if (commitId == null) {
+                        return;
+                    }
+                    RevCommit commit = revWalk.parseCommit(commitId);
+                    ObjectId parentTree = commit.getParentCount() > 0 ? revWalk.parseCommit(commit.getParent(0)).getTree() : null;
+                    diffs.put(sha, diffTrees(repository, parentTree, commit.getTree(), classifier));
+                } catch (MissingObjectException e) {
+                    // a full sha resolves without the object existing, e.g. a commit not fetched yet
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to diff commit " + sha + " in " + path, e);
+                }
+            });
+            return diffs;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open repository " + path, e);
+        }
+    }
+
+    /**
+     * Diff of a merged merge request, from the merge base of the target branch to the head of the merge request,
+     * like the GitLab changes endpoint. Empty when the merge commit or head is not in the repository
+     * (squashed or fast forwarded merges), the caller should then use the API.
+     */
+    public Optional<List<StreamedFileChange>> getMergeRequestDiff(String path, String mergeCommitSha, String headSha, StreamingDiffParser classifier) {
+        if (mergeCommitSha == null || headSha == null) {
+            return Optional.empty();
+        }
+        try (Repository repository = open(path); RevWalk revWalk = new RevWalk(repository)) {
+            ObjectId mergeCommitId = repository.resolve(mergeCommitSha);
+            ObjectId headId = repository.resolve(headSha);
+            if (mergeCommitId == null || headId == null) {
+                return Optional.empty();
+            }
+            RevCommit mergeCommit = revWalk.parseCommit(mergeCommitId);
+            if (mergeCommit.getParentCount() == 0) {
+                return Optional.empty();
+            }
+            RevCommit head = revWalk.parseCommit(headId);
+
+            revWalk.setRevFilter(RevFilter.MERGE_BASE);
+            revWalk.markStart(revWalk.parseCommit(mergeCommit.getParent(0)));
+            revWalk.markStart(head);
+            RevCommit mergeBase = revWalk.next();
+            if (mergeBase == null) {
+                return Optional.empty();
+            }
+            return Optional.of(diffTrees(repository, mergeBase.getTree(), head.getTree(), classifier));
+        } catch (MissingObjectException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to diff merge commit " + mergeCommitSha + " in " + path, e);
+        }
+    }
+
+    private List<StreamedFileChange> diffTrees(Repository repository, ObjectId oldTree, ObjectId newTree, StreamingDiffParser classifier) throws IOException {
+        DiffLineOutputStream output = new DiffLineOutputStream();
+        try (DiffFormatter formatter = new DiffFormatter(output); ObjectReader objectReader = repository.newObjectReader()) {
+            formatter.setRepository(repository);
+            formatter.setContext(DIFF_CONTEXT_LINES);
+            formatter.setDetectRenames(true);
+
+            List<StreamedFileChange> fileChanges = new ArrayList<>();
+            for (DiffEntry entry : formatter.scan(oldTree, newTree)) {
+                // the API reports both paths of added and deleted files as the existing one
+                String newPath = entry.getChangeType() == DiffEntry.ChangeType.DELETE ? entry.getOldPath() : entry.getNewPath();
+                String oldPath = entry.getChangeType() == DiffEntry.ChangeType.ADD ? entry.getNewPath() : entry.getOldPath();
+
+                FileDiffClassification file = classifier.classifyFile(newPath, oldPath);
+                if (file.isGenerated()) {
+                    // lockfiles and vendored code are never formatted, only the size of the changed contents is kept
+                    fileChanges.add(file.finishGenerated(contentSize(objectReader, entry)));
+                    continue;
+                }
+                output.startFile(file::acceptLine);
+                formatter.format(entry);
+                formatter.flush();
+                output.finishFile();
+                fileChanges.add(file.finish());
+            }
+            return fileChanges;
+        }
+    }
+
+    private long contentSize(ObjectReader objectReader, DiffEntry entry) throws IOException {
+        AbbreviatedObjectId blobId = entry.getChangeType() == DiffEntry.ChangeType.DELETE ? entry.getOldId() : entry.getNewId();
+        try {
+            return objectReader.getObjectSize(blobId.toObjectId(), Constants.OBJ_BLOB);
+        } catch (MissingObjectException e) {
+            // a submodule commit is not in this repository
+            return 0;
+        }
+    }
+
+    private GitLabCommit toGitLabCommit(RevCommit commit, String projectWebUrl) {
+        PersonIdent author = commit.getAuthorIdent();
+        PersonIdent committer = commit.getCommitterIdent();
+        OffsetDateTime createdAt = OffsetDateTime.ofInstant(committer.getWhen().toInstant(), committer.getTimeZone().toZoneId());
+        List<String> parentShas = Arrays.stream(commit.getParents()).map(RevCommit::getName).collect(Collectors.toList());
+        return new GitLabCommit(
+                commit.getName(),
+                author.getName(),
+                author.getEmailAddress(),
+                createdAt,
+                commit.getShortMessage(),
+                projectWebUrl + "/-/commit/" + commit.getName(),
+                parentShas
+        );
+    }
+
+    private Repository open(String path) throws IOException {
+        File directory = new File(path);
+        File dotGit = new File(directory, Constants.DOT_GIT);
+        return new FileRepositoryBuilder()
+                .setGitDir(dotGit.isDirectory() ? dotGit : directory)
+                .setMustExist(true)
+                .build();
+    }
+
+    // splits the formatted diff into lines as it is written, dropping the file headers before the first hunk
+    private static class DiffLineOutputStream extends OutputStream {
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private Consumer<String> lineConsumer;
+        private boolean inHunks;
+
+        void startFile(Consumer<String> lineConsumer) {
+            this.lineConsumer = lineConsumer;
+            this.inHunks = false;
+            line.reset();
+        }
+
+        void finishFile() {
+            if (line.size() > 0) {
+                emitLine();
+            }
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                emitLine();
+            } else {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                if (bytes[i] == '\n') {
+                    line.write(bytes, start, i - start);
+                    emitLine();
+                    start = i + 1;
+                }
+            }
+            line.write(bytes, start, end - start);
+        }
+
+        private void emitLine() {
+            String text = line.toString(StandardCharsets.UTF_8);
+            line.reset();
+            if (!inHunks && text.startsWith("@@")) {
+                inHunks = true;
+            }
+            if (inHunks) {
+                lineConsumer.accept(text);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import com.eris.gitlabanalyzer.dataprocessing.CalculateDiffMetrics.lineAction;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pairs removed and added code lines of a file diff that are the same line moved or only reformatted.
+ * Lines are compared by a 64 bit hash of their normalized form (whitespace removed, like trimForEval)
+ * so only two hashes per code line are kept, never the text.
+ * A pair whose raw text differs is a reformatted line. A pair with identical raw text only counts as moved
+ * when it is part of a block of at least MOVED_BLOCK_MIN_LINES consecutive lines found on both sides,
+ * otherwise every re-added "}" or "return;" would be a move. Blocks are found with a rolling hash over
+ * the normalized line hashes, everything is a single pass over each side with hash lookups.
+ */
+public class MovedCodeDetector {
+
+    static final int MOVED_BLOCK_MIN_LINES = 3;
+
+    private static final long ROLLING_BASE = 0x100000001B3L;
+
+    private final LongList addedNormalized = new LongList();
+    private final LongList addedRaw = new LongList();
+    private final LongList removedNormalized = new LongList();
+    private final LongList removedRaw = new LongList();
+
+    private int movedLines = -1;
+    private int reformattedLines = -1;
+
+    /**
+     * @param normalizedLine line as evaluated by the classifier, whitespace and +/- marker removed
+     * @param rawLine        line as it appears in the diff
+     */
+    public void acceptCodeLine(lineAction action, String normalizedLine, String rawLine) {
+        if (action == lineAction.added) {
+            addedNormalized.add(hash(normalizedLine, 0));
+            addedRaw.add(hash(rawLine, 1));
+        } else if (action == lineAction.removed) {
+            removedNormalized.add(hash(normalizedLine, 0));
+            removedRaw.add(hash(rawLine, 1));
+        }
+    }
+
+    public int getMovedLines() {
+        detect();
+        return movedLines;
+    }
+
+    public int getReformattedLines() {
+        detect();
+        return reformattedLines;
+    }
+
+    private void detect() {
+        if (movedLines >= 0) {
+            return;
+        }
+        movedLines = 0;
+        reformattedLines = 0;
+        if (addedNormalized.size() == 0 || removedNormalized.size() == 0) {
+            return;
+        }
+
+        // removed lines by normalized hash, then by raw hash, so a pairing can prefer the identical line
+        Map<Long, Map<Long, Integer>> available = new HashMap<>();
+        for (int i = 0; i < removedNormalized.size(); i++) {
+            available.computeIfAbsent(removedNormalized.get(i), key -> new HashMap<>())
+                    .merge(removedRaw.get(i), 1, Integer::sum);
+        }
+        boolean[] inMovedBlock = findLinesInRemovedBlocks();
+
+        for (int i = 0; i < addedNormalized.size(); i++) {
+            Map<Long, Integer> candidates = available.get(addedNormalized.get(i));
+            if (candidates == null) {
+                continue;
+            }
+            long raw = addedRaw.get(i);
+            if (inMovedBlock[i] && candidates.containsKey(raw)) {
+                consume(candidates, raw);
+                movedLines++;
+            } else {
+                Long reformatted = anyOtherThan(candidates, raw);
+                if (reformatted != null) {
+                    consume(candidates, reformatted);
+                    reformattedLines++;
+                }
+            }
+            if (candidates.isEmpty()) {
+                available.remove(addedNormalized.get(i));
+            }
+        }
+    }
+
+    // marks the added lines covered by a window of MOVED_BLOCK_MIN_LINES lines that also exists on the removed side
+    private boolean[] findLinesInRemovedBlocks() {
+        boolean[] inBlock = new boolean[addedNormalized.size()];
+        if (addedNormalized.size() < MOVED_BLOCK_MIN_LINES || removedNormalized.size() < MOVED_BLOCK_MIN_LINES) {
+            return inBlock;
+        }
+        long highestPower = 1;
+        for (int i = 1; i < MOVED_BLOCK_MIN_LINES; i++) {
+            highestPower *= ROLLING_BASE;
+        }
+
+        Set<Long> removedWindows = new HashSet<>();
+        long window = 0;
+        for (int i = 0; i < removedNormalized.size(); i++) {
+            window = roll(window, i >= MOVED_BLOCK_MIN_LINES ? removedNormalized.get(i - MOVED_BLOCK_MIN_LINES) : 0,
+                    removedNormalized.get(i), highestPower, i >= MOVED_BLOCK_MIN_LINES);
+            if (i >= MOVED_BLOCK_MIN_LINES - 1) {
+                removedWindows.add(window);
+            }
+        }
+
+        window = 0;
+        int blockEnd = -1;
+        for (int i = 0; i < addedNormalized.size(); i++) {
+            window = roll(window, i >= MOVED_BLOCK_MIN_LINES ? addedNormalized.get(i - MOVED_BLOCK_MIN_LINES) : 0,
+                    addedNormalized.get(i), highestPower, i >= MOVED_BLOCK_MIN_LINES);
+            if (i >= MOVED_BLOCK_MIN_LINES - 1 && removedWindows.contains(window)) {
+                // overlapping windows only mark the lines not marked yet, keeping this linear
+                for (int line = Math.max(i - MOVED_BLOCK_MIN_LINES + 1, blockEnd + 1); line <= i; line++) {
+                    inBlock[line] = true;
+                }
+                blockEnd = i;
+            }
+        }
+        return inBlock;
+    }
+
+    private long roll(long window, long outgoing, long incoming, long highestPower, boolean full) {
+        if (full) {
+            window -= outgoing * highestPower;
+        }
+        return window * ROLLING_BASE + incoming;
+    }
+
+    private void consume(Map<Long, Integer> candidates, long raw) {
+        if (candidates.merge(raw, -1, Integer::sum) == 0) {
+            candidates.remove(raw);
+        }
+    }
+
+    private Long anyOtherThan(Map<Long, Integer> candidates, long raw) {
+        Iterator<Long> keys = candidates.keySet().iterator();
+        while (keys.hasNext()) {
+            Long key = keys.next();
+            if (key != raw) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    // FNV-1a over the chars with a final avalanche, the seed keeps normalized and raw hashes apart
+    private static long hash(String line, long seed) {
+        long hash = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0; i < line.length(); i++) {
+            hash ^= line.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static class LongList {
+        private long[] values = new long[16];
+        private int size = 0;
+
+        void add(long value) {
+            if (size == values.length) {
+                long[] grown = new long[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
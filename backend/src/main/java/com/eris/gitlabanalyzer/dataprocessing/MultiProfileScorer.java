@@ -0,0 +1,72 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scores the same line totals under several compiled score profiles at once. The weights of a file type are laid out
+ * weight by weight with the profiles next to each other, so each row of totals is read once and the inner loop runs
+ * over the profiles with the same counters. Each profile adds up its score in the same order as FileTypeWeights.score
+ * and DiffScoreCalculator.calculateScore, so its result is exactly the single profile score.
+ */
+public class MultiProfileScorer {
+
+    private static final int WEIGHTS = 8;
+
+    private final CompiledScoreProfile[] scoreProfiles;
+    // by FileTypeRegistry id: [weight * profiles + profile]
+    private final Map<Integer, double[]> weightsByFileType = new ConcurrentHashMap<>();
+
+    public MultiProfileScorer(List<CompiledScoreProfile> scoreProfiles) {
+        this.scoreProfiles = scoreProfiles.toArray(new CompiledScoreProfile[0]);
+    }
+
+    public int getProfileCount() {
+        return scoreProfiles.length;
+    }
+
+    // one total per profile, in the order the profiles were given
+    public double[] score(List<? extends FileTypeLineTotals> totals) {
+        int profiles = scoreProfiles.length;
+        double[] scores = new double[profiles];
+        for (FileTypeLineTotals total : totals) {
+            double[] weights = weights(FileTypeRegistry.find(total.getFileType()));
+            long codeLineAdded = total.getUnpairedCodeLineAdded();
+            long syntaxLineAdded = total.getSyntaxLineAdded();
+            long commentLineAdded = total.getCommentLineAdded();
+            long movedLines = total.getMovedLines();
+            long reformattedLines = total.getReformattedLines();
+            long codeLineRemoved = total.getUnpairedCodeLineRemoved();
+            long syntaxLineRemoved = total.getSyntaxLineRemoved();
+            long commentLineRemoved = total.getCommentLineRemoved();
+            for (int profile = 0; profile < profiles; profile++) {
+                double score = 0;
+                score += codeLineAdded * weights[profile];
+                score += syntaxLineAdded * weights[profiles + profile];
+                score += commentLineAdded * weights[2 * profiles + profile];
+                score += movedLines * weights[3 * profiles + profile];
+                score += reformattedLines * weights[4 * profiles + profile];
+                score += codeLineRemoved * weights[5 * profiles + profile];
+                score += syntaxLineRemoved * weights[6 * profiles + profile];
+                score += commentLineRemoved * weights[7 * profiles + profile];
+                scores[profile] += score;
+            }
+        }
+        return scores;
+    }
+
+    private double[] weights(int fileType) {
+        return weightsByFileType.computeIfAbsent(fileType, type -> {
+            int profiles = scoreProfiles.length;
+            double[] weights = new double[WEIGHTS * profiles];
+            for (int profile = 0; profile < profiles; profile++) {
+                double[] profileWeights = scoreProfiles[profile].weights(type).weightsInScoreOrder();
+                for (int weight = 0; weight < WEIGHTS; weight++) {
+                    weights[weight * profiles + profile] = profileWeights[weight];
+                }
+            }
+            return weights;
+        });
+    }
+}
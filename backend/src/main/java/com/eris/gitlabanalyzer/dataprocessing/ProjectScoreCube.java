@@ -0,0 +1,722 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * In memory copy of a project's commits, merge requests and their ScoreRollup rows, held as primitive arrays
+ * (one array per column) so range scores are a loop over contiguous memory instead of a database round trip.
+ * Commits are sorted by the time a date range is matched on and merge requests by merged at, so a range is found
+ * with a binary search. File types are interned to ints, rollups are stored per item as
+ * consecutive entries. Every query answers exactly what the matching ScoreRollupRepository query returns.
+ * A cube never changes after it is built, a change to the project builds a new one.
+ * Commit and merge request totals and the daily digest are answered from a DailyIndex, built on first use.
+ */
+public class ProjectScoreCube {
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    public interface CommitRow {
+        Long getId();
+        OffsetDateTime getCreatedAt();
+        OffsetDateTime getMergedAt();
+        Boolean getIsIgnored();
+        Long getMergeRequestId();
+        Long getGitManagementUserId();
+    }
+
+    public interface MergeRequestRow {
+        Long getId();
+        OffsetDateTime getMergedAt();
+        Boolean getIsIgnored();
+        Long getGitManagementUserId();
+    }
+
+    public interface SharedWithRow {
+        Long getMergeRequestId();
+        Long getGitManagementUserId();
+    }
+
+    private final String[] fileTypes;
+    // FileTypeRegistry id of each file type of the cube
+    private final int[] fileTypeIds;
+
+    // a commit of a merge request is matched on its merged at, an orphan commit on its created at
+    private final long[] commitRangeTime;
+    private final long[] commitCreatedAt;
+    private final boolean[] commitActive;
+    private final int[] commitMergeRequest;
+    // resolved GitManagementUser of the commit's author, 0 when the author is not mapped
+    private final long[] commitAuthor;
+    private final Rollups commitRollups;
+
+    private final long[] mergeRequestMergedAt;
+    private final boolean[] mergeRequestActive;
+    private final long[] mergeRequestOwner;
+    private final int[] sharedWithStart;
+    private final long[] sharedWith;
+    private final Rollups mergeRequestRollups;
+
+    // keyed by commits or merge requests, user and offset the days are cut in
+    private final Map<List<Object>, DailyIndex> dailyIndexes = new ConcurrentHashMap<>();
+
+    private ProjectScoreCube(Builder builder) {
+        this.fileTypes = builder.fileTypes.toArray(new String[0]);
+        this.fileTypeIds = Arrays.stream(fileTypes).mapToInt(FileTypeRegistry::intern).toArray();
+        this.commitRangeTime = builder.commitRangeTime;
+        this.commitCreatedAt = builder.commitCreatedAt;
+        this.commitActive = builder.commitActive;
+        this.commitMergeRequest = builder.commitMergeRequest;
+        this.commitAuthor = builder.commitAuthor;
+        this.commitRollups = builder.commitRollups;
+        this.mergeRequestMergedAt = builder.mergeRequestMergedAt;
+        this.mergeRequestActive = builder.mergeRequestActive;
+        this.mergeRequestOwner = builder.mergeRequestOwner;
+        this.sharedWithStart = builder.sharedWithStart;
+        this.sharedWith = builder.sharedWith;
+        this.mergeRequestRollups = builder.mergeRequestRollups;
+    }
+
+    public static ProjectScoreCube build(List<CommitRow> commits, List<MergeRequestRow> mergeRequests, List<SharedWithRow> sharedWith,
+                                         List<ItemFileTypeLineTotals> commitRollups, List<ItemFileTypeLineTotals> mergeRequestRollups) {
+        return new Builder(commits, mergeRequests, sharedWith, commitRollups, mergeRequestRollups).build();
+    }
+
+    public int getCommitCount() {
+        return commitRangeTime.length;
+    }
+
+    public int getMergeRequestCount() {
+        return mergeRequestMergedAt.length;
+    }
+
+    // gitManagementUserId null for the commits of every author
+    public List<FileTypeLineTotals> sumActiveCommits(Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        Totals totals = new Totals();
+        commitIndex(gitManagementUserId, ZoneOffset.UTC).sum(ceilMicros(startDateTime), floorMicros(endDateTime), totals);
+        return totals.toList();
+    }
+
+    public List<FileTypeLineTotals> sumActiveMergeRequests(OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        Totals totals = new Totals();
+        mergeRequestIndex(null, ZoneOffset.UTC).sum(ceilMicros(startDateTime), floorMicros(endDateTime), totals);
+        return totals.toList();
+    }
+
+    public List<FileTypeLineTotals> sumActiveNotSharedMergeRequests(long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        Totals totals = new Totals();
+        int[] range = range(mergeRequestMergedAt, startDateTime, endDateTime);
+        for (int mergeRequest = range[0]; mergeRequest < range[1]; mergeRequest++) {
+            if (mergeRequestActive[mergeRequest] && mergeRequestOwner[mergeRequest] == gitManagementUserId && !isShared(mergeRequest)) {
+                totals.add(mergeRequestRollups, mergeRequest);
+            }
+        }
+        return totals.toList();
+    }
+
+    // the user's commits on shared merge requests they own or participated in
+    public List<FileTypeLineTotals> sumActiveSharedMergeRequestCommits(long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        boolean[] sharedWithUser = new boolean[mergeRequestMergedAt.length];
+        int[] range = range(mergeRequestMergedAt, startDateTime, endDateTime);
+        for (int mergeRequest = range[0]; mergeRequest < range[1]; mergeRequest++) {
+            sharedWithUser[mergeRequest] = mergeRequestActive[mergeRequest] && isShared(mergeRequest)
+                    && (mergeRequestOwner[mergeRequest] == gitManagementUserId || isSharedWith(mergeRequest, gitManagementUserId));
+        }
+
+        Totals totals = new Totals();
+        for (int commit = 0; commit < commitRangeTime.length; commit++) {
+            int mergeRequest = commitMergeRequest[commit];
+            if (mergeRequest >= 0 && sharedWithUser[mergeRequest] && commitActive[commit] && commitAuthor[commit] == gitManagementUserId) {
+                totals.add(commitRollups, commit);
+            }
+        }
+        return totals.toList();
+    }
+
+    /**
+     * Totals of every given user for the scoreboard, in one pass over the merge requests and commits of the range.
+     * Each user's totals match the single user queries: not shared merge requests they own, their commits on shared
+     * merge requests they own or participated in and their commits. Counts include ignored items like the count endpoints.
+     */
+    public Map<Long, MemberTotals> sumMembers(Collection<Long> gitManagementUserIds, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        Map<Long, MemberTotals> members = new HashMap<>();
+        for (Long gitManagementUserId : gitManagementUserIds) {
+            members.put(gitManagementUserId, new MemberTotals(gitManagementUserId));
+        }
+
+        boolean[] sharedInRange = new boolean[mergeRequestMergedAt.length];
+        int[] mergeRequestRange = range(mergeRequestMergedAt, startDateTime, endDateTime);
+        for (int mergeRequest = mergeRequestRange[0]; mergeRequest < mergeRequestRange[1]; mergeRequest++) {
+            MemberTotals owner = members.get(mergeRequestOwner[mergeRequest]);
+            if (owner != null) {
+                owner.mergeRequestCount++;
+                if (mergeRequestActive[mergeRequest] && !isShared(mergeRequest)) {
+                    owner.mergeRequests.add(mergeRequestRollups, mergeRequest);
+                }
+            }
+            sharedInRange[mergeRequest] = mergeRequestActive[mergeRequest] && isShared(mergeRequest);
+        }
+
+        int[] commitRange = range(commitRangeTime, startDateTime, endDateTime);
+        for (int commit = 0; commit < commitRangeTime.length; commit++) {
+            MemberTotals member = members.get(commitAuthor[commit]);
+            if (member == null) {
+                continue;
+            }
+            if (commit >= commitRange[0] && commit < commitRange[1]) {
+                member.commitCount++;
+                if (commitActive[commit]) {
+                    member.commits.add(commitRollups, commit);
+                }
+            }
+            int mergeRequest = commitMergeRequest[commit];
+            if (mergeRequest >= 0 && sharedInRange[mergeRequest] && commitActive[commit]
+                    && (mergeRequestOwner[mergeRequest] == member.gitManagementUserId || isSharedWith(mergeRequest, member.gitManagementUserId))) {
+                member.sharedMergeRequestCommits.add(commitRollups, commit);
+            }
+        }
+        return members;
+    }
+
+    // daily digest of commits by the day they were created, in the offset of the range start
+    public SortedMap<LocalDate, DailyScore> dailyActiveCommitScores(Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime,
+                                                                   CompiledScoreProfile scoreProfile) {
+        return commitIndex(gitManagementUserId, startDateTime.getOffset())
+                .daily(ceilMicros(startDateTime), floorMicros(endDateTime), weights(scoreProfile));
+    }
+
+    // daily digest of merge requests by the day they were merged. ownerId null for every merge request
+    public SortedMap<LocalDate, DailyScore> dailyActiveMergeRequestScores(Long ownerId, OffsetDateTime startDateTime, OffsetDateTime endDateTime,
+                                                                         CompiledScoreProfile scoreProfile) {
+        return mergeRequestIndex(ownerId, startDateTime.getOffset())
+                .daily(ceilMicros(startDateTime), floorMicros(endDateTime), weights(scoreProfile));
+    }
+
+    private DailyIndex commitIndex(Long gitManagementUserId, ZoneOffset offset) {
+        return dailyIndexes.computeIfAbsent(Arrays.asList("commits", gitManagementUserId, offset), key -> {
+            return new DailyIndex(commitRollups, commitRangeTime, commitCreatedAt,
+                    commit -> commitActive[commit] && (gitManagementUserId == null || commitAuthor[commit] == gitManagementUserId), offset);
+        });
+    }
+
+    private DailyIndex mergeRequestIndex(Long ownerId, ZoneOffset offset) {
+        return dailyIndexes.computeIfAbsent(Arrays.asList("mergeRequests", ownerId, offset), key ->
+                new DailyIndex(mergeRequestRollups, mergeRequestMergedAt, mergeRequestMergedAt,
+                        mergeRequest -> mergeRequestActive[mergeRequest] && (ownerId == null || mergeRequestOwner[mergeRequest] == ownerId), offset));
+    }
+
+    private boolean isShared(int mergeRequest) {
+        return sharedWithStart[mergeRequest + 1] > sharedWithStart[mergeRequest];
+    }
+
+    private boolean isSharedWith(int mergeRequest, long gitManagementUserId) {
+        for (int i = sharedWithStart[mergeRequest]; i < sharedWithStart[mergeRequest + 1]; i++) {
+            if (sharedWith[i] == gitManagementUserId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private FileTypeWeights[] weights(CompiledScoreProfile scoreProfile) {
+        FileTypeWeights[] weights = new FileTypeWeights[fileTypes.length];
+        for (int fileType = 0; fileType < fileTypes.length; fileType++) {
+            weights[fileType] = scoreProfile.weights(fileTypeIds[fileType]);
+        }
+        return weights;
+    }
+
+    // rows with a time in [start, end] of an ascending time column, as [from, to)
+    private static int[] range(long[] times, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        long start = ceilMicros(startDateTime);
+        long end = floorMicros(endDateTime);
+        if (start > end) {
+            return new int[]{0, 0};
+        }
+        return new int[]{firstAtOrAfter(times, start), firstAtOrAfter(times, end + 1)};
+    }
+
+    private static int firstAtOrAfter(long[] times, long time) {
+        int low = 0;
+        int high = times.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // times are kept in microseconds, the precision the database stores them with
+    private static long toMicros(OffsetDateTime time) {
+        return time == null ? NO_TIME : floorMicros(time);
+    }
+
+    private static long floorMicros(OffsetDateTime time) {
+        return time.toEpochSecond() * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static long ceilMicros(OffsetDateTime time) {
+        return time.toEpochSecond() * 1_000_000 + (time.getNano() + 999) / 1_000;
+    }
+
+    private static long epochDay(long micros, ZoneOffset offset) {
+        return Math.floorDiv(micros + offset.getTotalSeconds() * 1_000_000L, MICROS_PER_DAY);
+    }
+
+    private static long startOfDay(long epochDay, ZoneOffset offset) {
+        return epochDay * MICROS_PER_DAY - offset.getTotalSeconds() * 1_000_000L;
+    }
+
+    public class MemberTotals {
+        private final long gitManagementUserId;
+        private final Totals mergeRequests = new Totals();
+        private final Totals sharedMergeRequestCommits = new Totals();
+        private final Totals commits = new Totals();
+        private int commitCount;
+        private int mergeRequestCount;
+
+        private MemberTotals(long gitManagementUserId) {
+            this.gitManagementUserId = gitManagementUserId;
+        }
+
+        public List<FileTypeLineTotals> getMergeRequests() {
+            return mergeRequests.toList();
+        }
+
+        public List<FileTypeLineTotals> getSharedMergeRequestCommits() {
+            return sharedMergeRequestCommits.toList();
+        }
+
+        public List<FileTypeLineTotals> getCommits() {
+            return commits.toList();
+        }
+
+        public int getCommitCount() {
+            return commitCount;
+        }
+
+        public int getMergeRequestCount() {
+            return mergeRequestCount;
+        }
+    }
+
+    // line counters summed per interned file type
+    private class Totals {
+        private final long[][] counts = new long[Rollups.COUNTERS][fileTypes.length];
+        private final boolean[] seen = new boolean[fileTypes.length];
+
+        void add(Rollups rollups, int item) {
+            for (int entry = rollups.start[item]; entry < rollups.start[item + 1]; entry++) {
+                int fileType = rollups.fileType[entry];
+                seen[fileType] = true;
+                for (int counter = 0; counter < Rollups.COUNTERS; counter++) {
+                    counts[counter][fileType] += rollups.counts[counter][entry];
+                }
+            }
+        }
+
+        // adds the difference of two prefix sum columns of a DailyIndex
+        void add(long[][] prefix, int from, int to) {
+            for (int fileType = 0; fileType < fileTypes.length; fileType++) {
+                for (int counter = 0; counter < Rollups.COUNTERS; counter++) {
+                    long count = prefix[counter * fileTypes.length + fileType][to] - prefix[counter * fileTypes.length + fileType][from];
+                    counts[counter][fileType] += count;
+                }
+            }
+            // a file type with rows that are all zero is still returned by the grouped query
+            for (int fileType = 0; fileType < fileTypes.length; fileType++) {
+                seen[fileType] |= prefix[Rollups.COUNTERS * fileTypes.length + fileType][to] > prefix[Rollups.COUNTERS * fileTypes.length + fileType][from];
+            }
+        }
+
+        List<FileTypeLineTotals> toList() {
+            List<FileTypeLineTotals> totals = new ArrayList<>();
+            for (int fileType = 0; fileType < fileTypes.length; fileType++) {
+                if (seen[fileType]) {
+                    totals.add(new LineTotals(fileTypes[fileType], counts, fileType));
+                }
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Line counters of the active items passing a filter, by the day their range time falls on in one offset.
+     * Only days with items are kept. Prefix sums over those days answer a total with two binary searches, and each day
+     * holds one cell per bucket day (created at of a commit, merged at of a merge request) so a digest reads one cell per
+     * day and bucket day instead of every item. The first and last day of a range that starts or ends within a day are
+     * summed item by item.
+     */
+    private class DailyIndex {
+        private final ZoneOffset offset;
+        private final Rollups rollups;
+        private final int columns = (Rollups.COUNTERS + 1) * fileTypes.length;
+
+        // filtered cube rows in range time order
+        private final int[] items;
+        private final long[] itemTime;
+        private final long[] itemBucketDay;
+
+        // the items of days[d] are dayStart[d] until dayStart[d + 1]
+        private final long[] days;
+        private final int[] dayStart;
+        // [counter * fileTypes + fileType][d]: counters of the days before days[d], the last fileTypes columns count rollup rows
+        private final long[][] dayPrefix;
+
+        // the cells of days[d] are cellStart[d] until cellStart[d + 1]
+        private final int[] cellStart;
+        private final long[] cellBucketDay;
+        private final int[] cellItemCount;
+        private final long[][] cellCounts;
+
+        DailyIndex(Rollups rollups, long[] rangeTime, long[] bucketTime, IntPredicate include, ZoneOffset offset) {
+            this.offset = offset;
+            this.rollups = rollups;
+            this.items = IntStream.range(0, rangeTime.length)
+                    .filter(row -> rangeTime[row] != NO_TIME && include.test(row))
+                    .toArray();
+            this.itemTime = new long[items.length];
+            this.itemBucketDay = new long[items.length];
+            for (int item = 0; item < items.length; item++) {
+                itemTime[item] = rangeTime[items[item]];
+                itemBucketDay[item] = epochDay(bucketTime[items[item]], offset);
+            }
+
+            List<Long> dayList = new ArrayList<>();
+            List<Integer> dayStartList = new ArrayList<>();
+            for (int item = 0; item < items.length; item++) {
+                long day = epochDay(itemTime[item], offset);
+                if (dayList.isEmpty() || dayList.get(dayList.size() - 1) != day) {
+                    dayList.add(day);
+                    dayStartList.add(item);
+                }
+            }
+            dayStartList.add(items.length);
+            this.days = dayList.stream().mapToLong(Long::longValue).toArray();
+            this.dayStart = dayStartList.stream().mapToInt(Integer::intValue).toArray();
+
+            this.dayPrefix = new long[columns][days.length + 1];
+            List<long[]> cells = new ArrayList<>();
+            List<Long> cellDays = new ArrayList<>();
+            List<Integer> cellItems = new ArrayList<>();
+            this.cellStart = new int[days.length + 1];
+            for (int day = 0; day < days.length; day++) {
+                TreeMap<Long, Integer> dayCells = new TreeMap<>();
+                for (int item = dayStart[day]; item < dayStart[day + 1]; item++) {
+                    int cell = dayCells.computeIfAbsent(itemBucketDay[item], bucketDay -> {
+                        cells.add(new long[columns]);
+                        cellDays.add(bucketDay);
+                        cellItems.add(0);
+                        return cells.size() - 1;
+                    });
+                    addColumns(items[item], cells.get(cell));
+                    cellItems.set(cell, cellItems.get(cell) + 1);
+                }
+                cellStart[day + 1] = cells.size();
+                for (int column = 0; column < columns; column++) {
+                    long dayTotal = 0;
+                    for (int cell = cellStart[day]; cell < cellStart[day + 1]; cell++) {
+                        dayTotal += cells.get(cell)[column];
+                    }
+                    dayPrefix[column][day + 1] = dayPrefix[column][day] + dayTotal;
+                }
+            }
+            // cells ordered by range day then bucket day, the TreeMap of each day sorted its bucket days
+            this.cellBucketDay = cellDays.stream().mapToLong(Long::longValue).toArray();
+            this.cellItemCount = cellItems.stream().mapToInt(Integer::intValue).toArray();
+            this.cellCounts = new long[columns][cells.size()];
+            for (int cell = 0; cell < cells.size(); cell++) {
+                for (int column = 0; column < columns; column++) {
+                    cellCounts[column][cell] = cells.get(cell)[column];
+                }
+            }
+        }
+
+        // counters of the items with a range time in [start, end]
+        void sum(long start, long end, Totals totals) {
+            int[] fullDays = fullDays(start, end, item -> totals.add(rollups, items[item]));
+            if (fullDays[0] < fullDays[1]) {
+                totals.add(dayPrefix, fullDays[0], fullDays[1]);
+            }
+        }
+
+        // scores of the items with a range time in [start, end] by their bucket day
+        SortedMap<LocalDate, DailyScore> daily(long start, long end, FileTypeWeights[] weights) {
+            TreeMap<Long, long[]> bucketCounts = new TreeMap<>();
+            TreeMap<Long, Integer> bucketItems = new TreeMap<>();
+            int[] fullDays = fullDays(start, end, item -> {
+                addColumns(items[item], bucketCounts.computeIfAbsent(itemBucketDay[item], bucketDay -> new long[columns]));
+                bucketItems.merge(itemBucketDay[item], 1, Integer::sum);
+            });
+            for (int cell = cellStart[fullDays[0]]; cell < cellStart[fullDays[1]]; cell++) {
+                long[] counts = bucketCounts.computeIfAbsent(cellBucketDay[cell], bucketDay -> new long[columns]);
+                for (int column = 0; column < columns; column++) {
+                    counts[column] += cellCounts[column][cell];
+                }
+                bucketItems.merge(cellBucketDay[cell], cellItemCount[cell], Integer::sum);
+            }
+
+            SortedMap<LocalDate, DailyScore> scores = new TreeMap<>();
+            for (Map.Entry<Long, long[]> bucket : bucketCounts.entrySet()) {
+                long[] counts = bucket.getValue();
+                double score = 0;
+                for (int fileType = 0; fileType < fileTypes.length; fileType++) {
+                    int width = fileTypes.length;
+                    score += weights[fileType].score(counts[fileType], counts[width + fileType], counts[2 * width + fileType],
+                            counts[3 * width + fileType], counts[4 * width + fileType], counts[5 * width + fileType],
+                            counts[6 * width + fileType], counts[7 * width + fileType]);
+                }
+                scores.put(LocalDate.ofEpochDay(bucket.getKey()), new DailyScore(bucketItems.get(bucket.getKey()), score));
+            }
+            return scores;
+        }
+
+        /**
+         * Days wholly inside [start, end] as [from, to) of days. The items of a first or last day that is only
+         * partly inside are passed to partialItem when their range time is in [start, end].
+         */
+        private int[] fullDays(long start, long end, IntConsumer partialItem) {
+            if (start > end) {
+                return new int[]{0, 0};
+            }
+            long startDay = epochDay(start, offset);
+            long endDay = epochDay(end, offset);
+            int from = firstAtOrAfter(days, startDay);
+            int to = firstAtOrAfter(days, endDay + 1);
+            if (from < to && days[from] == startDay && start > startOfDay(startDay, offset)) {
+                partialDay(from, start, end, partialItem);
+                from++;
+            }
+            if (from < to && days[to - 1] == endDay && end < startOfDay(endDay + 1, offset) - 1) {
+                partialDay(to - 1, start, end, partialItem);
+                to--;
+            }
+            return new int[]{from, to};
+        }
+
+        private void partialDay(int day, long start, long end, IntConsumer partialItem) {
+            for (int item = dayStart[day]; item < dayStart[day + 1]; item++) {
+                if (itemTime[item] >= start && itemTime[item] <= end) {
+                    partialItem.accept(item);
+                }
+            }
+        }
+
+        // counters in [counter * fileTypes + fileType], then one rollup row count per file type
+        private void addColumns(int row, long[] counts) {
+            int width = fileTypes.length;
+            for (int entry = rollups.start[row]; entry < rollups.start[row + 1]; entry++) {
+                int fileType = rollups.fileType[entry];
+                for (int counter = 0; counter < Rollups.COUNTERS; counter++) {
+                    counts[counter * width + fileType] += rollups.counts[counter][entry];
+                }
+                counts[Rollups.COUNTERS * width + fileType]++;
+            }
+        }
+    }
+
+    /**
+     * Rollup entries of every item one after the other, the entries of item i are start[i] until start[i + 1].
+     * Counters are in FileTypeWeights.score order: code, syntax, comment added, code, syntax, comment removed, moved, reformatted.
+     */
+    private static class Rollups {
+        static final int COUNTERS = 8;
+
+        private final int[] start;
+        private final int[] fileType;
+        private final int[][] counts;
+
+        Rollups(int items, int entries) {
+            this.start = new int[items + 1];
+            this.fileType = new int[entries];
+            this.counts = new int[COUNTERS][entries];
+        }
+    }
+
+    private static class LineTotals implements FileTypeLineTotals {
+        private final String fileType;
+        private final long[] values = new long[Rollups.COUNTERS];
+
+        LineTotals(String fileType, long[][] counts, int fileTypeIndex) {
+            this.fileType = fileType;
+            for (int counter = 0; counter < Rollups.COUNTERS; counter++) {
+                values[counter] = counts[counter][fileTypeIndex];
+            }
+        }
+
+        @Override public String getFileType() { return fileType; }
+        @Override public Long getUnpairedCodeLineAdded() { return values[0]; }
+        @Override public Long getSyntaxLineAdded() { return values[1]; }
+        @Override public Long getCommentLineAdded() { return values[2]; }
+        @Override public Long getUnpairedCodeLineRemoved() { return values[3]; }
+        @Override public Long getSyntaxLineRemoved() { return values[4]; }
+        @Override public Long getCommentLineRemoved() { return values[5]; }
+        @Override public Long getMovedLines() { return values[6]; }
+        @Override public Long getReformattedLines() { return values[7]; }
+    }
+
+    private static class Builder {
+        private final List<String> fileTypes = new ArrayList<>();
+        private final Map<String, Integer> fileTypeIds = new HashMap<>();
+
+        private long[] commitRangeTime;
+        private long[] commitCreatedAt;
+        private boolean[] commitActive;
+        private int[] commitMergeRequest;
+        private long[] commitAuthor;
+        private Rollups commitRollups;
+
+        private long[] mergeRequestMergedAt;
+        private boolean[] mergeRequestActive;
+        private long[] mergeRequestOwner;
+        private int[] sharedWithStart;
+        private long[] sharedWith;
+        private Rollups mergeRequestRollups;
+
+        private final List<CommitRow> commits;
+        private final List<MergeRequestRow> mergeRequests;
+        private final List<SharedWithRow> sharedWithRows;
+        private final List<ItemFileTypeLineTotals> commitRollupRows;
+        private final List<ItemFileTypeLineTotals> mergeRequestRollupRows;
+
+        Builder(List<CommitRow> commits, List<MergeRequestRow> mergeRequests, List<SharedWithRow> sharedWithRows,
+                List<ItemFileTypeLineTotals> commitRollupRows, List<ItemFileTypeLineTotals> mergeRequestRollupRows) {
+            this.commits = commits;
+            this.mergeRequests = mergeRequests;
+            this.sharedWithRows = sharedWithRows;
+            this.commitRollupRows = commitRollupRows;
+            this.mergeRequestRollupRows = mergeRequestRollupRows;
+        }
+
+        ProjectScoreCube build() {
+            Map<Long, Integer> mergeRequestRows = buildMergeRequests();
+            Map<Long, Integer> commitRows = buildCommits(mergeRequestRows);
+            commitRollups = buildRollups(commitRows, commitRollupRows);
+            mergeRequestRollups = buildRollups(mergeRequestRows, mergeRequestRollupRows);
+            return new ProjectScoreCube(this);
+        }
+
+        private Map<Long, Integer> buildMergeRequests() {
+            long[] mergedAt = mergeRequests.stream().mapToLong(mergeRequest -> toMicros(mergeRequest.getMergedAt())).toArray();
+            int[] order = sortedOrder(mergedAt);
+
+            int count = order.length;
+            mergeRequestMergedAt = new long[count];
+            mergeRequestActive = new boolean[count];
+            mergeRequestOwner = new long[count];
+            Map<Long, Integer> rows = new HashMap<>();
+            for (int row = 0; row < count; row++) {
+                MergeRequestRow mergeRequest = mergeRequests.get(order[row]);
+                rows.put(mergeRequest.getId(), row);
+                mergeRequestMergedAt[row] = mergedAt[order[row]];
+                // the queries filter on isIgnored = false, an unknown flag does not match either
+                mergeRequestActive[row] = Boolean.FALSE.equals(mergeRequest.getIsIgnored());
+                mergeRequestOwner[row] = mergeRequest.getGitManagementUserId() == null ? 0 : mergeRequest.getGitManagementUserId();
+            }
+
+            sharedWithStart = new int[count + 1];
+            List<SharedWithRow> known = new ArrayList<>();
+            for (SharedWithRow shared : sharedWithRows) {
+                Integer row = rows.get(shared.getMergeRequestId());
+                if (row != null) {
+                    sharedWithStart[row + 1]++;
+                    known.add(shared);
+                }
+            }
+            for (int row = 0; row < count; row++) {
+                sharedWithStart[row + 1] += sharedWithStart[row];
+            }
+            sharedWith = new long[known.size()];
+            int[] next = Arrays.copyOf(sharedWithStart, count);
+            for (SharedWithRow shared : known) {
+                sharedWith[next[rows.get(shared.getMergeRequestId())]++] = shared.getGitManagementUserId();
+            }
+            return rows;
+        }
+
+        private Map<Long, Integer> buildCommits(Map<Long, Integer> mergeRequestRows) {
+            // merged at is set together with the merge request, so a range matches merged at or, for orphans, created at
+            long[] rangeTime = commits.stream()
+                    .mapToLong(commit -> commit.getMergeRequestId() != null ? toMicros(commit.getMergedAt()) : toMicros(commit.getCreatedAt()))
+                    .toArray();
+            int[] order = sortedOrder(rangeTime);
+
+            int count = order.length;
+            commitRangeTime = new long[count];
+            commitCreatedAt = new long[count];
+            commitActive = new boolean[count];
+            commitMergeRequest = new int[count];
+            commitAuthor = new long[count];
+            Map<Long, Integer> rows = new HashMap<>();
+            for (int row = 0; row < count; row++) {
+                CommitRow commit = commits.get(order[row]);
+                rows.put(commit.getId(), row);
+                commitRangeTime[row] = rangeTime[order[row]];
+                commitCreatedAt[row] = toMicros(commit.getCreatedAt());
+                commitActive[row] = Boolean.FALSE.equals(commit.getIsIgnored());
+                commitMergeRequest[row] = commit.getMergeRequestId() == null ? -1 : mergeRequestRows.getOrDefault(commit.getMergeRequestId(), -1);
+                commitAuthor[row] = commit.getGitManagementUserId() == null ? 0 : commit.getGitManagementUserId();
+            }
+            return rows;
+        }
+
+        private Rollups buildRollups(Map<Long, Integer> itemRows, List<ItemFileTypeLineTotals> rollupRows) {
+            List<ItemFileTypeLineTotals> known = new ArrayList<>();
+            for (ItemFileTypeLineTotals rollup : rollupRows) {
+                if (itemRows.containsKey(rollup.getItemId())) {
+                    known.add(rollup);
+                }
+            }
+            Rollups rollups = new Rollups(itemRows.size(), known.size());
+            for (ItemFileTypeLineTotals rollup : known) {
+                rollups.start[itemRows.get(rollup.getItemId()) + 1]++;
+            }
+            for (int item = 0; item < itemRows.size(); item++) {
+                rollups.start[item + 1] += rollups.start[item];
+            }
+            int[] next = Arrays.copyOf(rollups.start, itemRows.size());
+            for (ItemFileTypeLineTotals rollup : known) {
+                int entry = next[itemRows.get(rollup.getItemId())]++;
+                rollups.fileType[entry] = fileTypeIds.computeIfAbsent(rollup.getFileType(), fileType -> {
+                    fileTypes.add(fileType);
+                    return fileTypes.size() - 1;
+                });
+                rollups.counts[0][entry] = Math.toIntExact(rollup.getUnpairedCodeLineAdded());
+                rollups.counts[1][entry] = Math.toIntExact(rollup.getSyntaxLineAdded());
+                rollups.counts[2][entry] = Math.toIntExact(rollup.getCommentLineAdded());
+                rollups.counts[3][entry] = Math.toIntExact(rollup.getUnpairedCodeLineRemoved());
+                rollups.counts[4][entry] = Math.toIntExact(rollup.getSyntaxLineRemoved());
+                rollups.counts[5][entry] = Math.toIntExact(rollup.getCommentLineRemoved());
+                rollups.counts[6][entry] = Math.toIntExact(rollup.getMovedLines());
+                rollups.counts[7][entry] = Math.toIntExact(rollup.getReformattedLines());
+            }
+            return rollups;
+        }
+
+        private static int[] sortedOrder(long[] times) {
+            return IntStream.range(0, times.length).boxed()
+                    .sorted(Comparator.comparingLong(index -> times[index]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import java.util.List;
+
+/**
+ * A range score kept with the line totals it was computed from, one row per file type, and the score of every row.
+ * Rescoring it for a ScoreProfileDelta replaces the scores of the changed rows only; the rows are summed again in the
+ * order DiffScoreCalculator.calculateScore adds them, so the total is the same as scoring the totals from scratch.
+ */
+public class ScoreBreakdown {
+
+    private final List<? extends FileTypeLineTotals> totals;
+    private final double[] scores;
+    private final double total;
+
+    private ScoreBreakdown(List<? extends FileTypeLineTotals> totals, double[] scores) {
+        this.totals = totals;
+        this.scores = scores;
+        double total = 0;
+        for (double score : scores) {
+            total += score;
+        }
+        this.total = total;
+    }
+
+    public static ScoreBreakdown of(List<? extends FileTypeLineTotals> totals, CompiledScoreProfile scoreProfile) {
+        double[] scores = new double[totals.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = scoreProfile.score(totals.get(i));
+        }
+        return new ScoreBreakdown(totals, scores);
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public ScoreBreakdown rescore(ScoreProfileDelta delta) {
+        if (delta.isEmpty()) {
+            return this;
+        }
+        double[] rescored = scores.clone();
+        for (int i = 0; i < rescored.length; i++) {
+            FileTypeLineTotals row = totals.get(i);
+            if (delta.changes(row.getFileType())) {
+                rescored[i] = delta.getScoreProfile().score(row);
+            }
+        }
+        return new ScoreBreakdown(totals, rescored);
+    }
+}
@@ -0,0 +1,51 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import java.util.BitSet;
+import java.util.Optional;
+
+/**
+ * The file types whose weights differ between two compilations of the same score profile, with the profile compiled
+ * after the change. Line totals of the other file types score the same under both, so a score kept per file type is
+ * brought up to date by rescoring only the rows of the changed file types.
+ */
+public class ScoreProfileDelta {
+
+    private final CompiledScoreProfile scoreProfile;
+    private final BitSet changedFileTypes;
+
+    private ScoreProfileDelta(CompiledScoreProfile scoreProfile, BitSet changedFileTypes) {
+        this.scoreProfile = scoreProfile;
+        this.changedFileTypes = changedFileTypes;
+    }
+
+    /**
+     * Empty when the weights of file types the profile does not name changed (the line, delete, syntax, comment,
+     * moved or reformatted weight), every row is changed then and there is nothing to gain over a full recompute.
+     */
+    public static Optional<ScoreProfileDelta> between(CompiledScoreProfile before, CompiledScoreProfile after) {
+        if (!before.defaultWeights().equals(after.defaultWeights())) {
+            return Optional.empty();
+        }
+        BitSet changedFileTypes = new BitSet();
+        int fileTypeCount = Math.max(before.fileTypeCount(), after.fileTypeCount());
+        for (int fileType = 0; fileType < fileTypeCount; fileType++) {
+            if (!before.weights(fileType).equals(after.weights(fileType))) {
+                changedFileTypes.set(fileType);
+            }
+        }
+        return Optional.of(new ScoreProfileDelta(after, changedFileTypes));
+    }
+
+    public CompiledScoreProfile getScoreProfile() {
+        return scoreProfile;
+    }
+
+    public boolean changes(String fileType) {
+        int id = FileTypeRegistry.find(fileType);
+        return id >= 0 && changedFileTypes.get(id);
+    }
+
+    public boolean isEmpty() {
+        return changedFileTypes.isEmpty();
+    }
+}
@@ -0,0 +1,45 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import com.eris.gitlabanalyzer.model.Commit;
+import com.eris.gitlabanalyzer.model.FileScore;
+import com.eris.gitlabanalyzer.model.MergeRequest;
+import com.eris.gitlabanalyzer.model.ScoreRollup;
+import com.eris.gitlabanalyzer.repository.ScoreRollupRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes the per file type ScoreRollup rows of a commit or merge request from its FileScores.
+ * A rewrite replaces the previous rows, so it can be called again whenever the file scores of an item change.
+ */
+@Component
+public class ScoreRollupWriter {
+
+    private final ScoreRollupRepository scoreRollupRepository;
+
+    public ScoreRollupWriter(ScoreRollupRepository scoreRollupRepository) {
+        this.scoreRollupRepository = scoreRollupRepository;
+    }
+
+    public void writeCommitRollup(Commit commit, List<FileScore> fileScores) {
+        scoreRollupRepository.deleteByCommitId(commit.getId());
+        scoreRollupRepository.saveAll(rollUp(fileScores, fileType -> new ScoreRollup(commit, fileType)));
+    }
+
+    public void writeMergeRollup(MergeRequest mergeRequest, List<FileScore> fileScores) {
+        scoreRollupRepository.deleteByMergeId(mergeRequest.getId());
+        scoreRollupRepository.saveAll(rollUp(fileScores, fileType -> new ScoreRollup(mergeRequest, fileType)));
+    }
+
+    private List<ScoreRollup> rollUp(List<FileScore> fileScores, Function<String, ScoreRollup> newRollup) {
+        Map<String, ScoreRollup> rollups = new LinkedHashMap<>();
+        for (FileScore fileScore : fileScores) {
+            rollups.computeIfAbsent(fileScore.getFileType(), newRollup).add(fileScore);
+        }
+        return List.copyOf(rollups.values());
+    }
+}
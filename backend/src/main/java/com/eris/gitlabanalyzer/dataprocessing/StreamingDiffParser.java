@@ -0,0 +1,526 @@
+package com.eris.gitlabanalyzer.dataprocessing;
+
+import com.eris.gitlabanalyzer.dataprocessing.CalculateDiffMetrics.lineTypes;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Classifies GitLab diff responses straight from the HTTP body instead of binding them to GitLabFileChange.
+ * The JSON is scanned character by character and the "diff" string of every file change is decoded into
+ * lines that are fed to a DiffLineClassifier as they arrive, so only the current line is ever held in memory.
+ * A diff that arrives before the path of its file (commit diffs) is kept as text until the path is read,
+ * then classified once with the operators of that path, or not at all when the file is generated.
+ * Works for both the commit diff pages (top level arrays, one after another) and the merge request
+ * changes object (file changes nested under "changes").
+ */
+public class StreamingDiffParser {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int BUFFER_PREFETCH = 4;
+
+    private final Function<String, CommentCharacter> commentCharacterForPath;
+    private final Predicate<String> isGeneratedPath;
+    private final boolean indexHunks;
+
+    private Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    /**
+     * @param commentCharacterForPath comment operators to classify a file path with
+     * @param isGeneratedPath         files matching this are only measured, never classified
+     * @param indexHunks              also build the HunkIndex of every classified file
+     */
+    public StreamingDiffParser(Function<String, CommentCharacter> commentCharacterForPath,
+                               Predicate<String> isGeneratedPath,
+                               boolean indexHunks) {
+        this.commentCharacterForPath = commentCharacterForPath;
+        this.isGeneratedPath = isGeneratedPath;
+        this.indexHunks = indexHunks;
+    }
+
+    public void parse(Flux<DataBuffer> body, Consumer<StreamedFileChange> fileChangeConsumer) {
+        // buffers received but not read yet, closing the stream cancels the response without discarding its queue
+        Queue<DataBuffer> unread = new ConcurrentLinkedQueue<>();
+        try (Stream<DataBuffer> dataBuffers = body.doOnNext(unread::add).toStream(BUFFER_PREFETCH);
+             Reader bodyReader = toReader(dataBuffers.iterator(), unread)) {
+            parse(bodyReader, fileChangeConsumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read diff response", e);
+        } finally {
+            DataBuffer dataBuffer;
+            while ((dataBuffer = unread.poll()) != null) {
+                DataBufferUtils.release(dataBuffer);
+            }
+        }
+    }
+
+    public void parse(Reader bodyReader, Consumer<StreamedFileChange> fileChangeConsumer) throws IOException {
+        this.reader = bodyReader;
+        this.position = 0;
+        this.limit = 0;
+        // paginated responses are concatenated, so keep reading top level values until the body ends
+        while (peekNonWhitespace() != -1) {
+            parseValue(fileChangeConsumer);
+        }
+    }
+
+    // UTF-8 is decoded incrementally by the InputStreamReader, multi byte characters split across buffers are fine
+    private static Reader toReader(Iterator<DataBuffer> dataBuffers, Queue<DataBuffer> unread) {
+        AtomicBoolean closing = new AtomicBoolean();
+        Enumeration<InputStream> inputStreams = new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return !closing.get() && dataBuffers.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                // the stream hands out buffers in the order they were received
+                dataBuffers.next();
+                return unread.remove().asInputStream(true);
+            }
+        };
+        // SequenceInputStream.close() reads every remaining element, so stop handing them out first. Closing then only
+        // releases the current buffer and the rest of the response is cancelled with the stream instead of downloaded
+        return new InputStreamReader(new SequenceInputStream(inputStreams), StandardCharsets.UTF_8) {
+            @Override
+            public void close() throws IOException {
+                closing.set(true);
+                super.close();
+            }
+        };
+    }
+
+    private void parseValue(Consumer<StreamedFileChange> fileChangeConsumer) throws IOException {
+        int c = peekNonWhitespace();
+        switch (c) {
+            case '{':
+                parseObject(fileChangeConsumer);
+                break;
+            case '[':
+                parseArray(fileChangeConsumer);
+                break;
+            case '"':
+                read();
+                skipString();
+                break;
+            case -1:
+                throw new IOException("Unexpected end of diff response");
+            default:
+                skipLiteral();
+        }
+    }
+
+    private void parseArray(Consumer<StreamedFileChange> fileChangeConsumer) throws IOException {
+        expect('[');
+        if (peekNonWhitespace() == ']') {
+            read();
+            return;
+        }
+        while (true) {
+            parseValue(fileChangeConsumer);
+            int c = readNonWhitespace();
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw unexpected(c);
+            }
+        }
+    }
+
+    private void parseObject(Consumer<StreamedFileChange> fileChangeConsumer) throws IOException {
+        expect('{');
+        FileChangeState file = new FileChangeState();
+        if (peekNonWhitespace() == '}') {
+            read();
+            return;
+        }
+        while (true) {
+            expect('"');
+            String key = readString();
+            expect(':');
+            boolean stringValue = peekNonWhitespace() == '"';
+
+            if (stringValue && key.equals("diff")) {
+                read();
+                streamDiff(file);
+            } else if (stringValue && key.equals("new_path")) {
+                read();
+                file.newPath = readString();
+            } else if (stringValue && key.equals("old_path")) {
+                read();
+                file.oldPath = readString();
+            } else {
+                parseValue(fileChangeConsumer);
+            }
+
+            int c = readNonWhitespace();
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw unexpected(c);
+            }
+        }
+        // a "diff" key in an object that names no path is some other field, not a file change
+        if (file.hasDiff && file.path() != null) {
+            fileChangeConsumer.accept(file.toFileChange());
+        }
+    }
+
+    private void streamDiff(FileChangeState file) throws IOException {
+        file.startDiff();
+        StringBuilder line = new StringBuilder();
+        int diffSize = 0;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Unexpected end of diff response");
+            }
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                c = readEscape();
+            }
+            diffSize++;
+            if (c == '\n') {
+                file.acceptDiffLine(line.toString());
+                line.setLength(0);
+            } else {
+                line.append((char) c);
+            }
+        }
+        if (line.length() > 0) {
+            file.acceptDiffLine(line.toString());
+        }
+        file.diffSize = diffSize;
+    }
+
+    /**
+     * Classifies the diff of a single file that does not come from a GitLab response, like one computed from a local
+     * repository. Lines are fed one at a time without the trailing newline, starting at the first hunk header.
+     * Only the parser configuration is read, so files can be classified from several threads at once.
+     */
+    public FileDiffClassification classifyFile(String newPath, String oldPath) {
+        FileChangeState file = new FileChangeState();
+        file.newPath = newPath;
+        file.oldPath = oldPath;
+        file.startDiff();
+        return new FileDiffClassification(file);
+    }
+
+    public static class FileDiffClassification {
+        private final FileChangeState file;
+
+        private FileDiffClassification(FileChangeState file) {
+            this.file = file;
+        }
+
+        public void acceptLine(String line) {
+            file.acceptDiffLine(line);
+            file.diffSize += line.length() + 1;
+        }
+
+        public StreamedFileChange finish() {
+            return file.toFileChange();
+        }
+
+        // a generated file needs no lines, the caller can skip producing its diff
+        public boolean isGenerated() {
+            return file.isGenerated();
+        }
+
+        // a generated file measured by the size of its contents instead of its diff
+        public StreamedFileChange finishGenerated(long contentSize) {
+            file.diffSize = (int) Math.min(contentSize, Integer.MAX_VALUE);
+            return file.toFileChange();
+        }
+    }
+
+    private String readString() throws IOException {
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Unexpected end of diff response");
+            }
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c == '\\') {
+                c = readEscape();
+            }
+            value.append((char) c);
+        }
+    }
+
+    // strings that are not needed (titles, descriptions...) are skipped without being built
+    private void skipString() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Unexpected end of diff response");
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            }
+        }
+    }
+
+    private int readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                // surrogate pairs arrive as two escapes and are appended one char at a time
+                int codeUnit = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw new IOException("Invalid unicode escape in diff response");
+                    }
+                    codeUnit = (codeUnit << 4) | digit;
+                }
+                return codeUnit;
+            default:
+                throw unexpected(c);
+        }
+    }
+
+    private void skipLiteral() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1 || c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                return;
+            }
+            read();
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = readNonWhitespace();
+        if (c != expected) {
+            throw unexpected(c);
+        }
+    }
+
+    private IOException unexpected(int c) {
+        return new IOException(c == -1 ? "Unexpected end of diff response" : "Unexpected character '" + (char) c + "' in diff response");
+    }
+
+    private int readNonWhitespace() throws IOException {
+        int c = peekNonWhitespace();
+        if (c != -1) {
+            position++;
+        }
+        return c;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1 || !Character.isWhitespace(c)) {
+                return c;
+            }
+            position++;
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int count;
+        do {
+            count = reader.read(buffer, 0, BUFFER_SIZE);
+        } while (count == 0);
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+    private class FileChangeState {
+        private String newPath;
+        private String oldPath;
+        private boolean hasDiff;
+        private int diffSize;
+        // null for a generated file, and until the path is known
+        private DiffLineClassifier classifier;
+        // the diff read before the path, one line per '\n'
+        private StringBuilder pendingDiff;
+
+        private String path() {
+            return newPath != null ? newPath : oldPath;
+        }
+
+        private boolean isGenerated() {
+            return path() != null && isGeneratedPath.test(path());
+        }
+
+        private void startDiff() {
+            hasDiff = true;
+            // new_path decides the file type, old_path alone is not enough since a rename can change the extension
+            if (newPath != null) {
+                classifier = newClassifier(newPath);
+            } else {
+                pendingDiff = new StringBuilder();
+            }
+        }
+
+        private DiffLineClassifier newClassifier(String path) {
+            return isGeneratedPath.test(path) ? null : new DiffLineClassifier(commentCharacterForPath.apply(path), indexHunks);
+        }
+
+        private void acceptDiffLine(String line) {
+            if (pendingDiff != null) {
+                pendingDiff.append(line).append('\n');
+            } else if (classifier != null) {
+                classifier.acceptLine(line);
+            }
+        }
+
+        private void classifyPendingDiff(String path) {
+            String diff = pendingDiff.toString();
+            pendingDiff = null;
+            classifier = newClassifier(path);
+            if (classifier == null) {
+                return;
+            }
+            int start = 0;
+            for (int end = diff.indexOf('\n'); end >= 0; end = diff.indexOf('\n', start)) {
+                classifier.acceptLine(diff.substring(start, end));
+                start = end + 1;
+            }
+        }
+
+        private StreamedFileChange toFileChange() {
+            String path = path();
+            if (pendingDiff != null) {
+                classifyPendingDiff(path);
+            }
+            boolean generated = isGenerated();
+            Map<lineTypes, Integer> lineTotals = new HashMap<>();
+            byte[] hunkIndex = null;
+            int movedLines = 0;
+            int reformattedLines = 0;
+            if (!generated && classifier != null) {
+                lineTotals = classifier.getLineTotals();
+                hunkIndex = classifier.finishHunkIndex();
+                movedLines = classifier.getMovedLines();
+                reformattedLines = classifier.getReformattedLines();
+            }
+            return new StreamedFileChange(newPath, oldPath, generated, diffSize, lineTotals, hunkIndex, movedLines, reformattedLines);
+        }
+    }
+
+    public static class StreamedFileChange {
+        private final String newPath;
+        private final String oldPath;
+        private final boolean generated;
+        private final int diffSize;
+        private final Map<lineTypes, Integer> lineTotals;
+        private final byte[] hunkIndex;
+        private final int movedLines;
+        private final int reformattedLines;
+
+        StreamedFileChange(String newPath, String oldPath, boolean generated, int diffSize,
+                           Map<lineTypes, Integer> lineTotals, byte[] hunkIndex, int movedLines, int reformattedLines) {
+            this.newPath = newPath;
+            this.oldPath = oldPath;
+            this.generated = generated;
+            this.diffSize = diffSize;
+            this.lineTotals = lineTotals;
+            this.hunkIndex = hunkIndex;
+            this.movedLines = movedLines;
+            this.reformattedLines = reformattedLines;
+        }
+
+        public String getNewPath() {
+            return newPath;
+        }
+
+        public String getOldPath() {
+            return oldPath;
+        }
+
+        public String getPath() {
+            return newPath != null ? newPath : oldPath;
+        }
+
+        public boolean isGenerated() {
+            return generated;
+        }
+
+        public int getDiffSize() {
+            return diffSize;
+        }
+
+        public int getCount(lineTypes type) {
+            return lineTotals.getOrDefault(type, 0);
+        }
+
+        // null when hunks are not indexed or the file is generated
+        public byte[] getHunkIndex() {
+            return hunkIndex;
+        }
+
+        public int getMovedLines() {
+            return movedLines;
+        }
+
+        public int getReformattedLines() {
+            return reformattedLines;
+        }
+    }
+}
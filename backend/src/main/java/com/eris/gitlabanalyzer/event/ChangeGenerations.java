@@ -0,0 +1,41 @@
+package com.eris.gitlabanalyzer.event;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A change counter per id (project or score profile). Something derived from the data remembers the generation read
+ * before it was computed and is outdated once the generation moved on.
+ */
+public class ChangeGenerations {
+
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public long current(Long id) {
+        return generation(id).get();
+    }
+
+    // bumped now and again once the surrounding transaction ends, so a read of not yet committed data is not kept either,
+    // returns the generation after the first bump
+    public long bump(Long id) {
+        AtomicLong generation = generation(id);
+        long bumped = generation.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                }
+            });
+        }
+        return bumped;
+    }
+
+    private AtomicLong generation(Long id) {
+        return generations.computeIfAbsent(id, key -> new AtomicLong());
+    }
+}
@@ -0,0 +1,11 @@
+package com.eris.gitlabanalyzer.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// scores of the project may have changed: import, ignore toggle or author mapping
+@Getter
+@AllArgsConstructor
+public class ProjectScoresChangedEvent {
+    private final Long projectId;
+}
@@ -0,0 +1,18 @@
+package com.eris.gitlabanalyzer.event;
+
+import com.eris.gitlabanalyzer.dataprocessing.ScoreProfileDelta;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// the score profile was created, updated or deleted
+@Getter
+@AllArgsConstructor
+public class ScoreProfileChangedEvent {
+    private final Long scoreProfileId;
+    // the changed file types of an update that kept the weights every other file type falls back to, else null
+    private final ScoreProfileDelta delta;
+
+    public ScoreProfileChangedEvent(Long scoreProfileId) {
+        this(scoreProfileId, null);
+    }
+}
@@ -7,10 +7,18 @@ import static javax.persistence.GenerationType.SEQUENCE;
 
 @Entity(name = "AnalysisRun")
 @Table(name = "analysis_run")
+// the associations are lazy, listings and imports read the project and its server with the run
+@NamedEntityGraph(
+        name = AnalysisRun.WITH_PROJECT,
+        attributeNodes = @NamedAttributeNode(value = "project", subgraph = "project"),
+        subgraphs = @NamedSubgraph(name = "project", attributeNodes = @NamedAttributeNode("server"))
+)
 @lombok.Getter
 @lombok.Setter
 @lombok.NoArgsConstructor
 public class AnalysisRun {
+    public static final String WITH_PROJECT = "AnalysisRun.withProject";
+
     @Id
     @SequenceGenerator(
             name = "analysis_run_sequence",
@@ -24,15 +32,15 @@ public class AnalysisRun {
     @Column(name = "analysis_run_id")
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id")
     private User ownerUser;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="project_id")
     private Project project;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "server_id")
     private Server server;
 
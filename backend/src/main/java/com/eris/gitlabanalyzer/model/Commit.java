@@ -95,19 +95,29 @@ public class Commit {
     )
     private List<CommitComment> commitComments = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "project_id",
             nullable = false,
             referencedColumnName = "project_id")
+    @ToString.Exclude
     private Project project;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "merge_request_id",
             referencedColumnName = "merge_request_id")
+    @ToString.Exclude
     private MergeRequest mergeRequest;
 
+    // resolved from the project's CommitAuthor, so user scoped queries filter on it directly
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "git_management_user_id",
+            referencedColumnName = "git_management_user_id")
+    @ToString.Exclude
+    private GitManagementUser gitManagementUser;
+
     @Column()
     private Boolean isIgnored;
 
@@ -35,7 +35,7 @@ public class CommitAuthor {
     )
     private String authorEmail;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "project_id",
             foreignKey = @ForeignKey(
@@ -44,7 +44,7 @@ public class CommitAuthor {
     )
     private Project project;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "git_management_user_id",
             foreignKey = @ForeignKey(
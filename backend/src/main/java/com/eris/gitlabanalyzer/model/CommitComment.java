@@ -25,14 +25,14 @@ public class CommitComment {
     )
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "git_management_user_id",
             nullable = false,
             referencedColumnName = "git_management_user_id")
     private GitManagementUser gitManagementUser;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "commit_id",
             nullable = false,
@@ -3,6 +3,7 @@ package com.eris.gitlabanalyzer.model;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import static javax.persistence.GenerationType.SEQUENCE;
 
@@ -26,18 +27,27 @@ public class FileScore {
     )
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "commit_id",
             referencedColumnName = "commit_id")
+    @ToString.Exclude
     private Commit commit;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "merge_request_id",
             referencedColumnName = "merge_request_id")
+    @ToString.Exclude
     private MergeRequest mergeRequest;
 
+    // project of the commit or merge request, the partition key of file_score
+    @Column(
+            name = "project_id",
+            nullable = false
+    )
+    private Long projectId;
+
     @Column(
             name = "file_type"
     )
@@ -78,10 +88,37 @@ public class FileScore {
     )
     private int commentLineRemoved;
 
+    // generated or vendored files are stored as placeholders, only their diff size is recorded
+    @Column(
+            name = "generated",
+            columnDefinition = "boolean default false"
+    )
+    private boolean generated;
+
+    @Column(
+            name = "diff_size",
+            columnDefinition = "integer default 0"
+    )
+    private int diffSize;
+
+    // moved and reformatted lines are also counted in the code added and removed columns above, once on each side
+    @Column(
+            name = "moved_line",
+            columnDefinition = "integer default 0"
+    )
+    private int movedLines;
+
+    @Column(
+            name = "reformatted_line",
+            columnDefinition = "integer default 0"
+    )
+    private int reformattedLines;
+
     public FileScore(MergeRequest mergeRequest, String fileType, String filePath,
                      int codeLineAdded, int syntaxLineAdded, int commentLineAdded, int codeLineRemoved,
                      int syntaxLineRemoved, int commentLineRemoved){
         this.mergeRequest = mergeRequest;
+        this.projectId = mergeRequest.getProject().getId();
         this.fileType = fileType;
         this.filePath = filePath;
         this.codeLineAdded = codeLineAdded;
@@ -96,6 +133,7 @@ public class FileScore {
                      int codeLineAdded, int syntaxLineAdded, int commentLineAdded, int codeLineRemoved,
                      int syntaxLineRemoved, int commentLineRemoved){
         this.commit = commit;
+        this.projectId = commit.getProject().getId();
         this.fileType = fileType;
         this.filePath = filePath;
         this.codeLineAdded = codeLineAdded;
@@ -0,0 +1,52 @@
+package com.eris.gitlabanalyzer.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+
+/**
+ * HunkIndex of a FileScore, in its own table so the file scores loaded for scoring never read the blob.
+ * Only the per file drill-down reads it. Files imported while hunk indexing was off have no row.
+ */
+@Entity(name = "FileScoreHunkIndex")
+@Table(name = "file_score_hunk_index")
+@Data
+@NoArgsConstructor
+public class FileScoreHunkIndex {
+    @Id
+    @Column(
+            name = "file_score_id"
+    )
+    private Long id;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "file_score_id",
+            referencedColumnName = "file_score_id")
+    @ToString.Exclude
+    private FileScore fileScore;
+
+    // the file score's project, the partition key of file_score_hunk_index
+    @Column(
+            name = "project_id",
+            nullable = false
+    )
+    private Long projectId;
+
+    // varint encoded per hunk ranges and counts, see HunkIndex
+    @Column(
+            name = "hunk_index",
+            nullable = false,
+            length = 1048576
+    )
+    private byte[] hunkIndex;
+
+    public FileScoreHunkIndex(FileScore fileScore, byte[] hunkIndex){
+        this.fileScore = fileScore;
+        this.projectId = fileScore.getProjectId();
+        this.hunkIndex = hunkIndex;
+    }
+}
@@ -1,5 +1,8 @@
 package com.eris.gitlabanalyzer.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -8,6 +11,7 @@ import static javax.persistence.GenerationType.SEQUENCE;
 
 @Entity(name = "GitManagementUser")
 @Table(name = "git_management_user")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class GitManagementUser {
     @Id
     @SequenceGenerator(
@@ -83,7 +87,7 @@ public class GitManagementUser {
             inverseJoinColumns = @JoinColumn(name = "project_id"))
     private List<Project> projects = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "server_id",
             nullable = false,
@@ -75,18 +75,20 @@ public class MergeRequest {
         )
     private Set<Long> sharedWith = new LinkedHashSet<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "project_id",
             nullable = false,
             referencedColumnName = "project_id")
+    @ToString.Exclude
     private Project project;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "git_management_user_id",
             nullable = false,
             referencedColumnName = "git_management_user_id")
+    @ToString.Exclude
     private GitManagementUser gitManagementUser;
 
     @OneToMany(
@@ -100,6 +102,17 @@ public class MergeRequest {
     @Column()
     private Boolean isIgnored;
 
+    // used to compute the merge request diff from a local repository
+    @Column(
+            name = "head_sha"
+    )
+    private String headSha;
+
+    @Column(
+            name = "merge_commit_sha"
+    )
+    private String mergeCommitSha;
+
     public MergeRequest(Long iid, String authorUsername, String title, OffsetDateTime createdAt, OffsetDateTime mergedAt, String webUrl, Project project, GitManagementUser gitManagementUser) {
         this.iid = iid;
         this.authorUsername = authorUsername;
@@ -40,7 +40,7 @@ public class Note {
     )
     private String body;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(
             name = "git_management_user_id",
             nullable = false,
@@ -1,5 +1,8 @@
 package com.eris.gitlabanalyzer.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +15,7 @@ import static javax.persistence.GenerationType.SEQUENCE;
         name = "project",
         uniqueConstraints={@UniqueConstraint(columnNames={"server_id", "gitlab_project_id"})}
 )
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Project {
     @Id
     @SequenceGenerator(
@@ -54,6 +58,12 @@ public class Project {
     )
     private String webUrl;
 
+    // bare clone or mirror on this server, when set commits and diffs are imported from it instead of the API
+    @Column(
+            name = "local_repository_path"
+    )
+    private String localRepositoryPath;
+
     @OneToMany(
             mappedBy = "project",
             orphanRemoval = true,
@@ -151,6 +161,14 @@ public class Project {
         this.server = server;
     }
 
+    public String getLocalRepositoryPath() {
+        return localRepositoryPath;
+    }
+
+    public void setLocalRepositoryPath(String localRepositoryPath) {
+        this.localRepositoryPath = localRepositoryPath;
+    }
+
     public void addGitManagementUser(GitManagementUser gitManagementUser) {
         if (!this.gitManagementUsers.contains(gitManagementUser)) {
             this.gitManagementUsers.add(gitManagementUser);
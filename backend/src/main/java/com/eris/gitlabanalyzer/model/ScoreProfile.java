@@ -1,5 +1,8 @@
 package com.eris.gitlabanalyzer.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 
 import lombok.AllArgsConstructor;
@@ -12,6 +15,7 @@ import java.util.Map;
 
 @Entity
 @Table(name = "Score_Profile")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,12 +46,21 @@ public class ScoreProfile {
     @Column(name = "comments")
     private double commentsWeight;
 
+    // null for profiles saved before moved code detection, treated as 0
+    @Column(name = "moved")
+    private Double movedWeight;
+
+    @Column(name = "reformatted")
+    private Double reformattedWeight;
+
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @MapKeyColumn(name="extension")
     @Column(name="weight")
     private Map<String, Double> extensionWeights = new HashMap<String, Double>();
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @Column(name="blackList")
     private List<String> blackList = new ArrayList<>();
 
@@ -92,5 +105,13 @@ public class ScoreProfile {
         return blackList.contains(extension);
     }
 
+    public double getMovedWeightOrDefault(){
+        return movedWeight == null ? 0 : movedWeight;
+    }
+
+    public double getReformattedWeightOrDefault(){
+        return reformattedWeight == null ? 0 : reformattedWeight;
+    }
+
 
 }
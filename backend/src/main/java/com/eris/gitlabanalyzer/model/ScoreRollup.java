@@ -0,0 +1,126 @@
+package com.eris.gitlabanalyzer.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+
+import static javax.persistence.GenerationType.SEQUENCE;
+
+/**
+ * FileScore line counts of one commit or merge request summed per file type, written at import.
+ * Score queries sum these few rows instead of every file. Ignored flags and author mappings are not copied here,
+ * they are always filtered through the joined commit or merge request so the rollup never goes stale on them.
+ */
+@Entity(name = "ScoreRollup")
+@Table(name = "score_rollup", indexes = {
+        @Index(name = "score_rollup_commit_idx", columnList = "commit_id"),
+        @Index(name = "score_rollup_merge_request_idx", columnList = "merge_request_id")
+})
+@Data
+@NoArgsConstructor
+public class ScoreRollup {
+    @Id
+    @SequenceGenerator(
+            name = "score_rollup_sequence",
+            sequenceName = "score_rollup_sequence",
+            allocationSize = 1
+    )
+    @GeneratedValue(
+            strategy = SEQUENCE,
+            generator = "score_rollup_sequence"
+    )
+    @Column(
+            name = "score_rollup_id"
+    )
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "commit_id",
+            referencedColumnName = "commit_id")
+    @ToString.Exclude
+    private Commit commit;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "merge_request_id",
+            referencedColumnName = "merge_request_id")
+    @ToString.Exclude
+    private MergeRequest mergeRequest;
+
+    @Column(
+            name = "file_type"
+    )
+    private String fileType;
+
+    @Column(
+            name = "file_count"
+    )
+    private int fileCount;
+
+    // code lines minus the moved and reformatted pairs of each file, clamped at 0 per file
+    @Column(
+            name = "unpaired_code_line_added"
+    )
+    private long unpairedCodeLineAdded;
+
+    @Column(
+            name = "syntax_line_added"
+    )
+    private long syntaxLineAdded;
+
+    @Column(
+            name = "comment_line_added"
+    )
+    private long commentLineAdded;
+
+    @Column(
+            name = "unpaired_code_line_remove"
+    )
+    private long unpairedCodeLineRemoved;
+
+    @Column(
+            name = "syntax_line_remove"
+    )
+    private long syntaxLineRemoved;
+
+    @Column(
+            name = "comment_line_remove"
+    )
+    private long commentLineRemoved;
+
+    @Column(
+            name = "moved_line"
+    )
+    private long movedLines;
+
+    @Column(
+            name = "reformatted_line"
+    )
+    private long reformattedLines;
+
+    public ScoreRollup(Commit commit, String fileType){
+        this.commit = commit;
+        this.fileType = fileType;
+    }
+
+    public ScoreRollup(MergeRequest mergeRequest, String fileType){
+        this.mergeRequest = mergeRequest;
+        this.fileType = fileType;
+    }
+
+    public void add(FileScore fileScore){
+        int pairedLines = fileScore.getMovedLines() + fileScore.getReformattedLines();
+        fileCount++;
+        unpairedCodeLineAdded += Math.max(fileScore.getCodeLineAdded() - pairedLines, 0);
+        syntaxLineAdded += fileScore.getSyntaxLineAdded();
+        commentLineAdded += fileScore.getCommentLineAdded();
+        unpairedCodeLineRemoved += Math.max(fileScore.getCodeLineRemoved() - pairedLines, 0);
+        syntaxLineRemoved += fileScore.getSyntaxLineRemoved();
+        commentLineRemoved += fileScore.getCommentLineRemoved();
+        movedLines += fileScore.getMovedLines();
+        reformattedLines += fileScore.getReformattedLines();
+    }
+}
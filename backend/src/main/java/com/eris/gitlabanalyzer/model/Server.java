@@ -1,5 +1,7 @@
 package com.eris.gitlabanalyzer.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -11,6 +13,7 @@ import static javax.persistence.GenerationType.SEQUENCE;
 @Table(
         name = "server"
 )
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Server {
     @Id
     @SequenceGenerator(
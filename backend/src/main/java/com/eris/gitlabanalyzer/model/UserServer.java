@@ -1,6 +1,8 @@
 package com.eris.gitlabanalyzer.model;
 
 import com.eris.gitlabanalyzer.utils.AttributeEncryptor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.persistence.Entity;
@@ -9,7 +11,7 @@ import java.util.Objects;
 
 @Entity(name = "UserServer")
 @Table(name = "user_server")
-
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class UserServer {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
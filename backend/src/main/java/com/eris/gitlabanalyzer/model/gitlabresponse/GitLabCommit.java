@@ -28,4 +28,16 @@ public class GitLabCommit {
     private List<String> parentShas;
 
     public GitLabCommit() { }
+
+    // for commits read from a local repository instead of the API
+    public GitLabCommit(String sha, String authorName, String authorEmail, OffsetDateTime createdAt,
+                        String title, String webUrl, List<String> parentShas) {
+        this.sha = sha;
+        this.authorName = authorName;
+        this.authorEmail = authorEmail;
+        this.createdAt = createdAt;
+        this.title = title;
+        this.webUrl = webUrl;
+        this.parentShas = parentShas;
+    }
 }
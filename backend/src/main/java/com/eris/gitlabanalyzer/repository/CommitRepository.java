@@ -1,65 +1,88 @@
 package com.eris.gitlabanalyzer.repository;
 
+import com.eris.gitlabanalyzer.dataprocessing.ProjectScoreCube;
 import com.eris.gitlabanalyzer.model.Commit;
+import com.eris.gitlabanalyzer.viewmodel.CommitView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface CommitRepository extends JpaRepository<Commit,Long> {
+    // the columns of CommitView, so listings are read in one statement without loading the entities
+    String COMMIT_VIEW = "new com.eris.gitlabanalyzer.viewmodel.CommitView(c.id, c.sha, c.title, c.webUrl, c.createdAt, c.mergedAt, " +
+            "c.authorEmail, c.authorName, c.authorUsername, c.isIgnored) ";
+
     @Query("select c from Commit c where c.sha = ?1 and c.project.id = ?2")
     Optional<Commit> findByCommitShaAndProjectId(String sha, Long projectId);
 
-    @Query("select c from Commit c where c.project.id = ?1")
-    List<Commit> findAllByProjectId(Long projectId);
+    @Query("select " + COMMIT_VIEW + "from Commit c where c.project.id = ?1")
+    List<CommitView> findAllByProjectId(Long projectId);
+
+    @Query("select " + COMMIT_VIEW + "from Commit c where c.project.id=?1 and c.gitManagementUser.id = ?2")
+    List<CommitView> findByProjectIdAndGitManagementUserId(Long projectId, Long gitManagementUserId);
 
-    @Query("select c from Commit c where c.project.id=?1 and c.authorEmail in (select ca.authorEmail from CommitAuthor ca where ca.authorEmail = c.authorEmail and ca.gitManagementUser.id = ?2)")
-    List<Commit> findByProjectIdAndGitManagementUserId(Long projectId, Long gitManagementUserId);
+    // keyset page after (createdAt, id) in the order of commit_project_created_at_id_idx
+    @Query("select " + COMMIT_VIEW + "from Commit c where c.project.id = ?1 " +
+            "and (c.createdAt > ?2 or (c.createdAt = ?2 and c.id > ?3)) " +
+            "order by c.createdAt asc, c.id asc")
+    List<CommitView> findPageByProjectId(Long projectId, OffsetDateTime afterCreatedAt, Long afterId, Pageable pageable);
 
-    @Query("select c from Commit c where c.project.id = ?1 " +
+    // forward only and read in batches of the fetch size, must be consumed and closed in a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select " + COMMIT_VIEW + "from Commit c where c.project.id = ?1 order by c.createdAt asc, c.id asc")
+    Stream<CommitView> streamAllByProjectId(Long projectId);
+
+    @Query("select " + COMMIT_VIEW + "from Commit c where c.project.id = ?1 " +
             "and c.createdAt >= ?2 and c.createdAt <= ?3 " +
             "and c.mergeRequest IS NULL " +
             "order by c.createdAt asc")
-    List<Commit> findAllOrphanByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    List<CommitView> findAllOrphanByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
     @Query("select c from Commit c where c.project.id = ?1 and c.isIgnored = false and ((c.mergedAt >= ?2 and c.mergedAt <= ?3) or (c.createdAt >= ?2 and c.createdAt <= ?3 and c.mergeRequest IS NULL)) order by c.createdAt asc")
     List<Commit> findAllActiveByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select c from Commit c where c.project.id = ?1 and ((c.mergedAt >= ?2 and c.mergedAt <= ?3) or (c.createdAt >= ?2 and c.createdAt <= ?3 and c.mergeRequest IS NULL)) order by c.createdAt asc")
-    List<Commit> findAllByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    @Query("select count(c) from Commit c where c.project.id = ?1 and ((c.mergedAt >= ?2 and c.mergedAt <= ?3) or (c.createdAt >= ?2 and c.createdAt <= ?3 and c.mergeRequest IS NULL))")
+    long countByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select c from Commit c where c.mergeRequest.id = ?1 and ((c.mergedAt >= ?2 and c.mergedAt <= ?3) or (c.createdAt >= ?2 and c.createdAt <= ?3 and c.mergeRequest IS NULL)) order by c.createdAt asc")
-    List<Commit> findAllByMergeRequestIdAndDateRange(Long mergeRequestId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    @Query("select " + COMMIT_VIEW + "from Commit c where c.mergeRequest.id = ?1 and ((c.mergedAt >= ?2 and c.mergedAt <= ?3) or (c.createdAt >= ?2 and c.createdAt <= ?3 and c.mergeRequest IS NULL)) order by c.createdAt asc")
+    List<CommitView> findAllByMergeRequestIdAndDateRange(Long mergeRequestId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
     @Query("select c from Commit c where c.project.id = ?1 and ((c.mergedAt >= ?3 and c.mergedAt <= ?4) or (c.createdAt >= ?3 and c.createdAt <= ?4 and c.mergeRequest IS NULL)) " +
-            "and c.isIgnored = false and c.authorEmail in (select ca.authorEmail from CommitAuthor ca where ca.authorEmail = c.authorEmail and ca.gitManagementUser.id = ?2) order by c.createdAt asc ")
+            "and c.isIgnored = false and c.gitManagementUser.id = ?2 order by c.createdAt asc ")
     List<Commit> findAllActiveByProjectIdAndDateRangeAndGitManagementUserId(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select c from Commit c where c.project.id = ?1 and ((c.mergedAt >= ?3 and c.mergedAt <= ?4) or (c.createdAt >= ?3 and c.createdAt <= ?4 and c.mergeRequest IS NULL)) " +
-            "and c.authorEmail in (select ca.authorEmail from CommitAuthor ca where ca.authorEmail = c.authorEmail and ca.gitManagementUser.id = ?2) order by c.createdAt asc ")
-    List<Commit> findAllByProjectIdAndDateRangeAndGitManagementUserId(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    @Query("select count(c) from Commit c where c.project.id = ?1 and ((c.mergedAt >= ?3 and c.mergedAt <= ?4) or (c.createdAt >= ?3 and c.createdAt <= ?4 and c.mergeRequest IS NULL)) " +
+            "and c.gitManagementUser.id = ?2")
+    long countByProjectIdAndDateRangeAndGitManagementUserId(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select c from Commit c where c.project.id=?1 " +
+    @Query("select " + COMMIT_VIEW + "from Commit c where c.project.id=?1 " +
             "and c.createdAt >= ?3 and c.createdAt <= ?4 " +
-            "and c.mergeRequest is null and c.authorEmail in " +
-            "(select ca.authorEmail from CommitAuthor ca where ca.authorEmail = c.authorEmail and ca.gitManagementUser.id = ?2) " +
+            "and c.mergeRequest is null and c.gitManagementUser.id = ?2 " +
             "order by c.createdAt asc")
-    List<Commit> findOrphanByProjectIdAndGitManagementUserIdAndDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    List<CommitView> findOrphanByProjectIdAndGitManagementUserIdAndDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select c from Commit c where c.mergeRequest.id = ?1 and ((c.mergedAt >= ?3 and c.mergedAt <= ?4) or (c.createdAt >= ?3 and c.createdAt <= ?4 and c.mergeRequest IS NULL)) " +
-            "and c.authorEmail in (select ca.authorEmail from CommitAuthor ca where ca.authorEmail = c.authorEmail and ca.gitManagementUser.id = ?2) order by c.createdAt asc ")
-    List<Commit> findAllByMergeRequestIdAndDateRangeAndGitManagementUserId(Long mergeRequestId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    @Query("select " + COMMIT_VIEW + "from Commit c where c.mergeRequest.id = ?1 and ((c.mergedAt >= ?3 and c.mergedAt <= ?4) or (c.createdAt >= ?3 and c.createdAt <= ?4 and c.mergeRequest IS NULL)) " +
+            "and c.gitManagementUser.id = ?2 order by c.createdAt asc ")
+    List<CommitView> findAllByMergeRequestIdAndDateRangeAndGitManagementUserId(Long mergeRequestId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select c from Commit c where c.mergeRequest.id=?1 and c.isIgnored = false and c.authorEmail in (select ca.authorEmail from CommitAuthor ca where ca.authorEmail = c.authorEmail and ca.gitManagementUser.id = ?2)")
+    @Query("select c from Commit c where c.mergeRequest.id=?1 and c.isIgnored = false and c.gitManagementUser.id = ?2")
     List<Commit> findActiveByMergeIdAndGitManagementUserId(Long mergeRequestId, Long gitManagementUserId);
 
-    @Query("select c from Commit c where c.mergeRequest.id=?1 and c.authorEmail in (select ca.authorEmail from CommitAuthor ca where ca.authorEmail = c.authorEmail and ca.gitManagementUser.id = ?2)")
+    @Query("select c from Commit c where c.mergeRequest.id=?1 and c.gitManagementUser.id = ?2")
     List<Commit> findByMergeIdAndGitManagementUserId(Long mergeRequestId, Long gitManagementUserId);
 
     List<Commit> findCommitByMergeRequest_Id(Long mergeRequestId);
@@ -71,6 +94,10 @@ public interface CommitRepository extends JpaRepository<Commit,Long> {
 
     @Transactional
     @Modifying
-    @Query("update Commit c set c.authorUsername = ?3 where c.authorName = ?1 and c.authorEmail = ?2 and c.project.id = ?4")
-    void updateCommitAuthorUsernames(String authorName, String authorEmail, String authorUsername, Long projectId);
+    @Query("update Commit c set c.gitManagementUser.id = ?1, c.authorUsername = ?2 where c.authorName = ?3 and c.authorEmail = ?4 and c.project.id = ?5")
+    void updateCommitAuthorMappings(Long gitManagementUserId, String authorUsername, String authorName, String authorEmail, Long projectId);
+
+    @Query("select c.id as id, c.createdAt as createdAt, c.mergedAt as mergedAt, c.isIgnored as isIgnored, m.id as mergeRequestId, " +
+            "c.gitManagementUser.id as gitManagementUserId from Commit c left join c.mergeRequest m where c.project.id = ?1")
+    List<ProjectScoreCube.CommitRow> findScoreCubeRowsByProjectId(Long projectId);
 }
@@ -0,0 +1,16 @@
+package com.eris.gitlabanalyzer.repository;
+import com.eris.gitlabanalyzer.model.FileScoreHunkIndex;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FileScoreHunkIndexRepository extends JpaRepository<FileScoreHunkIndex, Long> {
+    @Query("select h from FileScoreHunkIndex h where h.fileScore.mergeRequest.id = ?1")
+    List<FileScoreHunkIndex> findByMergeId(Long mergeId);
+
+    @Query("select h from FileScoreHunkIndex h where h.fileScore.commit.id = ?1")
+    List<FileScoreHunkIndex> findByCommitId(Long commitId);
+}
@@ -13,4 +13,11 @@ public interface FileScoreRepository extends JpaRepository<FileScore, Long> {
 
     @Query("select f from FileScore f where f.commit.id = ?1")
     List<FileScore> findByCommitId(Long commitId);
+
+    // the project predicate limits file_score to the partition of the project's semester
+    @Query("select f from FileScore f where f.projectId = ?1 and f.mergeRequest.id = ?2")
+    List<FileScore> findByProjectIdAndMergeId(Long projectId, Long mergeId);
+
+    @Query("select f from FileScore f where f.projectId = ?1 and f.commit.id = ?2")
+    List<FileScore> findByProjectIdAndCommitId(Long projectId, Long commitId);
 }
@@ -1,30 +1,69 @@
 package com.eris.gitlabanalyzer.repository;
 
 import com.eris.gitlabanalyzer.model.Note;
+import com.eris.gitlabanalyzer.viewmodel.GitManagementUserCount;
+import com.eris.gitlabanalyzer.viewmodel.NoteView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface MergeRequestCommentRepository extends JpaRepository<Note, Long> {
+    // the columns of NoteView, so listings are read in one statement without loading the entities
+    String NOTE_VIEW = "new com.eris.gitlabanalyzer.viewmodel.NoteView(n.gitLabNoteId, n.body, g.gitLabUserId, g.name, g.username, " +
+            "n.createdAt, n.own, n.parentIid, n.parentWebUrl) ";
+
     @Query("select n from Note n where n.projectId = ?1 and n.noteableType='MergeRequest' order by n.mergedAt desc")
     List<Note> findAllByProjectId(Long projectId);
 
-    @Query("select n from Note n where n.projectId = ?1 and n.mergedAt >= ?2 and n.mergedAt <= ?3 and n.noteableType='MergeRequest' order by n.mergedAt desc")
-    List<Note> findAllByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    @Query("select " + NOTE_VIEW + "from Note n join n.gitManagementUser g " +
+            "where n.projectId = ?1 and n.mergedAt >= ?2 and n.mergedAt <= ?3 and n.noteableType='MergeRequest' order by n.mergedAt desc")
+    List<NoteView> findAllByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select n from Note n where n.projectId = ?1 " +
-            "and n.gitManagementUser.id = ?2 " +
+    @Query("select " + NOTE_VIEW + "from Note n join n.gitManagementUser g where n.projectId = ?1 " +
+            "and g.id = ?2 " +
             "and n.mergedAt >= ?3 and n.mergedAt <= ?4 " +
             "and n.noteableType='MergeRequest' order by n.mergedAt desc")
-    List<Note> findAllByProjectIdAndGitManagementUserIdAndDateRange(
+    List<NoteView> findAllByProjectIdAndGitManagementUserIdAndDateRange(
+            Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime
+    );
+
+    // keyset page after (createdAt, gitLabNoteId) of the notes in range, a gitManagementUserId of 0 is every author
+    @Query("select " + NOTE_VIEW + "from Note n join n.gitManagementUser g where n.projectId = ?1 " +
+            "and (?2 = 0L or g.id = ?2) " +
+            "and n.mergedAt >= ?3 and n.mergedAt <= ?4 and n.noteableType='MergeRequest' " +
+            "and (n.createdAt > ?5 or (n.createdAt = ?5 and n.gitLabNoteId > ?6)) " +
+            "order by n.createdAt asc, n.gitLabNoteId asc")
+    List<NoteView> findPageByProjectIdAndGitManagementUserIdAndDateRange(
+            Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime,
+            OffsetDateTime afterCreatedAt, Long afterGitLabNoteId, Pageable pageable
+    );
+
+    // forward only and read in batches of the fetch size, must be consumed and closed in a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select " + NOTE_VIEW + "from Note n join n.gitManagementUser g where n.projectId = ?1 " +
+            "and (?2 = 0L or g.id = ?2) " +
+            "and n.mergedAt >= ?3 and n.mergedAt <= ?4 and n.noteableType='MergeRequest' " +
+            "order by n.createdAt asc, n.gitLabNoteId asc")
+    Stream<NoteView> streamAllByProjectIdAndGitManagementUserIdAndDateRange(
             Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime
     );
 
     @Query("select n from Note n where n.gitLabNoteId = ?1 and n.projectId = ?2 and n.noteableType='MergeRequest'")
     Optional<Note> findByGitLabNoteIdAndProjectId(Long gitLabNoteId, Long projectId);
+
+    @Query("select n.gitManagementUser.id as gitManagementUserId, count(n) as count from Note n where n.projectId = ?1 " +
+            "and n.mergedAt >= ?2 and n.mergedAt <= ?3 and n.noteableType='MergeRequest' group by n.gitManagementUser.id")
+    List<GitManagementUserCount> countByProjectIdAndDateRangeGroupByGitManagementUser(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 }
@@ -1,6 +1,8 @@
 package com.eris.gitlabanalyzer.repository;
 
+import com.eris.gitlabanalyzer.dataprocessing.ProjectScoreCube;
 import com.eris.gitlabanalyzer.model.MergeRequest;
+import com.eris.gitlabanalyzer.viewmodel.MergeRequestView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -11,6 +13,10 @@ import java.util.Optional;
 
 @Repository
 public interface MergeRequestRepository extends JpaRepository<MergeRequest, Long> {
+    // the columns of MergeRequestView, so listings are read in one statement without loading the entities
+    String MERGE_REQUEST_VIEW = "new com.eris.gitlabanalyzer.viewmodel.MergeRequestView(m.id, m.iid, m.authorUsername, g.name, m.title, " +
+            "m.createdAt, m.mergedAt, m.webUrl, m.isIgnored) ";
+
     @Query("select m from MergeRequest m where m.iid = ?1 and m.project.id = ?2 order by m.mergedAt asc")
     Optional<MergeRequest> findByIidAndProjectId(Long iid, Long projectId);
 
@@ -20,11 +26,21 @@ public interface MergeRequestRepository extends JpaRepository<MergeRequest, Long
     @Query("select m from MergeRequest m where m.project.id = ?1 and m.mergedAt >= ?2 and m.mergedAt <= ?3 and m.isIgnored = false order by m.mergedAt asc")
     List<MergeRequest> findAllActiveByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select m from MergeRequest m where m.project.id = ?1 and m.mergedAt >= ?2 and m.mergedAt <= ?3 order by m.mergedAt asc")
-    List<MergeRequest> findAllByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    @Query("select " + MERGE_REQUEST_VIEW + "from MergeRequest m left join m.gitManagementUser g " +
+            "where m.project.id = ?1 and m.mergedAt >= ?2 and m.mergedAt <= ?3 order by m.mergedAt asc")
+    List<MergeRequestView> findAllByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    // merge requests the user owns or, when shared, has commits in
+    @Query("select " + MERGE_REQUEST_VIEW + "from MergeRequest m left join m.gitManagementUser g " +
+            "where m.project.id = ?1 and m.mergedAt >= ?3 and m.mergedAt <= ?4 " +
+            "and (g.id = ?2 or m.id in (select sm.id from MergeRequest sm join sm.sharedWith sw where sw = ?2)) order by m.mergedAt asc")
+    List<MergeRequestView> findAllByParticipantAndDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    @Query("select count(m) from MergeRequest m where m.project.id = ?1 and m.mergedAt >= ?2 and m.mergedAt <= ?3")
+    long countByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select m from MergeRequest m where m.gitManagementUser.id= ?2 and m.project.id= ?1 and m.mergedAt >= ?3 and m.mergedAt <= ?4 order by m.mergedAt asc")
-    List<MergeRequest> findAllByGitManagementUserIdAndDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    @Query("select count(m) from MergeRequest m where m.gitManagementUser.id= ?2 and m.project.id= ?1 and m.mergedAt >= ?3 and m.mergedAt <= ?4")
+    long countByGitManagementUserIdAndDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
     @Query("select m from MergeRequest m where m.gitManagementUser.id= ?2 and m.project.id= ?1 and m.mergedAt >= ?3 and m.mergedAt <= ?4 and m.isIgnored = false order by m.mergedAt asc")
     List<MergeRequest> findAllActiveByGitManagementUserIdAndDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
@@ -38,7 +54,10 @@ public interface MergeRequestRepository extends JpaRepository<MergeRequest, Long
     @Query("select m from MergeRequest m join m.sharedWith sw where m.project.id= ?1 and m.mergedAt >= ?3 and m.mergedAt <= ?4 and sw = ?2 and m.isIgnored = false order by m.mergedAt asc")
     List<MergeRequest> findActiveParticipantSharedMergeRequests(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
 
-    @Query("select m from MergeRequest m join m.sharedWith sw where m.project.id= ?1 and m.mergedAt >= ?3 and m.mergedAt <= ?4 and sw = ?2 order by m.mergedAt asc")
-    List<MergeRequest> findParticipantSharedMergeRequests(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+    @Query("select m.id as id, m.mergedAt as mergedAt, m.isIgnored as isIgnored, g.id as gitManagementUserId " +
+            "from MergeRequest m left join m.gitManagementUser g where m.project.id = ?1")
+    List<ProjectScoreCube.MergeRequestRow> findScoreCubeRowsByProjectId(Long projectId);
 
+    @Query("select m.id as mergeRequestId, sw as gitManagementUserId from MergeRequest m join m.sharedWith sw where m.project.id = ?1")
+    List<ProjectScoreCube.SharedWithRow> findScoreCubeSharedWithByProjectId(Long projectId);
 }
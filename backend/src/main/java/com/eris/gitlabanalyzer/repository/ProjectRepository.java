@@ -1,16 +1,41 @@
 package com.eris.gitlabanalyzer.repository;
 import com.eris.gitlabanalyzer.model.Project;
+import com.eris.gitlabanalyzer.viewmodel.ProjectView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
+    // the columns of ProjectView, so listings do not load the entities and their server
+    String PROJECT_VIEW = "new com.eris.gitlabanalyzer.viewmodel.ProjectView(p.id, p.gitLabProjectId, p.name, p.nameWithNamespace, " +
+            "p.webUrl, p.server.id, p.localRepositoryPath) ";
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("select p from Project p where p.gitLabProjectId = ?1 and p.server.id = ?2")
     Optional<Project> findByGitlabProjectIdAndServerId(Long gitLabProjectId, Long serverId);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Project> findProjectById(Long id);
+
+    // keyset page after the id of the last project
+    @Query("select " + PROJECT_VIEW + "from Project p where p.id > ?1 order by p.id asc")
+    List<ProjectView> findPageAfterId(Long afterId, Pageable pageable);
+
+    // forward only and read in batches of the fetch size, must be consumed and closed in a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select " + PROJECT_VIEW + "from Project p order by p.id asc")
+    Stream<ProjectView> streamAll();
 }
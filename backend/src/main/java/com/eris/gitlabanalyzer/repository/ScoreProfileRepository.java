@@ -4,15 +4,23 @@ import com.eris.gitlabanalyzer.model.ScoreProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface ScoreProfileRepository extends JpaRepository<ScoreProfile, Long> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<ScoreProfile> findScoreProfileById(Long Id);
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<ScoreProfile> findScoreProfilesByUserId(Long userId);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("select s from ScoreProfile s where s.user.id=?1 and s.id=?2")
     Optional<ScoreProfile> findScoreProfileByUserIdandId(Long userId, Long id);
 }
@@ -0,0 +1,92 @@
+package com.eris.gitlabanalyzer.repository;
+
+import com.eris.gitlabanalyzer.dataprocessing.DatedItemFileTypeLineTotals;
+import com.eris.gitlabanalyzer.dataprocessing.FileTypeLineTotals;
+import com.eris.gitlabanalyzer.dataprocessing.ItemFileTypeLineTotals;
+import com.eris.gitlabanalyzer.model.ScoreRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface ScoreRollupRepository extends JpaRepository<ScoreRollup, Long> {
+
+    String LINE_TOTALS = "r.fileType as fileType, " +
+            "sum(r.unpairedCodeLineAdded) as unpairedCodeLineAdded, sum(r.syntaxLineAdded) as syntaxLineAdded, sum(r.commentLineAdded) as commentLineAdded, " +
+            "sum(r.unpairedCodeLineRemoved) as unpairedCodeLineRemoved, sum(r.syntaxLineRemoved) as syntaxLineRemoved, sum(r.commentLineRemoved) as commentLineRemoved, " +
+            "sum(r.movedLines) as movedLines, sum(r.reformattedLines) as reformattedLines ";
+
+    String ACTIVE_COMMIT_IN_RANGE = "c.project.id = ?1 and c.isIgnored = false " +
+            "and ((c.mergedAt >= ?2 and c.mergedAt <= ?3) or (c.createdAt >= ?2 and c.createdAt <= ?3 and c.mergeRequest IS NULL)) ";
+
+    String ACTIVE_USER_COMMIT_IN_RANGE = "c.project.id = ?1 and c.isIgnored = false " +
+            "and ((c.mergedAt >= ?3 and c.mergedAt <= ?4) or (c.createdAt >= ?3 and c.createdAt <= ?4 and c.mergeRequest IS NULL)) " +
+            "and c.gitManagementUser.id = ?2 ";
+
+    @Query("select " + LINE_TOTALS + "from ScoreRollup r join r.commit c where " + ACTIVE_COMMIT_IN_RANGE + "group by r.fileType")
+    List<FileTypeLineTotals> sumActiveCommitsByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    @Query("select " + LINE_TOTALS + "from ScoreRollup r join r.commit c where " + ACTIVE_USER_COMMIT_IN_RANGE + "group by r.fileType")
+    List<FileTypeLineTotals> sumActiveCommitsByProjectIdAndDateRangeAndGitManagementUserId(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    @Query("select " + LINE_TOTALS + "from ScoreRollup r join r.mergeRequest m where m.project.id = ?1 and m.mergedAt >= ?2 and m.mergedAt <= ?3 and m.isIgnored = false " +
+            "group by r.fileType")
+    List<FileTypeLineTotals> sumActiveMergeRequestsByProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    @Query("select " + LINE_TOTALS + "from ScoreRollup r join r.mergeRequest m where m.gitManagementUser.id = ?2 and m.project.id = ?1 " +
+            "and m.mergedAt >= ?3 and m.mergedAt <= ?4 and m.sharedWith is EMPTY and m.isIgnored = false group by r.fileType")
+    List<FileTypeLineTotals> sumActiveNotSharedMergeRequestsByGitManagementUserIdAndDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    // the user's commits on shared merge requests they own or participated in, each merge request counted once
+    @Query("select " + LINE_TOTALS + "from ScoreRollup r join r.commit c join c.mergeRequest m where m.project.id = ?1 " +
+            "and m.mergedAt >= ?3 and m.mergedAt <= ?4 and m.sharedWith is not EMPTY and m.isIgnored = false " +
+            "and (m.gitManagementUser.id = ?2 or m.id in (select sm.id from MergeRequest sm join sm.sharedWith sw where sw = ?2)) " +
+            "and c.isIgnored = false " +
+            "and c.gitManagementUser.id = ?2 " +
+            "group by r.fileType")
+    List<FileTypeLineTotals> sumActiveSharedMergeRequestCommitsByGitManagementUserIdAndDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    // the user's commits on one merge request
+    @Query("select " + LINE_TOTALS + "from ScoreRollup r join r.commit c where c.mergeRequest.id = ?1 and c.gitManagementUser.id = ?2 group by r.fileType")
+    List<FileTypeLineTotals> sumByMergeIdAndGitManagementUserId(Long mergeId, Long gitManagementUserId);
+
+    // every active commit and MR in the range with its day for the daily digest, left joined so items without rollup rows are still counted
+    @Query("select c.id as itemId, c.createdAt as itemDate, " + LINE_TOTALS + "from Commit c left join ScoreRollup r on r.commit = c " +
+            "where " + ACTIVE_COMMIT_IN_RANGE + "group by c.id, c.createdAt, r.fileType")
+    List<DatedItemFileTypeLineTotals> sumActiveCommitsByItemAndProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    @Query("select c.id as itemId, c.createdAt as itemDate, " + LINE_TOTALS + "from Commit c left join ScoreRollup r on r.commit = c " +
+            "where " + ACTIVE_USER_COMMIT_IN_RANGE + "group by c.id, c.createdAt, r.fileType")
+    List<DatedItemFileTypeLineTotals> sumActiveCommitsByItemAndProjectIdAndDateRangeAndGitManagementUserId(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    @Query("select m.id as itemId, m.mergedAt as itemDate, " + LINE_TOTALS + "from MergeRequest m left join ScoreRollup r on r.mergeRequest = m " +
+            "where m.project.id = ?1 and m.mergedAt >= ?2 and m.mergedAt <= ?3 and m.isIgnored = false group by m.id, m.mergedAt, r.fileType")
+    List<DatedItemFileTypeLineTotals> sumActiveMergeRequestsByItemAndProjectIdAndDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    @Query("select m.id as itemId, m.mergedAt as itemDate, " + LINE_TOTALS + "from MergeRequest m left join ScoreRollup r on r.mergeRequest = m " +
+            "where m.gitManagementUser.id = ?2 and m.project.id = ?1 and m.mergedAt >= ?3 and m.mergedAt <= ?4 and m.isIgnored = false " +
+            "group by m.id, m.mergedAt, r.fileType")
+    List<DatedItemFileTypeLineTotals> sumActiveMergeRequestsByItemAndGitManagementUserIdAndDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime);
+
+    // every rollup row of the project, for ProjectScoreCube
+    @Query("select r.commit.id as itemId, " + LINE_TOTALS + "from ScoreRollup r where r.commit.project.id = ?1 group by r.commit.id, r.fileType")
+    List<ItemFileTypeLineTotals> findCommitRollupsByProjectId(Long projectId);
+
+    @Query("select r.mergeRequest.id as itemId, " + LINE_TOTALS + "from ScoreRollup r where r.mergeRequest.project.id = ?1 group by r.mergeRequest.id, r.fileType")
+    List<ItemFileTypeLineTotals> findMergeRollupsByProjectId(Long projectId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ScoreRollup r where r.commit.id = ?1")
+    void deleteByCommitId(Long commitId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ScoreRollup r where r.mergeRequest.id = ?1")
+    void deleteByMergeId(Long mergeId);
+}
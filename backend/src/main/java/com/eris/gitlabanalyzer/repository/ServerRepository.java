@@ -3,9 +3,14 @@ package com.eris.gitlabanalyzer.repository;
 import com.eris.gitlabanalyzer.model.Server;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface ServerRepository extends JpaRepository<Server, Long> {
     // Only to be used for testing
     @Query("select s from Server s join s.userServers us where s.serverUrl=?1 and us.accessToken=?2")
@@ -16,6 +21,7 @@ public interface ServerRepository extends JpaRepository<Server, Long> {
 
     Optional<Server> findByServerUrl(String serverUrl);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Server> findServerById(Long id);
 }
 
@@ -3,14 +3,21 @@ package com.eris.gitlabanalyzer.repository;
 import com.eris.gitlabanalyzer.model.UserServer;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface UserServerRepository extends JpaRepository<UserServer, Long> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<UserServer> findUserServerByUserId(Long userId);
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("select u from UserServer u where u.user.id = ?1 and u.server.id = ?2")
     Optional<UserServer> findUserServerByUserIdAndServerId(Long userId, Long serverId);
 }
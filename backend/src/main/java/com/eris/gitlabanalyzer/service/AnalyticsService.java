@@ -22,6 +22,9 @@ public class AnalyticsService {
     private final IssueService issueService;
     private final AnalysisRunService analysisRunService;
     private final AnalysisRunRepository analysisRunRepository;
+    private final ScoreService scoreService;
+    private final ImportBulkhead importBulkhead;
+    private final ArchiveService archiveService;
 
     public AnalyticsService(
             ProjectService projectService,
@@ -30,7 +33,10 @@ public class AnalyticsService {
             CommitService commitService,
             IssueService issueService,
             AnalysisRunService analysisRunService,
-            AnalysisRunRepository analysisRunRepository) {
+            AnalysisRunRepository analysisRunRepository,
+            ScoreService scoreService,
+            ImportBulkhead importBulkhead,
+            ArchiveService archiveService) {
         this.projectService = projectService;
         this.gitManagementUserService = gitManagementUserService;
         this.mergeRequestService = mergeRequestService;
@@ -38,6 +44,9 @@ public class AnalyticsService {
         this.issueService = issueService;
         this.analysisRunService = analysisRunService;
         this.analysisRunRepository = analysisRunRepository;
+        this.scoreService = scoreService;
+        this.importBulkhead = importBulkhead;
+        this.archiveService = archiveService;
     }
 
     public Stream<AnalysisRunView> saveProjectsAndAnalysisRuns(User user,
@@ -55,19 +64,29 @@ public class AnalyticsService {
         return analysisRuns.stream().map(AnalysisRunView::fromAnalysisRun);
     }
 
+    // imports take the connections of the import pool, a request turned away by the bulkhead has not started any of its runs
     public List<Long> saveProjectDataForAnalysisRuns(List<Long> analysisRunIds) {
+        return importBulkhead.run(() -> importAnalysisRuns(analysisRunIds));
+    }
+
+    private List<Long> importAnalysisRuns(List<Long> analysisRunIds) {
         List<Long> projectIds = new ArrayList<>();
         List<AnalysisRun> analysisRuns = analysisRunRepository.findByIds(analysisRunIds);
         analysisRuns.forEach(analysisRun -> {
+            var project = analysisRun.getProject();
             try {
-                var project = analysisRun.getProject();
                 var startDateTime = analysisRun.getStartDateTime();
                 var endDateTime = analysisRun.getEndDateTime();
+                // importing over a compacted project would add its rollups again, it has to be rehydrated first
+                if (archiveService.isArchived(project.getId())) {
+                    throw new IllegalStateException("Project " + project.getId() + " is archived, rehydrate it before analysing it again");
+                }
 
                 analysisRunService.updateProgress(analysisRun,"Importing members",AnalysisRun.Progress.AtStartOfImportingMembers.getValue(), true);
                 gitManagementUserService.saveGitManagementUserInfo(project);
 
                 analysisRunService.updateProgress(analysisRun,"Importing merge requests for "+project.getNameWithNamespace(),AnalysisRun.Progress.AtStartOfImportingMergeRequests.getValue(), true);
+                scoreService.loadGeneratedFileRules(project);
                 List<MergeRequest> mergeRequests = mergeRequestService.saveMergeRequestInfo(analysisRun, project, startDateTime, endDateTime);
 
                 analysisRunService.updateProgress(analysisRun,"Importing commits for "+project.getNameWithNamespace(),AnalysisRun.Progress.AtStartOfImportingCommits.getValue(), true);
@@ -83,6 +102,9 @@ public class AnalyticsService {
                 e.printStackTrace();
                 analysisRun.setStatus(AnalysisRun.Status.Error);
                 analysisRunService.updateProgress(analysisRun,"Error",0.0, true);
+            } finally {
+                // once per import rather than per merge request or commit batch, a failed import may have stored part of its data
+                scoreService.scoresChanged(project.getId());
             }
         });
         return projectIds;
@@ -0,0 +1,322 @@
+package com.eris.gitlabanalyzer.service;
+
+import com.eris.gitlabanalyzer.model.AnalysisRun;
+import com.eris.gitlabanalyzer.viewmodel.ProjectArchiveView;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves the analysis data of projects that are no longer analysed out of the tables, so the working set stays the active courses.
+ * Archiving writes every row of the project to a gzipped file of JSON lines in archive.DIRECTORY: a header naming the
+ * table, its columns and their SQL types, then one array of values per row. COMPACT then deletes the file scores,
+ * notes and commit comments and keeps the commits, merge requests and rollups the scores are read from, DELETE deletes
+ * all of it including the analysis runs. Rehydrating inserts the removed rows back with their ids.
+ * Both run as one transaction on the import pool, within the import bulkhead.
+ */
+@Service
+public class ArchiveService {
+
+    public enum Mode {
+        COMPACT, DELETE
+    }
+
+    // in insert order, the tables a row refers to come first
+    private static final List<ArchivedTable> TABLES = List.of(
+            new ArchivedTable("analysis_run", "project_id = ?", false),
+            new ArchivedTable("merge_request", "project_id = ?", false),
+            new ArchivedTable("merge_request_shared_with",
+                    "merge_request_merge_request_id in (select merge_request_id from merge_request where project_id = ?)", false),
+            new ArchivedTable("commit", "project_id = ?", false),
+            new ArchivedTable("commit_comment", "commit_id in (select commit_id from commit where project_id = ?)", true),
+            new ArchivedTable("note", "project_id = ?", true),
+            new ArchivedTable("file_score", "project_id = ?", true),
+            new ArchivedTable("file_score_hunk_index", "project_id = ?", true),
+            new ArchivedTable("score_rollup", "commit_id in (select commit_id from commit where project_id = ?)"
+                    + " or merge_request_id in (select merge_request_id from merge_request where project_id = ?)", false));
+    private static final int FETCH_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate exportTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ScoreService scoreService;
+    private final ImportBulkhead importBulkhead;
+    private final Path directory;
+
+    public ArchiveService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                          ScoreService scoreService, ImportBulkhead importBulkhead,
+                          @Value("${archive.DIRECTORY:archive}") String directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        // the rows of a table are read in pages instead of all at once
+        this.exportTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.scoreService = scoreService;
+        this.importBulkhead = importBulkhead;
+        this.directory = Paths.get(directory);
+    }
+
+    public ProjectArchiveView archiveProject(Long projectId, Mode mode) {
+        ProjectArchiveView archive = importBulkhead.run(() -> transactionTemplate.execute(status -> {
+            lockProject(projectId);
+            if (findArchive(projectId).isPresent()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Project " + projectId + " is already archived");
+            }
+            Integer running = jdbcTemplate.queryForObject("select count(*) from analysis_run where project_id = ? and status = ?",
+                    Integer.class, projectId, AnalysisRun.Status.InProgress.name());
+            if (running != null && running > 0) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Project " + projectId + " has an analysis run in progress");
+            }
+
+            Path archivePath = directory.resolve("project-" + projectId + ".jsonl.gz").toAbsolutePath();
+            long rowCount = export(projectId, archivePath);
+            List<ArchivedTable> removed = new ArrayList<>(removedTables(mode));
+            Collections.reverse(removed);
+            for (ArchivedTable table : removed) {
+                jdbcTemplate.update("delete from " + table.name + " where " + table.predicate, table.arguments(projectId));
+            }
+
+            OffsetDateTime archivedAt = OffsetDateTime.now(ZoneOffset.UTC);
+            jdbcTemplate.update("insert into project_archive (project_id, mode, archive_path, row_count, archived_at) values (?, ?, ?, ?, ?)",
+                    projectId, mode.name(), archivePath.toString(), rowCount, Timestamp.from(archivedAt.toInstant()));
+            return new ProjectArchiveView(projectId, mode.name(), archivePath.toString(), rowCount, archivedAt);
+        }));
+        scoreService.scoresChanged(projectId);
+        return archive;
+    }
+
+    // the archive file is kept, archiving the project again overwrites it
+    public ProjectArchiveView rehydrateProject(Long projectId) {
+        ProjectArchiveView archive = importBulkhead.run(() -> transactionTemplate.execute(status -> {
+            lockProject(projectId);
+            ProjectArchiveView archived = findArchive(projectId).orElseThrow(
+                    () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Project " + projectId + " is not archived"));
+            restore(Paths.get(archived.getArchivePath()), removedTables(Mode.valueOf(archived.getMode())));
+            jdbcTemplate.update("delete from project_archive where project_id = ?", projectId);
+            return archived;
+        }));
+        scoreService.scoresChanged(projectId);
+        return archive;
+    }
+
+    public List<ProjectArchiveView> getArchives() {
+        return jdbcTemplate.query("select project_id, mode, archive_path, row_count, archived_at from project_archive order by project_id",
+                (rs, rowNum) -> toView(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4), rs.getTimestamp(5)));
+    }
+
+    public boolean isArchived(Long projectId) {
+        return findArchive(projectId).isPresent();
+    }
+
+    // projects whose last analysis run was created before the cutoff and that are neither archived nor being analysed
+    public List<Long> findInactiveProjectIds(OffsetDateTime createdBefore) {
+        return jdbcTemplate.queryForList("select project_id from analysis_run where project_id is not null"
+                        + " and project_id not in (select project_id from project_archive)"
+                        + " group by project_id having max(created_date_time) < ? and sum(case when status = ? then 1 else 0 end) = 0"
+                        + " order by project_id",
+                Long.class, Timestamp.from(createdBefore.toInstant()), AnalysisRun.Status.InProgress.name());
+    }
+
+    private void lockProject(Long projectId) {
+        if (jdbcTemplate.queryForList("select project_id from project where project_id = ? for update", Long.class, projectId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No project " + projectId);
+        }
+    }
+
+    private Optional<ProjectArchiveView> findArchive(Long projectId) {
+        return jdbcTemplate.query("select project_id, mode, archive_path, row_count, archived_at from project_archive where project_id = ?",
+                (rs, rowNum) -> toView(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4), rs.getTimestamp(5)), projectId)
+                .stream().findFirst();
+    }
+
+    private static List<ArchivedTable> removedTables(Mode mode) {
+        List<ArchivedTable> removed = new ArrayList<>();
+        for (ArchivedTable table : TABLES) {
+            if (mode == Mode.DELETE || table.compacted) {
+                removed.add(table);
+            }
+        }
+        return removed;
+    }
+
+    // written next to the archive and moved over it, so a failed export never replaces an archive that was complete
+    private long export(Long projectId, Path archivePath) {
+        Path partialPath = archivePath.resolveSibling(archivePath.getFileName() + ".partial");
+        long rowCount = 0;
+        try {
+            Files.createDirectories(archivePath.getParent());
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(partialPath)), StandardCharsets.UTF_8))) {
+                for (ArchivedTable table : TABLES) {
+                    rowCount += exportTable(table, projectId, writer);
+                }
+            }
+            Files.move(partialPath, archivePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive " + archivePath, e);
+        }
+        return rowCount;
+    }
+
+    private long exportTable(ArchivedTable table, Long projectId, Writer writer) {
+        long[] rowCount = {0};
+        exportTemplate.query("select * from " + table.name + " where " + table.predicate, rs -> {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            int[] types = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                types[i] = metaData.getColumnType(i + 1);
+            }
+            if (rowCount[0] == 0) {
+                List<String> columns = new ArrayList<>();
+                for (int i = 0; i < columnCount; i++) {
+                    columns.add(metaData.getColumnName(i + 1).toLowerCase());
+                }
+                writeLine(writer, Map.of("table", table.name, "columns", columns, "types", types));
+            }
+            List<String> values = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                if (isBinary(types[i])) {
+                    byte[] bytes = rs.getBytes(i + 1);
+                    values.add(bytes == null ? null : Base64.getEncoder().encodeToString(bytes));
+                } else {
+                    values.add(rs.getString(i + 1));
+                }
+            }
+            writeLine(writer, values);
+            rowCount[0]++;
+        }, table.arguments(projectId));
+        return rowCount[0];
+    }
+
+    private void restore(Path archivePath, List<ArchivedTable> removed) {
+        List<String> removedNames = new ArrayList<>();
+        removed.forEach(table -> removedNames.add(table.name));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archivePath)), StandardCharsets.UTF_8))) {
+            String insert = null;
+            int[] types = null;
+            List<Object[]> batch = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode node = objectMapper.readTree(line);
+                if (node.isObject()) {
+                    flush(insert, batch);
+                    String table = node.get("table").asText();
+                    // tables the mode kept are still in place
+                    if (!removedNames.contains(table)) {
+                        insert = null;
+                        continue;
+                    }
+                    List<String> columns = new ArrayList<>();
+                    node.get("columns").forEach(column -> columns.add(column.asText()));
+                    types = new int[columns.size()];
+                    for (int i = 0; i < types.length; i++) {
+                        types[i] = node.get("types").get(i).asInt();
+                    }
+                    insert = "insert into " + table + " (" + String.join(", ", columns) + ") values ("
+                            + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+                } else if (insert != null) {
+                    Object[] row = new Object[types.length];
+                    for (int i = 0; i < types.length; i++) {
+                        JsonNode value = node.get(i);
+                        if (value.isNull()) {
+                            row[i] = new SqlParameterValue(types[i], null);
+                        } else if (isBinary(types[i])) {
+                            row[i] = new SqlParameterValue(types[i], Base64.getDecoder().decode(value.asText()));
+                        } else {
+                            // the drivers convert the text of a value back to its column type
+                            row[i] = new SqlParameterValue(types[i], value.asText());
+                        }
+                    }
+                    batch.add(row);
+                    if (batch.size() == INSERT_BATCH_SIZE) {
+                        flush(insert, batch);
+                    }
+                }
+            }
+            flush(insert, batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive " + archivePath, e);
+        }
+    }
+
+    private void flush(String insert, List<Object[]> batch) {
+        if (insert != null && !batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(insert, batch);
+        }
+        batch.clear();
+    }
+
+    private void writeLine(Writer writer, Object value) {
+        try {
+            writer.write(objectMapper.writeValueAsString(value));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isBinary(int type) {
+        return type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB;
+    }
+
+    private static ProjectArchiveView toView(long projectId, String mode, String archivePath, long rowCount, Timestamp archivedAt) {
+        return new ProjectArchiveView(projectId, mode, archivePath, rowCount, archivedAt.toInstant().atOffset(ZoneOffset.UTC));
+    }
+
+    private static class ArchivedTable {
+        private final String name;
+        private final String predicate;
+        // removed by COMPACT as well as DELETE
+        private final boolean compacted;
+
+        ArchivedTable(String name, String predicate, boolean compacted) {
+            this.name = name;
+            this.predicate = predicate;
+            this.compacted = compacted;
+        }
+
+        // one project id for every parameter of the predicate
+        Object[] arguments(Long projectId) {
+            int parameters = (int) predicate.chars().filter(c -> c == '?').count();
+            return Collections.nCopies(parameters, projectId).toArray();
+        }
+    }
+}
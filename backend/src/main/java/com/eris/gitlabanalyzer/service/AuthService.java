@@ -3,6 +3,7 @@ package com.eris.gitlabanalyzer.service;
 import com.eris.gitlabanalyzer.model.User;
 import com.eris.gitlabanalyzer.repository.UserProjectPermissionRepository;
 import com.eris.gitlabanalyzer.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,7 +12,10 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.security.Principal;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -19,10 +23,17 @@ public class AuthService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final UserProjectPermissionRepository userProjectPermissionRepository;
+    // users have no roles, the administrators are configured by username
+    private final Set<String> adminUsernames;
 
-    public AuthService(UserRepository userRepository, UserProjectPermissionRepository userProjectPermissionRepository) {
+    public AuthService(UserRepository userRepository, UserProjectPermissionRepository userProjectPermissionRepository,
+                       @Value("${auth.ADMIN_USERNAMES:}") String adminUsernames) {
         this.userRepository = userRepository;
         this.userProjectPermissionRepository = userProjectPermissionRepository;
+        this.adminUsernames = Arrays.stream(adminUsernames.split(","))
+                .map(String::trim)
+                .filter(username -> !username.isEmpty())
+                .collect(Collectors.toSet());
     }
 
     @Override
@@ -47,4 +58,8 @@ public class AuthService implements UserDetailsService {
                 userId, serverId, projectId).isPresent();
     }
 
+    public boolean isAdmin(User user) {
+        return adminUsernames.contains(user.getUsername());
+    }
+
 }
@@ -1,16 +1,22 @@
 package com.eris.gitlabanalyzer.service;
 
+import com.eris.gitlabanalyzer.dataprocessing.LocalRepositoryReader;
 import com.eris.gitlabanalyzer.model.*;
 import com.eris.gitlabanalyzer.viewmodel.CommitAuthorRequestBody;
 import com.eris.gitlabanalyzer.viewmodel.CommitAuthorView;
+import com.eris.gitlabanalyzer.viewmodel.CommitView;
+import com.eris.gitlabanalyzer.viewmodel.KeysetCursor;
+import com.eris.gitlabanalyzer.viewmodel.KeysetPage;
 import com.eris.gitlabanalyzer.model.gitlabresponse.GitLabCommit;
 import com.eris.gitlabanalyzer.repository.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 
 import java.time.ZoneOffset;
 import java.util.*;
 import java.time.OffsetDateTime;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -24,8 +30,10 @@ public class CommitService {
     private final CommitAuthorRepository commitAuthorRepository;
     private final AnalysisRunService analysisRunService;
     private final GitLabService requestScopeGitLabService;
+    private final LocalRepositoryReader localRepositoryReader;
+    private final ImportBulkhead importBulkhead;
 
-    public CommitService(MergeRequestRepository mergeRequestRepository, CommitRepository commitRepository, GitManagementUserRepository gitManagementUserRepository, CommitCommentRepository commitCommentRepository, ScoreService scoreService, CommitAuthorRepository commitAuthorRepository, AnalysisRunService analysisRunService, GitLabService requestScopeGitLabService) {
+    public CommitService(MergeRequestRepository mergeRequestRepository, CommitRepository commitRepository, GitManagementUserRepository gitManagementUserRepository, CommitCommentRepository commitCommentRepository, ScoreService scoreService, CommitAuthorRepository commitAuthorRepository, AnalysisRunService analysisRunService, GitLabService requestScopeGitLabService, LocalRepositoryReader localRepositoryReader, ImportBulkhead importBulkhead) {
         this.mergeRequestRepository = mergeRequestRepository;
         this.commitRepository = commitRepository;
         this.gitManagementUserRepository = gitManagementUserRepository;
@@ -34,6 +42,8 @@ public class CommitService {
         this.commitAuthorRepository = commitAuthorRepository;
         this.analysisRunService = analysisRunService;
         this.requestScopeGitLabService = requestScopeGitLabService;
+        this.localRepositoryReader = localRepositoryReader;
+        this.importBulkhead = importBulkhead;
     }
 
     public String splitEmail(String email) {
@@ -57,14 +67,33 @@ public class CommitService {
             saveCommitHelper(project, mergeRequest, mergeRequestCommits, mrCommitShas);
         }
 
-        var orphanCommits = requestScopeGitLabService.getCommits(project.getGitLabProjectId(), startDateTime, endDateTime)
+        var orphanCommits = getCommits(project, startDateTime, endDateTime)
                                                            .filter(gitLabCommit -> !mrCommitShas.contains(gitLabCommit.getSha()) && gitLabCommit.getParentShas().size() <= 1);
         analysisRunService.updateProgress(analysisRun, "Importing orphan commits", AnalysisRun.Progress.AtStartOfImportingOrphanCommits.getValue(), false);
         saveCommitHelper(project, null, orphanCommits, mrCommitShas);
     }
 
+    // commits come from the local repository when the project has one, only merge request commit lists use the API
+    private Flux<GitLabCommit> getCommits(Project project, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        if (project.getLocalRepositoryPath() != null) {
+            return Flux.fromIterable(localRepositoryReader.getCommits(project.getLocalRepositoryPath(), project.getWebUrl(), startDateTime, endDateTime));
+        }
+        return requestScopeGitLabService.getCommits(project.getGitLabProjectId(), startDateTime, endDateTime);
+    }
+
+    private GitLabCommit getCommit(Project project, String sha) {
+        if (project.getLocalRepositoryPath() != null) {
+            Optional<GitLabCommit> localCommit = localRepositoryReader.getCommit(project.getLocalRepositoryPath(), project.getWebUrl(), sha);
+            if (localCommit.isPresent()) {
+                return localCommit.get();
+            }
+        }
+        return requestScopeGitLabService.getCommit(project.getGitLabProjectId(), sha).block();
+    }
+
     public void saveCommitHelper(Project project, MergeRequest mergeRequest,Flux<GitLabCommit> gitLabCommits, List<String> mrCommitShas){
         var gitLabCommitList = gitLabCommits.collectList().blockOptional().orElse(new ArrayList<>());
+        List<Commit> savedCommits = new ArrayList<>();
 
         gitLabCommitList.forEach(gitLabCommit -> {
                     Optional<Commit> commitOptional = commitRepository.findByCommitShaAndProjectId(gitLabCommit.getSha(),project.getId());
@@ -75,7 +104,7 @@ public class CommitService {
                     // a merge request commit because that endpoint doesn't return parents.
                     if (gitLabCommit.getParentShas().size() == 0) {
                         // getting the commit from the gitlab api commit endpoint to make sure it has parent information
-                        gitLabCommit = requestScopeGitLabService.getCommit(project.getGitLabProjectId(), gitLabCommit.getSha()).block();
+                        gitLabCommit = getCommit(project, gitLabCommit.getSha());
                     }
                     // Having more than one parent makes the commit a merge, skipping merge commits
                     if (gitLabCommit.getParentShas().size() > 1) {return;}
@@ -94,6 +123,7 @@ public class CommitService {
 
                     if(commitAuthor.getGitManagementUser() != null){
                         commit.setAuthorUsername(commitAuthor.getGitManagementUser().getUsername());
+                        commit.setGitManagementUser(commitAuthor.getGitManagementUser());
                     }
 
                     if(mergeRequest != null){
@@ -104,9 +134,10 @@ public class CommitService {
 
                     commit = commitRepository.save(commit);
                     saveCommitComment(project, commit);
-                    scoreService.saveCommitDiffMetrics(commit);
+                    savedCommits.add(commit);
                 }
         );
+        scoreService.saveCommitDiffMetrics(project, savedCommits);
 
         setAllSharedMergeRequests(project.getId());
     }
@@ -142,7 +173,7 @@ public class CommitService {
         var gitLabCommitComments = requestScopeGitLabService.getCommitComments(project.getGitLabProjectId(), commit.getSha());
         var gitLabCommitCommentList = gitLabCommitComments.collectList().blockOptional().orElse(new ArrayList<>());
 
-        gitLabCommitCommentList.parallelStream().forEach(gitLabCommitComment -> {
+        importBulkhead.forEachInParallel(gitLabCommitCommentList, gitLabCommitComment -> {
             Optional<GitManagementUser> gitManagementUser = gitManagementUserRepository.findByGitLabUserIdAndServerId(gitLabCommitComment.getAuthor().getId(),project.getServer().getId());
             if(gitManagementUser.isEmpty()){
                 return;
@@ -159,6 +190,7 @@ public class CommitService {
         });
     }
 
+    @Transactional(readOnly = true)
     public List<CommitAuthorView> getCommitAuthors(Long projectId){
         List<CommitAuthorView> mappedCommitAuthors = commitAuthorRepository.findByProjectId(projectId);
         List<CommitAuthorView> unmappedCommitAuthors = commitAuthorRepository.findUnmappedCommitAuthorsByProjectId(projectId);
@@ -167,6 +199,7 @@ public class CommitService {
                                                                     .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<CommitAuthorView> getUnmappedCommitAuthors(Long projectId){
         return commitAuthorRepository.findUnmappedCommitAuthorsByProjectId(projectId);
     }
@@ -183,43 +216,70 @@ public class CommitService {
                     commitAuthor.getAuthorEmail(),
                     projectId);
 
-            commitRepository.updateCommitAuthorUsernames(
+            commitRepository.updateCommitAuthorMappings(
+                    commitAuthor.getMappedGitManagementUserId(),
+                    commitAuthor.getMappedGitManagementUserUsername(),
                     commitAuthor.getAuthorName(),
                     commitAuthor.getAuthorEmail(),
-                    commitAuthor.getMappedGitManagementUserUsername(),
                     projectId);
         });
+        // update MR shared status to match mapping
+        setAllSharedMergeRequests(projectId);
+        scoreService.scoresChanged(projectId);
     }
 
-    public List<Commit> getCommits(Long projectId){
+    @Transactional(readOnly = true)
+    public List<CommitView> getCommits(Long projectId){
         return commitRepository.findAllByProjectId(projectId);
     }
 
-    public List<Commit> getCommitsOfGitManagementUser(Long projectId, Long gitManagementUserId){
+    @Transactional(readOnly = true)
+    public KeysetPage<CommitView> getCommitPage(Long projectId, String cursor, int size){
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<CommitView> commits = commitRepository.findPageByProjectId(projectId, after.getCreatedAt(), after.getId(), KeysetPage.request(size));
+        return KeysetPage.of(commits, size, commit -> new KeysetCursor(commit.getCreatedAt(), commit.getId()).encode());
+    }
+
+    // the transaction holds the cursor open while the rows are handed to the sink one at a time
+    @Transactional(readOnly = true)
+    public void streamCommits(Long projectId, Consumer<CommitView> sink){
+        try (Stream<CommitView> commits = commitRepository.streamAllByProjectId(projectId)) {
+            commits.forEach(sink);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<CommitView> getCommitsOfGitManagementUser(Long projectId, Long gitManagementUserId){
         return commitRepository.findByProjectIdAndGitManagementUserId(projectId, gitManagementUserId);
     }
 
-    public List<Commit> getCommitsInDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
-        return commitRepository.findAllByProjectIdAndDateRange(projectId, startDateTime, endDateTime);
+    @Transactional(readOnly = true)
+    public long countCommitsInDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
+        return commitRepository.countByProjectIdAndDateRange(projectId, startDateTime, endDateTime);
     }
 
-    public List<Commit> getCommitsOfGitManagementUserInDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
-        return commitRepository.findAllByProjectIdAndDateRangeAndGitManagementUserId(projectId, gitManagementUserId, startDateTime, endDateTime);
+    @Transactional(readOnly = true)
+    public long countCommitsOfGitManagementUserInDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
+        return commitRepository.countByProjectIdAndDateRangeAndGitManagementUserId(projectId, gitManagementUserId, startDateTime, endDateTime);
     }
 
-    public List<Commit> getCommitsInDateRangeByMergeRequestId(Long mergeRequestId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
+    @Transactional(readOnly = true)
+    public List<CommitView> getCommitsInDateRangeByMergeRequestId(Long mergeRequestId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
         return commitRepository.findAllByMergeRequestIdAndDateRange(mergeRequestId, startDateTime, endDateTime);
     }
 
-    public List<Commit> getCommitsOfGitManagementUserInDateRangeByMergeRequestId(Long mergeRequestId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
+    @Transactional(readOnly = true)
+    public List<CommitView> getCommitsOfGitManagementUserInDateRangeByMergeRequestId(Long mergeRequestId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
         return commitRepository.findAllByMergeRequestIdAndDateRangeAndGitManagementUserId(mergeRequestId,gitManagementUserId, startDateTime, endDateTime);
     }
 
-    public List<Commit> getOrphanCommitsInDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
+    @Transactional(readOnly = true)
+    public List<CommitView> getOrphanCommitsInDateRange(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
         return commitRepository.findAllOrphanByProjectIdAndDateRange(projectId, startDateTime, endDateTime);
     }
 
-    public List<Commit> getOrphanCommitsOfGitManagementUserInDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+    @Transactional(readOnly = true)
+    public List<CommitView> getOrphanCommitsOfGitManagementUserInDateRange(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
         return commitRepository.findOrphanByProjectIdAndGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
     }
 
@@ -230,15 +290,10 @@ public class CommitService {
             Set<Long> sharedWith = new LinkedHashSet<>();
             List<Commit> commits = commitRepository.findCommitByMergeRequest_Id(mr.getId());
             for(Commit commit : commits){
-               Optional <CommitAuthor> commitAuthor = commitAuthorRepository.findByAuthorNameAndAuthorEmailAndProjectId(commit.getAuthorName(),
-                        commit.getAuthorEmail(), projectId);
-
-               commitAuthor.ifPresent(author -> {
-                   GitManagementUser gitManagementUser = author.getGitManagementUser();
-                   if(isMergeRequestShared(mr, gitManagementUser)){
-                       sharedWith.add(gitManagementUser.getId());
-                   }
-               });
+               GitManagementUser gitManagementUser = commit.getGitManagementUser();
+               if(isMergeRequestShared(mr, gitManagementUser)){
+                   sharedWith.add(gitManagementUser.getId());
+               }
             }
             mr.setSharedWith(sharedWith);
             mergeRequestRepository.save(mr);
@@ -0,0 +1,43 @@
+package com.eris.gitlabanalyzer.service;
+
+import com.eris.gitlabanalyzer.config.ConnectionPools;
+import com.eris.gitlabanalyzer.viewmodel.ConnectionPoolStatsView;
+import com.eris.gitlabanalyzer.viewmodel.WorkloadStatsView;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class ConnectionPoolService {
+    private final List<HikariDataSource> pools;
+    private final ImportBulkhead importBulkhead;
+
+    public ConnectionPoolService(ConnectionPools connectionPools, ImportBulkhead importBulkhead) {
+        this.pools = connectionPools.getAll();
+        this.importBulkhead = importBulkhead;
+    }
+
+    // one row per workload's pool, named after the workload
+    public WorkloadStatsView getStats() {
+        List<ConnectionPoolStatsView> connectionPools = pools.stream()
+                .map(ConnectionPoolService::toView)
+                .sorted(Comparator.comparing(ConnectionPoolStatsView::getWorkload))
+                .collect(Collectors.toList());
+        return new WorkloadStatsView(connectionPools, importBulkhead.getStats());
+    }
+
+    // a pool is only started by its first connection
+    private static ConnectionPoolStatsView toView(HikariDataSource pool) {
+        HikariPoolMXBean connections = pool.getHikariPoolMXBean();
+        if (connections == null) {
+            return new ConnectionPoolStatsView(pool.getPoolName(), pool.getMaximumPoolSize(), pool.getConnectionTimeout(), 0, 0, 0, 0);
+        }
+        return new ConnectionPoolStatsView(pool.getPoolName(), pool.getMaximumPoolSize(), pool.getConnectionTimeout(),
+                connections.getActiveConnections(), connections.getIdleConnections(), connections.getTotalConnections(),
+                connections.getThreadsAwaitingConnection());
+    }
+}
@@ -0,0 +1,44 @@
+package com.eris.gitlabanalyzer.service;
+
+import com.eris.gitlabanalyzer.config.EntityCacheConfig;
+import com.eris.gitlabanalyzer.viewmodel.EntityCacheStatsView;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheableDataStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+public class EntityCacheService {
+    private final Statistics statistics;
+
+    public EntityCacheService(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // entities and collections that are not cached have no region and are left out
+    public List<EntityCacheStatsView> getStats() {
+        List<EntityCacheStatsView> stats = new ArrayList<>();
+        Stream.concat(
+                Arrays.stream(statistics.getEntityNames()).map(statistics::getEntityStatistics),
+                Arrays.stream(statistics.getCollectionRoleNames()).map(statistics::getCollectionStatistics))
+                .filter(dataStatistics -> dataStatistics.getCacheRegionName() != null)
+                .map(EntityCacheService::toView)
+                .sorted(Comparator.comparing(EntityCacheStatsView::getRegion))
+                .forEach(stats::add);
+        stats.add(new EntityCacheStatsView(EntityCacheConfig.QUERY_RESULTS_REGION,
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+        return stats;
+    }
+
+    private static EntityCacheStatsView toView(CacheableDataStatistics dataStatistics) {
+        return new EntityCacheStatsView(dataStatistics.getCacheRegionName(),
+                dataStatistics.getCacheHitCount(), dataStatistics.getCacheMissCount(), dataStatistics.getCachePutCount());
+    }
+}
@@ -3,15 +3,18 @@ package com.eris.gitlabanalyzer.service;
 import com.eris.gitlabanalyzer.error.GitLabServiceConfigurationException;
 import com.eris.gitlabanalyzer.model.gitlabresponse.*;
 import lombok.Setter;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.HashMap;
 
@@ -185,6 +188,39 @@ public class GitLabService {
         return fetchPages(gitlabUrl).flatMap(response -> response.bodyToFlux(GitLabFileChange.class));
     }
 
+    // raw response body of every diff page, in page order, for classifying the diff without binding it to GitLabFileChange
+    public Flux<DataBuffer> getCommitDiffBody(Long projectId, String sha) {
+        validateConfiguration();
+        String gitlabUrl = UriComponentsBuilder.fromUriString(serverUrl)
+                .path(projectPath + projectId + "/repository/commits/" + sha + "/diff")
+                .queryParam("per_page", 50)
+                .build()
+                .encode()
+                .toUri()
+                .toString();
+
+        return fetchPages(gitlabUrl).concatMap(response -> response.bodyToFlux(DataBuffer.class));
+    }
+
+    // returns an empty Mono when the file does not exist on the default branch
+    public Mono<String> getRawFile(Long projectId, String filePath) {
+        validateConfiguration();
+        String gitlabUrl = UriComponentsBuilder.fromUriString(serverUrl)
+                .path(projectPath + projectId + "/repository/files/" + UriUtils.encodePathSegment(filePath, StandardCharsets.UTF_8) + "/raw")
+                .queryParam("ref", "HEAD")
+                .build(true)
+                .toUri()
+                .toString();
+
+        var headersSpec = authorizedGetRequestHeadersSpec(gitlabUrl);
+        return headersSpec.exchangeToMono(response -> {
+            if (!response.statusCode().equals(HttpStatus.OK)) {
+                return response.releaseBody().then(Mono.<String>empty());
+            }
+            return response.bodyToMono(String.class);
+        });
+    }
+
     public Flux<GitLabCommitComment> getCommitComments(Long projectId, String sha) {
         validateConfiguration();
         String gitlabUrl = UriComponentsBuilder.fromUriString(serverUrl)
@@ -200,7 +236,25 @@ public class GitLabService {
 
     public Flux<GitLabFileChange> getMergeRequestDiff(Long projectId, Long mergeRequestIid) {
         validateConfiguration();
-        String gitlabUrl = UriComponentsBuilder.fromUriString(serverUrl)
+        String gitlabUrl = mergeRequestChangesUrl(projectId, mergeRequestIid);
+
+        var headersSpec = authorizedGetRequestHeadersSpec(gitlabUrl);
+        return headersSpec.retrieve().bodyToMono(GitLabMergeRequestChange.class).flatMapIterable(GitLabMergeRequestChange::getChanges);
+    }
+
+    // raw response body of the merge request changes, for classifying the diff without binding it to GitLabFileChange
+    public Flux<DataBuffer> getMergeRequestDiffBody(Long projectId, Long mergeRequestIid) {
+        validateConfiguration();
+        String gitlabUrl = mergeRequestChangesUrl(projectId, mergeRequestIid);
+
+        var headersSpec = authorizedGetRequestHeadersSpec(gitlabUrl);
+        return headersSpec.retrieve().bodyToFlux(DataBuffer.class);
+    }
+
+    // the bound and the streamed changes are the same request, so both score the same diffs.
+    // access_raw_diffs reads the diffs from the repository, without it GitLab truncates large ones to the diff limits
+    private String mergeRequestChangesUrl(Long projectId, Long mergeRequestIid) {
+        return UriComponentsBuilder.fromUriString(serverUrl)
                 .path(projectPath + projectId + "/merge_requests/" + mergeRequestIid + "/changes")
                 .queryParam("access_raw_diffs", true)
                 .queryParam("per_page", 50)
@@ -208,9 +262,6 @@ public class GitLabService {
                 .encode()
                 .toUri()
                 .toString();
-
-        var headersSpec = authorizedGetRequestHeadersSpec(gitlabUrl);
-        return headersSpec.retrieve().bodyToMono(GitLabMergeRequestChange.class).flatMapIterable(GitLabMergeRequestChange::getChanges);
     }
 
     public Flux<GitLabNote> getMergeRequestNotes(Long projectId, Long mergeRequestIid) {
@@ -0,0 +1,112 @@
+package com.eris.gitlabanalyzer.service;
+
+import com.eris.gitlabanalyzer.viewmodel.ImportBulkheadStatsView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps imports to their own connection pool and within its size. At most import.MAX_CONCURRENT imports run at once,
+ * the next one waits up to import.QUEUE_TIMEOUT_SECONDS and is then turned away. The parallel work of the running imports
+ * shares the import.POOL_SIZE - import.MAX_CONCURRENT worker threads left over, so the threads of the imports never
+ * outnumber the connections of the import pool. The import and interactive pools are chosen by isImportThread.
+ */
+@Component
+public class ImportBulkhead {
+
+    private static final ThreadLocal<Boolean> IMPORTING = ThreadLocal.withInitial(() -> false);
+
+    private final int poolSize;
+    private final int maxConcurrent;
+    private final long queueTimeoutSeconds;
+    private final Semaphore permits;
+    private final ForkJoinPool workers;
+
+    private final AtomicLong waiting = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    public ImportBulkhead(@Value("${import.POOL_SIZE:8}") int poolSize,
+                          @Value("${import.MAX_CONCURRENT:2}") int maxConcurrent,
+                          @Value("${import.QUEUE_TIMEOUT_SECONDS:30}") long queueTimeoutSeconds) {
+        if (maxConcurrent <= 0 || maxConcurrent >= poolSize) {
+            throw new IllegalStateException("import.MAX_CONCURRENT must be positive and leave connections of import.POOL_SIZE for the parallel work of the imports");
+        }
+        this.poolSize = poolSize;
+        this.maxConcurrent = maxConcurrent;
+        this.queueTimeoutSeconds = queueTimeoutSeconds;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.workers = new ForkJoinPool(poolSize - maxConcurrent, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("import-" + thread.getPoolIndex());
+            // entities and JSON types are loaded through the context class loader of the application, not the system one
+            thread.setContextClassLoader(ImportBulkhead.class.getClassLoader());
+            return thread;
+        }, null, false);
+    }
+
+    // an import run from within an import already holds its permit
+    public <T> T run(Supplier<T> importer) {
+        if (IMPORTING.get()) {
+            return importer.get();
+        }
+        waiting.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports are running, try again later");
+        }
+
+        IMPORTING.set(true);
+        try {
+            return importer.get();
+        } finally {
+            IMPORTING.remove();
+            permits.release();
+            completed.incrementAndGet();
+        }
+    }
+
+    // parallel streams run on the common pool, whose threads would take interactive connections
+    public <T> void forEachInParallel(Collection<T> items, Consumer<T> action) {
+        workers.submit(() -> items.parallelStream().forEach(action)).join();
+    }
+
+    public boolean isImportThread() {
+        Thread thread = Thread.currentThread();
+        return IMPORTING.get() || (thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == workers);
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public ImportBulkheadStatsView getStats() {
+        return new ImportBulkheadStatsView(maxConcurrent, maxConcurrent - permits.availablePermits(), waiting.get(),
+                rejected.get(), completed.get(), workers.getParallelism(), workers.getActiveThreadCount());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
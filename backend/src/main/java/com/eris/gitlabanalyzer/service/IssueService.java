@@ -17,12 +17,14 @@ public class IssueService {
     private final GitManagementUserRepository gitManagementUserRepository;
     private final GitLabService requestScopeGitLabService;
     private final AnalysisRunService analysisRunService;
+    private final ImportBulkhead importBulkhead;
 
-    public IssueService(IssueCommentRepository issueCommentRepository, GitManagementUserRepository gitManagementUserRepository, GitLabService requestScopeGitLabService, AnalysisRunService analysisRunService) {
+    public IssueService(IssueCommentRepository issueCommentRepository, GitManagementUserRepository gitManagementUserRepository, GitLabService requestScopeGitLabService, AnalysisRunService analysisRunService, ImportBulkhead importBulkhead) {
         this.issueCommentRepository = issueCommentRepository;
         this.gitManagementUserRepository = gitManagementUserRepository;
         this.requestScopeGitLabService = requestScopeGitLabService;
         this.analysisRunService = analysisRunService;
+        this.importBulkhead = importBulkhead;
     }
 
     public void saveIssueInfo(AnalysisRun analysisRun, Project project, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
@@ -46,7 +48,7 @@ public class IssueService {
         var gitLabIssueComments = requestScopeGitLabService.getIssueNotes(project.getGitLabProjectId(), issue.getIid());
         var gitLabIssueCommentList = gitLabIssueComments.collectList().block();
 
-        Objects.requireNonNull(gitLabIssueCommentList).parallelStream().forEach(gitLabNote -> {
+        importBulkhead.forEachInParallel(Objects.requireNonNull(gitLabIssueCommentList), gitLabNote -> {
             GitManagementUser gitManagementUser = gitManagementUserRepository
                     .findByGitLabUserIdAndServerId(gitLabNote.getAuthor().getId(), project.getServer().getId())
                     .orElse(new GitManagementUser(
@@ -0,0 +1,103 @@
+package com.eris.gitlabanalyzer.service;
+
+import com.eris.gitlabanalyzer.viewmodel.LeaderboardRow;
+import com.eris.gitlabanalyzer.viewmodel.ScoreboardRow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Sums the scoreboards of several projects per member as they come in. Members are the same GitManagementUser in every
+ * project of a server, so a member's rows are merged by id. The top members are picked with a heap of the limit size
+ * instead of sorting every member.
+ */
+public class LeaderboardAccumulator {
+
+    private final Map<Long, MemberTotals> members = new HashMap<>();
+
+    public void add(List<ScoreboardRow> scoreboard) {
+        for (ScoreboardRow row : scoreboard) {
+            members.computeIfAbsent(row.getGitManagementUserId(), id -> new MemberTotals(row)).add(row);
+        }
+    }
+
+    public int getMemberCount() {
+        return members.size();
+    }
+
+    // highest first, ties go to the lower member id
+    public List<LeaderboardRow> top(LeaderboardService.Ranking ranking, int limit) {
+        Comparator<MemberTotals> lowestFirst = Comparator.<MemberTotals>comparingDouble(ranking::of)
+                .thenComparing(MemberTotals::getGitManagementUserId, Comparator.reverseOrder());
+        PriorityQueue<MemberTotals> top = new PriorityQueue<>(limit + 1, lowestFirst);
+        for (MemberTotals member : members.values()) {
+            top.add(member);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<MemberTotals> ranked = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ranked.add(top.poll());
+        }
+        Collections.reverse(ranked);
+
+        List<LeaderboardRow> rows = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            rows.add(ranked.get(i).toRow(i + 1));
+        }
+        return rows;
+    }
+
+    static class MemberTotals {
+        private final Long gitManagementUserId;
+        private final String username;
+        private final String name;
+        private int projectCount;
+        double mergeRequestScore;
+        double sharedMergeRequestScore;
+        double commitScore;
+        int commitCount;
+        int mergeRequestCount;
+        private long mergeRequestNoteCount;
+        private long issueNoteCount;
+
+        MemberTotals(ScoreboardRow row) {
+            this.gitManagementUserId = row.getGitManagementUserId();
+            this.username = row.getUsername();
+            this.name = row.getName();
+        }
+
+        void add(ScoreboardRow row) {
+            projectCount++;
+            mergeRequestScore += row.getMergeRequestScore();
+            sharedMergeRequestScore += row.getSharedMergeRequestScore();
+            commitScore += row.getCommitScore();
+            commitCount += row.getCommitCount();
+            mergeRequestCount += row.getMergeRequestCount();
+            mergeRequestNoteCount += row.getMergeRequestNoteCount();
+            issueNoteCount += row.getIssueNoteCount();
+        }
+
+        Long getGitManagementUserId() {
+            return gitManagementUserId;
+        }
+
+        LeaderboardRow toRow(int rank) {
+            return new LeaderboardRow(rank, gitManagementUserId, username, name, projectCount,
+                    round(mergeRequestScore), round(sharedMergeRequestScore), round(commitScore),
+                    commitCount, mergeRequestCount, mergeRequestNoteCount, issueNoteCount);
+        }
+
+        // the project scores are rounded already, summing them can add float noise
+        private static double round(double value) {
+            return Math.round(value * 100.0) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.eris.gitlabanalyzer.service;
+
+import com.eris.gitlabanalyzer.model.User;
+import com.eris.gitlabanalyzer.repository.UserProjectPermissionRepository;
+import com.eris.gitlabanalyzer.viewmodel.LeaderboardRow;
+import com.eris.gitlabanalyzer.viewmodel.ScoreboardRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Ranks the members of every project a user has permission for on a server. The scoreboards of the projects are
+ * computed in parallel on a fixed pool of score.LEADERBOARD_THREADS threads, shared by all requests so a leaderboard
+ * over many projects cannot take over the database, and summed as each one finishes. At most score.LEADERBOARD_QUEUE_SIZE
+ * projects wait for a thread, a leaderboard that does not fit is turned away rather than queued without bound.
+ */
+@Service
+public class LeaderboardService {
+
+    public enum Ranking {
+        MERGE_REQUEST_SCORE(member -> member.mergeRequestScore + member.sharedMergeRequestScore),
+        COMMIT_SCORE(member -> member.commitScore),
+        MERGE_REQUEST_COUNT(member -> member.mergeRequestCount),
+        COMMIT_COUNT(member -> member.commitCount);
+
+        private final ToDoubleFunction<LeaderboardAccumulator.MemberTotals> key;
+
+        Ranking(ToDoubleFunction<LeaderboardAccumulator.MemberTotals> key) {
+            this.key = key;
+        }
+
+        double of(LeaderboardAccumulator.MemberTotals member) {
+            return key.applyAsDouble(member);
+        }
+    }
+
+    private final ScoreService scoreService;
+    private final UserProjectPermissionRepository userProjectPermissionRepository;
+    private final ExecutorService executor;
+
+    public LeaderboardService(ScoreService scoreService, UserProjectPermissionRepository userProjectPermissionRepository,
+                              @Value("${score.LEADERBOARD_THREADS:8}") int threads,
+                              @Value("${score.LEADERBOARD_QUEUE_SIZE:256}") int queueSize) {
+        this.scoreService = scoreService;
+        this.userProjectPermissionRepository = userProjectPermissionRepository;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("leaderboard-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public List<LeaderboardRow> getLeaderboard(User user, Long serverId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime,
+                                               Ranking ranking, int limit) {
+        if (limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+        }
+        Set<Long> projectIds = userProjectPermissionRepository.findProjectIdsByUserIdAndServerId(user.getId(), serverId);
+
+        CompletionService<List<ScoreboardRow>> scoreboards = new ExecutorCompletionService<>(executor);
+        List<Future<List<ScoreboardRow>>> pending = new ArrayList<>();
+
+        LeaderboardAccumulator leaderboard = new LeaderboardAccumulator();
+        try {
+            for (Long projectId : projectIds) {
+                pending.add(scoreboards.submit(() -> scoreService.getScoreboard(projectId, scoreProfileId, startDateTime, endDateTime)));
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                leaderboard.add(scoreboards.take().get());
+            }
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many leaderboards are being computed, try again later", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Leaderboard was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to score a project of server " + serverId, e.getCause());
+        } finally {
+            // nothing is left running for a failed leaderboard
+            pending.forEach(future -> future.cancel(true));
+        }
+        return leaderboard.top(ranking, limit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -4,12 +4,12 @@ import com.eris.gitlabanalyzer.model.*;
 import com.eris.gitlabanalyzer.repository.GitManagementUserRepository;
 import com.eris.gitlabanalyzer.repository.MergeRequestCommentRepository;
 import com.eris.gitlabanalyzer.repository.MergeRequestRepository;
+import com.eris.gitlabanalyzer.viewmodel.MergeRequestView;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 public class MergeRequestService {
@@ -19,14 +19,16 @@ public class MergeRequestService {
     private final ScoreService scoreService;
     private final GitLabService requestScopeGitLabService;
     private final AnalysisRunService analysisRunService;
+    private final ImportBulkhead importBulkhead;
 
-    public MergeRequestService(MergeRequestRepository mergeRequestRepository, GitManagementUserRepository gitManagementUserRepository, MergeRequestCommentRepository noteRepository, ScoreService scoreService, GitLabService requestScopeGitLabService, AnalysisRunService analysisRunService) {
+    public MergeRequestService(MergeRequestRepository mergeRequestRepository, GitManagementUserRepository gitManagementUserRepository, MergeRequestCommentRepository noteRepository, ScoreService scoreService, GitLabService requestScopeGitLabService, AnalysisRunService analysisRunService, ImportBulkhead importBulkhead) {
         this.mergeRequestRepository = mergeRequestRepository;
         this.gitManagementUserRepository = gitManagementUserRepository;
         this.noteRepository = noteRepository;
         this.scoreService = scoreService;
         this.requestScopeGitLabService = requestScopeGitLabService;
         this.analysisRunService = analysisRunService;
+        this.importBulkhead = importBulkhead;
     }
 
     public List<MergeRequest> saveMergeRequestInfo(AnalysisRun analysisRun, Project project, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
@@ -63,6 +65,8 @@ public class MergeRequestService {
                             project,
                             gitManagementUser
                     ));
+            mergeRequest.setHeadSha(gitLabMergeRequest.getSha());
+            mergeRequest.setMergeCommitSha(gitLabMergeRequest.getMergeCommitSha());
             mergeRequest = mergeRequestRepository.save(mergeRequest);
             saveMergeRequestComments(project, mergeRequest);
             scoreService.saveMergeDiffMetrics(mergeRequest);
@@ -75,8 +79,10 @@ public class MergeRequestService {
 
         var gitLabMergeRequestComments = requestScopeGitLabService.getMergeRequestNotes(project.getGitLabProjectId(), mergeRequest.getIid());
         var gitLabMergeRequestCommentList = gitLabMergeRequestComments.collectList().block();
+        // read before the parallel stream, the owner may be a lazy proxy of this thread's session
+        Long ownerGitLabUserId = mergeRequest.getGitManagementUser().getGitLabUserId();
 
-        Objects.requireNonNull(gitLabMergeRequestCommentList).parallelStream().forEach(gitLabNote -> {
+        importBulkhead.forEachInParallel(Objects.requireNonNull(gitLabMergeRequestCommentList), gitLabNote -> {
             GitManagementUser gitManagementUser = gitManagementUserRepository
                     .findByGitLabUserIdAndServerId(gitLabNote.getAuthor().getId(), project.getServer().getId())
                     .orElse(new GitManagementUser(
@@ -87,7 +93,7 @@ public class MergeRequestService {
                     );
             Optional<Note> note = noteRepository.findByGitLabNoteIdAndProjectId(gitLabNote.getId(), project.getId());
             if (note.isEmpty() && !gitLabNote.isSystem()) {
-                boolean isOwn = gitLabNote.getAuthor().getId().equals(mergeRequest.getGitManagementUser().getGitLabUserId());
+                boolean isOwn = gitLabNote.getAuthor().getId().equals(ownerGitLabUserId);
                 noteRepository.save(new Note(
                         gitLabNote.getId(),
                         gitLabNote.getBody(),
@@ -104,19 +110,23 @@ public class MergeRequestService {
         });
     }
 
-    public List<MergeRequest> getMergeRequestsByProjectId(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+    @Transactional(readOnly = true)
+    public List<MergeRequestView> getMergeRequestsByProjectId(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
         return mergeRequestRepository.findAllByProjectIdAndDateRange(projectId, startDateTime, endDateTime);
     }
 
-    public List<MergeRequest> getMergeRequestsByProjectIdAndGitManagementUserId(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
-        return mergeRequestRepository.findAllByGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
+    @Transactional(readOnly = true)
+    public long countMergeRequestsByProjectId(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        return mergeRequestRepository.countByProjectIdAndDateRange(projectId, startDateTime, endDateTime);
     }
 
-    public List<MergeRequest> getMergeRequestsWhereGitManagementUserHasCommitsIn(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
-        List<MergeRequest> ownerMergeRequests = mergeRequestRepository.findAllByGitManagementUserIdAndDateRange(projectId,gitManagementUserId, startDateTime, endDateTime);
-        List<MergeRequest> notOwnerSharedMergeRequests = mergeRequestRepository.findParticipantSharedMergeRequests(projectId, gitManagementUserId, startDateTime, endDateTime);
-        return Stream.of(ownerMergeRequests , notOwnerSharedMergeRequests).flatMap(Collection::stream)
-                .sorted(Comparator.comparing(MergeRequest::getMergedAt))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public long countMergeRequestsByProjectIdAndGitManagementUserId(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
+        return mergeRequestRepository.countByGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
+    }
+
+    @Transactional(readOnly = true)
+    public List<MergeRequestView> getMergeRequestsWhereGitManagementUserHasCommitsIn(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime){
+        return mergeRequestRepository.findAllByParticipantAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
     }
 }
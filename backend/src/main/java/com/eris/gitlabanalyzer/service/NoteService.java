@@ -1,50 +1,78 @@
 package com.eris.gitlabanalyzer.service;
 
-import com.eris.gitlabanalyzer.model.Note;
 import com.eris.gitlabanalyzer.repository.IssueCommentRepository;
 import com.eris.gitlabanalyzer.repository.MergeRequestCommentRepository;
+import com.eris.gitlabanalyzer.viewmodel.KeysetCursor;
+import com.eris.gitlabanalyzer.viewmodel.KeysetPage;
 import com.eris.gitlabanalyzer.viewmodel.NoteView;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+// every listing is read only, so it is read from the replica when one is configured
 @Service
+@Transactional(readOnly = true)
 @lombok.RequiredArgsConstructor
 public class NoteService {
     private final MergeRequestCommentRepository mergeRequestCommentRepository;
     private final IssueCommentRepository issueCommentRepository;
 
     public List<NoteView> getMergeRequestNotes(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
-        return mapNotesToNoteView(
-                mergeRequestCommentRepository.findAllByProjectIdAndDateRange(projectId, startDateTime, endDateTime)
-        );
+        return mergeRequestCommentRepository.findAllByProjectIdAndDateRange(projectId, startDateTime, endDateTime);
     }
 
     public List<NoteView> getGitManagementUserMergeRequestNotes(Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
-        return mapNotesToNoteView(
-                mergeRequestCommentRepository.findAllByProjectIdAndGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime)
-        );
+        return mergeRequestCommentRepository.findAllByProjectIdAndGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
     }
 
     public List<NoteView> getIssueNotes(Long projectId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
-        return mapNotesToNoteView(
-                issueCommentRepository.findAllByProjectIdAndDateRange(projectId, startDateTime, endDateTime)
-        );
+        return issueCommentRepository.findAllByProjectIdAndDateRange(projectId, startDateTime, endDateTime);
     }
 
     public List<NoteView> getGitManagementUserIssueNotes(
             Long projectId, Long gitManagementUserId,  OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
-        return mapNotesToNoteView(
-                issueCommentRepository.findAllByProjectIdAndGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime)
-        );
+        return issueCommentRepository.findAllByProjectIdAndGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
     }
 
-    private List<NoteView> mapNotesToNoteView(List<Note> notes) {
-        return notes
-                .stream()
-                .map(NoteView::fromNote)
-                .collect(Collectors.toList());
+    public KeysetPage<NoteView> getMergeRequestNotePage(
+            Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<NoteView> notes = mergeRequestCommentRepository.findPageByProjectIdAndGitManagementUserIdAndDateRange(
+                projectId, gitManagementUserId, startDateTime, endDateTime, after.getCreatedAt(), after.getId(), KeysetPage.request(size));
+        return KeysetPage.of(notes, size, NoteService::cursorOf);
+    }
+
+    public KeysetPage<NoteView> getIssueNotePage(
+            Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<NoteView> notes = issueCommentRepository.findPageByProjectIdAndGitManagementUserIdAndDateRange(
+                projectId, gitManagementUserId, startDateTime, endDateTime, after.getCreatedAt(), after.getId(), KeysetPage.request(size));
+        return KeysetPage.of(notes, size, NoteService::cursorOf);
+    }
+
+    // the transaction holds the cursor open while the rows are handed to the sink one at a time
+    public void streamMergeRequestNotes(
+            Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime, Consumer<NoteView> sink) {
+        try (Stream<NoteView> notes = mergeRequestCommentRepository.streamAllByProjectIdAndGitManagementUserIdAndDateRange(
+                projectId, gitManagementUserId, startDateTime, endDateTime)) {
+            notes.forEach(sink);
+        }
+    }
+
+    public void streamIssueNotes(
+            Long projectId, Long gitManagementUserId, OffsetDateTime startDateTime, OffsetDateTime endDateTime, Consumer<NoteView> sink) {
+        try (Stream<NoteView> notes = issueCommentRepository.streamAllByProjectIdAndGitManagementUserIdAndDateRange(
+                projectId, gitManagementUserId, startDateTime, endDateTime)) {
+            notes.forEach(sink);
+        }
+    }
+
+    // the id of a note view is its GitLab note id, which the note pages are ordered by
+    private static String cursorOf(NoteView note) {
+        return new KeysetCursor(note.getCreatedAt(), note.getId()).encode();
     }
 }
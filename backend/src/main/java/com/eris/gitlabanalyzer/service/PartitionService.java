@@ -0,0 +1,211 @@
+package com.eris.gitlabanalyzer.service;
+
+import com.eris.gitlabanalyzer.model.AnalysisRun;
+import com.eris.gitlabanalyzer.model.Project;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Semesters of the project partitioned tables, see the V6 PostgreSQL migration.
+ * Each semester covers the project ids from its first id up to the end id, exclusive. The current semester has no end id
+ * and takes every project imported until the next semester is started, which bounds it at the next project id.
+ * A detached semester's partitions are no longer part of the tables. Its projects and the rows of the
+ * non partitioned tables that refer to them are deleted, which are small next to the detached partitions.
+ * A semester is only detached once none of its projects had an analysis run or a commit for the configured
+ * number of days, a project imported in an old semester can still be analysed and would lose its data otherwise.
+ * <p>
+ * PostgreSQL cannot keep the foreign keys to a partitioned table whose primary key leaves out the partition key,
+ * so V6 drops them. Rows referring to each other within the partitioned tables share their project id and always
+ * sit in the same semester, they are detached together. score_rollup, commit_comment and merge_request_shared_with
+ * have no project id and are not partitioned, {@link #deleteOrphans()} removes their rows whose commit or merge request is gone.
+ */
+@Service
+public class PartitionService {
+    public static final List<String> PARTITIONED_TABLES = List.of("merge_request", "commit", "note", "file_score", "file_score_hunk_index");
+    // names are part of the partition table names, which stay below PostgreSQL's 63 character limit
+    private static final Pattern SEMESTER_NAME = Pattern.compile("[a-z][a-z0-9_]{0,39}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScoreService scoreService;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int detachInactiveDays;
+
+    public PartitionService(JdbcTemplate jdbcTemplate, ScoreService scoreService, EntityManagerFactory entityManagerFactory,
+                            @Value("${partition.DETACH_INACTIVE_DAYS:180}") int detachInactiveDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.scoreService = scoreService;
+        this.entityManagerFactory = entityManagerFactory;
+        this.detachInactiveDays = detachInactiveDays;
+    }
+
+    // only the PostgreSQL schema is partitioned, H2 keeps plain tables
+    public boolean isPartitioned() {
+        Integer tables = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.tables where lower(table_name) = 'semester_partition'", Integer.class);
+        return tables != null && tables > 0;
+    }
+
+    // starting the current semester again does nothing, so it can be configured and applied on every startup
+    @Transactional
+    public void startSemester(String name) {
+        checkSemesterName(name);
+        requirePartitioned();
+        if (findSemester(name) != null) {
+            return;
+        }
+        // no project can be imported while the current semester is bounded
+        jdbcTemplate.execute("lock table project in share row exclusive mode");
+        long endProjectId = jdbcTemplate.queryForObject("select coalesce(max(project_id), 0) + 1 from project", Long.class);
+        Map<String, Object> current = jdbcTemplate.queryForMap(
+                "select name, first_project_id from semester_partition where end_project_id is null and detached_at is null");
+        String currentName = (String) current.get("name");
+        Long firstProjectId = current.get("first_project_id") == null ? null : ((Number) current.get("first_project_id")).longValue();
+        if (firstProjectId != null && endProjectId <= firstProjectId) {
+            throw new IllegalStateException("Semester " + currentName + " has no projects yet, it cannot be followed by " + name);
+        }
+
+        String lowerBound = firstProjectId == null ? "minvalue" : firstProjectId.toString();
+        String boundCheck = projectRange(firstProjectId, endProjectId);
+        for (String table : PARTITIONED_TABLES) {
+            String currentPartition = table + "_" + currentName;
+            // the check proves the new bound, so attaching does not scan the partition again
+            jdbcTemplate.execute("alter table " + table + " detach partition " + currentPartition);
+            jdbcTemplate.execute("alter table " + currentPartition + " add constraint " + currentPartition + "_bound check (" + boundCheck + ")");
+            jdbcTemplate.execute("alter table " + table + " attach partition " + currentPartition +
+                    " for values from (" + lowerBound + ") to (" + endProjectId + ")");
+            jdbcTemplate.execute("alter table " + currentPartition + " drop constraint " + currentPartition + "_bound");
+            jdbcTemplate.execute("create table " + table + "_" + name + " partition of " + table +
+                    " for values from (" + endProjectId + ") to (maxvalue)");
+        }
+        jdbcTemplate.update("update semester_partition set end_project_id = ? where name = ?", endProjectId, currentName);
+        jdbcTemplate.update("insert into semester_partition (name, first_project_id) values (?, ?)", name, endProjectId);
+    }
+
+    // detached partitions are kept as plain tables for archiving unless dropped, detaching again does nothing
+    @Transactional
+    public void detachSemester(String name, boolean drop) {
+        checkSemesterName(name);
+        requirePartitioned();
+        Map<String, Object> semester = findSemester(name);
+        if (semester == null) {
+            throw new IllegalArgumentException("No semester " + name);
+        }
+        if (semester.get("end_project_id") == null) {
+            throw new IllegalStateException("Semester " + name + " is the current semester, start the next one before detaching it");
+        }
+        if (semester.get("detached_at") != null) {
+            return;
+        }
+
+        Long firstProjectId = semester.get("first_project_id") == null ? null : ((Number) semester.get("first_project_id")).longValue();
+        Long endProjectId = ((Number) semester.get("end_project_id")).longValue();
+        // no run can start on one of the semester's projects until it is gone
+        jdbcTemplate.execute("lock table analysis_run in share row exclusive mode");
+        List<Long> activeProjectIds = findActiveProjectIds(firstProjectId, endProjectId,
+                OffsetDateTime.now(ZoneOffset.UTC).minusDays(detachInactiveDays));
+        if (!activeProjectIds.isEmpty()) {
+            throw new IllegalStateException("Semester " + name + " has projects analysed or committed to in the last "
+                    + detachInactiveDays + " days, it cannot be detached: " + activeProjectIds);
+        }
+        String projectRange = projectRange(firstProjectId, endProjectId);
+        List<Long> projectIds = jdbcTemplate.queryForList("select project_id from project where " + projectRange, Long.class);
+
+        for (String table : PARTITIONED_TABLES) {
+            jdbcTemplate.execute("alter table " + table + " detach partition " + table + "_" + name);
+        }
+        deleteOrphans();
+
+        for (String table : PARTITIONED_TABLES) {
+            String partition = table + "_" + name;
+            if (drop) {
+                jdbcTemplate.execute("drop table " + partition);
+            } else {
+                // an archived partition no longer refers to the projects deleted below
+                for (String foreignKey : jdbcTemplate.queryForList(
+                        "select conname from pg_constraint where contype = 'f' and conrelid = ?::regclass", String.class, partition)) {
+                    jdbcTemplate.execute("alter table " + partition + " drop constraint " + foreignKey);
+                }
+            }
+        }
+        for (String table : List.of("commit_author", "member", "user_project_permission", "analysis_run", "project_archive", "project")) {
+            jdbcTemplate.update("delete from " + table + " where " + projectRange);
+        }
+        jdbcTemplate.update("update semester_partition set detached_at = now() where name = ?", name);
+
+        // the rows went away behind Hibernate's back
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityData(Project.class);
+        sessionFactory.getCache().evictQueryRegions();
+        projectIds.forEach(scoreService::scoresChanged);
+    }
+
+    /**
+     * Projects of the id range with an analysis run or a commit since the given time, or with a run in progress.
+     */
+    public List<Long> findActiveProjectIds(Long firstProjectId, Long endProjectId, OffsetDateTime activeSince) {
+        Timestamp since = Timestamp.from(activeSince.toInstant());
+        return jdbcTemplate.queryForList("select project_id from project p where " + projectRange(firstProjectId, endProjectId)
+                        + " and (exists (select 1 from analysis_run r where r.project_id = p.project_id and (r.created_date_time >= ? or r.status = ?))"
+                        + " or exists (select 1 from commit c where c.project_id = p.project_id and c.created_at >= ?))"
+                        + " order by project_id",
+                Long.class, since, AnalysisRun.Status.InProgress.name(), since);
+    }
+
+    /**
+     * Deletes the rows of the non partitioned tables whose commit or merge request no longer exists,
+     * they lost their foreign keys to the partitioned tables. Returns the number of deleted rows.
+     */
+    @Transactional
+    public int deleteOrphans() {
+        int deleted = jdbcTemplate.update("delete from score_rollup r where"
+                + " (r.commit_id is not null and not exists (select 1 from commit c where c.commit_id = r.commit_id))"
+                + " or (r.merge_request_id is not null and not exists (select 1 from merge_request m where m.merge_request_id = r.merge_request_id))");
+        deleted += jdbcTemplate.update("delete from commit_comment cc where"
+                + " not exists (select 1 from commit c where c.commit_id = cc.commit_id)");
+        deleted += jdbcTemplate.update("delete from merge_request_shared_with s where"
+                + " not exists (select 1 from merge_request m where m.merge_request_id = s.merge_request_merge_request_id)");
+        return deleted;
+    }
+
+    public List<Map<String, Object>> getSemesters() {
+        requirePartitioned();
+        return jdbcTemplate.queryForList(
+                "select name, first_project_id, end_project_id, detached_at from semester_partition order by first_project_id nulls first");
+    }
+
+    private Map<String, Object> findSemester(String name) {
+        List<Map<String, Object>> semesters = jdbcTemplate.queryForList(
+                "select name, first_project_id, end_project_id, detached_at from semester_partition where name = ?", name);
+        return semesters.isEmpty() ? null : semesters.get(0);
+    }
+
+    // the first semester has no lower bound
+    private static String projectRange(Long firstProjectId, Long endProjectId) {
+        return firstProjectId == null
+                ? "project_id < " + endProjectId
+                : "project_id >= " + firstProjectId + " and project_id < " + endProjectId;
+    }
+
+    private void requirePartitioned() {
+        if (!isPartitioned()) {
+            throw new IllegalStateException("Semester partitions need the partitioned PostgreSQL schema");
+        }
+    }
+
+    private static void checkSemesterName(String name) {
+        if (name == null || !SEMESTER_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Semester names are lower case letters, digits and underscores starting with a letter: " + name);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.eris.gitlabanalyzer.service;
 
+import com.eris.gitlabanalyzer.dataprocessing.LocalRepositoryReader;
 import com.eris.gitlabanalyzer.model.*;
 import com.eris.gitlabanalyzer.model.gitlabresponse.GitLabCommit;
 import com.eris.gitlabanalyzer.model.gitlabresponse.GitLabMergeRequest;
@@ -7,19 +8,29 @@ import com.eris.gitlabanalyzer.repository.ProjectRepository;
 import com.eris.gitlabanalyzer.repository.ServerRepository;
 import com.eris.gitlabanalyzer.repository.UserProjectPermissionRepository;
 import com.eris.gitlabanalyzer.repository.UserServerRepository;
+import com.eris.gitlabanalyzer.viewmodel.KeysetPage;
+import com.eris.gitlabanalyzer.viewmodel.ProjectView;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.OffsetDateTime;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProjectService {
@@ -28,13 +39,19 @@ public class ProjectService {
     private final UserProjectPermissionRepository userProjectPermissionRepository;
     private final UserServerRepository userServerRepository;
     private final GitLabService requestScopeGitLabService;
+    private final LocalRepositoryReader localRepositoryReader;
 
-    public ProjectService(ProjectRepository projectRepository, ServerRepository serverRepository, UserProjectPermissionRepository userProjectPermissionRepository, UserServerRepository userServerRepository, GitLabService requestScopeGitLabService) {
+    // local repositories can only be read from under this directory, empty disables local imports
+    @Value("${git.LOCAL_REPOSITORY_ROOT:}")
+    private String localRepositoryRoot;
+
+    public ProjectService(ProjectRepository projectRepository, ServerRepository serverRepository, UserProjectPermissionRepository userProjectPermissionRepository, UserServerRepository userServerRepository, GitLabService requestScopeGitLabService, LocalRepositoryReader localRepositoryReader) {
         this.projectRepository = projectRepository;
         this.serverRepository = serverRepository;
         this.userProjectPermissionRepository = userProjectPermissionRepository;
         this.userServerRepository = userServerRepository;
         this.requestScopeGitLabService = requestScopeGitLabService;
+        this.localRepositoryReader = localRepositoryReader;
     }
 
     private void createUserProjectPermission(User user, Server server, Project project)
@@ -132,6 +149,48 @@ public class ProjectService {
         return projectRepository.findAll();
     }
 
+    public KeysetPage<ProjectView> getProjectPage(Long afterId, int size) {
+        List<ProjectView> projects = projectRepository.findPageAfterId(afterId == null ? 0L : afterId, KeysetPage.request(size));
+        return KeysetPage.of(projects, size, project -> project.getId().toString());
+    }
+
+    // the transaction holds the cursor open while the rows are handed to the sink one at a time
+    @Transactional(readOnly = true)
+    public void streamProjects(Consumer<ProjectView> sink) {
+        try (Stream<ProjectView> projects = projectRepository.streamAll()) {
+            projects.forEach(sink);
+        }
+    }
+
+    // a null path switches the project back to importing through the API
+    public Project setLocalRepositoryPath(Long projectId, String localRepositoryPath) {
+        var project = getProjectById(projectId);
+        if (localRepositoryPath == null) {
+            project.setLocalRepositoryPath(null);
+            return projectRepository.save(project);
+        }
+        if (localRepositoryRoot == null || localRepositoryRoot.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Local repository imports are not enabled on this server");
+        }
+        // real paths, a symbolic link under the root cannot point the import outside of it
+        Path root;
+        Path path;
+        try {
+            root = Paths.get(localRepositoryRoot).toRealPath();
+            path = root.resolve(localRepositoryPath).toRealPath();
+        } catch (IOException | InvalidPathException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No local repository found at " + localRepositoryPath);
+        }
+        if (!path.startsWith(root)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Local repository must be under " + root);
+        }
+        if (!localRepositoryReader.isRepository(path.toString())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No git repository found at " + path);
+        }
+        project.setLocalRepositoryPath(path.toString());
+        return projectRepository.save(project);
+    }
+
     public Project getProjectById(Long projectId) {
         return projectRepository.findProjectById(projectId).orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Project not found with id" + projectId)
@@ -0,0 +1,131 @@
+package com.eris.gitlabanalyzer.service;
+
+import com.eris.gitlabanalyzer.dataprocessing.ScoreBreakdown;
+import com.eris.gitlabanalyzer.dataprocessing.ScoreProfileDelta;
+import com.eris.gitlabanalyzer.event.ChangeGenerations;
+import com.eris.gitlabanalyzer.event.ProjectScoresChangedEvent;
+import com.eris.gitlabanalyzer.event.ScoreProfileChangedEvent;
+import com.eris.gitlabanalyzer.viewmodel.ScoreCacheStatsView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Size bounded LRU cache of range scores, keyed by everything the score depends on.
+ * Each project and score profile has a generation that is bumped by ProjectScoresChangedEvent and ScoreProfileChangedEvent.
+ * An entry remembers the generations read before its value was computed and is a miss once either moved on,
+ * so a value computed while a change was being written is never served after the change.
+ * A ScoreBreakdown value is rescored in place when a profile update carries a ScoreProfileDelta, instead of being
+ * recomputed on its next read; other values of the profile go stale as before.
+ */
+@Component
+public class ScoreCache {
+
+    private final ChangeGenerations projectGenerations = new ChangeGenerations();
+    private final ChangeGenerations scoreProfileGenerations = new ChangeGenerations();
+    private final Map<List<Object>, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleMisses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong rescores = new AtomicLong();
+
+    public ScoreCache(@Value("${score.CACHE_MAX_ENTRIES:10000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long projectId, Long scoreProfileId, List<Object> key, Supplier<T> compute) {
+        long projectGeneration = projectGenerations.current(projectId);
+        long scoreProfileGeneration = scoreProfileGenerations.current(scoreProfileId);
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.projectGeneration == projectGeneration && entry.scoreProfileGeneration == scoreProfileGeneration) {
+                    hits.incrementAndGet();
+                    return (T) entry.value;
+                }
+                entries.remove(key);
+                staleMisses.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+
+        T value = compute.get();
+        synchronized (entries) {
+            entries.put(key, new Entry(projectGeneration, scoreProfileId, scoreProfileGeneration, value));
+        }
+        return value;
+    }
+
+    @EventListener
+    public void onProjectScoresChanged(ProjectScoresChangedEvent event) {
+        invalidations.incrementAndGet();
+        projectGenerations.bump(event.getProjectId());
+    }
+
+    @EventListener
+    public void onScoreProfileChanged(ScoreProfileChangedEvent event) {
+        invalidations.incrementAndGet();
+        Long scoreProfileId = event.getScoreProfileId();
+        long generation = scoreProfileGenerations.current(scoreProfileId);
+        long bumped = scoreProfileGenerations.bump(scoreProfileId);
+        ScoreProfileDelta delta = event.getDelta();
+        // entries of an earlier generation, or of one bumped concurrently, are left stale
+        if (delta == null || bumped != generation + 1) {
+            return;
+        }
+        synchronized (entries) {
+            for (Map.Entry<List<Object>, Entry> cached : entries.entrySet()) {
+                Entry entry = cached.getValue();
+                if (entry.value instanceof ScoreBreakdown && Objects.equals(entry.scoreProfileId, scoreProfileId)
+                        && entry.scoreProfileGeneration == generation) {
+                    ScoreBreakdown rescored = ((ScoreBreakdown) entry.value).rescore(delta);
+                    cached.setValue(new Entry(entry.projectGeneration, scoreProfileId, bumped, rescored));
+                    rescores.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public ScoreCacheStatsView getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new ScoreCacheStatsView(hits.get(), misses.get(), staleMisses.get(), evictions.get(), invalidations.get(), rescores.get(), size);
+    }
+
+    private static class Entry {
+        private final long projectGeneration;
+        private final Long scoreProfileId;
+        private final long scoreProfileGeneration;
+        private final Object value;
+
+        Entry(long projectGeneration, Long scoreProfileId, long scoreProfileGeneration, Object value) {
+            this.projectGeneration = projectGeneration;
+            this.scoreProfileId = scoreProfileId;
+            this.scoreProfileGeneration = scoreProfileGeneration;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.eris.gitlabanalyzer.service;
+
+import com.eris.gitlabanalyzer.dataprocessing.ProjectScoreCube;
+import com.eris.gitlabanalyzer.event.ChangeGenerations;
+import com.eris.gitlabanalyzer.event.ProjectScoresChangedEvent;
+import com.eris.gitlabanalyzer.repository.CommitRepository;
+import com.eris.gitlabanalyzer.repository.MergeRequestRepository;
+import com.eris.gitlabanalyzer.repository.ScoreRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ProjectScoreCube of the most recently read projects. A cube is built from the tables on the first read of its project
+ * and dropped by ProjectScoresChangedEvent, like ScoreCache a cube built while a change was being written is not kept.
+ * With score.CUBE_MAX_PROJECTS = 0 no cube is built and scores are summed by the database.
+ */
+@Component
+public class ScoreCubeStore {
+
+    private final CommitRepository commitRepository;
+    private final MergeRequestRepository mergeRequestRepository;
+    private final ScoreRollupRepository scoreRollupRepository;
+    private final int maxProjects;
+
+    private final ChangeGenerations projectGenerations = new ChangeGenerations();
+    private final Map<Long, Object> buildLocks = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> cubes;
+
+    public ScoreCubeStore(CommitRepository commitRepository, MergeRequestRepository mergeRequestRepository,
+                          ScoreRollupRepository scoreRollupRepository,
+                          @Value("${score.CUBE_MAX_PROJECTS:8}") int maxProjects) {
+        this.commitRepository = commitRepository;
+        this.mergeRequestRepository = mergeRequestRepository;
+        this.scoreRollupRepository = scoreRollupRepository;
+        this.maxProjects = maxProjects;
+        this.cubes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxProjects;
+            }
+        };
+    }
+
+    public Optional<ProjectScoreCube> get(Long projectId) {
+        if (maxProjects <= 0) {
+            return Optional.empty();
+        }
+        Optional<ProjectScoreCube> cube = current(projectId);
+        if (cube.isPresent()) {
+            return cube;
+        }
+        // one build per project at a time, other readers of the project wait for it instead of building their own
+        synchronized (buildLocks.computeIfAbsent(projectId, id -> new Object())) {
+            cube = current(projectId);
+            if (cube.isPresent()) {
+                return cube;
+            }
+            long generation = projectGenerations.current(projectId);
+            ProjectScoreCube built = build(projectId);
+            synchronized (cubes) {
+                cubes.put(projectId, new Entry(generation, built));
+            }
+            return Optional.of(built);
+        }
+    }
+
+    // the kept cube, or one built for this read only when cubes are disabled
+    public ProjectScoreCube getOrBuild(Long projectId) {
+        return get(projectId).orElseGet(() -> build(projectId));
+    }
+
+    @EventListener
+    public void onProjectScoresChanged(ProjectScoresChangedEvent event) {
+        projectGenerations.bump(event.getProjectId());
+        synchronized (cubes) {
+            cubes.remove(event.getProjectId());
+        }
+    }
+
+    private Optional<ProjectScoreCube> current(Long projectId) {
+        long generation = projectGenerations.current(projectId);
+        synchronized (cubes) {
+            Entry entry = cubes.get(projectId);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (entry.generation != generation) {
+                cubes.remove(projectId);
+                return Optional.empty();
+            }
+            return Optional.of(entry.cube);
+        }
+    }
+
+    private ProjectScoreCube build(Long projectId) {
+        return ProjectScoreCube.build(
+                commitRepository.findScoreCubeRowsByProjectId(projectId),
+                mergeRequestRepository.findScoreCubeRowsByProjectId(projectId),
+                mergeRequestRepository.findScoreCubeSharedWithByProjectId(projectId),
+                scoreRollupRepository.findCommitRollupsByProjectId(projectId),
+                scoreRollupRepository.findMergeRollupsByProjectId(projectId));
+    }
+
+    private static class Entry {
+        private final long generation;
+        private final ProjectScoreCube cube;
+
+        Entry(long generation, ProjectScoreCube cube) {
+            this.generation = generation;
+            this.cube = cube;
+        }
+    }
+}
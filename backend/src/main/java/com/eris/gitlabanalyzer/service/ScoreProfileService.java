@@ -1,7 +1,11 @@
 package com.eris.gitlabanalyzer.service;
+import com.eris.gitlabanalyzer.dataprocessing.CompiledScoreProfile;
+import com.eris.gitlabanalyzer.dataprocessing.ScoreProfileDelta;
+import com.eris.gitlabanalyzer.event.ScoreProfileChangedEvent;
 import com.eris.gitlabanalyzer.model.ScoreProfile;
 import com.eris.gitlabanalyzer.model.User;
 import com.eris.gitlabanalyzer.repository.ScoreProfileRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -11,9 +15,11 @@ import java.util.Optional;
 public class ScoreProfileService {
 
     private final ScoreProfileRepository scoreProfileRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ScoreProfileService(ScoreProfileRepository scoreProfileRepository) {
+    public ScoreProfileService(ScoreProfileRepository scoreProfileRepository, ApplicationEventPublisher eventPublisher) {
         this.scoreProfileRepository = scoreProfileRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<ScoreProfile> getUserScoreProfiles(User user){
@@ -29,15 +35,24 @@ public class ScoreProfileService {
 
     public ScoreProfile createScoreProfile(User user, ScoreProfile scoreProfile){
         scoreProfile.setUser(user);
-        return scoreProfileRepository.save(scoreProfile);
+        ScoreProfile savedProfile = scoreProfileRepository.save(scoreProfile);
+        // an id can be scored before the profile exists, it then falls back to the default profile
+        eventPublisher.publishEvent(new ScoreProfileChangedEvent(savedProfile.getId()));
+        return savedProfile;
     }
 
     public ScoreProfile updateScoreProfile(User user, Long id, ScoreProfile scoreProfile) {
 
         ScoreProfile oldProfile = getScoreProfile(user, id);
+        // compiled before the save, which merges the new values into the loaded profile
+        CompiledScoreProfile before = CompiledScoreProfile.compile(oldProfile);
         scoreProfile.setId(oldProfile.getId());
         scoreProfile.setUser(user);
-        return this.scoreProfileRepository.save(scoreProfile);
+        ScoreProfile savedProfile = this.scoreProfileRepository.save(scoreProfile);
+        // cached scores are rescored for the file types whose weights changed instead of being recomputed
+        ScoreProfileDelta delta = ScoreProfileDelta.between(before, CompiledScoreProfile.compile(savedProfile)).orElse(null);
+        eventPublisher.publishEvent(new ScoreProfileChangedEvent(id, delta));
+        return savedProfile;
 
     }
 
@@ -46,6 +61,7 @@ public class ScoreProfileService {
         
         ScoreProfile scoreProfile = getScoreProfile(user, id);
         scoreProfileRepository.delete(scoreProfile);
+        eventPublisher.publishEvent(new ScoreProfileChangedEvent(id));
         return id;
     }
 
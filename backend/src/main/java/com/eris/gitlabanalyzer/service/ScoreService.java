@@ -1,26 +1,53 @@
 package com.eris.gitlabanalyzer.service;
 
 import com.eris.gitlabanalyzer.dataprocessing.CalculateDiffMetrics;
+import com.eris.gitlabanalyzer.dataprocessing.CompiledScoreProfile;
+import com.eris.gitlabanalyzer.dataprocessing.DailyScore;
+import com.eris.gitlabanalyzer.dataprocessing.DatedItemFileTypeLineTotals;
 import com.eris.gitlabanalyzer.dataprocessing.DiffScoreCalculator;
+import com.eris.gitlabanalyzer.dataprocessing.FileTypeLineTotals;
+import com.eris.gitlabanalyzer.dataprocessing.MultiProfileScorer;
+import com.eris.gitlabanalyzer.dataprocessing.ProjectScoreCube;
+import com.eris.gitlabanalyzer.dataprocessing.ScoreBreakdown;
+import com.eris.gitlabanalyzer.event.ProjectScoresChangedEvent;
 import com.eris.gitlabanalyzer.model.Commit;
+import com.eris.gitlabanalyzer.model.FileScore;
+import com.eris.gitlabanalyzer.model.FileScoreHunkIndex;
 import com.eris.gitlabanalyzer.model.MergeRequest;
+import com.eris.gitlabanalyzer.model.Project;
 import com.eris.gitlabanalyzer.repository.CommitRepository;
+import com.eris.gitlabanalyzer.repository.FileScoreHunkIndexRepository;
+import com.eris.gitlabanalyzer.repository.FileScoreRepository;
+import com.eris.gitlabanalyzer.repository.GitManagementUserRepository;
+import com.eris.gitlabanalyzer.repository.IssueCommentRepository;
+import com.eris.gitlabanalyzer.repository.MergeRequestCommentRepository;
 import com.eris.gitlabanalyzer.repository.MergeRequestRepository;
+import com.eris.gitlabanalyzer.repository.ScoreRollupRepository;
+import com.eris.gitlabanalyzer.viewmodel.FileScoreView;
+import com.eris.gitlabanalyzer.viewmodel.ScoreCacheStatsView;
+import com.eris.gitlabanalyzer.viewmodel.GitManagementUserCount;
+import com.eris.gitlabanalyzer.viewmodel.GitManagementUserView;
 import com.eris.gitlabanalyzer.viewmodel.ScoreDigest;
+import com.eris.gitlabanalyzer.viewmodel.ScoreProfileComparisonRow;
+import com.eris.gitlabanalyzer.viewmodel.ScoreboardRow;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.groupingBy;
-
 @Service
 public class ScoreService {
 
@@ -28,22 +55,47 @@ public class ScoreService {
     private final CalculateDiffMetrics calculateDiffMetrics;
     private final MergeRequestRepository mergeRequestRepository;
     private final CommitRepository commitRepository;
+    private final FileScoreRepository fileScoreRepository;
+    private final FileScoreHunkIndexRepository fileScoreHunkIndexRepository;
+    private final ScoreRollupRepository scoreRollupRepository;
+    private final ScoreCache scoreCache;
+    private final ScoreCubeStore scoreCubeStore;
+    private final GitManagementUserRepository gitManagementUserRepository;
+    private final MergeRequestCommentRepository mergeRequestCommentRepository;
+    private final IssueCommentRepository issueCommentRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public ScoreService(DiffScoreCalculator diffScoreCalculator,
                         CalculateDiffMetrics calculateDiffMetrics, MergeRequestRepository mergeRequestRepository,
-                        CommitRepository commitRepository) {
+                        CommitRepository commitRepository, FileScoreRepository fileScoreRepository,
+                        FileScoreHunkIndexRepository fileScoreHunkIndexRepository,
+                        ScoreRollupRepository scoreRollupRepository, ScoreCache scoreCache,
+                        ScoreCubeStore scoreCubeStore, GitManagementUserRepository gitManagementUserRepository,
+                        MergeRequestCommentRepository mergeRequestCommentRepository, IssueCommentRepository issueCommentRepository,
+                        ApplicationEventPublisher eventPublisher) {
         this.diffScoreCalculator = diffScoreCalculator;
         this.calculateDiffMetrics = calculateDiffMetrics;
         this.mergeRequestRepository = mergeRequestRepository;
         this.commitRepository = commitRepository;
+        this.fileScoreRepository = fileScoreRepository;
+        this.fileScoreHunkIndexRepository = fileScoreHunkIndexRepository;
+        this.scoreRollupRepository = scoreRollupRepository;
+        this.scoreCache = scoreCache;
+        this.scoreCubeStore = scoreCubeStore;
+        this.gitManagementUserRepository = gitManagementUserRepository;
+        this.mergeRequestCommentRepository = mergeRequestCommentRepository;
+        this.issueCommentRepository = issueCommentRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // This will most likely change as we update how we retrieve diff's
+    @Transactional(readOnly = true)
     public double getMergeDiffScore(Long mergeRequestId, Long scoreProfileId) {
         return round(diffScoreCalculator.calculateScoreMerge(mergeRequestId, scoreProfileId));
     }
 
+    @Transactional(readOnly = true)
     public double[] getUserSingleMergeScore(Long gitManagementUserId, Long mergeId, Long scoreProfileId) {
         Optional<MergeRequest> mr = mergeRequestRepository.findById(mergeId);
         double sharedMergeScoreTotal = 0;
@@ -54,53 +106,82 @@ public class ScoreService {
         boolean isShared = !mr.get().getSharedWith().isEmpty();
         // if shared sums users commit score on MR else finds mergeScore
         if (isShared) {
-            List<Commit> commitsOnSharedMr = commitRepository.findByMergeIdAndGitManagementUserId(mergeId, gitManagementUserId);
-            for (Commit commit : commitsOnSharedMr) {
-                sharedMergeScoreTotal = diffScoreCalculator.calculateScoreCommit(commit.getId(), scoreProfileId);
-            }
+            sharedMergeScoreTotal = diffScoreCalculator.calculateScore(scoreRollupRepository.sumByMergeIdAndGitManagementUserId(mergeId, gitManagementUserId),
+                    diffScoreCalculator.getCompiledScoreProfile(scoreProfileId));
         } else {
             mergeScoreTotal = diffScoreCalculator.calculateScoreMerge(mergeId, scoreProfileId);
         }
         return new double[]{round(mergeScoreTotal), round(sharedMergeScoreTotal)};
     }
 
+    // range scores are cached as ScoreBreakdowns, so a score profile update rescores them instead of dropping them
+    @Transactional(readOnly = true)
     public double[] getUserMergeScore(Long gitManagementUserId, Long projectId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
-        List<MergeRequest> mergeRequests = mergeRequestRepository.findAllActiveNotSharedByGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
-        // Find shared MR for user that they both own or participated on
-        List<MergeRequest> sharedMergeRequests = mergeRequestRepository.findActiveOwnerSharedMergeRequests(projectId, gitManagementUserId, startDateTime, endDateTime);
-        sharedMergeRequests.addAll(mergeRequestRepository.findActiveParticipantSharedMergeRequests(projectId, gitManagementUserId, startDateTime, endDateTime));
+        ScoreBreakdown mergeScore = scoreCache.get(projectId, scoreProfileId, List.of("userMerge", projectId, gitManagementUserId, scoreProfileId, startDateTime, endDateTime),
+                () -> computeUserMergeScore(gitManagementUserId, projectId, scoreProfileId, startDateTime, endDateTime));
+        ScoreBreakdown sharedMergeScore = scoreCache.get(projectId, scoreProfileId, List.of("userSharedMerge", projectId, gitManagementUserId, scoreProfileId, startDateTime, endDateTime),
+                () -> computeUserSharedMergeScore(gitManagementUserId, projectId, scoreProfileId, startDateTime, endDateTime));
+        return new double[]{round(mergeScore.getTotal()), round(sharedMergeScore.getTotal())};
+    }
 
-        double mergeScoreTotal = 0;
+    private ScoreBreakdown computeUserMergeScore(Long gitManagementUserId, Long projectId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        Optional<ProjectScoreCube> cube = scoreCubeStore.get(projectId);
+        List<FileTypeLineTotals> mergeTotals = cube.isPresent()
+                ? cube.get().sumActiveNotSharedMergeRequests(gitManagementUserId, startDateTime, endDateTime)
+                : scoreRollupRepository.sumActiveNotSharedMergeRequestsByGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
+        return diffScoreCalculator.calculateScoreBreakdown(mergeTotals, diffScoreCalculator.getCompiledScoreProfile(scoreProfileId));
+    }
 
-        for (MergeRequest mr : mergeRequests) {
-            mergeScoreTotal += diffScoreCalculator.calculateScoreMerge(mr.getId(), scoreProfileId);
-        }
+    // user's commits on shared MR that they either own or participated on
+    private ScoreBreakdown computeUserSharedMergeScore(Long gitManagementUserId, Long projectId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        Optional<ProjectScoreCube> cube = scoreCubeStore.get(projectId);
+        List<FileTypeLineTotals> sharedMergeTotals = cube.isPresent()
+                ? cube.get().sumActiveSharedMergeRequestCommits(gitManagementUserId, startDateTime, endDateTime)
+                : scoreRollupRepository.sumActiveSharedMergeRequestCommitsByGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime);
+        return diffScoreCalculator.calculateScoreBreakdown(sharedMergeTotals, diffScoreCalculator.getCompiledScoreProfile(scoreProfileId));
+    }
 
-        List<Commit> commitsOnSharedMr = new ArrayList<>();
-        for (MergeRequest mr : sharedMergeRequests) {
-            commitsOnSharedMr.addAll(commitRepository.findActiveByMergeIdAndGitManagementUserId(mr.getId(), gitManagementUserId));
-        }
-        double sharedMergeScoreTotal = 0;
-        for (Commit commit : commitsOnSharedMr) {
-            sharedMergeScoreTotal += diffScoreCalculator.calculateScoreCommit(commit.getId(), scoreProfileId);
-        }
+    public void loadGeneratedFileRules(Project project) {
+        calculateDiffMetrics.loadGeneratedFileRules(project);
+    }
 
-        return new double[]{round(mergeScoreTotal), round(sharedMergeScoreTotal)};
+    // per file and per hunk breakdown stored at import, no diff is fetched from GitLab
+    @Transactional(readOnly = true)
+    public List<FileScoreView> getMergeFileScores(Long mergeId) {
+        return toFileScoreViews(fileScoreRepository.findByMergeId(mergeId), fileScoreHunkIndexRepository.findByMergeId(mergeId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<FileScoreView> getCommitFileScores(Long commitId) {
+        return toFileScoreViews(fileScoreRepository.findByCommitId(commitId), fileScoreHunkIndexRepository.findByCommitId(commitId));
+    }
+
+    private List<FileScoreView> toFileScoreViews(List<FileScore> fileScores, List<FileScoreHunkIndex> hunkIndexes) {
+        Map<Long, byte[]> hunkIndexByFileScore = hunkIndexes.stream()
+                .collect(Collectors.toMap(FileScoreHunkIndex::getId, FileScoreHunkIndex::getHunkIndex));
+        return fileScores.stream()
+                .map(fileScore -> FileScoreView.fromFileScore(fileScore, hunkIndexByFileScore.get(fileScore.getId())))
+                .collect(Collectors.toList());
     }
 
     public void saveMergeDiffMetrics(MergeRequest mergeRequest) {
         calculateDiffMetrics.storeMetricsMerge(mergeRequest);
     }
 
+    @Transactional(readOnly = true)
     public double getTotalMergeDiffScore(Long projectId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
-        List<MergeRequest> mergeRequests = mergeRequestRepository.findAllActiveByProjectIdAndDateRange(projectId,
-                startDateTime.withOffsetSameInstant(ZoneOffset.UTC), endDateTime.withOffsetSameInstant(ZoneOffset.UTC));
-        double totalScore = 0;
-        for (MergeRequest mr : mergeRequests) {
-            totalScore += diffScoreCalculator.calculateScoreMerge(mr.getId(), scoreProfileId);
-        }
+        ScoreBreakdown score = scoreCache.get(projectId, scoreProfileId, List.of("totalMerge", projectId, scoreProfileId, startDateTime, endDateTime),
+                () -> computeTotalMergeDiffScore(projectId, scoreProfileId, startDateTime, endDateTime));
+        return round(score.getTotal());
+    }
 
-        return round(totalScore);
+    private ScoreBreakdown computeTotalMergeDiffScore(Long projectId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        Optional<ProjectScoreCube> cube = scoreCubeStore.get(projectId);
+        List<FileTypeLineTotals> totals = cube.isPresent()
+                ? cube.get().sumActiveMergeRequests(startDateTime, endDateTime)
+                : scoreRollupRepository.sumActiveMergeRequestsByProjectIdAndDateRange(projectId,
+                        startDateTime.withOffsetSameInstant(ZoneOffset.UTC), endDateTime.withOffsetSameInstant(ZoneOffset.UTC));
+        return diffScoreCalculator.calculateScoreBreakdown(totals, diffScoreCalculator.getCompiledScoreProfile(scoreProfileId));
     }
 
     public MergeRequest toggleIgnoreMergeFromScore(Long mergeId) {
@@ -112,38 +193,55 @@ public class ScoreService {
 
         this.mergeRequestRepository.save(mergeRequest);
         this.commitRepository.updateCommitIsIgnoredByMergeRequestId(mergeRequest.getIsIgnored(), mergeRequest.getId());
+        scoresChanged(mergeRequest.getProject().getId());
         return mergeRequest;
     }
 
     // This will most likely change as we update how we retrieve diff's
+    @Transactional(readOnly = true)
     public double getCommitDiffScore(Long commitId, Long scoreProfileId) {
         return round(diffScoreCalculator.calculateScoreCommit(commitId, scoreProfileId));
     }
 
+    @Transactional(readOnly = true)
     public double getUserCommitScore(Long projectId, Long gitManagementUserId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        ScoreBreakdown score = scoreCache.get(projectId, scoreProfileId, List.of("userCommit", projectId, gitManagementUserId, scoreProfileId, startDateTime, endDateTime),
+                () -> computeUserCommitScore(projectId, gitManagementUserId, scoreProfileId, startDateTime, endDateTime));
+        return round(score.getTotal());
+    }
 
-        List<Commit> commits = commitRepository.findAllActiveByProjectIdAndDateRangeAndGitManagementUserId(projectId, gitManagementUserId,
-                startDateTime.withOffsetSameInstant(ZoneOffset.UTC), endDateTime.withOffsetSameInstant(ZoneOffset.UTC));
-        double totalScore = 0;
-        for (Commit commit : commits) {
-            totalScore += diffScoreCalculator.calculateScoreCommit(commit.getId(), scoreProfileId);
-        }
-        return round(totalScore);
+    private ScoreBreakdown computeUserCommitScore(Long projectId, Long gitManagementUserId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        Optional<ProjectScoreCube> cube = scoreCubeStore.get(projectId);
+        List<FileTypeLineTotals> totals = cube.isPresent()
+                ? cube.get().sumActiveCommits(gitManagementUserId, startDateTime, endDateTime)
+                : scoreRollupRepository.sumActiveCommitsByProjectIdAndDateRangeAndGitManagementUserId(projectId, gitManagementUserId,
+                        startDateTime.withOffsetSameInstant(ZoneOffset.UTC), endDateTime.withOffsetSameInstant(ZoneOffset.UTC));
+        return diffScoreCalculator.calculateScoreBreakdown(totals, diffScoreCalculator.getCompiledScoreProfile(scoreProfileId));
     }
 
     public void saveCommitDiffMetrics(Commit commit) {
         calculateDiffMetrics.storeMetricsCommit(commit);
     }
 
+    public void saveCommitDiffMetrics(Project project, List<Commit> commits) {
+        calculateDiffMetrics.storeMetricsCommits(project, commits);
+    }
+
 
+    @Transactional(readOnly = true)
     public double getTotalCommitDiffScore(Long projectId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
-        List<Commit> commits = commitRepository.findAllActiveByProjectIdAndDateRange(projectId,
-                startDateTime.withOffsetSameInstant(ZoneOffset.UTC), endDateTime.withOffsetSameInstant(ZoneOffset.UTC));
-        double totalScore = 0;
-        for (Commit commit : commits) {
-            totalScore += diffScoreCalculator.calculateScoreCommit(commit.getId(), scoreProfileId);
-        }
-        return round(totalScore);
+        ScoreBreakdown score = scoreCache.get(projectId, scoreProfileId, List.of("totalCommit", projectId, scoreProfileId, startDateTime, endDateTime),
+                () -> computeTotalCommitDiffScore(projectId, scoreProfileId, startDateTime, endDateTime));
+        return round(score.getTotal());
+    }
+
+    private ScoreBreakdown computeTotalCommitDiffScore(Long projectId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        Optional<ProjectScoreCube> cube = scoreCubeStore.get(projectId);
+        List<FileTypeLineTotals> totals = cube.isPresent()
+                ? cube.get().sumActiveCommits(null, startDateTime, endDateTime)
+                : scoreRollupRepository.sumActiveCommitsByProjectIdAndDateRange(projectId,
+                        startDateTime.withOffsetSameInstant(ZoneOffset.UTC), endDateTime.withOffsetSameInstant(ZoneOffset.UTC));
+        return diffScoreCalculator.calculateScoreBreakdown(totals, diffScoreCalculator.getCompiledScoreProfile(scoreProfileId));
     }
 
     public Commit toggleIgnoreCommitFromScore(Long commitId) {
@@ -153,68 +251,154 @@ public class ScoreService {
 
         commit.setIsIgnored(!commit.getIsIgnored());
         this.commitRepository.save(commit);
+        scoresChanged(commit.getProject().getId());
         return commit;
     }
 
+    // the offsets are part of the key, days are cut in the offset of the range start
+    @Transactional(readOnly = true)
     public List<ScoreDigest> getDailyScoreDigest(Long projectId, Long gitManagementUserId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        return scoreCache.get(projectId, scoreProfileId, List.of("dailyDigest", projectId, gitManagementUserId, scoreProfileId, startDateTime, endDateTime),
+                () -> List.copyOf(computeDailyScoreDigest(projectId, gitManagementUserId, scoreProfileId, startDateTime, endDateTime)));
+    }
 
-        var startDateTimeUTC = startDateTime.withOffsetSameInstant(ZoneOffset.UTC);
-        var endDateTimeUTC = endDateTime.withOffsetSameInstant(ZoneOffset.UTC);
-        List<Commit> commits = gitManagementUserId != 0L ? commitRepository.findAllActiveByProjectIdAndDateRangeAndGitManagementUserId(projectId, gitManagementUserId, startDateTime, endDateTime)
-                : commitRepository.findAllActiveByProjectIdAndDateRange(projectId, startDateTimeUTC, endDateTimeUTC);
-
-        List<MergeRequest> mergeRequests = gitManagementUserId != 0L ? mergeRequestRepository.findAllActiveByGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime)
-                : mergeRequestRepository.findAllActiveByProjectIdAndDateRange(projectId, startDateTimeUTC, endDateTimeUTC);
-
-        var groupedCommits = commits.stream()
-                .collect(groupingBy((commit) ->
-                        commit.getCreatedAt()
-                                .withOffsetSameInstant(startDateTime.getOffset())
-                                .toLocalDate()
-                ));
-        var groupedMergeRequest = mergeRequests.stream()
-                .collect(groupingBy((mergeRequest) ->
-                        mergeRequest.getMergedAt()
-                                .withOffsetSameInstant(startDateTime.getOffset())
-                                .toLocalDate()
-                ));
+    private List<ScoreDigest> computeDailyScoreDigest(Long projectId, Long gitManagementUserId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+
+        CompiledScoreProfile scoreProfile = diffScoreCalculator.getCompiledScoreProfile(scoreProfileId);
+        Optional<ProjectScoreCube> cube = scoreCubeStore.get(projectId);
+        SortedMap<LocalDate, DailyScore> commitDays;
+        SortedMap<LocalDate, DailyScore> mergeDays;
+        if (cube.isPresent()) {
+            Long userId = gitManagementUserId != 0L ? gitManagementUserId : null;
+            commitDays = cube.get().dailyActiveCommitScores(userId, startDateTime, endDateTime, scoreProfile);
+            mergeDays = cube.get().dailyActiveMergeRequestScores(userId, startDateTime, endDateTime, scoreProfile);
+        } else {
+            commitDays = queryDailyCommitScores(projectId, gitManagementUserId, scoreProfile, startDateTime, endDateTime);
+            mergeDays = queryDailyMergeScores(projectId, gitManagementUserId, scoreProfile, startDateTime, endDateTime);
+        }
 
         // If there is a commit with created_at earlier than startDateTime, use that date as range startDate
         var startDate = startDateTime.toLocalDate();
-        for (var commitDate : groupedCommits.keySet()) {
-            if (commitDate.isBefore(startDate)) {
-                startDate = commitDate;
-            }
+        if (!commitDays.isEmpty() && commitDays.firstKey().isBefore(startDate)) {
+            startDate = commitDays.firstKey();
         }
 
         var endDate = endDateTime.toLocalDate().plusDays(1); // datesUntil is inclusive/exclusive
 
         var digests = startDate.datesUntil(endDate).map(commitDate -> {
-            double totalDayCommitScore = 0;
-            double totalDayMergeScore = 0;
-            int commitCount = 0;
-            int mergeCount = 0;
-            if (groupedCommits.containsKey(commitDate)) {
-                var dailyCommits = groupedCommits.get(commitDate);
-                commitCount = dailyCommits.size();
-                for (var commit : dailyCommits) {
-                    totalDayCommitScore += diffScoreCalculator.calculateScoreCommit(commit.getId(), scoreProfileId);
-                }
-            }
-            if (groupedMergeRequest.containsKey(commitDate)) {
-                var dailyMerges = groupedMergeRequest.get(commitDate);
-                mergeCount = dailyMerges.size();
-                for (var mergeRequest : dailyMerges) {
-                    totalDayMergeScore += diffScoreCalculator.calculateScoreMerge(mergeRequest.getId(), scoreProfileId);
-                }
-            }
-            return new ScoreDigest(round(totalDayCommitScore), round(totalDayMergeScore), commitCount, mergeCount, commitDate);
+            DailyScore commits = commitDays.getOrDefault(commitDate, new DailyScore());
+            DailyScore merges = mergeDays.getOrDefault(commitDate, new DailyScore());
+            return new ScoreDigest(round(commits.getScore()), round(merges.getScore()), commits.getCount(), merges.getCount(), commitDate);
         }).collect(Collectors.toList());
 
         return digests;
     }
 
+    // scores of every commit and MR in the range from two grouped queries joining the rollup to the items,
+    // commits are dated by created at and MRs by merged at in the offset of the range start
+    private SortedMap<LocalDate, DailyScore> queryDailyCommitScores(Long projectId, Long gitManagementUserId, CompiledScoreProfile scoreProfile, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        List<DatedItemFileTypeLineTotals> totals = gitManagementUserId != 0L
+                ? scoreRollupRepository.sumActiveCommitsByItemAndProjectIdAndDateRangeAndGitManagementUserId(projectId, gitManagementUserId, startDateTime, endDateTime)
+                : scoreRollupRepository.sumActiveCommitsByItemAndProjectIdAndDateRange(projectId, startDateTime.withOffsetSameInstant(ZoneOffset.UTC), endDateTime.withOffsetSameInstant(ZoneOffset.UTC));
+        return dailyScores(totals, startDateTime.getOffset(), scoreProfile);
+    }
+
+    private SortedMap<LocalDate, DailyScore> queryDailyMergeScores(Long projectId, Long gitManagementUserId, CompiledScoreProfile scoreProfile, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        List<DatedItemFileTypeLineTotals> totals = gitManagementUserId != 0L
+                ? scoreRollupRepository.sumActiveMergeRequestsByItemAndGitManagementUserIdAndDateRange(projectId, gitManagementUserId, startDateTime, endDateTime)
+                : scoreRollupRepository.sumActiveMergeRequestsByItemAndProjectIdAndDateRange(projectId, startDateTime.withOffsetSameInstant(ZoneOffset.UTC), endDateTime.withOffsetSameInstant(ZoneOffset.UTC));
+        return dailyScores(totals, startDateTime.getOffset(), scoreProfile);
+    }
+
+    private SortedMap<LocalDate, DailyScore> dailyScores(List<DatedItemFileTypeLineTotals> totals, ZoneOffset offset, CompiledScoreProfile scoreProfile) {
+        Map<Long, LocalDate> itemDays = new HashMap<>();
+        for (DatedItemFileTypeLineTotals total : totals) {
+            itemDays.putIfAbsent(total.getItemId(), total.getItemDate().withOffsetSameInstant(offset).toLocalDate());
+        }
+        SortedMap<LocalDate, DailyScore> days = new TreeMap<>();
+        diffScoreCalculator.calculateScoreByItem(totals, scoreProfile).forEach((itemId, score) ->
+                days.computeIfAbsent(itemDays.get(itemId), day -> new DailyScore()).add(score));
+        return days;
+    }
+
+    // every member of the project from one pass over its score cube and one grouped count per note type
+    @Transactional(readOnly = true)
+    public List<ScoreboardRow> getScoreboard(Long projectId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        return scoreCache.get(projectId, scoreProfileId, List.of("scoreboard", projectId, scoreProfileId, startDateTime, endDateTime),
+                () -> List.copyOf(computeScoreboard(projectId, scoreProfileId, startDateTime, endDateTime)));
+    }
+
+    private List<ScoreboardRow> computeScoreboard(Long projectId, Long scoreProfileId, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        List<GitManagementUserView> members = gitManagementUserRepository.findByProjectId(projectId);
+        List<Long> memberIds = members.stream().map(member -> Long.valueOf(member.getId())).collect(Collectors.toList());
+        CompiledScoreProfile scoreProfile = diffScoreCalculator.getCompiledScoreProfile(scoreProfileId);
+        Map<Long, ProjectScoreCube.MemberTotals> totals = scoreCubeStore.getOrBuild(projectId).sumMembers(memberIds, startDateTime, endDateTime);
+
+        var startDateTimeUTC = startDateTime.withOffsetSameInstant(ZoneOffset.UTC);
+        var endDateTimeUTC = endDateTime.withOffsetSameInstant(ZoneOffset.UTC);
+        Map<Long, Long> mergeRequestNotes = countsByUser(mergeRequestCommentRepository.countByProjectIdAndDateRangeGroupByGitManagementUser(projectId, startDateTimeUTC, endDateTimeUTC));
+        Map<Long, Long> issueNotes = countsByUser(issueCommentRepository.countByProjectIdAndDateRangeGroupByGitManagementUser(projectId, startDateTimeUTC, endDateTimeUTC));
+
+        return members.stream().map(member -> {
+            Long memberId = Long.valueOf(member.getId());
+            ProjectScoreCube.MemberTotals memberTotals = totals.get(memberId);
+            return new ScoreboardRow(memberId, member.getUsername(), member.getName(),
+                    round(diffScoreCalculator.calculateScore(memberTotals.getMergeRequests(), scoreProfile)),
+                    round(diffScoreCalculator.calculateScore(memberTotals.getSharedMergeRequestCommits(), scoreProfile)),
+                    round(diffScoreCalculator.calculateScore(memberTotals.getCommits(), scoreProfile)),
+                    memberTotals.getCommitCount(),
+                    memberTotals.getMergeRequestCount(),
+                    mergeRequestNotes.getOrDefault(memberId, 0L),
+                    issueNotes.getOrDefault(memberId, 0L));
+        }).collect(Collectors.toList());
+    }
+
+    // scores of every member under each of the score profiles, from one pass over the member totals
+    @Transactional(readOnly = true)
+    public List<ScoreProfileComparisonRow> compareScoreProfiles(Long projectId, List<Long> scoreProfileIds, OffsetDateTime startDateTime, OffsetDateTime endDateTime) {
+        if (scoreProfileIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one score profile is required");
+        }
+        List<GitManagementUserView> members = gitManagementUserRepository.findByProjectId(projectId);
+        List<Long> memberIds = members.stream().map(member -> Long.valueOf(member.getId())).collect(Collectors.toList());
+        MultiProfileScorer scorer = new MultiProfileScorer(scoreProfileIds.stream()
+                .map(diffScoreCalculator::getCompiledScoreProfile)
+                .collect(Collectors.toList()));
+        Map<Long, ProjectScoreCube.MemberTotals> totals = scoreCubeStore.getOrBuild(projectId).sumMembers(memberIds, startDateTime, endDateTime);
+
+        return members.stream().map(member -> {
+            Long memberId = Long.valueOf(member.getId());
+            ProjectScoreCube.MemberTotals memberTotals = totals.get(memberId);
+            return new ScoreProfileComparisonRow(memberId, member.getUsername(), member.getName(),
+                    round(scorer.score(memberTotals.getMergeRequests())),
+                    round(scorer.score(memberTotals.getSharedMergeRequestCommits())),
+                    round(scorer.score(memberTotals.getCommits())));
+        }).collect(Collectors.toList());
+    }
+
+    // cached scores of the project are recomputed on their next read
+    public void scoresChanged(Long projectId) {
+        eventPublisher.publishEvent(new ProjectScoresChangedEvent(projectId));
+    }
+
+    public ScoreCacheStatsView getScoreCacheStats() {
+        return scoreCache.getStats();
+    }
+
+    private Map<Long, Long> countsByUser(List<GitManagementUserCount> counts) {
+        return counts.stream()
+                .filter(count -> count.getGitManagementUserId() != null)
+                .collect(Collectors.toMap(GitManagementUserCount::getGitManagementUserId, GitManagementUserCount::getCount));
+    }
+
     private double round(double value){
         return Math.round( value *100.0 )/100.0;
     }
+
+    private double[] round(double[] values){
+        for (int i = 0; i < values.length; i++) {
+            values[i] = round(values[i]);
+        }
+        return values;
+    }
 }
@@ -0,0 +1,38 @@
+package com.eris.gitlabanalyzer.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+// Writes rows as a JSON array while they are read, so a streamed listing holds one row in memory at a time.
+// The generator's buffer is flushed to the response as it fills rather than after every row.
+@Component
+public class JsonArrayWriter {
+    private final ObjectWriter objectWriter;
+
+    public JsonArrayWriter(ObjectMapper objectMapper) {
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public <T> void write(OutputStream outputStream, Consumer<Consumer<T>> rows) throws IOException {
+        try (JsonGenerator generator = objectWriter.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            rows.accept(row -> {
+                try {
+                    objectWriter.writeValue(generator, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+}
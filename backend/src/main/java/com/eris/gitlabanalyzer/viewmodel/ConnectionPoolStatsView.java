@@ -0,0 +1,17 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// connections of one workload's pool at the time of the request
+@Getter
+@AllArgsConstructor
+public class ConnectionPoolStatsView {
+    private String workload;
+    private int maximumPoolSize;
+    private long connectionTimeoutMillis;
+    private int active;
+    private int idle;
+    private int total;
+    private int threadsAwaitingConnection;
+}
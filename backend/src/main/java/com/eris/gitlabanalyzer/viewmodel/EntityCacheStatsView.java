@@ -0,0 +1,14 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// counts since startup of one second level cache region, an entity, a collection or the query results
+@Getter
+@AllArgsConstructor
+public class EntityCacheStatsView {
+    private String region;
+    private long hits;
+    private long misses;
+    private long puts;
+}
@@ -0,0 +1,47 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import com.eris.gitlabanalyzer.dataprocessing.HunkIndex;
+import com.eris.gitlabanalyzer.model.FileScore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class FileScoreView {
+    private final Long id;
+    private final String filePath;
+    private final String fileType;
+    private final int codeLineAdded;
+    private final int syntaxLineAdded;
+    private final int commentLineAdded;
+    private final int codeLineRemoved;
+    private final int syntaxLineRemoved;
+    private final int commentLineRemoved;
+    private final int movedLines;
+    private final int reformattedLines;
+    private final boolean generated;
+    private final int diffSize;
+    private final List<HunkIndex.Hunk> hunks;
+
+    // the hunk index is stored apart from the file score, null when the file has none
+    public static FileScoreView fromFileScore(FileScore fileScore, byte[] hunkIndex){
+        return new FileScoreView(
+                fileScore.getId(),
+                fileScore.getFilePath(),
+                fileScore.getFileType(),
+                fileScore.getCodeLineAdded(),
+                fileScore.getSyntaxLineAdded(),
+                fileScore.getCommentLineAdded(),
+                fileScore.getCodeLineRemoved(),
+                fileScore.getSyntaxLineRemoved(),
+                fileScore.getCommentLineRemoved(),
+                fileScore.getMovedLines(),
+                fileScore.getReformattedLines(),
+                fileScore.isGenerated(),
+                fileScore.getDiffSize(),
+                new HunkIndex(hunkIndex).toList()
+        );
+    }
+}
@@ -0,0 +1,6 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+public interface GitManagementUserCount {
+    Long getGitManagementUserId();
+    Long getCount();
+}
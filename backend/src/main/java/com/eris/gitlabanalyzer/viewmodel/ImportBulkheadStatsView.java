@@ -0,0 +1,17 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// imports running and waiting now, rejected and completed since startup
+@Getter
+@AllArgsConstructor
+public class ImportBulkheadStatsView {
+    private int maxConcurrent;
+    private int running;
+    private long waiting;
+    private long rejected;
+    private long completed;
+    private int workerThreads;
+    private int activeWorkerThreads;
+}
@@ -0,0 +1,43 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position after the last row of a page. Listings are ordered by createdAt then id, so rows sharing a createdAt
+// are neither skipped nor repeated, and a page is an index range scan however deep it is.
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+    // before every row, ids are positive and nothing is created before year 1
+    public static final KeysetCursor START = new KeysetCursor(OffsetDateTime.of(1, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC), 0L);
+
+    private final OffsetDateTime createdAt;
+    private final Long id;
+
+    public String encode() {
+        String position = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // no cursor is the first page
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return START;
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new KeysetCursor(OffsetDateTime.parse(position.substring(0, separator)), Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor);
+        }
+    }
+}
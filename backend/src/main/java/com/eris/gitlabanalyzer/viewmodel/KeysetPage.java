@@ -0,0 +1,37 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.function.Function;
+
+// a page of a keyset paginated listing, the next page is requested with nextCursor which is null on the last page
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+    public static final int MAX_SIZE = 1000;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    // one row more than the page is read, so a full last page is known to be the last
+    public static Pageable request(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_SIZE);
+        }
+        return PageRequest.of(0, size + 1);
+    }
+
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(size - 1)));
+    }
+}
@@ -0,0 +1,22 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// a member's scoreboard summed over the projects of a server, ranks start at 1
+@Getter
+@AllArgsConstructor
+public class LeaderboardRow {
+    private int rank;
+    private Long gitManagementUserId;
+    private String username;
+    private String name;
+    private int projectCount;
+    private double mergeRequestScore;
+    private double sharedMergeRequestScore;
+    private double commitScore;
+    private int commitCount;
+    private int mergeRequestCount;
+    private long mergeRequestNoteCount;
+    private long issueNoteCount;
+}
@@ -16,6 +16,12 @@ public class NoteView {
     private final Long parentIid;
     private final String parentWebUrl;
 
+    // for the constructor expressions of the note repositories, which select the author's columns
+    public NoteView(Long id, String body, Long authorGitLabUserId, String authorName, String authorUsername,
+                    OffsetDateTime createdAt, boolean own, Long parentIid, String parentWebUrl) {
+        this(id, body, new Author(authorGitLabUserId, authorName, authorUsername), createdAt, own, parentIid, parentWebUrl);
+    }
+
     public static NoteView fromNote(Note note) {
         return new NoteView(
                 note.getGitLabNoteId(),
@@ -0,0 +1,17 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+
+// rows of the project written to the archive file, of which the mode removed all or all but the rollups
+@Getter
+@AllArgsConstructor
+public class ProjectArchiveView {
+    private Long projectId;
+    private String mode;
+    private String archivePath;
+    private long rowCount;
+    private OffsetDateTime archivedAt;
+}
@@ -0,0 +1,17 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// the columns of a project without its associations, for the paginated and streamed project listings
+@Getter
+@AllArgsConstructor
+public class ProjectView {
+    private final Long id;
+    private final Long gitLabProjectId;
+    private final String name;
+    private final String nameWithNamespace;
+    private final String webUrl;
+    private final Long serverId;
+    private final String localRepositoryPath;
+}
@@ -0,0 +1,18 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ScoreCacheStatsView {
+    private long hits;
+    private long misses;
+    // misses of entries that were cached but invalidated by a change since
+    private long staleMisses;
+    private long evictions;
+    private long invalidations;
+    // entries brought up to date for a score profile update without recomputing them
+    private long rescores;
+    private int size;
+}
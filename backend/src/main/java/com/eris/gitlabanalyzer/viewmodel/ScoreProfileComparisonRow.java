@@ -0,0 +1,16 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// scores of one member under each compared score profile, in the order of the requested profile ids
+@Getter
+@AllArgsConstructor
+public class ScoreProfileComparisonRow {
+    private Long gitManagementUserId;
+    private String username;
+    private String name;
+    private double[] mergeRequestScores;
+    private double[] sharedMergeRequestScores;
+    private double[] commitScores;
+}
@@ -0,0 +1,19 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ScoreboardRow {
+    private Long gitManagementUserId;
+    private String username;
+    private String name;
+    private double mergeRequestScore;
+    private double sharedMergeRequestScore;
+    private double commitScore;
+    private int commitCount;
+    private int mergeRequestCount;
+    private long mergeRequestNoteCount;
+    private long issueNoteCount;
+}
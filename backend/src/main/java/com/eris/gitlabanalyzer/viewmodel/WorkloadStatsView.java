@@ -0,0 +1,13 @@
+package com.eris.gitlabanalyzer.viewmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class WorkloadStatsView {
+    private List<ConnectionPoolStatsView> connectionPools;
+    private ImportBulkheadStatsView importBulkhead;
+}
@@ -0,0 +1,41 @@
+-- Columns and tables the diff scoring changes added to the entities after the baseline: generated file placeholders,
+-- moved and reformatted lines, the hunk index, local repository imports and the per item score rollups.
+-- Runs before the indexes and partitioning of the later versions, on new databases and on adopted ones alike.
+
+alter table project add column local_repository_path varchar(255);
+
+alter table merge_request add column head_sha varchar(255);
+alter table merge_request add column merge_commit_sha varchar(255);
+
+alter table file_score add column generated boolean default false not null;
+alter table file_score add column diff_size integer default 0 not null;
+alter table file_score add column moved_line integer default 0 not null;
+alter table file_score add column reformatted_line integer default 0 not null;
+alter table file_score add column hunk_index bytea;
+
+alter table score_profile add column moved double precision;
+alter table score_profile add column reformatted double precision;
+
+create sequence score_rollup_sequence start with 1 increment by 1;
+
+create table score_rollup (
+    score_rollup_id bigint not null,
+    commit_id bigint,
+    merge_request_id bigint,
+    file_type varchar(255),
+    file_count integer not null,
+    unpaired_code_line_added bigint not null,
+    syntax_line_added bigint not null,
+    comment_line_added bigint not null,
+    unpaired_code_line_remove bigint not null,
+    syntax_line_remove bigint not null,
+    comment_line_remove bigint not null,
+    moved_line bigint not null,
+    reformatted_line bigint not null,
+    primary key (score_rollup_id),
+    constraint score_rollup_commit_fk foreign key (commit_id) references commit,
+    constraint score_rollup_merge_request_fk foreign key (merge_request_id) references merge_request
+);
+
+create index score_rollup_commit_idx on score_rollup (commit_id);
+create index score_rollup_merge_request_idx on score_rollup (merge_request_id);
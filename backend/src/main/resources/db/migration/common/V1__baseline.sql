@@ -0,0 +1,222 @@
+-- Schema as created by Hibernate from the entities before migrations were introduced.
+-- Databases created that way are adopted with spring.flyway.baseline-on-migrate=true, which skips this version.
+
+create sequence server_sequence start with 1 increment by 1;
+create sequence user_sequence start with 1 increment by 1;
+create sequence project_sequence start with 1 increment by 1;
+create sequence git_management_user_sequence start with 1 increment by 1;
+create sequence commit_author_sequence start with 1 increment by 1;
+create sequence merge_request_sequence start with 1 increment by 1;
+create sequence commit_sequence start with 1 increment by 1;
+create sequence commit_comment_sequence start with 1 increment by 1;
+create sequence note_sequence start with 1 increment by 1;
+create sequence file_score_sequence start with 1 increment by 1;
+create sequence score_profile_id_seq start with 1 increment by 1;
+create sequence analysis_run_sequence start with 1 increment by 1;
+
+create table server (
+    server_id bigint not null,
+    server_url varchar(255),
+    primary key (server_id),
+    constraint server_url_uk unique (server_url)
+);
+
+create table app_user (
+    user_id bigint not null,
+    user_name varchar(255),
+    primary key (user_id),
+    constraint app_user_user_name_uk unique (user_name)
+);
+
+create table user_server (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    server_id bigint not null,
+    access_token varchar(255),
+    primary key (id),
+    constraint user_server_user_fk foreign key (user_id) references app_user,
+    constraint user_server_server_fk foreign key (server_id) references server
+);
+
+create table project (
+    project_id bigint not null,
+    gitlab_project_id bigint not null,
+    name varchar(255) not null,
+    name_with_namespace varchar(255) not null,
+    web_url varchar(255) not null,
+    server_id bigint not null,
+    primary key (project_id),
+    constraint project_server_gitlab_project_uk unique (server_id, gitlab_project_id),
+    constraint project_server_fk foreign key (server_id) references server
+);
+
+create table user_project_permission (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    project_id bigint not null,
+    server_id bigint not null,
+    primary key (id),
+    constraint user_project_permission_uk unique (user_id, project_id, server_id),
+    constraint user_project_permission_user_fk foreign key (user_id) references app_user,
+    constraint user_project_permission_project_fk foreign key (project_id) references project,
+    constraint user_project_permission_server_fk foreign key (server_id) references server
+);
+
+create table git_management_user (
+    git_management_user_id bigint not null,
+    gitlab_user_id bigint not null,
+    username varchar(255) not null,
+    name varchar(255) not null,
+    score real not null,
+    server_id bigint not null,
+    primary key (git_management_user_id),
+    constraint git_management_user_server_fk foreign key (server_id) references server
+);
+
+create table member (
+    git_management_user_id bigint not null,
+    project_id bigint not null,
+    constraint member_git_management_user_fk foreign key (git_management_user_id) references git_management_user,
+    constraint member_project_fk foreign key (project_id) references project
+);
+
+create table commit_author (
+    commit_author_id bigint not null,
+    author_name varchar(255) not null,
+    author_email varchar(255) not null,
+    project_id bigint,
+    git_management_user_id bigint,
+    primary key (commit_author_id),
+    constraint commit_mapping_project_id_fk foreign key (project_id) references project,
+    constraint commit_mapping_member_id_fk foreign key (git_management_user_id) references git_management_user
+);
+
+create table merge_request (
+    merge_request_id bigint not null,
+    merge_request_iid bigint,
+    author_username varchar(255) not null,
+    title varchar(255) not null,
+    created_at timestamp not null,
+    merged_at timestamp,
+    web_url varchar(255) not null,
+    project_id bigint not null,
+    git_management_user_id bigint not null,
+    is_ignored boolean,
+    primary key (merge_request_id),
+    constraint merge_request_project_fk foreign key (project_id) references project,
+    constraint merge_request_git_management_user_fk foreign key (git_management_user_id) references git_management_user
+);
+
+create table merge_request_shared_with (
+    merge_request_merge_request_id bigint not null,
+    shared_with bigint not null,
+    primary key (merge_request_merge_request_id, shared_with),
+    constraint merge_request_shared_with_merge_request_fk foreign key (merge_request_merge_request_id) references merge_request
+);
+
+create table commit (
+    commit_id bigint not null,
+    sha varchar(255) not null,
+    title text not null,
+    author_name varchar(255) not null,
+    author_username varchar(255),
+    author_email varchar(255) not null,
+    created_at timestamp not null,
+    merged_at timestamp,
+    web_url varchar(255) not null,
+    project_id bigint not null,
+    merge_request_id bigint,
+    is_ignored boolean,
+    primary key (commit_id),
+    constraint commit_project_fk foreign key (project_id) references project,
+    constraint commit_merge_request_fk foreign key (merge_request_id) references merge_request
+);
+
+create table commit_comment (
+    commit_comment_id bigint not null,
+    git_management_user_id bigint not null,
+    commit_id bigint not null,
+    note text not null,
+    created_at timestamp not null,
+    primary key (commit_comment_id),
+    constraint commit_comment_git_management_user_fk foreign key (git_management_user_id) references git_management_user,
+    constraint commit_comment_commit_fk foreign key (commit_id) references commit
+);
+
+create table note (
+    note_id bigint not null,
+    gitlab_note_id bigint not null,
+    body text not null,
+    git_management_user_id bigint not null,
+    created_at timestamp not null,
+    merged_at timestamp,
+    project_id bigint not null,
+    own boolean not null,
+    parent_iid bigint not null,
+    parent_web_url varchar(255) not null,
+    noteable_type varchar(255) not null,
+    primary key (note_id),
+    constraint note_git_management_user_fk foreign key (git_management_user_id) references git_management_user
+);
+
+create table file_score (
+    file_score_id bigint not null,
+    commit_id bigint,
+    merge_request_id bigint,
+    file_type varchar(255),
+    file_path varchar(255),
+    code_line_added integer not null,
+    syntax_line_added integer not null,
+    comment_line_added integer not null,
+    code_line_remove integer not null,
+    syntax_line_remove integer not null,
+    comment_line_remove integer not null,
+    primary key (file_score_id),
+    constraint file_score_commit_fk foreign key (commit_id) references commit,
+    constraint file_score_merge_request_fk foreign key (merge_request_id) references merge_request
+);
+
+create table score_profile (
+    id bigint not null,
+    user_id bigint,
+    name varchar(255),
+    line double precision not null,
+    delete double precision not null,
+    syntax double precision not null,
+    comments double precision not null,
+    primary key (id),
+    constraint score_profile_user_fk foreign key (user_id) references app_user
+);
+
+create table score_profile_extension_weights (
+    score_profile_id bigint not null,
+    weight double precision,
+    extension varchar(255) not null,
+    primary key (score_profile_id, extension),
+    constraint score_profile_extension_weights_score_profile_fk foreign key (score_profile_id) references score_profile
+);
+
+create table score_profile_black_list (
+    score_profile_id bigint not null,
+    black_list varchar(255),
+    constraint score_profile_black_list_score_profile_fk foreign key (score_profile_id) references score_profile
+);
+
+create table analysis_run (
+    analysis_run_id bigint not null,
+    user_id bigint,
+    project_id bigint,
+    server_id bigint,
+    score_profile_id bigint,
+    score_profile_name varchar(255),
+    start_date_time timestamp,
+    end_date_time timestamp,
+    created_date_time timestamp,
+    status varchar(255),
+    message varchar(255),
+    progress double precision,
+    primary key (analysis_run_id),
+    constraint analysis_run_user_fk foreign key (user_id) references app_user,
+    constraint analysis_run_project_fk foreign key (project_id) references project,
+    constraint analysis_run_server_fk foreign key (server_id) references server
+);
@@ -0,0 +1,11 @@
+-- Resolved author of each commit, so user scoped commit queries filter on an indexed column
+-- instead of a correlated subquery on commit_author. Kept in sync by the import and author mapping.
+
+alter table commit add column git_management_user_id bigint;
+alter table commit add constraint commit_git_management_user_fk foreign key (git_management_user_id) references git_management_user;
+
+update commit set git_management_user_id = (
+    select max(ca.git_management_user_id) from commit_author ca
+    where ca.project_id = commit.project_id and ca.author_name = commit.author_name and ca.author_email = commit.author_email);
+
+create index commit_project_user_merged_at_idx on commit (project_id, git_management_user_id, merged_at);
@@ -0,0 +1,5 @@
+-- Keyset indexes of the paginated and streamed listings, each page is read from where the (created_at, id) of the
+-- previous one ended and the streams are read in the same order, so neither sorts the project's rows.
+
+create index commit_project_created_at_id_idx on commit (project_id, created_at, commit_id);
+create index note_project_type_created_at_gitlab_note_idx on note (project_id, noteable_type, created_at, gitlab_note_id);
@@ -0,0 +1,15 @@
+-- Project of each file score, copied from its commit or merge request, so file_score can be partitioned by project
+-- like the items it scores and the import and rollup lookups carry a project predicate.
+
+alter table file_score add column project_id bigint;
+
+update file_score set project_id = (select c.project_id from commit c where c.commit_id = file_score.commit_id)
+where commit_id is not null;
+update file_score set project_id = (select m.project_id from merge_request m where m.merge_request_id = file_score.merge_request_id)
+where project_id is null and merge_request_id is not null;
+
+alter table file_score alter column project_id set not null;
+alter table file_score add constraint file_score_project_fk foreign key (project_id) references project;
+
+create index file_score_project_commit_idx on file_score (project_id, commit_id);
+create index file_score_project_merge_request_idx on file_score (project_id, merge_request_id);
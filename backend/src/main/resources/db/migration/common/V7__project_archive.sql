@@ -0,0 +1,12 @@
+-- Projects whose analysis data was exported to an archive file by ArchiveService, then compacted to its rollups
+-- or deleted. A project is rehydrated from its archive file and its row removed.
+
+create table project_archive (
+    project_id bigint not null,
+    mode varchar(16) not null,
+    archive_path varchar(1024) not null,
+    row_count bigint not null,
+    archived_at timestamp not null,
+    primary key (project_id),
+    constraint project_archive_project_fk foreign key (project_id) references project
+);
@@ -0,0 +1,41 @@
+-- Rolls up the commits and merge requests that were scored before score_rollup existed, once. Every later import
+-- writes the rows of an item with its file scores (ScoreRollupWriter). Same sums as ScoreRollup.add: one row per
+-- item and file type, code lines reduced by the moved and reformatted pairs of each file, clamped at 0 per file.
+
+insert into score_rollup (score_rollup_id, commit_id, merge_request_id, file_type, file_count,
+                          unpaired_code_line_added, syntax_line_added, comment_line_added,
+                          unpaired_code_line_remove, syntax_line_remove, comment_line_remove,
+                          moved_line, reformatted_line)
+select nextval('score_rollup_sequence'), t.commit_id, null, t.file_type, t.file_count,
+       t.unpaired_code_line_added, t.syntax_line_added, t.comment_line_added,
+       t.unpaired_code_line_remove, t.syntax_line_remove, t.comment_line_remove,
+       t.moved_line, t.reformatted_line
+from (select f.commit_id, f.file_type, count(*) as file_count,
+             sum(greatest(f.code_line_added - f.moved_line - f.reformatted_line, 0)) as unpaired_code_line_added,
+             sum(f.syntax_line_added) as syntax_line_added, sum(f.comment_line_added) as comment_line_added,
+             sum(greatest(f.code_line_remove - f.moved_line - f.reformatted_line, 0)) as unpaired_code_line_remove,
+             sum(f.syntax_line_remove) as syntax_line_remove, sum(f.comment_line_remove) as comment_line_remove,
+             sum(f.moved_line) as moved_line, sum(f.reformatted_line) as reformatted_line
+      from file_score f
+      where f.commit_id is not null
+        and not exists (select 1 from score_rollup r where r.commit_id = f.commit_id)
+      group by f.commit_id, f.file_type) t;
+
+insert into score_rollup (score_rollup_id, commit_id, merge_request_id, file_type, file_count,
+                          unpaired_code_line_added, syntax_line_added, comment_line_added,
+                          unpaired_code_line_remove, syntax_line_remove, comment_line_remove,
+                          moved_line, reformatted_line)
+select nextval('score_rollup_sequence'), null, t.merge_request_id, t.file_type, t.file_count,
+       t.unpaired_code_line_added, t.syntax_line_added, t.comment_line_added,
+       t.unpaired_code_line_remove, t.syntax_line_remove, t.comment_line_remove,
+       t.moved_line, t.reformatted_line
+from (select f.merge_request_id, f.file_type, count(*) as file_count,
+             sum(greatest(f.code_line_added - f.moved_line - f.reformatted_line, 0)) as unpaired_code_line_added,
+             sum(f.syntax_line_added) as syntax_line_added, sum(f.comment_line_added) as comment_line_added,
+             sum(greatest(f.code_line_remove - f.moved_line - f.reformatted_line, 0)) as unpaired_code_line_remove,
+             sum(f.syntax_line_remove) as syntax_line_remove, sum(f.comment_line_remove) as comment_line_remove,
+             sum(f.moved_line) as moved_line, sum(f.reformatted_line) as reformatted_line
+      from file_score f
+      where f.merge_request_id is not null
+        and not exists (select 1 from score_rollup r where r.merge_request_id = f.merge_request_id)
+      group by f.merge_request_id, f.file_type) t;
@@ -0,0 +1,6 @@
+-- H2 stores text as a CLOB, which the TEXT columns of the entities do not validate against. An unbounded varchar
+-- holds the same values and is reported as one, so the tests validate the entities like PostgreSQL does.
+
+alter table commit alter column title varchar not null;
+alter table commit_comment alter column note varchar not null;
+alter table note alter column body varchar not null;
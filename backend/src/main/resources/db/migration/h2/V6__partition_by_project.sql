@@ -0,0 +1,2 @@
+-- H2 has no declarative partitioning, the tables of the tests stay as they are and PartitionService reports that
+-- semesters are not partitioned here. See the PostgreSQL migration of this version.
@@ -0,0 +1,14 @@
+-- Same table as the PostgreSQL migration, unpartitioned like the other tables of the tests.
+
+create table file_score_hunk_index (
+    file_score_id bigint not null,
+    project_id bigint not null,
+    hunk_index bytea not null,
+    primary key (file_score_id),
+    constraint file_score_hunk_index_file_score_fk foreign key (file_score_id) references file_score
+);
+
+insert into file_score_hunk_index (file_score_id, project_id, hunk_index)
+select file_score_id, project_id, hunk_index from file_score where hunk_index is not null;
+
+alter table file_score drop column hunk_index;
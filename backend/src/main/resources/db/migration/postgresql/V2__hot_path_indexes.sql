@@ -0,0 +1,27 @@
+-- Indexes for the range, lookup and scoring queries of the repositories.
+-- The partial indexes only hold the rows scores are summed over, ignored commits and merge requests are left out.
+
+create index if not exists commit_project_merged_at_idx on commit (project_id, merged_at);
+create index if not exists commit_project_orphan_created_at_idx on commit (project_id, created_at) where merge_request_id is null;
+create index if not exists commit_active_project_merged_at_idx on commit (project_id, merged_at) where is_ignored = false;
+create index if not exists commit_active_project_orphan_created_at_idx on commit (project_id, created_at) where is_ignored = false and merge_request_id is null;
+create index if not exists commit_merge_request_idx on commit (merge_request_id);
+create index if not exists commit_project_sha_idx on commit (project_id, sha);
+create index if not exists commit_project_author_email_idx on commit (project_id, author_email);
+
+create index if not exists merge_request_project_merged_at_idx on merge_request (project_id, merged_at);
+create index if not exists merge_request_active_project_merged_at_idx on merge_request (project_id, merged_at) where is_ignored = false;
+create index if not exists merge_request_project_user_merged_at_idx on merge_request (project_id, git_management_user_id, merged_at);
+create index if not exists merge_request_project_iid_idx on merge_request (project_id, merge_request_iid);
+create index if not exists merge_request_shared_with_user_idx on merge_request_shared_with (shared_with);
+
+create index if not exists note_project_type_merged_at_idx on note (project_id, noteable_type, merged_at);
+create index if not exists note_project_type_created_at_idx on note (project_id, noteable_type, created_at);
+create index if not exists note_gitlab_note_project_idx on note (gitlab_note_id, project_id);
+
+create index if not exists file_score_commit_idx on file_score (commit_id);
+create index if not exists file_score_merge_request_idx on file_score (merge_request_id);
+
+create index if not exists commit_author_project_email_idx on commit_author (project_id, author_email);
+create index if not exists member_project_idx on member (project_id);
+create index if not exists user_project_permission_user_server_idx on user_project_permission (user_id, server_id);
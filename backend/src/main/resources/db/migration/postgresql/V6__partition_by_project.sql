@@ -0,0 +1,65 @@
+-- merge_request, commit, note and file_score are partitioned by range of project_id, one partition per semester.
+-- Project ids come from a sequence, so the projects imported during a semester hold a contiguous id range and a query
+-- filtering on project_id only reads that semester's partition. The existing tables become the partitions of the
+-- "initial" semester, which covers every project id until PartitionService starts the next semester by bounding the
+-- current partitions at the next project id. A semester is dropped by detaching its partitions, not by deleting rows.
+--
+-- Primary keys of partitioned tables must hold the partition key, so they become (id, project_id) and the foreign keys
+-- that reference these tables by id alone are dropped. The entities keep those references consistent.
+
+do $$
+declare
+    fk record;
+begin
+    for fk in select conrelid::regclass as referencing_table, conname from pg_constraint
+              where contype = 'f'
+                and confrelid in ('merge_request'::regclass, 'commit'::regclass, 'note'::regclass, 'file_score'::regclass)
+    loop
+        execute format('alter table %s drop constraint %I', fk.referencing_table, fk.conname);
+    end loop;
+end $$;
+
+do $$
+declare
+    partitioned record;
+    index_name text;
+    index_definitions text[];
+    index_definition text;
+begin
+    for partitioned in select * from (values ('merge_request', 'merge_request_id'), ('commit', 'commit_id'),
+                                             ('note', 'note_id'), ('file_score', 'file_score_id')) as t(table_name, id_column)
+    loop
+        -- recreated on the partitioned table, where each attaches to the same index of the initial partition
+        select coalesce(array_agg(pg_get_indexdef(i.indexrelid)), '{}') into index_definitions
+        from pg_index i where i.indrelid = partitioned.table_name::regclass and not i.indisprimary;
+
+        for index_name in select c.relname from pg_index i join pg_class c on c.oid = i.indexrelid
+                          where i.indrelid = partitioned.table_name::regclass
+        loop
+            execute format('alter index %I rename to %I', index_name, left(index_name, 54) || '_initial');
+        end loop;
+
+        execute format('alter table %I rename to %I', partitioned.table_name, partitioned.table_name || '_initial');
+        execute format('create table %I (like %I including defaults) partition by range (project_id)',
+                       partitioned.table_name, partitioned.table_name || '_initial');
+        execute format('alter table %I add primary key (%I, project_id)', partitioned.table_name, partitioned.id_column);
+        execute format('alter table %I attach partition %I for values from (minvalue) to (maxvalue)',
+                       partitioned.table_name, partitioned.table_name || '_initial');
+
+        foreach index_definition in array index_definitions
+        loop
+            execute index_definition;
+        end loop;
+    end loop;
+end $$;
+
+-- the semesters and the project ids they cover, a null first id is unbounded below and a null end id is the current semester
+create table semester_partition (
+    name varchar(40) not null,
+    first_project_id bigint,
+    end_project_id bigint,
+    detached_at timestamp,
+    primary key (name)
+);
+
+insert into semester_partition (name) values ('initial');
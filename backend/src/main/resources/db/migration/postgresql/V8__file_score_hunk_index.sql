@@ -0,0 +1,27 @@
+-- The hunk index of each file score moves to its own table, so the file scores loaded for scoring no longer read it.
+-- Partitioned by project like file_score, with a partition for every semester still attached. PartitionService bounds
+-- and detaches it together with the other partitioned tables.
+
+create table file_score_hunk_index (
+    file_score_id bigint not null,
+    project_id bigint not null,
+    hunk_index bytea not null,
+    primary key (file_score_id, project_id)
+) partition by range (project_id);
+
+do $$
+declare
+    semester record;
+begin
+    for semester in select name, first_project_id, end_project_id from semester_partition where detached_at is null
+    loop
+        execute format('create table %I partition of file_score_hunk_index for values from (%s) to (%s)',
+                       'file_score_hunk_index_' || semester.name,
+                       coalesce(semester.first_project_id::text, 'minvalue'), coalesce(semester.end_project_id::text, 'maxvalue'));
+    end loop;
+end $$;
+
+insert into file_score_hunk_index (file_score_id, project_id, hunk_index)
+select file_score_id, project_id, hunk_index from file_score where hunk_index is not null;
+
+alter table file_score drop column hunk_index;
@@ -0,0 +1,188 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.HunkIndex;
+import com.eris.gitlabanalyzer.dataprocessing.ScoreRollupWriter;
+import com.eris.gitlabanalyzer.model.*;
+import com.eris.gitlabanalyzer.model.types.NoteType;
+import com.eris.gitlabanalyzer.repository.*;
+import com.eris.gitlabanalyzer.service.ArchiveService;
+import com.eris.gitlabanalyzer.service.AuthService;
+import com.eris.gitlabanalyzer.viewmodel.ProjectArchiveView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"archive.DIRECTORY=${java.io.tmpdir}/gitlabanalyzer-archive-tests", "auth.ADMIN_USERNAMES=archive-admin, other-admin"})
+@Transactional
+class ArchiveTests {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2021, 4, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GitManagementUserRepository gitManagementUserRepository;
+    @Autowired
+    private MergeRequestRepository mergeRequestRepository;
+    @Autowired
+    private CommitRepository commitRepository;
+    @Autowired
+    private MergeRequestCommentRepository mergeRequestCommentRepository;
+    @Autowired
+    private FileScoreRepository fileScoreRepository;
+    @Autowired
+    private FileScoreHunkIndexRepository fileScoreHunkIndexRepository;
+    @Autowired
+    private AnalysisRunRepository analysisRunRepository;
+    @Autowired
+    private ScoreRollupWriter scoreRollupWriter;
+
+    @Autowired
+    private ArchiveService archiveService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long projectId;
+    private AnalysisRun analysisRun;
+
+    @BeforeEach
+    void seed() {
+        Server server = serverRepository.save(new Server("https://archive.example.com"));
+        Project project = projectRepository.save(new Project(9001L, "archive", "archive / archive", "https://archive.example.com/p", server));
+        User user = userRepository.save(new User("archive"));
+        GitManagementUser author = gitManagementUserRepository.save(new GitManagementUser(9100L, "archive", "Archive", server));
+        MergeRequest mergeRequest = mergeRequestRepository.save(new MergeRequest(9200L, "archive", "Merge request",
+                START, START.plusDays(1), "https://archive.example.com/mr", project, author));
+        Commit commit = commitRepository.save(new Commit("archive0", "Commit", "Archive", "archive@example.com",
+                START.plusHours(1), "https://archive.example.com/c/0", project));
+        mergeRequestCommentRepository.save(new Note(9300L, "Note", author, START, mergeRequest.getMergedAt(),
+                project.getId(), false, mergeRequest.getIid(), mergeRequest.getWebUrl(), NoteType.MergeRequest));
+        List<FileScore> fileScores = List.of(
+                fileScoreRepository.save(new FileScore(commit, "java", "Main.java", 7, 2, 1, 3, 0, 0)),
+                fileScoreRepository.save(new FileScore(commit, "py", "script.py", 4, 0, 2, 1, 0, 1)));
+        scoreRollupWriter.writeCommitRollup(commit, fileScores);
+        HunkIndex.Writer hunkIndex = new HunkIndex.Writer();
+        hunkIndex.write(new HunkIndex.Hunk(1, 3, 1, 13, 7, 2, 1, 3, 0, 0));
+        fileScoreHunkIndexRepository.save(new FileScoreHunkIndex(fileScores.get(0), hunkIndex.toByteArray()));
+        // new runs always start in progress
+        AnalysisRun completed = new AnalysisRun(user, project, server, AnalysisRun.Status.Completed, START, START.plusDays(7), null, null);
+        completed.setStatus(AnalysisRun.Status.Completed);
+        analysisRun = analysisRunRepository.save(completed);
+        projectId = project.getId();
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void compactingKeepsCommitsAndRollupsAndRehydrateRestoresTheRest() {
+        long fileScores = count("file_score");
+        long rollups = count("score_rollup");
+
+        ProjectArchiveView archive = archiveService.archiveProject(projectId, ArchiveService.Mode.COMPACT);
+
+        assertTrue(Files.exists(Paths.get(archive.getArchivePath())));
+        assertEquals(9, archive.getRowCount());
+        assertEquals(0, count("file_score"));
+        assertEquals(0, count("file_score_hunk_index"));
+        assertEquals(0, count("note"));
+        assertEquals(1, count("commit"));
+        assertEquals(rollups, count("score_rollup"));
+        assertTrue(archiveService.isArchived(projectId));
+
+        archiveService.rehydrateProject(projectId);
+
+        assertEquals(fileScores, count("file_score"));
+        assertEquals(1, count("file_score_hunk_index"));
+        assertEquals(1, count("note"));
+        assertEquals(1, count("commit"));
+        assertEquals(rollups, count("score_rollup"));
+        assertFalse(archiveService.isArchived(projectId));
+    }
+
+    @Test
+    void deletingRemovesAllAnalysisDataAndRehydrateRestoresIt() {
+        long rollups = count("score_rollup");
+
+        archiveService.archiveProject(projectId, ArchiveService.Mode.DELETE);
+
+        assertEquals(0, count("commit"));
+        assertEquals(0, count("merge_request"));
+        assertEquals(0, count("score_rollup"));
+        assertEquals(0, count("analysis_run"));
+
+        archiveService.rehydrateProject(projectId);
+        entityManager.clear();
+
+        assertEquals(1, count("commit"));
+        assertEquals(1, count("merge_request"));
+        assertEquals(2, count("file_score"));
+        assertEquals(rollups, count("score_rollup"));
+        AnalysisRun restored = analysisRunRepository.findById(analysisRun.getId()).orElseThrow();
+        assertEquals(AnalysisRun.Status.Completed, restored.getStatus());
+    }
+
+    @Test
+    void refusesProjectsThatAreArchivedOrBeingAnalysed() {
+        archiveService.archiveProject(projectId, ArchiveService.Mode.COMPACT);
+        ResponseStatusException archived = assertThrows(ResponseStatusException.class,
+                () -> archiveService.archiveProject(projectId, ArchiveService.Mode.DELETE));
+        assertEquals(HttpStatus.CONFLICT, archived.getStatus());
+        archiveService.rehydrateProject(projectId);
+
+        jdbcTemplate.update("update analysis_run set status = ? where project_id = ?", AnalysisRun.Status.InProgress.name(), projectId);
+        ResponseStatusException inProgress = assertThrows(ResponseStatusException.class,
+                () -> archiveService.archiveProject(projectId, ArchiveService.Mode.COMPACT));
+        assertEquals(HttpStatus.CONFLICT, inProgress.getStatus());
+
+        ResponseStatusException notArchived = assertThrows(ResponseStatusException.class,
+                () -> archiveService.rehydrateProject(projectId));
+        assertEquals(HttpStatus.NOT_FOUND, notArchived.getStatus());
+    }
+
+    @Test
+    void findsProjectsWithoutRecentAnalysisRuns() {
+        assertTrue(archiveService.findInactiveProjectIds(OffsetDateTime.now(ZoneOffset.UTC).plusDays(1)).contains(projectId));
+        assertFalse(archiveService.findInactiveProjectIds(OffsetDateTime.now(ZoneOffset.UTC).minusDays(1)).contains(projectId));
+
+        archiveService.archiveProject(projectId, ArchiveService.Mode.COMPACT);
+
+        assertFalse(archiveService.findInactiveProjectIds(OffsetDateTime.now(ZoneOffset.UTC).plusDays(1)).contains(projectId));
+    }
+
+    @Test
+    void onlyConfiguredUsersAreAdministrators() {
+        assertTrue(authService.isAdmin(new User("archive-admin")));
+        assertTrue(authService.isAdmin(new User("other-admin")));
+        assertFalse(authService.isAdmin(new User("archive")));
+    }
+
+    private long count(String table) {
+        String predicate = table.equals("score_rollup")
+                ? "commit_id in (select commit_id from commit where project_id = ?)"
+                : "project_id = ?";
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where " + predicate, Long.class, projectId);
+    }
+}
@@ -0,0 +1,38 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.CompiledScoreProfile;
+import com.eris.gitlabanalyzer.dataprocessing.FileTypeRegistry;
+import com.eris.gitlabanalyzer.model.ScoreProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledScoreProfileTests {
+
+    @Test
+    void resolvesExtensionWeightsAndBlackList() {
+        ScoreProfile scoreProfile = new ScoreProfile("compiledProfile", 2, 0.5, 1, 1);
+        scoreProfile.addExtension(Map.of("java", 3.0, "md", 0.5));
+        scoreProfile.addBlackList(List.of("md", "lock"));
+        CompiledScoreProfile compiled = CompiledScoreProfile.compile(scoreProfile);
+
+        // code added 1, code removed 1: removed code is weighted with the lower of the code and delete weight
+        assertEquals(6.5, compiled.weights("java").score(1, 0, 0, 1, 0, 0, 0, 0));
+        assertEquals(0.0, compiled.weights("md").score(1, 1, 1, 1, 1, 1, 1, 1));
+        assertTrue(compiled.isBlackListed(FileTypeRegistry.find("lock")));
+        assertFalse(compiled.isBlackListed(FileTypeRegistry.find("java")));
+    }
+
+    @Test
+    void usesTheProfileWeightsForOtherFileTypes() {
+        ScoreProfile scoreProfile = new ScoreProfile("compiledProfile", 2, 0.5, 1, 1);
+        CompiledScoreProfile compiled = CompiledScoreProfile.compile(scoreProfile);
+
+        assertEquals(2.5, compiled.weights("never-seen-type").score(1, 0, 0, 1, 0, 0, 0, 0));
+        assertEquals(2.5, compiled.weights((String) null).score(1, 0, 0, 1, 0, 0, 0, 0));
+        assertEquals(compiled.weights("never-seen-type"), compiled.weights(FileTypeRegistry.intern("interned-later")));
+    }
+}
@@ -0,0 +1,115 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.config.EntityCacheConfig;
+import com.eris.gitlabanalyzer.model.ScoreProfile;
+import com.eris.gitlabanalyzer.model.Server;
+import com.eris.gitlabanalyzer.repository.ScoreProfileRepository;
+import com.eris.gitlabanalyzer.repository.ServerRepository;
+import com.eris.gitlabanalyzer.service.EntityCacheService;
+import com.eris.gitlabanalyzer.viewmodel.EntityCacheStatsView;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// not @Transactional, entries only reach the second level cache once their transaction commits
+@SpringBootTest
+class EntityCacheTests {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private ScoreProfileRepository scoreProfileRepository;
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    private Statistics statistics;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void readsServerFromCacheOnceLoaded() {
+        Server server = serverRepository.save(new Server("https://entity-cache.example.com"));
+        try {
+            serverRepository.findById(server.getId());
+            statistics.clear();
+
+            assertTrue(serverRepository.findById(server.getId()).isPresent());
+            assertEquals(0, statistics.getPrepareStatementCount());
+            assertEquals(1, statistics.getEntityStatistics(Server.class.getName()).getCacheHitCount());
+        }
+        finally {
+            serverRepository.delete(server);
+        }
+        assertTrue(serverRepository.findById(server.getId()).isEmpty());
+    }
+
+    @Test
+    void servesUpdatedScoreProfileAfterWrite() {
+        Long id = scoreProfileRepository.save(new ScoreProfile("cached", 2, 0.5, 1, 1)).getId();
+        try {
+            assertEquals("cached", readScoreProfile(id).getName());
+
+            transactionTemplate.executeWithoutResult(status -> {
+                ScoreProfile scoreProfile = scoreProfileRepository.findScoreProfileById(id).orElseThrow();
+                scoreProfile.setName("renamed");
+                scoreProfile.addExtension(Map.of("java", 3.0));
+                scoreProfile.addBlackList(List.of("md"));
+            });
+
+            statistics.clear();
+            ScoreProfile reread = readScoreProfile(id);
+            assertEquals("renamed", reread.getName());
+            assertEquals(3.0, reread.getExtensionWeight("java"));
+            assertTrue(reread.blackListContains("md"));
+
+            // the write invalidated the cached query, the entity and its collections came back from the regions the write updated
+            statistics.clear();
+            readScoreProfile(id);
+            assertEquals(0, statistics.getPrepareStatementCount());
+        }
+        finally {
+            scoreProfileRepository.deleteById(id);
+        }
+    }
+
+    @Test
+    void reportsRegionStats() {
+        Map<String, EntityCacheStatsView> stats = entityCacheService.getStats().stream()
+                .collect(Collectors.toMap(EntityCacheStatsView::getRegion, regionStats -> regionStats));
+
+        assertTrue(stats.containsKey(Server.class.getName()));
+        assertTrue(stats.containsKey(ScoreProfile.class.getName() + ".extensionWeights"));
+        assertTrue(stats.containsKey(EntityCacheConfig.QUERY_RESULTS_REGION));
+    }
+
+    // the collections are lazy, so they are read while the profile is still attached
+    private ScoreProfile readScoreProfile(Long id) {
+        return transactionTemplate.execute(status -> {
+            ScoreProfile scoreProfile = scoreProfileRepository.findScoreProfileById(id).orElseThrow();
+            scoreProfile.getExtensionWeights().size();
+            scoreProfile.getBlackList().size();
+            return scoreProfile;
+        });
+    }
+}
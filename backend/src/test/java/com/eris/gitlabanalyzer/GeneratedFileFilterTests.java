@@ -0,0 +1,126 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.GeneratedFileFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratedFileFilterTests {
+
+    private static final Long PROJECT_ID = 1L;
+
+    private final GeneratedFileFilter filter = new GeneratedFileFilter();
+
+    @Test
+    void matchesTheGlobalGlobs() {
+        assertTrue(filter.isGenerated(PROJECT_ID, "package-lock.json"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "frontend/yarn.lock"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "static/app.min.js"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "api/service_pb2.py"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "node_modules/react/index.js"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "frontend/node_modules/react/index.js"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "src/generated/Parser.java"));
+
+        assertFalse(filter.isGenerated(PROJECT_ID, "src/Main.java"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "yarn.lock.md"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "src/distance.js"));
+        assertFalse(filter.isGenerated(PROJECT_ID, null));
+    }
+
+    @Test
+    void patternsWithoutASlashMatchAtAnyDepth() {
+        filter.loadGitAttributes(PROJECT_ID, "*.g.dart linguist-generated\nschema.json linguist-generated");
+
+        assertTrue(filter.isGenerated(PROJECT_ID, "model.g.dart"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "lib/src/deep/model.g.dart"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "api/v1/schema.json"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "lib/model.dart"));
+    }
+
+    @Test
+    void patternsWithASlashAreAnchoredToTheRoot() {
+        filter.loadGitAttributes(PROJECT_ID, "/schema.json linguist-generated\ndocs/*.html linguist-generated");
+
+        assertTrue(filter.isGenerated(PROJECT_ID, "schema.json"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "api/schema.json"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "docs/index.html"));
+        // "*" does not cross directories
+        assertFalse(filter.isGenerated(PROJECT_ID, "docs/api/index.html"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "site/docs/index.html"));
+    }
+
+    @Test
+    void doubleStarSlashMatchesAnyNumberOfDirectories() {
+        filter.loadGitAttributes(PROJECT_ID, "**/gen/*.ts linguist-generated\nproto/**/*.pb.ts linguist-generated\nbuild/** linguist-generated");
+
+        assertTrue(filter.isGenerated(PROJECT_ID, "gen/api.ts"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "web/src/gen/api.ts"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "web/src/gen/nested/api.ts"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "proto/user.pb.ts"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "proto/v1/user/user.pb.ts"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "build/out/app.js"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "src/build/app.js"));
+    }
+
+    @Test
+    void trailingSlashPatternsOnlyMatchDirectoriesNotTheFilesInThem() {
+        // like git, "out/" names the directory, attributes are set on files with "out/**"
+        filter.loadGitAttributes(PROJECT_ID, "out/ linguist-generated");
+
+        assertFalse(filter.isGenerated(PROJECT_ID, "out/app.js"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "out"));
+    }
+
+    @Test
+    void theLastMatchingLineWins() {
+        filter.loadGitAttributes(PROJECT_ID, "*.js linguist-generated\nsrc/keep.js -linguist-generated");
+
+        assertTrue(filter.isGenerated(PROJECT_ID, "src/other.js"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "src/keep.js"));
+
+        filter.loadGitAttributes(PROJECT_ID, "src/keep.js -linguist-generated\n*.js linguist-generated");
+
+        assertTrue(filter.isGenerated(PROJECT_ID, "src/keep.js"));
+    }
+
+    @Test
+    void unsettingOverridesTheGlobalGlobs() {
+        filter.loadGitAttributes(PROJECT_ID, "yarn.lock -linguist-generated\nvendor/** linguist-vendored=false");
+
+        assertFalse(filter.isGenerated(PROJECT_ID, "yarn.lock"));
+        assertFalse(filter.isGenerated(PROJECT_ID, "vendor/lib/util.js"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "package-lock.json"));
+    }
+
+    @Test
+    void unspecifiedFallsBackToTheGlobalGlobs() {
+        filter.loadGitAttributes(PROJECT_ID, "*.js linguist-generated\nsrc/*.js !linguist-generated\ndist/** !linguist-generated");
+
+        // "!attr" is neither set nor unset, the earlier project line does not apply and the global list decides
+        assertFalse(filter.isGenerated(PROJECT_ID, "src/app.js"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "src/app.min.js"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "dist/app.js"));
+        assertTrue(filter.isGenerated(PROJECT_ID, "lib/app.js"));
+    }
+
+    @Test
+    void vendoredFilesAreSkippedLikeGeneratedOnes() {
+        filter.loadGitAttributes(PROJECT_ID, "# third party code\nthird_party/** linguist-vendored\n*.java text eol=lf");
+
+        assertTrue(filter.isGenerated(PROJECT_ID, "third_party/lib/Util.java"));
+        // other attributes do not make a file generated
+        assertFalse(filter.isGenerated(PROJECT_ID, "src/Main.java"));
+    }
+
+    @Test
+    void rulesArePerProjectAndReplacedOnLoad() {
+        filter.loadGitAttributes(PROJECT_ID, "*.txt linguist-generated");
+
+        assertTrue(filter.isGenerated(PROJECT_ID, "notes.txt"));
+        assertFalse(filter.isGenerated(2L, "notes.txt"));
+
+        filter.loadGitAttributes(PROJECT_ID, " ");
+
+        assertFalse(filter.isGenerated(PROJECT_ID, "notes.txt"));
+    }
+}
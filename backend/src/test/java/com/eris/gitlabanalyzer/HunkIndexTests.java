@@ -0,0 +1,59 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.HunkIndex;
+import com.eris.gitlabanalyzer.dataprocessing.HunkIndex.Hunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HunkIndexTests {
+
+    @Test
+    void decodesWhatWasEncoded() {
+        List<Hunk> hunks = List.of(
+                new Hunk(1, 5, 1, 7, 3, 1, 0, 1, 0, 0),
+                // a block comment closed in a later hunk makes a count negative
+                new Hunk(40, 12, 42, 200, 150, 20, -2, 10, 1, 1),
+                // same start as the previous hunk, and values needing several varint bytes
+                new Hunk(40, 0, 300000, 1, Integer.MAX_VALUE, Integer.MIN_VALUE, 0, 0, 0, 0));
+        HunkIndex.Writer writer = new HunkIndex.Writer();
+        hunks.forEach(writer::write);
+
+        List<Hunk> decoded = new HunkIndex(writer.toByteArray()).toList();
+
+        assertEquals(hunks.size(), decoded.size());
+        for (int i = 0; i < hunks.size(); i++) {
+            assertHunkEquals(hunks.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    void decodesNoHunksFromAMissingIndex() {
+        assertTrue(new HunkIndex(null).toList().isEmpty());
+        assertTrue(new HunkIndex(new HunkIndex.Writer().toByteArray()).toList().isEmpty());
+    }
+
+    @Test
+    void rejectsHunksOutOfOrder() {
+        HunkIndex.Writer writer = new HunkIndex.Writer();
+        writer.write(new Hunk(10, 2, 10, 2, 0, 0, 0, 0, 0, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> writer.write(new Hunk(5, 2, 12, 2, 0, 0, 0, 0, 0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> writer.write(new Hunk(12, 2, 5, 2, 0, 0, 0, 0, 0, 0)));
+    }
+
+    private static void assertHunkEquals(Hunk expected, Hunk actual) {
+        assertEquals(expected.getOldStart(), actual.getOldStart());
+        assertEquals(expected.getOldLines(), actual.getOldLines());
+        assertEquals(expected.getNewStart(), actual.getNewStart());
+        assertEquals(expected.getNewLines(), actual.getNewLines());
+        assertEquals(expected.getCodeLineAdded(), actual.getCodeLineAdded());
+        assertEquals(expected.getSyntaxLineAdded(), actual.getSyntaxLineAdded());
+        assertEquals(expected.getCommentLineAdded(), actual.getCommentLineAdded());
+        assertEquals(expected.getCodeLineRemoved(), actual.getCodeLineRemoved());
+        assertEquals(expected.getSyntaxLineRemoved(), actual.getSyntaxLineRemoved());
+        assertEquals(expected.getCommentLineRemoved(), actual.getCommentLineRemoved());
+    }
+}
@@ -0,0 +1,99 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.service.ConnectionPoolService;
+import com.eris.gitlabanalyzer.service.ImportBulkhead;
+import com.eris.gitlabanalyzer.viewmodel.ConnectionPoolStatsView;
+import com.eris.gitlabanalyzer.viewmodel.WorkloadStatsView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ImportBulkheadTests {
+
+    @Autowired
+    private ImportBulkhead importBulkhead;
+    @Autowired
+    private ConnectionPoolService connectionPoolService;
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void importsReadAndWriteThroughTheImportPool() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.queryForObject("select 1", Integer.class);
+        assertFalse(importBulkhead.isImportThread());
+
+        Set<Boolean> workerThreads = ConcurrentHashMap.newKeySet();
+        importBulkhead.run(() -> {
+            importBulkhead.forEachInParallel(IntStream.range(0, 32).boxed().collect(Collectors.toList()), i -> {
+                workerThreads.add(importBulkhead.isImportThread());
+                jdbcTemplate.queryForObject("select 1", Integer.class);
+            });
+            return jdbcTemplate.queryForObject("select 1", Integer.class);
+        });
+
+        assertEquals(Set.of(true), workerThreads);
+        Map<String, ConnectionPoolStatsView> pools = connectionPoolService.getStats().getConnectionPools().stream()
+                .collect(Collectors.toMap(ConnectionPoolStatsView::getWorkload, Function.identity()));
+        assertTrue(pools.get("interactive").getTotal() > 0);
+        assertTrue(pools.get("import").getTotal() > 0);
+        assertEquals(importBulkhead.getPoolSize(), pools.get("import").getMaximumPoolSize());
+    }
+
+    @Test
+    void turnsAwayImportsBeyondTheLimit() throws InterruptedException {
+        ImportBulkhead bulkhead = new ImportBulkhead(3, 1, 0);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> bulkhead.run(() -> {
+                running.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }));
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+
+            ResponseStatusException rejected = assertThrows(ResponseStatusException.class, () -> bulkhead.run(() -> 1));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+            assertEquals(1, bulkhead.getStats().getRunning());
+            assertEquals(1, bulkhead.getStats().getRejected());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            bulkhead.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.getStats().getRunning());
+    }
+
+    @Test
+    void leavesConnectionsForTheParallelWorkOfTheImports() {
+        assertThrows(IllegalStateException.class, () -> new ImportBulkhead(2, 2, 30));
+        WorkloadStatsView stats = connectionPoolService.getStats();
+        assertEquals(importBulkhead.getPoolSize() - stats.getImportBulkhead().getMaxConcurrent(), stats.getImportBulkhead().getWorkerThreads());
+        assertEquals(List.of("import", "interactive"), stats.getConnectionPools().stream().map(ConnectionPoolStatsView::getWorkload).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.model.*;
+import com.eris.gitlabanalyzer.model.types.NoteType;
+import com.eris.gitlabanalyzer.repository.*;
+import com.eris.gitlabanalyzer.service.CommitService;
+import com.eris.gitlabanalyzer.service.NoteService;
+import com.eris.gitlabanalyzer.utils.JsonArrayWriter;
+import com.eris.gitlabanalyzer.viewmodel.CommitView;
+import com.eris.gitlabanalyzer.viewmodel.KeysetPage;
+import com.eris.gitlabanalyzer.viewmodel.NoteView;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class KeysetPaginationTests {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2021, 4, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private GitManagementUserRepository gitManagementUserRepository;
+    @Autowired
+    private MergeRequestRepository mergeRequestRepository;
+    @Autowired
+    private CommitRepository commitRepository;
+    @Autowired
+    private MergeRequestCommentRepository mergeRequestCommentRepository;
+
+    @Autowired
+    private CommitService commitService;
+    @Autowired
+    private NoteService noteService;
+    @Autowired
+    private JsonArrayWriter jsonArrayWriter;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long projectId;
+    private List<Long> commitIdsInOrder;
+
+    @BeforeEach
+    void seed() {
+        Server server = serverRepository.save(new Server("https://keyset.example.com"));
+        Project project = projectRepository.save(new Project(8001L, "keyset", "keyset / keyset", "https://keyset.example.com/p", server));
+        GitManagementUser author = gitManagementUserRepository.save(new GitManagementUser(8100L, "keyset", "Keyset", server));
+        MergeRequest mergeRequest = mergeRequestRepository.save(new MergeRequest(8200L, "keyset", "Merge request",
+                START, START.plusDays(1), "https://keyset.example.com/mr", project, author));
+
+        // three commits share a createdAt, pages must split them by id without skipping or repeating one
+        List<OffsetDateTime> createdAts = List.of(START.plusHours(3), START.plusHours(1), START.plusHours(2), START.plusHours(2), START.plusHours(2));
+        List<Commit> commits = new ArrayList<>();
+        for (int i = 0; i < createdAts.size(); i++) {
+            commits.add(commitRepository.save(new Commit("keyset" + i, "Commit " + i, "Keyset", "keyset@example.com",
+                    createdAts.get(i), "https://keyset.example.com/c/" + i, project)));
+        }
+        commitIdsInOrder = List.of(commits.get(1).getId(), commits.get(2).getId(), commits.get(3).getId(), commits.get(4).getId(), commits.get(0).getId());
+
+        for (int i = 0; i < 3; i++) {
+            mergeRequestCommentRepository.save(new Note(8300L - i, "Note " + i, author, START, mergeRequest.getMergedAt(),
+                    project.getId(), false, mergeRequest.getIid(), mergeRequest.getWebUrl(), NoteType.MergeRequest));
+        }
+        projectId = project.getId();
+    }
+
+    @Test
+    void pagesThroughCommitsSharingACreatedAt() {
+        List<Long> ids = new ArrayList<>();
+        int pages = 0;
+        String cursor = null;
+        do {
+            KeysetPage<CommitView> page = commitService.getCommitPage(projectId, cursor, 2);
+            page.getItems().forEach(commit -> ids.add(commit.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(commitIdsInOrder, ids);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void fullLastPageHasNoNextCursor() {
+        KeysetPage<CommitView> page = commitService.getCommitPage(projectId, null, commitIdsInOrder.size());
+
+        assertEquals(commitIdsInOrder.size(), page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void pagesThroughNotesByGitLabNoteId() {
+        OffsetDateTime end = START.plusDays(2);
+        KeysetPage<NoteView> first = noteService.getMergeRequestNotePage(projectId, 0L, START, end, null, 2);
+        KeysetPage<NoteView> second = noteService.getMergeRequestNotePage(projectId, 0L, START, end, first.getNextCursor(), 2);
+
+        assertEquals(List.of(8298L, 8299L), first.getItems().stream().map(NoteView::getId).collect(Collectors.toList()));
+        assertEquals(List.of(8300L), second.getItems().stream().map(NoteView::getId).collect(Collectors.toList()));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void streamsCommitsAsAJsonArrayInPageOrder() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        jsonArrayWriter.<CommitView>write(outputStream, sink -> commitService.streamCommits(projectId, sink));
+
+        JsonNode commits = objectMapper.readTree(outputStream.toByteArray());
+        List<Long> ids = new ArrayList<>();
+        commits.forEach(commit -> ids.add(commit.get("id").asLong()));
+        assertEquals(commitIdsInOrder, ids);
+    }
+
+    @Test
+    void rejectsInvalidCursorsAndSizes() {
+        assertThrows(ResponseStatusException.class, () -> commitService.getCommitPage(projectId, "not a cursor", 10));
+        assertThrows(ResponseStatusException.class, () -> commitService.getCommitPage(projectId, null, 0));
+        assertThrows(ResponseStatusException.class, () -> commitService.getCommitPage(projectId, null, KeysetPage.MAX_SIZE + 1));
+    }
+}
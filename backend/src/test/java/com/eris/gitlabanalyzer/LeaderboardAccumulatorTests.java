@@ -0,0 +1,57 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.service.LeaderboardAccumulator;
+import com.eris.gitlabanalyzer.service.LeaderboardService;
+import com.eris.gitlabanalyzer.viewmodel.LeaderboardRow;
+import com.eris.gitlabanalyzer.viewmodel.ScoreboardRow;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardAccumulatorTests {
+
+    @Test
+    void sumsMembersOverProjects() {
+        LeaderboardAccumulator leaderboard = new LeaderboardAccumulator();
+        leaderboard.add(List.of(row(1L, 10.1, 2.2, 5), row(2L, 4, 0, 1)));
+        leaderboard.add(List.of(row(1L, 0.2, 0.1, 3), row(3L, 1, 1, 0)));
+
+        List<LeaderboardRow> rows = leaderboard.top(LeaderboardService.Ranking.MERGE_REQUEST_SCORE, 10);
+
+        assertEquals(3, leaderboard.getMemberCount());
+        assertEquals(3, rows.size());
+        LeaderboardRow first = rows.get(0);
+        assertEquals(1, first.getRank());
+        assertEquals(1L, first.getGitManagementUserId());
+        assertEquals(2, first.getProjectCount());
+        assertEquals(10.3, first.getMergeRequestScore());
+        assertEquals(2.3, first.getSharedMergeRequestScore());
+        assertEquals(8, first.getCommitCount());
+        assertEquals(2L, rows.get(1).getGitManagementUserId());
+        assertEquals(3L, rows.get(2).getGitManagementUserId());
+    }
+
+    @Test
+    void keepsOnlyTheTopMembersInRankOrder() {
+        LeaderboardAccumulator leaderboard = new LeaderboardAccumulator();
+        for (long id = 1; id <= 100; id++) {
+            leaderboard.add(List.of(row(id, 0, 0, (int) (id % 10))));
+        }
+
+        List<LeaderboardRow> rows = leaderboard.top(LeaderboardService.Ranking.COMMIT_COUNT, 3);
+
+        // ten members have 9 commits, ties go to the lower id
+        assertEquals(3, rows.size());
+        assertEquals(9L, rows.get(0).getGitManagementUserId());
+        assertEquals(19L, rows.get(1).getGitManagementUserId());
+        assertEquals(29L, rows.get(2).getGitManagementUserId());
+        assertEquals(3, rows.get(2).getRank());
+    }
+
+    private static ScoreboardRow row(Long id, double mergeRequestScore, double sharedMergeRequestScore, int commitCount) {
+        return new ScoreboardRow(id, "user" + id, "User " + id, mergeRequestScore, sharedMergeRequestScore, 0,
+                commitCount, 1, 0L, 0L);
+    }
+}
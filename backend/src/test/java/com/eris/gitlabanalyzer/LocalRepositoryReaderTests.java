@@ -0,0 +1,164 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.CalculateDiffMetrics.lineTypes;
+import com.eris.gitlabanalyzer.dataprocessing.CommentCharacter;
+import com.eris.gitlabanalyzer.dataprocessing.LocalRepositoryReader;
+import com.eris.gitlabanalyzer.dataprocessing.StreamingDiffParser;
+import com.eris.gitlabanalyzer.dataprocessing.StreamingDiffParser.StreamedFileChange;
+import com.eris.gitlabanalyzer.model.gitlabresponse.GitLabCommit;
+import com.eris.gitlabanalyzer.service.ImportBulkhead;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalRepositoryReaderTests {
+
+    private static final String PROJECT_WEB_URL = "https://gitlab.example.com/group/project";
+    private static final CommentCharacter JAVA_COMMENTS = new CommentCharacter("//", "/*", "*/");
+
+    @TempDir
+    Path repositoryDirectory;
+
+    private final ImportBulkhead importBulkhead = new ImportBulkhead(3, 1, 0);
+    private final LocalRepositoryReader localRepositoryReader = new LocalRepositoryReader(importBulkhead);
+    private final StreamingDiffParser classifier = new StreamingDiffParser(
+            path -> JAVA_COMMENTS, path -> path.endsWith(".lock"), false);
+
+    private RevCommit firstCommit;
+    private RevCommit secondCommit;
+
+    @BeforeEach
+    void createRepository() throws Exception {
+        try (Git git = Git.init().setDirectory(repositoryDirectory.toFile()).setInitialBranch("master").call()) {
+            writeFile("Main.java", "class Main {\n    int a = 1;\n}\n");
+            firstCommit = commit(git, "Add main");
+
+            writeFile("Main.java", "class Main {\n    // counter\n    int a = 1;\n    int b = 2;\n}\n");
+            writeFile("yarn.lock", "dependency 1\n");
+            secondCommit = commit(git, "Add counter");
+        }
+    }
+
+    @AfterEach
+    void shutdownBulkhead() {
+        importBulkhead.shutdown();
+    }
+
+    @Test
+    void readsCommitsWithParents() {
+        List<GitLabCommit> commits = localRepositoryReader.getCommits(repositoryDirectory.toString(), PROJECT_WEB_URL,
+                OffsetDateTime.now().minusDays(1), OffsetDateTime.now().plusDays(1));
+
+        assertEquals(2, commits.size());
+        assertEquals(secondCommit.getName(), commits.get(0).getSha());
+        assertEquals("Add counter", commits.get(0).getTitle());
+        assertEquals(List.of(firstCommit.getName()), commits.get(0).getParentShas());
+        assertEquals(PROJECT_WEB_URL + "/-/commit/" + secondCommit.getName(), commits.get(0).getWebUrl());
+        assertTrue(commits.get(1).getParentShas().isEmpty());
+        assertEquals("dev@example.com", commits.get(1).getAuthorEmail());
+    }
+
+    @Test
+    void classifiesCommitDiffs() {
+        Map<String, List<StreamedFileChange>> diffs = localRepositoryReader.getCommitDiffs(repositoryDirectory.toString(),
+                List.of(firstCommit.getName(), secondCommit.getName(), "0000000000000000000000000000000000000000"), classifier);
+
+        assertFalse(diffs.containsKey("0000000000000000000000000000000000000000"));
+
+        StreamedFileChange added = diffs.get(firstCommit.getName()).get(0);
+        assertEquals("Main.java", added.getNewPath());
+        assertEquals("Main.java", added.getOldPath());
+        assertEquals(2, added.getCount(lineTypes.code));
+        assertEquals(1, added.getCount(lineTypes.syntax));
+
+        List<StreamedFileChange> changes = diffs.get(secondCommit.getName());
+        assertEquals(2, changes.size());
+        StreamedFileChange main = changes.stream().filter(file -> file.getPath().equals("Main.java")).findFirst().orElseThrow();
+        assertEquals(1, main.getCount(lineTypes.code));
+        assertEquals(1, main.getCount(lineTypes.comment));
+        assertEquals(0, main.getCount(lineTypes.removedCode));
+        StreamedFileChange lockFile = changes.stream().filter(file -> file.getPath().equals("yarn.lock")).findFirst().orElseThrow();
+        assertTrue(lockFile.isGenerated());
+        assertEquals(0, lockFile.getCount(lineTypes.code));
+        // measured by its contents, it is never formatted into a diff
+        assertEquals("dependency 1\n".length(), lockFile.getDiffSize());
+    }
+
+    @Test
+    void diffsMergedMergeRequestFromMergeBase() throws Exception {
+        RevCommit head;
+        ObjectId mergeCommit;
+        try (Git git = Git.open(repositoryDirectory.toFile())) {
+            git.checkout().setCreateBranch(true).setName("feature").call();
+            writeFile("Feature.java", "class Feature {\n}\n");
+            head = commit(git, "Add feature");
+
+            git.checkout().setName("master").call();
+            writeFile("Other.java", "class Other {\n}\n");
+            commit(git, "Add other");
+
+            mergeCommit = git.merge().include(head).setFastForward(MergeCommand.FastForwardMode.NO_FF)
+                    .setMessage("Merge feature").call().getNewHead();
+        }
+
+        Optional<List<StreamedFileChange>> diff = localRepositoryReader.getMergeRequestDiff(repositoryDirectory.toString(),
+                mergeCommit.getName(), head.getName(), classifier);
+
+        assertTrue(diff.isPresent());
+        assertEquals(1, diff.get().size());
+        assertEquals("Feature.java", diff.get().get(0).getNewPath());
+        assertEquals(1, diff.get().get(0).getCount(lineTypes.code));
+        assertTrue(localRepositoryReader.getMergeRequestDiff(repositoryDirectory.toString(), null, head.getName(), classifier).isEmpty());
+    }
+
+    @Test
+    void rejectsDirectoriesWithoutRepository() throws Exception {
+        // a @TempDir parameter would be the same directory as the field, which holds the repository
+        Path emptyDirectory = Files.createDirectory(repositoryDirectory.resolve("empty"));
+        assertTrue(localRepositoryReader.isRepository(repositoryDirectory.toString()));
+        assertFalse(localRepositoryReader.isRepository(emptyDirectory.toString()));
+    }
+
+    private void writeFile(String name, String content) throws Exception {
+        Files.writeString(new File(repositoryDirectory.toFile(), name).toPath(), content, StandardCharsets.UTF_8);
+    }
+
+    private RevCommit commit(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(message).setAuthor("Dev", "dev@example.com").setCommitter("Dev", "dev@example.com").call();
+    }
+
+    @Test
+    void diffsCommitsOnTheImportWorkers() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        StreamingDiffParser recordingClassifier = new StreamingDiffParser(path -> JAVA_COMMENTS, path -> {
+            threads.add(Thread.currentThread().getName());
+            return false;
+        }, false);
+
+        localRepositoryReader.getCommitDiffs(repositoryDirectory.toString(),
+                List.of(firstCommit.getName(), secondCommit.getName()), recordingClassifier);
+
+        assertFalse(threads.isEmpty());
+        assertTrue(threads.stream().allMatch(thread -> thread.startsWith("import-")), threads.toString());
+    }
+
+}
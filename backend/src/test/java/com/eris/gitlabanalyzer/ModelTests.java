@@ -101,7 +101,7 @@ class ModelTests {
 
     @Test
     void projectModel() {
-        Project queryResult= projectRepository.findById(1L).orElse(null);
+        Project queryResult= projectRepository.findById(testProject.getId()).orElse(null);
         assertNotNull(queryResult);
         assertEquals(testProject.getId(), queryResult.getId());
         assertEquals(testProject.getGitLabProjectId(), queryResult.getGitLabProjectId());
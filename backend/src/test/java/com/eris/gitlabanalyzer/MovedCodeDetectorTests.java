@@ -0,0 +1,84 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.CalculateDiffMetrics.lineAction;
+import com.eris.gitlabanalyzer.dataprocessing.MovedCodeDetector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovedCodeDetectorTests {
+
+    private final MovedCodeDetector detector = new MovedCodeDetector();
+
+    @Test
+    void movesABlockOfThreeIdenticalLines() {
+        removed("int a = 1;", "int b = 2;", "int c = a + b;");
+        added("void other() {", "int a = 1;", "int b = 2;", "int c = a + b;", "}");
+
+        assertEquals(3, detector.getMovedLines());
+        assertEquals(0, detector.getReformattedLines());
+    }
+
+    @Test
+    void blocksShorterThanThreeLinesAreNotMoved() {
+        removed("}", "int a = 1;", "int b = 2;", "return;");
+        added("}", "void other() {", "int a = 1;", "int b = 2;", "log();", "return;");
+
+        // a lone re-added "}" or "return;" and a two line block are not moves
+        assertEquals(0, detector.getMovedLines());
+        assertEquals(0, detector.getReformattedLines());
+    }
+
+    @Test
+    void identicalLinesOutsideABlockAreNeitherMovedNorReformatted() {
+        removed("int a = 1;", "int b = 2;", "return a;");
+        added("int x = 3;", "return a;", "int y = 4;");
+
+        assertEquals(0, detector.getMovedLines());
+        assertEquals(0, detector.getReformattedLines());
+    }
+
+    @Test
+    void whitespaceOnlyChangesAreReformatted() {
+        removed("int a=1;", "foo(a,b);");
+        added("int a = 1;", "foo(a, b);");
+
+        assertEquals(0, detector.getMovedLines());
+        assertEquals(2, detector.getReformattedLines());
+    }
+
+    @Test
+    void blockMovedWithChangedIndentationIsReformattedNotMoved() {
+        removed("    int a = 1;", "    int b = 2;", "    int c = a + b;");
+        added("        int a = 1;", "        int b = 2;", "        int c = a + b;");
+
+        // the normalized lines form a block, but no raw line is identical on both sides
+        assertEquals(0, detector.getMovedLines());
+        assertEquals(3, detector.getReformattedLines());
+    }
+
+    @Test
+    void eachRemovedLinePairsOnce() {
+        removed("int a=1;");
+        added("int a = 1;", "int a  =  1;");
+
+        assertEquals(1, detector.getReformattedLines());
+    }
+
+    private void removed(String... lines) {
+        for (String line : lines) {
+            detector.acceptCodeLine(lineAction.removed, normalize(line), line);
+        }
+    }
+
+    private void added(String... lines) {
+        for (String line : lines) {
+            detector.acceptCodeLine(lineAction.added, normalize(line), line);
+        }
+    }
+
+    // as the classifier evaluates a line, whitespace removed
+    private static String normalize(String line) {
+        return line.replaceAll("\\s", "");
+    }
+}
@@ -0,0 +1,75 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.CompiledScoreProfile;
+import com.eris.gitlabanalyzer.dataprocessing.FileTypeLineTotals;
+import com.eris.gitlabanalyzer.dataprocessing.MultiProfileScorer;
+import com.eris.gitlabanalyzer.model.ScoreProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiProfileScorerTests {
+
+    @Test
+    void scoresEveryProfileLikeScoringThemOneByOne() {
+        ScoreProfile lenient = new ScoreProfile("lenient", 1, 0.2, 0.1, 0.3);
+        lenient.addExtension(Map.of("java", 1.5, "md", 0.25));
+        ScoreProfile strict = new ScoreProfile("strict", 2, 0.7, 0, 1);
+        strict.addExtension(Map.of("java", 0.75));
+        strict.addBlackList(List.of("md", "lock"));
+        ScoreProfile plain = new ScoreProfile("plain", 1.3, 1.1, 0.4, 0.6);
+        List<CompiledScoreProfile> scoreProfiles = List.of(
+                CompiledScoreProfile.compile(lenient), CompiledScoreProfile.compile(strict), CompiledScoreProfile.compile(plain));
+
+        Random random = new Random(42);
+        String[] fileTypes = {"java", "md", "lock", "ts", null};
+        List<FileTypeLineTotals> totals = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            totals.add(totals(fileTypes[random.nextInt(fileTypes.length)], random));
+        }
+
+        double[] scores = new MultiProfileScorer(scoreProfiles).score(totals);
+
+        assertEquals(scoreProfiles.size(), scores.length);
+        for (int profile = 0; profile < scoreProfiles.size(); profile++) {
+            double expected = 0;
+            for (FileTypeLineTotals total : totals) {
+                expected += scoreProfiles.get(profile).weights(total.getFileType()).score(
+                        total.getUnpairedCodeLineAdded(), total.getSyntaxLineAdded(), total.getCommentLineAdded(),
+                        total.getUnpairedCodeLineRemoved(), total.getSyntaxLineRemoved(), total.getCommentLineRemoved(),
+                        total.getMovedLines(), total.getReformattedLines());
+            }
+            assertEquals(expected, scores[profile]);
+        }
+    }
+
+    @Test
+    void blackListedFileTypesScoreNothing() {
+        ScoreProfile scoreProfile = new ScoreProfile("blackListing", 1, 1, 1, 1);
+        scoreProfile.addBlackList(List.of("lock"));
+        MultiProfileScorer scorer = new MultiProfileScorer(List.of(CompiledScoreProfile.compile(scoreProfile)));
+
+        assertArrayEquals(new double[]{0.0}, scorer.score(List.of(totals("lock", new Random(1)))));
+        assertArrayEquals(new double[]{0.0}, scorer.score(List.of()));
+    }
+
+    private static FileTypeLineTotals totals(String fileType, Random random) {
+        long[] lines = random.longs(8, 0, 500).toArray();
+        return new FileTypeLineTotals() {
+            public String getFileType() { return fileType; }
+            public Long getUnpairedCodeLineAdded() { return lines[0]; }
+            public Long getSyntaxLineAdded() { return lines[1]; }
+            public Long getCommentLineAdded() { return lines[2]; }
+            public Long getUnpairedCodeLineRemoved() { return lines[3]; }
+            public Long getSyntaxLineRemoved() { return lines[4]; }
+            public Long getCommentLineRemoved() { return lines[5]; }
+            public Long getMovedLines() { return lines[6]; }
+            public Long getReformattedLines() { return lines[7]; }
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.model.*;
+import com.eris.gitlabanalyzer.repository.*;
+import com.eris.gitlabanalyzer.service.PartitionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// detaching needs the partitioned PostgreSQL schema, the checks and the clean-up it runs are plain SQL
+@SpringBootTest
+@Transactional
+class PartitionServiceTests {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2021, 1, 10, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CommitRepository commitRepository;
+    @Autowired
+    private AnalysisRunRepository analysisRunRepository;
+
+    @Autowired
+    private PartitionService partitionService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void projectsWithRecentRunsOrCommitsAreActive() {
+        Server server = serverRepository.save(new Server("https://partition.example.com"));
+        Project project = projectRepository.save(new Project(9501L, "partition", "partition / partition", "https://partition.example.com/p", server));
+        commitRepository.save(new Commit("partition0", "Commit", "Partition", "partition@example.com",
+                START, "https://partition.example.com/c/0", project));
+        AnalysisRun run = new AnalysisRun(userRepository.save(new User("partition")), project, server,
+                AnalysisRun.Status.Completed, START, START.plusDays(7), null, null);
+        run.setStatus(AnalysisRun.Status.Completed);
+        analysisRunRepository.saveAndFlush(run);
+        Long projectId = project.getId();
+        OffsetDateTime since = OffsetDateTime.now(ZoneOffset.UTC).minusDays(180);
+
+        // the run was just created
+        assertEquals(List.of(projectId), partitionService.findActiveProjectIds(projectId, projectId + 1, since));
+        assertTrue(partitionService.findActiveProjectIds(null, projectId, since).isEmpty());
+
+        jdbcTemplate.update("update analysis_run set created_date_time = ? where project_id = ?", Timestamp.from(START.toInstant()), projectId);
+        assertTrue(partitionService.findActiveProjectIds(projectId, projectId + 1, since).isEmpty());
+
+        jdbcTemplate.update("update analysis_run set status = ? where project_id = ?", AnalysisRun.Status.InProgress.name(), projectId);
+        assertEquals(List.of(projectId), partitionService.findActiveProjectIds(projectId, projectId + 1, since));
+
+        jdbcTemplate.update("update analysis_run set status = ? where project_id = ?", AnalysisRun.Status.Completed.name(), projectId);
+        jdbcTemplate.update("update commit set created_at = ? where project_id = ?", Timestamp.from(OffsetDateTime.now(ZoneOffset.UTC).toInstant()), projectId);
+        assertEquals(List.of(projectId), partitionService.findActiveProjectIds(projectId, projectId + 1, since));
+    }
+
+    // orphans can only be seeded with H2's referential integrity off, which commits, so the rows are removed by hand
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void deletesTheRowsWhoseCommitOrMergeRequestIsGone() {
+        try {
+            jdbcTemplate.execute("set referential_integrity false");
+            jdbcTemplate.update("insert into merge_request (merge_request_id, author_username, title, created_at, web_url, project_id, git_management_user_id)"
+                    + " values (990001, 'partition', 'Kept', ?, 'https://partition.example.com/mr', 990000, 990000)", Timestamp.from(START.toInstant()));
+            jdbcTemplate.update("insert into commit (commit_id, sha, title, author_name, author_email, created_at, web_url, project_id)"
+                    + " values (990002, 'partition1', 'Kept', 'Partition', 'partition@example.com', ?, 'https://partition.example.com/c/1', 990000)",
+                    Timestamp.from(START.toInstant()));
+            insertRollup(990011, 990002L, null);
+            insertRollup(990012, null, 990001L);
+            insertRollup(990013, 990003L, null);
+            insertRollup(990014, null, 990004L);
+            insertComment(990021, 990002L);
+            insertComment(990022, 990003L);
+            jdbcTemplate.update("insert into merge_request_shared_with (merge_request_merge_request_id, shared_with) values (990001, 1), (990004, 1)");
+
+            assertEquals(4, partitionService.deleteOrphans());
+
+            assertEquals(List.of(990011L, 990012L),
+                    jdbcTemplate.queryForList("select score_rollup_id from score_rollup where score_rollup_id >= 990000 order by score_rollup_id", Long.class));
+            assertEquals(List.of(990021L),
+                    jdbcTemplate.queryForList("select commit_comment_id from commit_comment where commit_comment_id >= 990000", Long.class));
+            assertEquals(List.of(990001L),
+                    jdbcTemplate.queryForList("select merge_request_merge_request_id from merge_request_shared_with where merge_request_merge_request_id >= 990000", Long.class));
+            assertEquals(0, partitionService.deleteOrphans());
+        } finally {
+            jdbcTemplate.update("delete from merge_request_shared_with where merge_request_merge_request_id >= 990000");
+            jdbcTemplate.update("delete from commit_comment where commit_comment_id >= 990000");
+            jdbcTemplate.update("delete from score_rollup where score_rollup_id >= 990000");
+            jdbcTemplate.update("delete from commit where commit_id >= 990000");
+            jdbcTemplate.update("delete from merge_request where merge_request_id >= 990000");
+            jdbcTemplate.execute("set referential_integrity true");
+        }
+    }
+
+    private void insertRollup(long id, Long commitId, Long mergeRequestId) {
+        jdbcTemplate.update("insert into score_rollup (score_rollup_id, commit_id, merge_request_id, file_type, file_count,"
+                + " unpaired_code_line_added, syntax_line_added, comment_line_added, unpaired_code_line_remove, syntax_line_remove,"
+                + " comment_line_remove, moved_line, reformatted_line) values (?, ?, ?, 'java', 1, 1, 0, 0, 0, 0, 0, 0, 0)",
+                id, commitId, mergeRequestId);
+    }
+
+    private void insertComment(long id, Long commitId) {
+        jdbcTemplate.update("insert into commit_comment (commit_comment_id, git_management_user_id, commit_id, note, created_at)"
+                + " values (?, 990000, ?, 'Note', ?)", id, commitId, Timestamp.from(START.toInstant()));
+    }
+}
@@ -0,0 +1,179 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.CompiledScoreProfile;
+import com.eris.gitlabanalyzer.dataprocessing.DailyScore;
+import com.eris.gitlabanalyzer.dataprocessing.FileTypeLineTotals;
+import com.eris.gitlabanalyzer.dataprocessing.ItemFileTypeLineTotals;
+import com.eris.gitlabanalyzer.dataprocessing.ProjectScoreCube;
+import com.eris.gitlabanalyzer.model.ScoreProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectScoreCubeTests {
+
+    private static final OffsetDateTime DAY = OffsetDateTime.of(2021, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final long OWNER = 7L;
+    private static final long REVIEWER = 8L;
+
+    private ProjectScoreCube cube;
+
+    @BeforeEach
+    void buildCube() {
+        List<ProjectScoreCube.MergeRequestRow> mergeRequests = List.of(
+                mergeRequest(1L, DAY.plusDays(2), false, OWNER),
+                mergeRequest(2L, DAY.plusDays(3), false, REVIEWER),
+                mergeRequest(3L, DAY.plusDays(3), true, OWNER));
+        List<ProjectScoreCube.CommitRow> commits = List.of(
+                commit(10L, DAY.plusDays(1), DAY.plusDays(2), false, 1L, OWNER),
+                commit(11L, DAY.plusDays(1), DAY.plusDays(3), false, 2L, OWNER),
+                commit(12L, DAY.plusDays(2), DAY.plusDays(3), false, 2L, REVIEWER),
+                commit(13L, DAY.plusDays(5), null, false, null, OWNER),
+                commit(14L, DAY.plusDays(5), null, true, null, OWNER));
+        cube = ProjectScoreCube.build(commits, mergeRequests,
+                List.of(sharedWith(2L, OWNER)),
+                List.of(rollup(10L, "java", 1), rollup(11L, "java", 2), rollup(11L, "py", 4), rollup(12L, "java", 8),
+                        rollup(13L, "py", 16), rollup(14L, "java", 32)),
+                List.of(rollup(1L, "java", 1), rollup(2L, "java", 10), rollup(2L, "py", 20), rollup(3L, "java", 100)));
+    }
+
+    @Test
+    void sumsCommitsInRangeByFileType() {
+        assertEquals(Map.of("java", 11L, "py", 20L), codeAdded(cube.sumActiveCommits(null, DAY, DAY.plusDays(10))));
+        // commits of a merge request are matched on merged at, orphans on created at
+        assertEquals(Map.of("java", 10L, "py", 4L), codeAdded(cube.sumActiveCommits(null, DAY.plusDays(3), DAY.plusDays(4))));
+        assertEquals(Map.of("java", 3L, "py", 20L), codeAdded(cube.sumActiveCommits(OWNER, DAY, DAY.plusDays(10))));
+        assertTrue(cube.sumActiveCommits(99L, DAY, DAY.plusDays(10)).isEmpty());
+        // both ends of the range are inclusive
+        assertEquals(Map.of("py", 16L), codeAdded(cube.sumActiveCommits(null, DAY.plusDays(5), DAY.plusDays(5))));
+    }
+
+    @Test
+    void sumsMergeRequestsLikeTheRollupQueries() {
+        assertEquals(Map.of("java", 11L, "py", 20L), codeAdded(cube.sumActiveMergeRequests(DAY, DAY.plusDays(10))));
+        assertEquals(Map.of("java", 1L), codeAdded(cube.sumActiveNotSharedMergeRequests(OWNER, DAY, DAY.plusDays(10))));
+        assertTrue(cube.sumActiveNotSharedMergeRequests(REVIEWER, DAY, DAY.plusDays(10)).isEmpty());
+        assertEquals(Map.of("java", 2L, "py", 4L), codeAdded(cube.sumActiveSharedMergeRequestCommits(OWNER, DAY, DAY.plusDays(10))));
+        assertEquals(Map.of("java", 8L), codeAdded(cube.sumActiveSharedMergeRequestCommits(REVIEWER, DAY, DAY.plusDays(10))));
+        assertTrue(cube.sumActiveSharedMergeRequestCommits(OWNER, DAY, DAY.plusDays(2)).isEmpty());
+    }
+
+    @Test
+    void sumsEveryMemberInOnePassLikeTheSingleUserQueries() {
+        Map<Long, ProjectScoreCube.MemberTotals> members = cube.sumMembers(List.of(OWNER, REVIEWER, 99L), DAY, DAY.plusDays(10));
+
+        ProjectScoreCube.MemberTotals owner = members.get(OWNER);
+        assertEquals(codeAdded(cube.sumActiveNotSharedMergeRequests(OWNER, DAY, DAY.plusDays(10))), codeAdded(owner.getMergeRequests()));
+        assertEquals(Map.of("java", 2L, "py", 4L), codeAdded(owner.getSharedMergeRequestCommits()));
+        assertEquals(Map.of("java", 3L, "py", 20L), codeAdded(owner.getCommits()));
+        // counts include ignored commits and merge requests
+        assertEquals(4, owner.getCommitCount());
+        assertEquals(2, owner.getMergeRequestCount());
+
+        ProjectScoreCube.MemberTotals reviewer = members.get(REVIEWER);
+        assertTrue(reviewer.getMergeRequests().isEmpty());
+        assertEquals(Map.of("java", 8L), codeAdded(reviewer.getSharedMergeRequestCommits()));
+        assertEquals(1, reviewer.getCommitCount());
+        assertEquals(1, reviewer.getMergeRequestCount());
+
+        assertTrue(members.get(99L).getCommits().isEmpty());
+        assertEquals(0, members.get(99L).getCommitCount());
+    }
+
+    @Test
+    void sumsWholeDaysFromTheDailyIndex() {
+        OffsetDateTime midnight = DAY.truncatedTo(ChronoUnit.DAYS);
+        assertEquals(Map.of("java", 10L, "py", 4L),
+                codeAdded(cube.sumActiveCommits(null, midnight.plusDays(3), midnight.plusDays(4).minusNanos(1_000))));
+        assertEquals(Map.of("java", 11L, "py", 20L),
+                codeAdded(cube.sumActiveCommits(null, midnight.plusDays(2), midnight.plusDays(6).minusNanos(1_000))));
+        // a range ending on the microsecond before an item leaves it out
+        assertEquals(Map.of("java", 1L), codeAdded(cube.sumActiveCommits(null, midnight, DAY.plusDays(3).minusNanos(1_000))));
+        assertEquals(Map.of("java", 11L, "py", 20L), codeAdded(cube.sumActiveMergeRequests(midnight, midnight.plusDays(4))));
+    }
+
+    @Test
+    void groupsTheDigestByDayInTheOffsetOfTheRangeStart() {
+        ScoreProfile profile = new ScoreProfile("cubeProfile", 1, 0.2, 0.2, 0.2);
+        profile.addBlackList(List.of("py"));
+        CompiledScoreProfile scoreProfile = CompiledScoreProfile.compile(profile);
+
+        // commits of a merge request are dated by created at, which can be before the range
+        assertEquals(Map.of(LocalDate.of(2021, 3, 2), List.of(2, 3.0), LocalDate.of(2021, 3, 6), List.of(1, 0.0)),
+                digest(cube.dailyActiveCommitScores(OWNER, DAY, DAY.plusDays(10), scoreProfile)));
+        assertEquals(Map.of(LocalDate.of(2021, 3, 2), List.of(2, 3.0), LocalDate.of(2021, 3, 3), List.of(1, 8.0)),
+                digest(cube.dailyActiveCommitScores(null, DAY.truncatedTo(ChronoUnit.DAYS).plusDays(2),
+                        DAY.truncatedTo(ChronoUnit.DAYS).plusDays(4).minusNanos(1_000), scoreProfile)));
+
+        OffsetDateTime tongaStart = DAY.withOffsetSameInstant(ZoneOffset.ofHours(13));
+        assertEquals(Map.of(LocalDate.of(2021, 3, 3), List.of(2, 3.0), LocalDate.of(2021, 3, 7), List.of(1, 0.0)),
+                digest(cube.dailyActiveCommitScores(OWNER, tongaStart, tongaStart.plusDays(10), scoreProfile)));
+        assertEquals(Map.of(LocalDate.of(2021, 3, 3), List.of(1, 1.0), LocalDate.of(2021, 3, 4), List.of(1, 10.0)),
+                digest(cube.dailyActiveMergeRequestScores(null, DAY, DAY.plusDays(10), scoreProfile)));
+        assertEquals(Map.of(LocalDate.of(2021, 3, 3), List.of(1, 1.0)),
+                digest(cube.dailyActiveMergeRequestScores(OWNER, DAY, DAY.plusDays(10), scoreProfile)));
+    }
+
+    private static Map<LocalDate, List<Object>> digest(SortedMap<LocalDate, DailyScore> days) {
+        return days.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+                day -> List.of(day.getValue().getCount(), day.getValue().getScore())));
+    }
+
+    private static Map<String, Long> codeAdded(List<FileTypeLineTotals> totals) {
+        return totals.stream().collect(Collectors.toMap(FileTypeLineTotals::getFileType, FileTypeLineTotals::getUnpairedCodeLineAdded));
+    }
+
+    private static ProjectScoreCube.CommitRow commit(Long id, OffsetDateTime createdAt, OffsetDateTime mergedAt, boolean isIgnored,
+                                                     Long mergeRequestId, Long gitManagementUserId) {
+        return new ProjectScoreCube.CommitRow() {
+            public Long getId() { return id; }
+            public OffsetDateTime getCreatedAt() { return createdAt; }
+            public OffsetDateTime getMergedAt() { return mergedAt; }
+            public Boolean getIsIgnored() { return isIgnored; }
+            public Long getMergeRequestId() { return mergeRequestId; }
+            public Long getGitManagementUserId() { return gitManagementUserId; }
+        };
+    }
+
+    private static ProjectScoreCube.MergeRequestRow mergeRequest(Long id, OffsetDateTime mergedAt, boolean isIgnored, Long ownerId) {
+        return new ProjectScoreCube.MergeRequestRow() {
+            public Long getId() { return id; }
+            public OffsetDateTime getMergedAt() { return mergedAt; }
+            public Boolean getIsIgnored() { return isIgnored; }
+            public Long getGitManagementUserId() { return ownerId; }
+        };
+    }
+
+    private static ProjectScoreCube.SharedWithRow sharedWith(Long mergeRequestId, Long gitManagementUserId) {
+        return new ProjectScoreCube.SharedWithRow() {
+            public Long getMergeRequestId() { return mergeRequestId; }
+            public Long getGitManagementUserId() { return gitManagementUserId; }
+        };
+    }
+
+    // only code lines added, so a score is the line count times the code weight
+    private static ItemFileTypeLineTotals rollup(Long itemId, String fileType, long codeLineAdded) {
+        return new ItemFileTypeLineTotals() {
+            public Long getItemId() { return itemId; }
+            public String getFileType() { return fileType; }
+            public Long getUnpairedCodeLineAdded() { return codeLineAdded; }
+            public Long getSyntaxLineAdded() { return 0L; }
+            public Long getCommentLineAdded() { return 0L; }
+            public Long getUnpairedCodeLineRemoved() { return 0L; }
+            public Long getSyntaxLineRemoved() { return 0L; }
+            public Long getCommentLineRemoved() { return 0L; }
+            public Long getMovedLines() { return 0L; }
+            public Long getReformattedLines() { return 0L; }
+        };
+    }
+}
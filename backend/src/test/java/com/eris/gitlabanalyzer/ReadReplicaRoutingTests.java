@@ -0,0 +1,77 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.config.ReadReplicaConfig;
+import com.eris.gitlabanalyzer.config.ReadReplicaRoutingDataSource;
+import com.eris.gitlabanalyzer.config.ReplicaStalenessGuard;
+import com.eris.gitlabanalyzer.event.ProjectScoresChangedEvent;
+import com.eris.gitlabanalyzer.service.ScoreService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// two H2 databases that say which one they are, H2 reports no WAL positions so the guard falls back to its window
+class ReadReplicaRoutingTests {
+
+    private static final String SCORE_READ = ScoreService.class.getName() + ".getScoreboard";
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void createDatabases() {
+        primary = database("routing_primary", "primary");
+        replica = database("routing_replica", "replica");
+    }
+
+    @Test
+    void readsReplicaReaderTransactionsFromTheReplica() {
+        DataSource routing = routing(new ReplicaStalenessGuard(primary, replica, Duration.ofMinutes(1), 1000));
+
+        assertEquals("replica", databaseRead(routing, SCORE_READ, true));
+        assertEquals("primary", databaseRead(routing, SCORE_READ, false));
+        // a repository read outside the dashboard services, like an import looking up its own rows
+        assertEquals("primary", databaseRead(routing, "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById", true));
+        assertEquals("primary", databaseRead(routing, null, true));
+    }
+
+    @Test
+    void readsThePrimaryAfterAChangeUntilTheWindowHasPassed() {
+        ReplicaStalenessGuard pinned = new ReplicaStalenessGuard(primary, replica, Duration.ofMinutes(1), 1000);
+        pinned.onProjectScoresChanged(new ProjectScoresChangedEvent(1L));
+        assertEquals("primary", databaseRead(routing(pinned), SCORE_READ, true));
+
+        ReplicaStalenessGuard expired = new ReplicaStalenessGuard(primary, replica, Duration.ZERO, 0);
+        expired.onProjectScoresChanged(new ProjectScoresChangedEvent(1L));
+        assertEquals("replica", databaseRead(routing(expired), SCORE_READ, true));
+        assertFalse(expired.isReplicaStale());
+    }
+
+    private DataSource routing(ReplicaStalenessGuard guard) {
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, replica, ReadReplicaConfig.REPLICA_READERS, guard));
+    }
+
+    private static String databaseRead(DataSource dataSource, String transactionName, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setName(transactionName);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> new JdbcTemplate(dataSource).queryForObject("select name from which_database", String.class));
+    }
+
+    private static DataSource database(String databaseName, String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists which_database (name varchar(10))");
+        jdbcTemplate.update("delete from which_database");
+        jdbcTemplate.update("insert into which_database (name) values (?)", name);
+        return dataSource;
+    }
+}
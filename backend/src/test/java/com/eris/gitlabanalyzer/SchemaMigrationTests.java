@@ -0,0 +1,91 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.service.PartitionService;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// validated here whatever the other tests run with, a context only starts when every entity matches the migrated schema
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+class SchemaMigrationTests {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PartitionService partitionService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void appliesEveryMigration() {
+        var migrations = flyway.info().all();
+
+        assertTrue(migrations.length >= 2);
+        for (var migration : migrations) {
+            assertEquals(MigrationState.SUCCESS, migration.getState(), migration.getScript());
+        }
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void queriesEveryEntityAgainstTheMigratedSchema() {
+        var entities = entityManager.getMetamodel().getEntities();
+
+        assertFalse(entities.isEmpty());
+        for (var entity : entities) {
+            assertDoesNotThrow(() -> entityManager.createQuery("select e from " + entity.getName() + " e")
+                    .setMaxResults(1).getResultList(), entity.getName());
+        }
+    }
+
+    @Test
+    void createsTheHotPathIndexes() throws SQLException {
+        Set<String> commitIndexes = indexNames("COMMIT");
+        assertTrue(commitIndexes.contains("COMMIT_PROJECT_MERGED_AT_IDX"));
+        assertTrue(commitIndexes.contains("COMMIT_MERGE_REQUEST_IDX"));
+        assertTrue(commitIndexes.contains("COMMIT_PROJECT_USER_MERGED_AT_IDX"));
+        assertTrue(commitIndexes.contains("COMMIT_PROJECT_CREATED_AT_ID_IDX"));
+        assertTrue(indexNames("MERGE_REQUEST").contains("MERGE_REQUEST_PROJECT_MERGED_AT_IDX"));
+        assertTrue(indexNames("NOTE").contains("NOTE_GITLAB_NOTE_PROJECT_IDX"));
+        assertTrue(indexNames("NOTE").contains("NOTE_PROJECT_TYPE_CREATED_AT_GITLAB_NOTE_IDX"));
+        assertTrue(indexNames("FILE_SCORE").contains("FILE_SCORE_COMMIT_IDX"));
+        assertTrue(indexNames("FILE_SCORE").contains("FILE_SCORE_PROJECT_COMMIT_IDX"));
+        assertTrue(indexNames("FILE_SCORE").contains("FILE_SCORE_PROJECT_MERGE_REQUEST_IDX"));
+        assertTrue(indexNames("SCORE_ROLLUP").contains("SCORE_ROLLUP_MERGE_REQUEST_IDX"));
+    }
+
+    // the H2 schema keeps plain tables, semesters are only started and detached on PostgreSQL
+    @Test
+    void leavesTheTestTablesUnpartitioned() {
+        assertFalse(partitionService.isPartitioned());
+        assertThrows(IllegalStateException.class, () -> partitionService.startSemester("spring2021"));
+    }
+
+    private Set<String> indexNames(String table) throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (Connection connection = dataSource.getConnection();
+             ResultSet indexes = connection.getMetaData().getIndexInfo(null, null, table, false, false)) {
+            while (indexes.next()) {
+                names.add(indexes.getString("INDEX_NAME"));
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,106 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.CompiledScoreProfile;
+import com.eris.gitlabanalyzer.dataprocessing.ScoreBreakdown;
+import com.eris.gitlabanalyzer.dataprocessing.ScoreProfileDelta;
+import com.eris.gitlabanalyzer.event.ProjectScoresChangedEvent;
+import com.eris.gitlabanalyzer.event.ScoreProfileChangedEvent;
+import com.eris.gitlabanalyzer.model.ScoreProfile;
+import com.eris.gitlabanalyzer.service.ScoreCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreCacheTests {
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    private double compute() {
+        return computations.incrementAndGet();
+    }
+
+    @Test
+    void servesRepeatedKeysFromCache() {
+        ScoreCache scoreCache = new ScoreCache(10);
+        List<Object> key = List.of("totalCommit", 1L, 2L);
+
+        assertEquals(1.0, scoreCache.get(1L, 2L, key, this::compute));
+        assertEquals(1.0, scoreCache.get(1L, 2L, key, this::compute));
+        assertEquals(2.0, scoreCache.get(1L, 2L, List.of("totalCommit", 1L, 3L), this::compute));
+
+        assertEquals(1, scoreCache.getStats().getHits());
+        assertEquals(2, scoreCache.getStats().getMisses());
+    }
+
+    @Test
+    void invalidatesOnlyTheChangedProjectOrProfile() {
+        ScoreCache scoreCache = new ScoreCache(10);
+        List<Object> projectOneKey = List.of("totalMerge", 1L, 5L);
+        List<Object> projectTwoKey = List.of("totalMerge", 2L, 5L);
+        scoreCache.get(1L, 5L, projectOneKey, this::compute);
+        scoreCache.get(2L, 5L, projectTwoKey, this::compute);
+
+        scoreCache.onProjectScoresChanged(new ProjectScoresChangedEvent(1L));
+        assertEquals(3.0, scoreCache.get(1L, 5L, projectOneKey, this::compute));
+        assertEquals(2.0, scoreCache.get(2L, 5L, projectTwoKey, this::compute));
+        assertEquals(1, scoreCache.getStats().getStaleMisses());
+
+        scoreCache.onScoreProfileChanged(new ScoreProfileChangedEvent(5L));
+        assertEquals(4.0, scoreCache.get(1L, 5L, projectOneKey, this::compute));
+        assertEquals(5.0, scoreCache.get(2L, 5L, projectTwoKey, this::compute));
+    }
+
+    @Test
+    void doesNotKeepValueComputedDuringChange() {
+        ScoreCache scoreCache = new ScoreCache(10);
+        List<Object> key = List.of("totalCommit", 1L, 2L);
+
+        scoreCache.get(1L, 2L, key, () -> {
+            // the change lands while the old value is being computed
+            scoreCache.onProjectScoresChanged(new ProjectScoresChangedEvent(1L));
+            return compute();
+        });
+
+        assertEquals(2.0, scoreCache.get(1L, 2L, key, this::compute));
+    }
+
+    @Test
+    void rescoresBreakdownsForAProfileDelta() {
+        ScoreCache scoreCache = new ScoreCache(10);
+        ScoreProfile before = new ScoreProfile("before", 2, 0.5, 1, 1);
+        ScoreProfile after = new ScoreProfile("after", 2, 0.5, 1, 1);
+        after.addExtension(Map.of("java", 0.5));
+        CompiledScoreProfile compiledAfter = CompiledScoreProfile.compile(after);
+        var totals = List.of(ScoreProfileDeltaTests.totals("java", 10, 4), ScoreProfileDeltaTests.totals("md", 6, 0));
+        List<Object> breakdownKey = List.of("totalCommit", 1L, 5L);
+        List<Object> valueKey = List.of("dailyDigest", 1L, 5L);
+        scoreCache.get(1L, 5L, breakdownKey, () -> ScoreBreakdown.of(totals, CompiledScoreProfile.compile(before)));
+        scoreCache.get(1L, 5L, valueKey, this::compute);
+
+        ScoreProfileDelta delta = ScoreProfileDelta.between(CompiledScoreProfile.compile(before), compiledAfter).orElseThrow();
+        scoreCache.onScoreProfileChanged(new ScoreProfileChangedEvent(5L, delta));
+
+        ScoreBreakdown rescored = scoreCache.get(1L, 5L, breakdownKey, () -> fail("rescored entries are not recomputed"));
+        assertEquals(ScoreBreakdown.of(totals, compiledAfter).getTotal(), rescored.getTotal());
+        assertEquals(2.0, scoreCache.get(1L, 5L, valueKey, this::compute));
+        assertEquals(1, scoreCache.getStats().getRescores());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        ScoreCache scoreCache = new ScoreCache(2);
+        scoreCache.get(1L, 1L, List.of("a"), this::compute);
+        scoreCache.get(1L, 1L, List.of("b"), this::compute);
+        scoreCache.get(1L, 1L, List.of("a"), this::compute);
+        scoreCache.get(1L, 1L, List.of("c"), this::compute);
+
+        assertEquals(1, scoreCache.getStats().getEvictions());
+        assertEquals(2, scoreCache.getStats().getSize());
+        assertEquals(1.0, scoreCache.get(1L, 1L, List.of("a"), this::compute));
+        assertEquals(4.0, scoreCache.get(1L, 1L, List.of("b"), this::compute));
+    }
+}
@@ -1,10 +1,13 @@
 package com.eris.gitlabanalyzer;
 
 import com.eris.gitlabanalyzer.dataprocessing.CalculateDiffMetrics;
+import com.eris.gitlabanalyzer.dataprocessing.DatedItemFileTypeLineTotals;
 import com.eris.gitlabanalyzer.dataprocessing.DiffScoreCalculator;
+import com.eris.gitlabanalyzer.dataprocessing.ScoreRollupWriter;
 import com.eris.gitlabanalyzer.model.*;
 import com.eris.gitlabanalyzer.repository.*;
 import com.eris.gitlabanalyzer.service.GitLabService;
+import com.eris.gitlabanalyzer.service.ScoreService;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,12 +15,17 @@ import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
 import org.springframework.test.context.web.WebAppConfiguration;
 
+import javax.sql.DataSource;
 import javax.transaction.Transactional;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -46,6 +54,16 @@ class ScoreCalculationTests {
     private ScoreProfileRepository scoreProfileRepository;
     @Autowired
     private GitLabService requestScopeGitLabService;
+    @Autowired
+    private FileScoreRepository fileScoreRepository;
+    @Autowired
+    private ScoreService scoreService;
+    @Autowired
+    private ScoreRollupWriter scoreRollupWriter;
+    @Autowired
+    private ScoreRollupRepository scoreRollupRepository;
+    @Autowired
+    private DataSource dataSource;
 
     @Autowired
     private GitLabService gitLabService;
@@ -161,4 +179,109 @@ class ScoreCalculationTests {
         assertEquals(expectedValue, results);
     }
 
+    @Test
+    void check_AggregatedScoreMatchesPerMergeRequest() {
+        MergeRequest first = new MergeRequest(10L, "testAuthor", "testTitle", startTime, startTime, "weburl", project, gitManagementUser);
+        MergeRequest second = new MergeRequest(11L, "testAuthor", "testTitle", startTime, startTime, "weburl", project, gitManagementUser);
+        mergeRequestRepository.save(first);
+        mergeRequestRepository.save(second);
+
+        FileScore moved = new FileScore(first, "java", "Moved.java", 7, 2, 1, 5, 1, 0);
+        moved.setMovedLines(3);
+        moved.setReformattedLines(1);
+        fileScoreRepository.save(moved);
+        // more pairs than added code, the clamp has to happen per file
+        FileScore reformatted = new FileScore(first, "java", "Reformatted.java", 1, 0, 0, 6, 0, 2);
+        reformatted.setReformattedLines(4);
+        fileScoreRepository.save(reformatted);
+        fileScoreRepository.save(new FileScore(second, "txt", "notes.txt", 9, 0, 0, 0, 0, 0));
+        fileScoreRepository.save(new FileScore(second, "py", "script.py", 3, 1, 4, 2, 0, 1));
+        scoreRollupWriter.writeMergeRollup(first, fileScoreRepository.findByMergeId(first.getId()));
+        scoreRollupWriter.writeMergeRollup(second, fileScoreRepository.findByMergeId(second.getId()));
+        scoreService.scoresChanged(project.getId());
+
+        ScoreProfile scoreProfile = new ScoreProfile("aggregateProfile", 1.5, 0.25, 0.75, 0.5);
+        scoreProfile.addExtension(Map.of("java", 2.0));
+        scoreProfile.addBlackList(List.of("txt"));
+        scoreProfile.setMovedWeight(0.1);
+        scoreProfile.setReformattedWeight(0.2);
+        scoreProfileRepository.save(scoreProfile);
+
+        OffsetDateTime rangeStart = startTime.minusDays(1);
+        double expected = 0;
+        for (MergeRequest mergeRequest : mergeRequestRepository.findAllActiveByProjectIdAndDateRange(project.getId(), rangeStart, endTime)) {
+            expected += diffScoreCalculator.calculateScoreMerge(mergeRequest.getId(), scoreProfile.getId());
+        }
+
+        assertEquals(Math.round(expected * 100.0) / 100.0,
+                scoreService.getTotalMergeDiffScore(project.getId(), scoreProfile.getId(), rangeStart, endTime));
+
+        // ignoring is applied through the merge request, the rollup itself is untouched
+        double firstScore = diffScoreCalculator.calculateScoreMerge(first.getId(), scoreProfile.getId());
+        scoreService.toggleIgnoreMergeFromScore(first.getId());
+        assertEquals(Math.round((expected - firstScore) * 100.0) / 100.0,
+                scoreService.getTotalMergeDiffScore(project.getId(), scoreProfile.getId(), rangeStart, endTime));
+    }
+
+    @Test
+    void check_DailyRollupsJoinTheActiveItems() {
+        MergeRequest scored = new MergeRequest(20L, "testAuthor", "testTitle", startTime, startTime, "weburl", project, gitManagementUser);
+        MergeRequest empty = new MergeRequest(21L, "testAuthor", "testTitle", startTime, startTime.plusDays(1), "weburl", project, gitManagementUser);
+        MergeRequest ignored = new MergeRequest(22L, "testAuthor", "testTitle", startTime, startTime, "weburl", project, gitManagementUser);
+        ignored.setIsIgnored(true);
+        mergeRequestRepository.saveAll(List.of(scored, empty, ignored));
+
+        fileScoreRepository.save(new FileScore(scored, "java", "A.java", 4, 1, 2, 1, 0, 0));
+        fileScoreRepository.save(new FileScore(scored, "py", "b.py", 3, 0, 0, 2, 1, 0));
+        fileScoreRepository.save(new FileScore(ignored, "java", "C.java", 5, 0, 0, 0, 0, 0));
+        scoreRollupWriter.writeMergeRollup(scored, fileScoreRepository.findByMergeId(scored.getId()));
+        scoreRollupWriter.writeMergeRollup(ignored, fileScoreRepository.findByMergeId(ignored.getId()));
+
+        List<DatedItemFileTypeLineTotals> totals = scoreRollupRepository.sumActiveMergeRequestsByItemAndProjectIdAndDateRange(project.getId(),
+                startTime.minusDays(1), startTime.plusDays(2));
+        Map<Long, Double> scores = diffScoreCalculator.calculateScoreByItem(totals, diffScoreCalculator.getCompiledScoreProfile(0L));
+
+        // one row per file type of the scored MR, a row without totals for the MR without file scores
+        assertEquals(3, totals.size());
+        assertEquals(diffScoreCalculator.calculateScoreMerge(scored.getId(), 0L), scores.get(scored.getId()), 1e-9);
+        assertEquals(0.0, scores.get(empty.getId()));
+        assertFalse(scores.containsKey(ignored.getId()));
+        for (DatedItemFileTypeLineTotals total : totals) {
+            OffsetDateTime mergedAt = total.getItemId().equals(empty.getId()) ? startTime.plusDays(1) : startTime;
+            assertEquals(mergedAt.toEpochSecond(), total.getItemDate().toEpochSecond());
+        }
+    }
+
+    @Test
+    void check_RollupBackfillMigrationMatchesTheWriter() {
+        MergeRequest written = new MergeRequest(30L, "testAuthor", "testTitle", startTime, startTime, "weburl", project, gitManagementUser);
+        MergeRequest scoredBeforeRollups = new MergeRequest(31L, "testAuthor", "testTitle", startTime, startTime, "weburl", project, gitManagementUser);
+        mergeRequestRepository.saveAll(List.of(written, scoredBeforeRollups));
+        for (MergeRequest mergeRequest : List.of(written, scoredBeforeRollups)) {
+            FileScore moved = new FileScore(mergeRequest, "java", "Moved.java", 2, 1, 1, 5, 0, 0);
+            moved.setMovedLines(3);
+            fileScoreRepository.save(moved);
+            fileScoreRepository.save(new FileScore(mergeRequest, "java", "Main.java", 6, 2, 0, 1, 1, 0));
+            fileScoreRepository.save(new FileScore(mergeRequest, "py", "script.py", 3, 0, 2, 0, 0, 1));
+        }
+        scoreRollupWriter.writeMergeRollup(written, fileScoreRepository.findByMergeId(written.getId()));
+        scoreRollupRepository.flush();
+
+        // the scored merge request is rolled up once, the written one is left as it is
+        runRollupBackfill();
+        runRollupBackfill();
+
+        var totals = scoreRollupRepository.sumActiveMergeRequestsByItemAndProjectIdAndDateRange(project.getId(),
+                startTime.minusDays(1), startTime.plusDays(1));
+        Map<Long, Double> scores = diffScoreCalculator.calculateScoreByItem(totals, diffScoreCalculator.getCompiledScoreProfile(0L));
+        assertEquals(4, totals.size());
+        assertEquals(scores.get(written.getId()), scores.get(scoredBeforeRollups.getId()));
+        assertEquals(diffScoreCalculator.calculateScoreMerge(scoredBeforeRollups.getId(), 0L), scores.get(scoredBeforeRollups.getId()), 1e-9);
+    }
+
+    private void runRollupBackfill() {
+        ScriptUtils.executeSqlScript(DataSourceUtils.getConnection(dataSource),
+                new ClassPathResource("db/migration/common/V9__score_rollup_backfill.sql"));
+    }
+
 }
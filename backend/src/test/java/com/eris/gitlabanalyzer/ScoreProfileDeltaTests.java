@@ -0,0 +1,74 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.CompiledScoreProfile;
+import com.eris.gitlabanalyzer.dataprocessing.FileTypeLineTotals;
+import com.eris.gitlabanalyzer.dataprocessing.ScoreBreakdown;
+import com.eris.gitlabanalyzer.dataprocessing.ScoreProfileDelta;
+import com.eris.gitlabanalyzer.model.ScoreProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreProfileDeltaTests {
+
+    private final List<FileTypeLineTotals> totals = List.of(
+            totals("java", 120, 30), totals("md", 40, 2), totals("lock", 900, 0), totals("ts", 75, 11), totals(null, 3, 1));
+
+    @Test
+    void findsOnlyTheFileTypesWhoseWeightsChanged() {
+        ScoreProfile before = profile(Map.of("java", 1.5, "ts", 0.5), List.of("lock"));
+        ScoreProfile after = profile(Map.of("java", 1.5, "ts", 0.75, "md", 0.2), List.of());
+
+        ScoreProfileDelta delta = ScoreProfileDelta.between(CompiledScoreProfile.compile(before), CompiledScoreProfile.compile(after)).orElseThrow();
+
+        assertFalse(delta.changes("java"));
+        assertTrue(delta.changes("ts"));
+        assertTrue(delta.changes("md"));
+        assertTrue(delta.changes("lock"));
+        assertFalse(delta.changes("never-seen-type"));
+    }
+
+    @Test
+    void rescoredBreakdownEqualsScoringFromScratch() {
+        CompiledScoreProfile before = CompiledScoreProfile.compile(profile(Map.of("java", 1.5, "ts", 0.5), List.of("lock")));
+        CompiledScoreProfile after = CompiledScoreProfile.compile(profile(Map.of("java", 1.5, "ts", 0.3, "md", 0.2), List.of("md")));
+        ScoreProfileDelta delta = ScoreProfileDelta.between(before, after).orElseThrow();
+
+        ScoreBreakdown rescored = ScoreBreakdown.of(totals, before).rescore(delta);
+
+        assertEquals(ScoreBreakdown.of(totals, after).getTotal(), rescored.getTotal());
+    }
+
+    @Test
+    void changedProfileWeightsChangeEveryFileType() {
+        ScoreProfile before = profile(Map.of("java", 1.5), List.of());
+        ScoreProfile after = profile(Map.of("java", 1.5), List.of());
+        after.setLineWeight(3);
+
+        assertTrue(ScoreProfileDelta.between(CompiledScoreProfile.compile(before), CompiledScoreProfile.compile(after)).isEmpty());
+    }
+
+    private static ScoreProfile profile(Map<String, Double> extensions, List<String> blackList) {
+        ScoreProfile scoreProfile = new ScoreProfile("deltaProfile", 1.2, 0.3, 0.7, 0.1);
+        scoreProfile.addExtension(extensions);
+        scoreProfile.addBlackList(blackList);
+        return scoreProfile;
+    }
+
+    static FileTypeLineTotals totals(String fileType, long codeLineAdded, long codeLineRemoved) {
+        return new FileTypeLineTotals() {
+            public String getFileType() { return fileType; }
+            public Long getUnpairedCodeLineAdded() { return codeLineAdded; }
+            public Long getSyntaxLineAdded() { return codeLineAdded / 3; }
+            public Long getCommentLineAdded() { return codeLineAdded / 5; }
+            public Long getUnpairedCodeLineRemoved() { return codeLineRemoved; }
+            public Long getSyntaxLineRemoved() { return codeLineRemoved / 2; }
+            public Long getCommentLineRemoved() { return 1L; }
+            public Long getMovedLines() { return codeLineAdded / 7; }
+            public Long getReformattedLines() { return 2L; }
+        };
+    }
+}
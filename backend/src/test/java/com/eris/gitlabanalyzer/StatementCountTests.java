@@ -0,0 +1,153 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.model.*;
+import com.eris.gitlabanalyzer.model.types.NoteType;
+import com.eris.gitlabanalyzer.repository.*;
+import com.eris.gitlabanalyzer.service.CommitService;
+import com.eris.gitlabanalyzer.service.MergeRequestService;
+import com.eris.gitlabanalyzer.service.NoteService;
+import com.eris.gitlabanalyzer.viewmodel.AnalysisRunView;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// every listing is one statement however many rows it returns, associations are only read where a query asks for them
+@SpringBootTest
+@Transactional
+class StatementCountTests {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2021, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime END = START.plusDays(30);
+    private static final int ROWS = 3;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ServerRepository serverRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private GitManagementUserRepository gitManagementUserRepository;
+    @Autowired
+    private MergeRequestRepository mergeRequestRepository;
+    @Autowired
+    private CommitRepository commitRepository;
+    @Autowired
+    private MergeRequestCommentRepository mergeRequestCommentRepository;
+    @Autowired
+    private FileScoreRepository fileScoreRepository;
+    @Autowired
+    private AnalysisRunRepository analysisRunRepository;
+
+    @Autowired
+    private CommitService commitService;
+    @Autowired
+    private MergeRequestService mergeRequestService;
+    @Autowired
+    private NoteService noteService;
+
+    private Statistics statistics;
+    private Long projectId;
+    private Long gitManagementUserId;
+    private Long commitId;
+    private Long userId;
+    private Long serverId;
+
+    @BeforeEach
+    void seed() {
+        Server server = serverRepository.save(new Server("https://statements.example.com"));
+        Project project = projectRepository.save(new Project(7001L, "statements", "count / statements", "https://statements.example.com/p", server));
+        User user = userRepository.save(new User("statements"));
+
+        for (int i = 0; i < ROWS; i++) {
+            GitManagementUser author = gitManagementUserRepository.save(new GitManagementUser(7100L + i, "author" + i, "Author " + i, server));
+            MergeRequest mergeRequest = mergeRequestRepository.save(new MergeRequest(7200L + i, author.getUsername(), "Merge request " + i,
+                    START.plusDays(i), START.plusDays(i + 1), "https://statements.example.com/mr/" + i, project, author));
+
+            Commit commit = new Commit("sha" + i, "Commit " + i, author.getName(), author.getUsername() + "@example.com",
+                    START.plusDays(i), "https://statements.example.com/c/" + i, project);
+            commit.setMergeRequest(mergeRequest);
+            commit.setGitManagementUser(author);
+            commit = commitRepository.save(commit);
+
+            mergeRequestCommentRepository.save(new Note(7300L + i, "Note " + i, author, START.plusDays(i), mergeRequest.getMergedAt(),
+                    project.getId(), false, mergeRequest.getIid(), mergeRequest.getWebUrl(), NoteType.MergeRequest));
+            fileScoreRepository.save(new FileScore(commit, "java", "File" + i + ".java", i + 1, 0, 0, 0, 0, 0));
+            analysisRunRepository.save(new AnalysisRun(user, project, server, AnalysisRun.Status.InProgress, START, END, null, "default"));
+
+            gitManagementUserId = author.getId();
+            commitId = commit.getId();
+        }
+        projectId = project.getId();
+        userId = user.getId();
+        serverId = server.getId();
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listsCommitsInOneStatement() {
+        assertEquals(ROWS, commitService.getCommits(projectId).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(1, commitService.getCommitsOfGitManagementUser(projectId, gitManagementUserId).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listsMergeRequestsInOneStatement() {
+        assertEquals(ROWS, mergeRequestService.getMergeRequestsByProjectId(projectId, START, END).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(1, mergeRequestService.getMergeRequestsWhereGitManagementUserHasCommitsIn(projectId, gitManagementUserId, START, END).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listsNotesInOneStatement() {
+        assertEquals(ROWS, noteService.getMergeRequestNotes(projectId, START, END).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listsAnalysisRunsWithTheirProjectInOneStatement() {
+        List<AnalysisRunView> analysisRuns = analysisRunRepository.findByOwnerUserIdAndServerIdOrderByCreatedDateTimeDesc(userId, serverId)
+                .stream().map(AnalysisRunView::fromAnalysisRun).collect(Collectors.toList());
+
+        assertEquals(ROWS, analysisRuns.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void readsFileScoresWithoutTheirCommit() {
+        List<FileScore> fileScores = fileScoreRepository.findByCommitId(commitId);
+
+        assertEquals(1, fileScores.size());
+        assertFalse(Hibernate.isInitialized(fileScores.get(0).getCommit()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
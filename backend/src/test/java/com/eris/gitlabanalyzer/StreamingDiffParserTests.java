@@ -0,0 +1,200 @@
+package com.eris.gitlabanalyzer;
+
+import com.eris.gitlabanalyzer.dataprocessing.CalculateDiffMetrics.lineTypes;
+import com.eris.gitlabanalyzer.dataprocessing.CommentCharacter;
+import com.eris.gitlabanalyzer.dataprocessing.StreamingDiffParser;
+import com.eris.gitlabanalyzer.dataprocessing.StreamingDiffParser.StreamedFileChange;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingDiffParserTests {
+
+    private static final CommentCharacter JAVA_COMMENTS = new CommentCharacter("//", "/*", "*/");
+    private static final CommentCharacter PYTHON_COMMENTS = new CommentCharacter("#", "\"\"\"", "\"\"\"");
+
+    private final StreamingDiffParser parser = new StreamingDiffParser(
+            path -> path.endsWith(".py") ? PYTHON_COMMENTS : JAVA_COMMENTS,
+            path -> path.endsWith(".lock"), false);
+
+    @Test
+    void decodesMultiByteCharactersSplitAcrossBuffers() {
+        String body = "[{\"new_path\":\"café😀.java\",\"diff\":\"+int é = 1;\\n\"}]";
+
+        // one byte per buffer splits every multi byte character
+        List<StreamedFileChange> files = parse(body, 1);
+
+        assertEquals(1, files.size());
+        assertEquals("café😀.java", files.get(0).getNewPath());
+        assertEquals(1, files.get(0).getCount(lineTypes.code));
+        assertEquals("+int é = 1;\n".length(), files.get(0).getDiffSize());
+    }
+
+    @Test
+    void decodesEscapes() {
+        String body = "[{\"new_path\":\"src\\/caf\\u00e9\\ud83d\\ude00.java\"," +
+                "\"diff\":\"+String s = \\\"}\\\\\\t\\\";\\n+}\\r\\n+\\u0069nt a;\"}]";
+
+        List<StreamedFileChange> files = parse(body, 1024);
+
+        assertEquals("src/café😀.java", files.get(0).getNewPath());
+        // the escaped quote does not end the diff, the escaped newlines end its lines
+        assertEquals(2, files.get(0).getCount(lineTypes.code));
+        assertEquals(1, files.get(0).getCount(lineTypes.syntax));
+        assertEquals("+String s = \"}\\\t\";\n+}\r\n+int a;".length(), files.get(0).getDiffSize());
+    }
+
+    @Test
+    void rejectsInvalidUnicodeEscapes() {
+        String body = "[{\"new_path\":\"Main.java\",\"diff\":\"+\\u00zz\"}]";
+
+        assertThrows(UncheckedIOException.class, () -> parse(body, 1024));
+    }
+
+    @Test
+    void classifiesDiffArrivingBeforeNewPath() {
+        String body = "[{\"diff\":\"+# note\\n+x = 1\\n\",\"old_path\":\"script.py\",\"new_path\":\"script.py\"}]";
+
+        List<StreamedFileChange> files = parse(body, 1024);
+
+        // classified with the python operators, the java ones would count the note as code
+        assertEquals("script.py", files.get(0).getPath());
+        assertEquals(1, files.get(0).getCount(lineTypes.comment));
+        assertEquals(1, files.get(0).getCount(lineTypes.code));
+    }
+
+    @Test
+    void classifiesEachCommitFileOnceAndGeneratedFilesNever() {
+        List<String> classifiedPaths = new ArrayList<>();
+        StreamingDiffParser recordingParser = new StreamingDiffParser(path -> {
+            classifiedPaths.add(path);
+            return path.endsWith(".py") ? PYTHON_COMMENTS : JAVA_COMMENTS;
+        }, path -> path.endsWith(".lock"), true);
+        // the field order of the commit diff endpoint, the diff comes before the paths. The lock file's hunks are out of
+        // order, indexing them would throw, so it only passes when the file is not classified
+        String lockDiff = "@@ -9 +9 @@\\n+dependency 1\\n@@ -1 +1 @@\\n+dependency 2\\n";
+        String body = "[{\"diff\":\"" + lockDiff + "\",\"new_path\":\"yarn.lock\",\"old_path\":\"yarn.lock\"}," +
+                "{\"diff\":\"+# note\\n+x = 1\\n\",\"new_path\":\"script.py\",\"old_path\":\"script.py\"}]";
+        List<StreamedFileChange> files = new ArrayList<>();
+
+        recordingParser.parse(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body.getBytes(StandardCharsets.UTF_8))), files::add);
+
+        assertEquals(List.of("script.py"), classifiedPaths);
+        assertTrue(files.get(0).isGenerated());
+        assertEquals(0, files.get(0).getCount(lineTypes.code));
+        assertNull(files.get(0).getHunkIndex());
+        assertEquals(lockDiff.replace("\\n", "\n").length(), files.get(0).getDiffSize());
+        assertEquals(1, files.get(1).getCount(lineTypes.comment));
+        assertEquals(1, files.get(1).getCount(lineTypes.code));
+    }
+
+    @Test
+    void readsConcatenatedPagesAndSkipsOtherFields() {
+        String body = "[{\"new_path\":\"A.java\",\"a_mode\":\"100644\",\"new_file\":true,\"diff\":\"+int a;\\n\"}]\n" +
+                "[]" +
+                "[{\"new_path\":\"B.java\",\"deleted_file\":false,\"renamed\":null,\"size\":-1.5e3," +
+                "\"nested\":{\"diff\":\"+not a file\",\"list\":[1,\"two\",{}]},\"diff\":\"-int b;\\n\"}," +
+                "{\"new_path\":\"yarn.lock\",\"diff\":\"+dependency 1\\n\"}]";
+
+        List<StreamedFileChange> files = parse(body, 16);
+
+        // the nested "diff" names no path, so only the three file changes come out
+        assertEquals(List.of("A.java", "B.java", "yarn.lock"),
+                files.stream().map(StreamedFileChange::getPath).collect(Collectors.toList()));
+        assertEquals(1, files.get(1).getCount(lineTypes.removedCode));
+        StreamedFileChange lock = files.get(2);
+        assertTrue(lock.isGenerated());
+        assertEquals(0, lock.getCount(lineTypes.code));
+    }
+
+    @Test
+    void readsMergeRequestChangesObject() {
+        String body = "{\"id\":1,\"title\":\"Add \\\"main\\\"\",\"changes\":[{\"new_path\":\"Main.java\",\"diff\":\"+int a;\\n\"}]}";
+
+        List<StreamedFileChange> files = parse(body, 1024);
+
+        assertEquals(1, files.size());
+        assertEquals("Main.java", files.get(0).getPath());
+    }
+
+    @Test
+    void carriesBlockCommentsAcrossBuffers() {
+        int commentLines = 2000;
+        StringBuilder diff = new StringBuilder("+/* start\\n");
+        for (int i = 0; i < commentLines; i++) {
+            diff.append("+ comment line ").append(i).append("\\n");
+        }
+        diff.append("+ end */\\n+int a = 1;\\n");
+        String body = "[{\"new_path\":\"Main.java\",\"diff\":\"" + diff + "\"}]";
+
+        // larger than the parser's own buffer and delivered in small buffers that split lines
+        assertTrue(body.length() > 8192);
+        List<StreamedFileChange> files = parse(body, 333);
+
+        assertEquals(commentLines + 2, files.get(0).getCount(lineTypes.comment));
+        assertEquals(1, files.get(0).getCount(lineTypes.code));
+    }
+
+    @Test
+    void failsOnTruncatedResponses() {
+        List<StreamedFileChange> files = new ArrayList<>();
+
+        assertThrows(IOException.class,
+                () -> parser.parse(new StringReader("[{\"new_path\":\"Main.java\",\"diff\":\"+int a;"), files::add));
+        assertTrue(files.isEmpty());
+    }
+
+    @Test
+    void cancelsAndReleasesTheRestOfTheResponseOnFailure() {
+        int fileCount = 1000;
+        List<NettyDataBuffer> received = new ArrayList<>();
+        NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+        // one file change per buffer, released on discard like the WebClient codecs do
+        Flux<DataBuffer> body = Flux.range(0, fileCount + 1)
+                .map(i -> i == 0 ? "[" : "{\"new_path\":\"File" + i + ".java\",\"diff\":\"+int a;\"}" + (i < fileCount ? "," : "]"))
+                .map(json -> {
+                    NettyDataBuffer dataBuffer = bufferFactory.wrap(Unpooled.wrappedBuffer(json.getBytes(StandardCharsets.UTF_8)));
+                    received.add(dataBuffer);
+                    return (DataBuffer) dataBuffer;
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+
+        assertThrows(IllegalStateException.class, () -> parser.parse(body, file -> {
+            throw new IllegalStateException("consumer failed");
+        }));
+
+        assertTrue(received.size() < fileCount / 10, received.size() + " buffers were received");
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(0, received.get(i).getNativeBuffer().refCnt(), "buffer " + i + " of " + received.size());
+        }
+    }
+
+    private List<StreamedFileChange> parse(String body, int bufferSize) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> dataBuffers = new ArrayList<>();
+        for (int start = 0; start < bytes.length; start += bufferSize) {
+            dataBuffers.add(DefaultDataBufferFactory.sharedInstance.wrap(
+                    Arrays.copyOfRange(bytes, start, Math.min(start + bufferSize, bytes.length))));
+        }
+        List<StreamedFileChange> files = new ArrayList<>();
+        parser.parse(Flux.fromIterable(dataBuffers), files::add);
+        return files;
+    }
+}